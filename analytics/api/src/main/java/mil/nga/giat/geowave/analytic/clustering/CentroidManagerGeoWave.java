@@ -1,12 +1,14 @@
 package mil.nga.giat.geowave.analytic.clustering;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +41,7 @@ import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.mapreduce.GeoWaveConfiguratorBase;
+import mil.nga.giat.geowave.datastore.accumulo.mapreduce.HadoopWritableSerializationTool;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloIndexStore;
 
@@ -108,6 +111,10 @@ import com.vividsolutions.jts.geom.Point;
  *                "CentroidManagerGeoWave.Common.AccumuloConnectFactory" ->
  *                {@link BasicAccumuloOperationsFactory}
  * 
+ *                "CentroidManagerGeoWave.Centroid.SnapshotPath" -> URI of a
+ *                {@link CentroidSnapshot} read in place of the centroid table
+ *                for the batches it contains
+ * 
  * @formatter:on
  * 
  * @param <T>
@@ -132,6 +139,9 @@ public class CentroidManagerGeoWave<T> implements
 	private final AccumuloAdapterStore adapterStore;
 	private final Index index;
 
+	private String snapshotLocation = null;
+	private HadoopWritableSerializationTool serializationTool = null;
+
 	public CentroidManagerGeoWave(
 			final BasicAccumuloOperations basicAccumuloOperations,
 			final AnalyticItemWrapperFactory<T> centroidFactory,
@@ -238,6 +248,11 @@ public class CentroidManagerGeoWave<T> implements
 				this.getClass(),
 				IndexType.SPATIAL_VECTOR.getDefaultId());
 
+		snapshotLocation = context.getString(
+				CentroidParameters.Centroid.SNAPSHOT_PATH,
+				this.getClass(),
+				null);
+
 		try {
 			final String zk = context.getString(
 					GlobalParameters.Global.ZOOKEEKER,
@@ -440,11 +455,16 @@ public class CentroidManagerGeoWave<T> implements
 		@SuppressWarnings("unchecked")
 		List<AnalyticItemWrapper<T>> centroids = (List<AnalyticItemWrapper<T>>) groupToCentroid.get(gid);
 		if (centroids == null) {
-			centroids = groupID == null ? loadCentroids(
-					batchID,
-					null) : loadCentroids(
+			centroids = loadSnapshotCentroids(
 					batchID,
 					groupID);
+			if (centroids == null) {
+				centroids = groupID == null ? loadCentroids(
+						batchID,
+						null) : loadCentroids(
+						batchID,
+						groupID);
+			}
 			groupToCentroid.put(
 					gid,
 					centroids);
@@ -505,6 +525,97 @@ public class CentroidManagerGeoWave<T> implements
 
 	}
 
+	/**
+	 * Read centroids from the snapshot file, if any, rather than the centroid
+	 * table
+	 * 
+	 * @param snapshotLocation
+	 *            URI of a snapshot written by {@link #writeSnapshot}
+	 */
+	public void setSnapshotLocation(
+			final String snapshotLocation ) {
+		this.snapshotLocation = snapshotLocation;
+	}
+
+	/**
+	 * @return the centroids from the snapshot or null if the snapshot does not
+	 *         contain the batch
+	 */
+	private List<AnalyticItemWrapper<T>> loadSnapshotCentroids(
+			final String batchID,
+			final String groupID )
+			throws IOException {
+		if (snapshotLocation == null) {
+			return null;
+		}
+		final CentroidSnapshot snapshot = CentroidSnapshot.load(snapshotLocation);
+		if (!snapshot.containsBatch(batchID)) {
+			return null;
+		}
+		if (serializationTool == null) {
+			serializationTool = new HadoopWritableSerializationTool(
+					adapterStore);
+		}
+		final List<AnalyticItemWrapper<T>> centroids = new ArrayList<AnalyticItemWrapper<T>>();
+		for (final T item : snapshot.<T> getCentroids(
+				batchID,
+				groupID,
+				serializationTool,
+				getDataTypeId())) {
+			final AnalyticItemWrapper<T> centroid = centroidFactory.create(item);
+			// as with the query, the level only applies to all groups
+			if ((groupID != null) || (level <= 0) || (centroid.getZoomLevel() == level)) {
+				centroids.add(centroid);
+			}
+		}
+		return centroids;
+	}
+
+	/**
+	 * Write a snapshot of the centroids of all groups and levels of the batches
+	 */
+	public void writeSnapshot(
+			final OutputStream output,
+			final String[] batchIDs )
+			throws IOException {
+		final Map<Pair<String, String>, List<T>> groups = new LinkedHashMap<Pair<String, String>, List<T>>();
+		int count = 0;
+		for (final String batchID : batchIDs) {
+			final CloseableIterator<T> it = getRawCentroids(
+					batchID,
+					null,
+					0);
+			try {
+				while (it.hasNext()) {
+					final T item = it.next();
+					final Pair<String, String> gid = Pair.of(
+							batchID,
+							centroidFactory.create(
+									item).getGroupID());
+					List<T> group = groups.get(gid);
+					if (group == null) {
+						group = new ArrayList<T>();
+						groups.put(
+								gid,
+								group);
+					}
+					group.add(item);
+					count++;
+				}
+			}
+			finally {
+				it.close();
+			}
+		}
+		CentroidSnapshot.write(
+				output,
+				groups,
+				new HadoopWritableSerializationTool(
+						adapterStore),
+				getDataTypeId());
+		LOGGER.info("Wrote snapshot of " + count + " centroids in " + groups.size() + " groups");
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public AnalyticItemWrapper<T> getCentroid(
@@ -517,11 +628,22 @@ public class CentroidManagerGeoWave<T> implements
 						StringUtils.stringToBinary(centroidDataTypeId))));
 	}
 
-	@SuppressWarnings("unchecked")
 	protected CloseableIterator<T> getRawCentroids(
 			final String batchId,
 			final String groupID )
 			throws IOException {
+		return getRawCentroids(
+				batchId,
+				groupID,
+				level);
+	}
+
+	@SuppressWarnings("unchecked")
+	private CloseableIterator<T> getRawCentroids(
+			final String batchId,
+			final String groupID,
+			final int zoomLevel )
+			throws IOException {
 
 		final FilterFactoryImpl factory = new FilterFactoryImpl();
 		final Expression expB1 = factory.property(ClusterFeatureAttribute.BATCH_ID.attrName());
@@ -544,9 +666,9 @@ public class CentroidManagerGeoWave<T> implements
 							false),
 					batchIdFilter);
 		}
-		else if (level > 0) {
+		else if (zoomLevel > 0) {
 			final Expression exp1 = factory.property(ClusterFeatureAttribute.ZOOM_LEVEL.attrName());
-			final Expression exp2 = factory.literal(level);
+			final Expression exp2 = factory.literal(zoomLevel);
 			finalFilter = factory.and(
 					factory.equal(
 							exp1,
@@ -0,0 +1,287 @@
+package mil.nga.giat.geowave.analytic.clustering;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.datastore.accumulo.mapreduce.HadoopWritableSerializationTool;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ObjectWritable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-only copy of the centroids of one or more batches, written once by a
+ * job runner and read by its tasks in place of querying the centroid table.
+ *
+ * The file holds a magic number and format version followed by the centroids
+ * of each group: the batch ID, the group ID, the number of centroids and the
+ * length of the group in bytes, then each centroid as the
+ * {@link ObjectWritable} of its adapter. The groups are indexed when the file
+ * is opened and only decoded when requested.
+ *
+ * The snapshot last loaded is kept for the life of the JVM, so the file is
+ * read once however many centroid managers use it. A task finds the file in
+ * its working directory when it is distributed through the distributed cache
+ * with its name as the link name, and otherwise reads it from the file system.
+ *
+ * @see CentroidManagerGeoWave
+ */
+public class CentroidSnapshot
+{
+	final static Logger LOGGER = LoggerFactory.getLogger(CentroidSnapshot.class);
+
+	private static final int MAGIC = 0x43534e50;
+	private static final int FORMAT_VERSION = 1;
+
+	private static CentroidSnapshot loadedSnapshot = null;
+
+	private final String location;
+	private final ByteBuffer buffer;
+	private final Map<Pair<String, String>, Group> groups = new LinkedHashMap<Pair<String, String>, Group>();
+	private final Set<String> batchIds = new HashSet<String>();
+
+	private CentroidSnapshot(
+			final String location,
+			final ByteBuffer buffer )
+			throws IOException {
+		this.location = location;
+		this.buffer = buffer;
+		final ByteBuffer header = buffer.duplicate();
+		final DataInputStream input = new DataInputStream(
+				new ByteBufferInputStream(
+						header));
+		if (input.readInt() != MAGIC) {
+			throw new IOException(
+					location + " is not a centroid snapshot");
+		}
+		final int formatVersion = input.readInt();
+		if (formatVersion != FORMAT_VERSION) {
+			throw new IOException(
+					"Unsupported version " + formatVersion + " of centroid snapshot " + location);
+		}
+		final int groupCount = input.readInt();
+		for (int i = 0; i < groupCount; i++) {
+			final String batchId = input.readUTF();
+			final String groupId = input.readUTF();
+			final int count = input.readInt();
+			final int length = input.readInt();
+			groups.put(
+					Pair.of(
+							batchId,
+							groupId),
+					new Group(
+							header.position(),
+							length,
+							count));
+			batchIds.add(batchId);
+			header.position(header.position() + length);
+		}
+	}
+
+	/**
+	 * Load the snapshot, unless it is the snapshot already loaded by this JVM
+	 *
+	 * @param location
+	 *            the URI of the snapshot file
+	 */
+	public static synchronized CentroidSnapshot load(
+			final String location )
+			throws IOException {
+		if ((loadedSnapshot == null) || !loadedSnapshot.location.equals(location)) {
+			loadedSnapshot = new CentroidSnapshot(
+					location,
+					read(location));
+			LOGGER.info("Loaded centroid snapshot " + location);
+		}
+		return loadedSnapshot;
+	}
+
+	private static ByteBuffer read(
+			final String location )
+			throws IOException {
+		final Path path = new Path(
+				location);
+		final File localFile = new File(
+				path.getName());
+		if (localFile.isFile()) {
+			final RandomAccessFile file = new RandomAccessFile(
+					localFile,
+					"r");
+			try {
+				return file.getChannel().map(
+						MapMode.READ_ONLY,
+						0,
+						file.length());
+			}
+			finally {
+				file.close();
+			}
+		}
+		final FileSystem fs = path.getFileSystem(new Configuration());
+		final byte[] bytes = new byte[(int) fs.getFileStatus(
+				path).getLen()];
+		final FSDataInputStream input = fs.open(path);
+		try {
+			input.readFully(bytes);
+		}
+		finally {
+			input.close();
+		}
+		return ByteBuffer.wrap(bytes);
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public boolean containsBatch(
+			final String batchId ) {
+		return batchIds.contains(batchId);
+	}
+
+	/**
+	 * @param groupId
+	 *            the group of the centroids or null for all groups of the batch
+	 * @return the centroids of the batch and group
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getCentroids(
+			final String batchId,
+			final String groupId,
+			final HadoopWritableSerializationTool serializationTool,
+			final ByteArrayId adapterId )
+			throws IOException {
+		final List<T> centroids = new ArrayList<T>();
+		for (final Map.Entry<Pair<String, String>, Group> entry : groups.entrySet()) {
+			if (!entry.getKey().getLeft().equals(
+					batchId) || ((groupId != null) && !entry.getKey().getRight().equals(
+					groupId))) {
+				continue;
+			}
+			final Group group = entry.getValue();
+			final ByteBuffer groupBuffer = buffer.duplicate();
+			groupBuffer.position(group.offset);
+			groupBuffer.limit(group.offset + group.length);
+			final DataInputStream input = new DataInputStream(
+					new ByteBufferInputStream(
+							groupBuffer));
+			for (int i = 0; i < group.count; i++) {
+				final ObjectWritable writable = new ObjectWritable();
+				writable.readFields(input);
+				centroids.add((T) serializationTool.fromWritable(
+						adapterId,
+						writable));
+			}
+		}
+		return centroids;
+	}
+
+	/**
+	 * @param groups
+	 *            the centroids by batch ID and group ID
+	 */
+	public static <T> void write(
+			final OutputStream output,
+			final Map<Pair<String, String>, List<T>> groups,
+			final HadoopWritableSerializationTool serializationTool,
+			final ByteArrayId adapterId )
+			throws IOException {
+		final DataOutputStream dataOutput = new DataOutputStream(
+				output);
+		dataOutput.writeInt(MAGIC);
+		dataOutput.writeInt(FORMAT_VERSION);
+		dataOutput.writeInt(groups.size());
+		final ByteArrayOutputStream groupBytes = new ByteArrayOutputStream();
+		final DataOutputStream groupOutput = new DataOutputStream(
+				groupBytes);
+		for (final Map.Entry<Pair<String, String>, List<T>> entry : groups.entrySet()) {
+			groupBytes.reset();
+			for (final T centroid : entry.getValue()) {
+				serializationTool.toWritable(
+						adapterId,
+						centroid).write(
+						groupOutput);
+			}
+			groupOutput.flush();
+			dataOutput.writeUTF(entry.getKey().getLeft());
+			dataOutput.writeUTF(entry.getKey().getRight() == null ? "" : entry.getKey().getRight());
+			dataOutput.writeInt(entry.getValue().size());
+			dataOutput.writeInt(groupBytes.size());
+			groupBytes.writeTo(dataOutput);
+		}
+		dataOutput.flush();
+	}
+
+	private static class Group
+	{
+		private final int offset;
+		private final int length;
+		private final int count;
+
+		public Group(
+				final int offset,
+				final int length,
+				final int count ) {
+			this.offset = offset;
+			this.length = length;
+			this.count = count;
+		}
+	}
+
+	private static class ByteBufferInputStream extends
+			InputStream
+	{
+		private final ByteBuffer buffer;
+
+		public ByteBufferInputStream(
+				final ByteBuffer buffer ) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(
+				final byte[] bytes,
+				final int off,
+				final int len ) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int count = Math.min(
+					len,
+					buffer.remaining());
+			buffer.get(
+					bytes,
+					off,
+					count);
+			return count;
+		}
+	}
+}
@@ -218,6 +218,19 @@ public class ClusteringUtils
 			throws Exception {
 		return ClusteringUtils.createIndex(
 				propertyManagement.getPropertyAsString(CentroidParameters.Centroid.INDEX_ID),
+				propertyManagement);
+	}
+
+	/**
+	 * @return the index with the ID, added to the index store if it does not
+	 *         exist
+	 */
+	public static Index createIndex(
+			final String indexId,
+			final PropertyManagement propertyManagement )
+			throws Exception {
+		return ClusteringUtils.createIndex(
+				indexId,
 				propertyManagement.getPropertyAsString(GlobalParameters.Global.ZOOKEEKER),
 				propertyManagement.getPropertyAsString(GlobalParameters.Global.ACCUMULO_INSTANCE),
 				propertyManagement.getPropertyAsString(GlobalParameters.Global.ACCUMULO_USER),
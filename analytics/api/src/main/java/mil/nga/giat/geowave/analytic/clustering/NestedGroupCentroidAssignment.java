@@ -54,6 +54,10 @@ import org.apache.hadoop.conf.Configuration;
  *                -> distance function used for association of data points to
  *                centroid.
  * 
+ *                "NestedGroupCentroidAssignment.Centroid.PruneAssociations" ->
+ *                skip distances to centroids that cannot be the closest, which
+ *                requires a metric distance function.
+ * 
  * @see mil.nga.giat.geowave.analytic.clustering.CentroidManagerGeoWave
  * @formatter:on
  * 
@@ -139,7 +143,8 @@ public class NestedGroupCentroidAssignment<T>
 		CentroidParameters.fillOptions(
 				options,
 				new CentroidParameters.Centroid[] {
-					CentroidParameters.Centroid.ZOOM_LEVEL
+					CentroidParameters.Centroid.ZOOM_LEVEL,
+					CentroidParameters.Centroid.PRUNE_ASSOCIATIONS
 				});
 	}
 
@@ -168,11 +173,30 @@ public class NestedGroupCentroidAssignment<T>
 				DistanceFn.class,
 				FeatureCentroidDistanceFn.class);
 		this.associationdFunction.setDistanceFunction(distanceFunction);
+		this.associationdFunction.setPruning(Boolean.parseBoolean(wrapper.getString(
+				CentroidParameters.Centroid.PRUNE_ASSOCIATIONS,
+				NestedGroupCentroidAssignment.class,
+				Boolean.FALSE.toString())));
 		centroidManager = new CentroidManagerGeoWave<T>(
 				wrapper);
 
 	}
 
+	/**
+	 * @return the number of distances measured from items to centroids
+	 */
+	public long getComputedDistanceCount() {
+		return associationdFunction.getComputedDistanceCount();
+	}
+
+	/**
+	 * @return the number of distances from items to centroids skipped by
+	 *         pruning
+	 */
+	public long getPrunedDistanceCount() {
+		return associationdFunction.getPrunedDistanceCount();
+	}
+
 	public List<AnalyticItemWrapper<T>> getCentroidsForGroup(
 			final String groupID )
 			throws IOException {
@@ -273,6 +297,7 @@ public class NestedGroupCentroidAssignment<T>
 				new ParameterEnum[] {
 					CommonParameters.Common.DISTANCE_FUNCTION_CLASS,
 					CentroidParameters.Centroid.ZOOM_LEVEL,
+					CentroidParameters.Centroid.PRUNE_ASSOCIATIONS,
 					GlobalParameters.Global.BATCH_ID,
 					GlobalParameters.Global.PARENT_BATCH_ID
 				});
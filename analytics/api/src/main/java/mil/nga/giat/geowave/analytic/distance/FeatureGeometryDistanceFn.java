@@ -39,7 +39,11 @@ public class FeatureGeometryDistanceFn implements
 		this.coordinateDistanceFunction = coordinateDistanceFunction;
 	}
 
-	private Geometry getGeometry(
+	/**
+	 * @return the first geometry attribute of the feature, which is the
+	 *         geometry distances are measured from
+	 */
+	public Geometry getGeometry(
 			final SimpleFeature x ) {
 		for (final Object attr : x.getAttributes()) {
 			if (attr instanceof Geometry) {
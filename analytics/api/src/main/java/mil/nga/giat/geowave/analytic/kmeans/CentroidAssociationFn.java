@@ -1,5 +1,9 @@
 package mil.nga.giat.geowave.analytic.kmeans;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import mil.nga.giat.geowave.analytic.AnalyticItemWrapper;
 import mil.nga.giat.geowave.analytic.clustering.CentroidPairing;
 import mil.nga.giat.geowave.analytic.distance.DistanceFn;
@@ -8,10 +12,35 @@ import mil.nga.giat.geowave.analytic.distance.DistanceFn;
  * Compute the distance of a points to the closest centroid, providing the
  * resulting distance using a provided distance function.
  * 
+ * With pruning enabled, distances to centroids that cannot be closer than the
+ * closest centroid found so far are skipped. For a metric distance function,
+ * a centroid c is no closer to a point x than a centroid b if d(b,c) >=
+ * 2d(x,b), since d(x,c) >= d(b,c) - d(x,b) >= d(x,b). The distances between
+ * the centroids of a list are computed once and cached by the identity of the
+ * list, so pruning pays off when the same list of centroids is used for many
+ * points, as the centroid managers do; the list must not be modified once
+ * used. The associations are the same as without pruning.
+ * 
  */
 public class CentroidAssociationFn<T>
 {
+	/**
+	 * Larger lists of centroids are scanned in full
+	 */
+	public static final int MAX_PRUNED_TARGET_SIZE = 2048;
+	private static final int MAX_CACHED_TARGET_SETS = 64;
+	/**
+	 * The distances cached for all lists together are bounded to those of a
+	 * single list of the largest pruned size, 32MB
+	 */
+	private static final long MAX_CACHED_DISTANCES = (long) MAX_PRUNED_TARGET_SIZE * MAX_PRUNED_TARGET_SIZE;
+
 	private DistanceFn<T> distanceFunction;
+	private boolean pruning = false;
+	private final Map<List<AnalyticItemWrapper<T>>, double[]> halfDistancesCache = new IdentityHashMap<List<AnalyticItemWrapper<T>>, double[]>();
+	private long cachedDistanceCount = 0;
+	private long computedDistanceCount = 0;
+	private long prunedDistanceCount = 0;
 
 	public DistanceFn<T> getDistanceFunction() {
 		return distanceFunction;
@@ -20,12 +49,91 @@ public class CentroidAssociationFn<T>
 	public void setDistanceFunction(
 			final DistanceFn<T> distanceFunction ) {
 		this.distanceFunction = distanceFunction;
+		clearHalfDistances();
+	}
+
+	public boolean isPruning() {
+		return pruning;
+	}
+
+	/**
+	 * @param pruning
+	 *            skip distances to centroids that cannot be the closest; the
+	 *            distance function must be a metric
+	 */
+	public void setPruning(
+			final boolean pruning ) {
+		this.pruning = pruning;
+	}
+
+	/**
+	 * @return the number of distances measured from points to centroids
+	 */
+	public long getComputedDistanceCount() {
+		return computedDistanceCount;
+	}
+
+	/**
+	 * @return the number of distances from points to centroids skipped by
+	 *         pruning
+	 */
+	public long getPrunedDistanceCount() {
+		return prunedDistanceCount;
+	}
+
+	/**
+	 * Use distances between centroids computed elsewhere, such as when several
+	 * association functions share the same list of centroids.
+	 * 
+	 * @param halfDistances
+	 *            as returned by {@link #computeHalfDistances}; distances of a
+	 *            list larger than {@link #MAX_PRUNED_TARGET_SIZE} are not
+	 *            cached
+	 */
+	public void setHalfDistances(
+			final List<AnalyticItemWrapper<T>> targetSet,
+			final double[] halfDistances ) {
+		cacheHalfDistances(
+				targetSet,
+				halfDistances);
+	}
+
+	/**
+	 * @return half of the distance between each pair of centroids, in row
+	 *         major order
+	 */
+	public static <T> double[] computeHalfDistances(
+			final List<AnalyticItemWrapper<T>> targetSet,
+			final DistanceFn<T> distanceFunction ) {
+		final int size = targetSet.size();
+		final double[] halfDistances = new double[size * size];
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++) {
+				final double halfDistance = distanceFunction.measure(
+						targetSet.get(
+								i).getWrappedItem(),
+						targetSet.get(
+								j).getWrappedItem()) / 2.0;
+				halfDistances[(i * size) + j] = halfDistance;
+				halfDistances[(j * size) + i] = halfDistance;
+			}
+		}
+		return halfDistances;
 	}
 
 	public double compute(
 			final AnalyticItemWrapper<T> point,
 			final Iterable<AnalyticItemWrapper<T>> targetSet,
 			final AssociationNotification<T> associationNotification ) {
+		if (pruning && (targetSet instanceof List)) {
+			final List<AnalyticItemWrapper<T>> targets = (List<AnalyticItemWrapper<T>>) targetSet;
+			if (targets.size() <= MAX_PRUNED_TARGET_SIZE) {
+				return computePruned(
+						point,
+						targets,
+						associationNotification);
+			}
+		}
 		final CentroidPairing<T> pairing = new CentroidPairing<T>(
 				null,
 				point,
@@ -34,6 +142,7 @@ public class CentroidAssociationFn<T>
 			final double distance = distanceFunction.measure(
 					point.getWrappedItem(),
 					y.getWrappedItem());
+			computedDistanceCount++;
 			if (distance < pairing.getDistance()) {
 				pairing.setDistance(distance);
 				pairing.setCentroid(y);
@@ -43,6 +152,69 @@ public class CentroidAssociationFn<T>
 		return pairing.getDistance();
 	}
 
+	private double computePruned(
+			final AnalyticItemWrapper<T> point,
+			final List<AnalyticItemWrapper<T>> targets,
+			final AssociationNotification<T> associationNotification ) {
+		double[] halfDistances = halfDistancesCache.get(targets);
+		if (halfDistances == null) {
+			halfDistances = computeHalfDistances(
+					targets,
+					distanceFunction);
+			cacheHalfDistances(
+					targets,
+					halfDistances);
+		}
+		final int size = targets.size();
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < size; i++) {
+			if ((best >= 0) && (halfDistances[(best * size) + i] >= bestDistance)) {
+				prunedDistanceCount++;
+				continue;
+			}
+			final double distance = distanceFunction.measure(
+					point.getWrappedItem(),
+					targets.get(
+							i).getWrappedItem());
+			computedDistanceCount++;
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = i;
+			}
+		}
+		final CentroidPairing<T> pairing = new CentroidPairing<T>(
+				best < 0 ? null : targets.get(best),
+				point,
+				bestDistance);
+		associationNotification.notify(pairing);
+		return pairing.getDistance();
+	}
+
+	private void cacheHalfDistances(
+			final List<AnalyticItemWrapper<T>> targetSet,
+			final double[] halfDistances ) {
+		if (halfDistances.length > MAX_CACHED_DISTANCES) {
+			return;
+		}
+		final double[] replaced = halfDistancesCache.remove(targetSet);
+		if (replaced != null) {
+			cachedDistanceCount -= replaced.length;
+		}
+		if ((halfDistancesCache.size() >= MAX_CACHED_TARGET_SETS) || ((cachedDistanceCount + halfDistances.length) > MAX_CACHED_DISTANCES)) {
+			clearHalfDistances();
+		}
+		halfDistancesCache.put(
+				targetSet,
+				halfDistances);
+		cachedDistanceCount += halfDistances.length;
+	}
+
+	private void clearHalfDistances() {
+		halfDistancesCache.clear();
+		cachedDistanceCount = 0;
+	}
+
 	public double compute(
 			final Iterable<AnalyticItemWrapper<T>> pointSet,
 			final Iterable<AnalyticItemWrapper<T>> targetSet,
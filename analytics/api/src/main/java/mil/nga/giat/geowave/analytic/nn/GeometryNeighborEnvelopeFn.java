@@ -0,0 +1,119 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.CoordinateEuclideanDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Locate items by the envelope of their geometry, where the distance between
+ * items is the distance between the nearest points of their geometries as
+ * measured by a coordinate distance function.
+ * 
+ * Only the Euclidean distance and the orthodromic distance in the default
+ * EPSG:4326 CRS can be bounded. For the orthodromic distance, the search
+ * envelope is the bounding box of a spherical cap with the smallest radius of
+ * curvature of the WGS84 ellipsoid, with a margin, and spans all longitudes
+ * if it reaches a pole or crosses the anti-meridian. Any other distance
+ * function can not be bounded, so every item is inspected.
+ * 
+ * @param <ITEM>
+ */
+public abstract class GeometryNeighborEnvelopeFn<ITEM> implements
+		NeighborEnvelopeFn<ITEM>
+{
+	// the meridional radius of curvature of WGS84 at the equator, in meters
+	private static final double MIN_RADIUS_OF_CURVATURE = 6335439.0;
+	private static final double SAFETY_MARGIN = 1.01;
+
+	private final DistanceFn<Coordinate> coordinateDistanceFn;
+
+	public GeometryNeighborEnvelopeFn(
+			final DistanceFn<Coordinate> coordinateDistanceFn ) {
+		this.coordinateDistanceFn = coordinateDistanceFn;
+	}
+
+	protected abstract Geometry getGeometry(
+			ITEM item );
+
+	@Override
+	public Envelope getEnvelope(
+			final ITEM item ) {
+		final Geometry geometry = getGeometry(item);
+		return (geometry == null) ? null : geometry.getEnvelopeInternal();
+	}
+
+	@Override
+	public Envelope getSearchEnvelope(
+			final ITEM item,
+			final double maxDistance ) {
+		final Envelope envelope = getEnvelope(item);
+		if ((envelope == null) || envelope.isNull()) {
+			return null;
+		}
+		if (coordinateDistanceFn instanceof CoordinateEuclideanDistanceFn) {
+			// the third dimension only adds to the distance
+			final Envelope searchEnvelope = new Envelope(
+					envelope);
+			searchEnvelope.expandBy(maxDistance);
+			return searchEnvelope;
+		}
+		if ((coordinateDistanceFn != null) && (coordinateDistanceFn.getClass() == CoordinateCircleDistanceFn.class)) {
+			return getOrthodromicSearchEnvelope(
+					envelope,
+					maxDistance);
+		}
+		return null;
+	}
+
+	private static Envelope getOrthodromicSearchEnvelope(
+			final Envelope envelope,
+			final double maxDistance ) {
+		final double angularDistance = (maxDistance / MIN_RADIUS_OF_CURVATURE) * SAFETY_MARGIN;
+		final double latitudeDelta = Math.toDegrees(angularDistance);
+		final double minY = envelope.getMinY() - latitudeDelta;
+		final double maxY = envelope.getMaxY() + latitudeDelta;
+		if ((minY <= -90) || (maxY >= 90) || (angularDistance >= (Math.PI / 2))) {
+			return new Envelope(
+					-180,
+					180,
+					Math.max(
+							minY,
+							-90),
+					Math.min(
+							maxY,
+							90));
+		}
+		// the widest longitude span of a cap is at the latitude farthest
+		// from the equator
+		final double maxLatitude = Math.toRadians(Math.max(
+				Math.abs(envelope.getMinY()),
+				Math.abs(envelope.getMaxY())));
+		final double sinLongitudeDelta = Math.sin(angularDistance) / Math.cos(maxLatitude);
+		if (sinLongitudeDelta >= 1) {
+			return new Envelope(
+					-180,
+					180,
+					minY,
+					maxY);
+		}
+		final double longitudeDelta = Math.toDegrees(Math.asin(sinLongitudeDelta));
+		final double minX = envelope.getMinX() - longitudeDelta;
+		final double maxX = envelope.getMaxX() + longitudeDelta;
+		if ((minX < -180) || (maxX > 180)) {
+			return new Envelope(
+					-180,
+					180,
+					minY,
+					maxY);
+		}
+		return new Envelope(
+				minX,
+				maxX,
+				minY,
+				maxY);
+	}
+}
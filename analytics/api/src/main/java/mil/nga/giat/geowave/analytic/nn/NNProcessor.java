@@ -1,9 +1,11 @@
 package mil.nga.giat.geowave.analytic.nn;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,6 +18,9 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
 /**
  * 
  * This class is designed to support secondary partitioning.
@@ -32,6 +37,12 @@ import org.slf4j.LoggerFactory;
  * The loop algorithms is For each primary compare to all remaining primary and
  * all secondary data items
  * 
+ * If a neighbor envelope function is provided, the members of each large
+ * partition are loaded into an STR-tree when processing starts, and each
+ * primary is only compared to those members whose envelope intersects its
+ * search envelope. The neighbors found are the same, but the next primary to
+ * inspect is the farthest of those compared rather than the farthest of all.
+ * 
  * A powerful performance enhancing tool is the inference mechanism associated
  * with the neighborhood lists. A list can have intelligence to decide that a
  * particular neighbor can be inferred and, therefore, can be removed from the
@@ -67,12 +78,20 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 	protected final double maxDistance;
 	protected final PartitionData parentPartition;
 	private int upperBoundPerPartition = 75000;
+	private NeighborEnvelopeFn<STORE_VALUE> neighborEnvelopeFn = null;
+	private int minIndexedPartitionSize = DEFAULT_MIN_INDEXED_PARTITION_SIZE;
+
+	/**
+	 * Smaller partitions are cheaper to scan than to index
+	 */
+	public static final int DEFAULT_MIN_INDEXED_PARTITION_SIZE = 64;
 
 	/**
 	 * Run State
 	 */
 	protected ByteArrayId startingPoint;
 	protected NeighborIndex<STORE_VALUE> index;
+	protected final Map<PartitionData, STRtree> partitionIndices = new HashMap<PartitionData, STRtree>();
 
 	public NNProcessor(
 			Partitioner<Object> partitioner,
@@ -113,6 +132,8 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 			LOGGER.warn("At upper bound on partition.  Increase the bounds or condense the data.");
 		}
 		idsSet.add(itemId);
+		// an index built before this member was added would not find it
+		partitionIndices.remove(singleton);
 
 		Set<PartitionData> partitionSet = idsToPartition.get(itemId);
 		if (partitionSet == null) {
@@ -241,6 +262,7 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 		index = new NeighborIndex<STORE_VALUE>(
 				listFactory);
+		buildPartitionIndices();
 
 		double farthestDistance = 0;
 		ByteArrayId farthestNeighbor = null;
@@ -271,8 +293,19 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 					primaryId,
 					primary);
 
+			Envelope searchEnvelope = null;
+			if (!partitionIndices.isEmpty()) {
+				searchEnvelope = neighborEnvelopeFn.getSearchEnvelope(
+						primary,
+						maxDistance);
+			}
+
 			for (PartitionData pd : partition) {
-				for (ByteArrayId neighborId : partitionsToIds.get(pd)) {
+				final Set<ByteArrayId> members = partitionsToIds.get(pd);
+				for (ByteArrayId neighborId : getCandidates(
+						pd,
+						members,
+						searchEnvelope)) {
 					if (neighborId.equals(primaryId)) continue;
 					boolean isAPrimary = true;
 					STORE_VALUE neighbor = primaries.get(neighborId);
@@ -327,6 +360,95 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 	}
 
+	/**
+	 * @return the members of the partition that may be within the maximum
+	 *         distance of an item with the given search envelope
+	 */
+	@SuppressWarnings("unchecked")
+	private Collection<ByteArrayId> getCandidates(
+			final PartitionData pd,
+			final Set<ByteArrayId> members,
+			final Envelope searchEnvelope ) {
+		if (searchEnvelope == null) {
+			return members;
+		}
+		final STRtree partitionIndex = partitionIndices.get(pd);
+		if (partitionIndex == null) {
+			return members;
+		}
+		final List<ByteArrayId> candidates = partitionIndex.query(searchEnvelope);
+		// members removed since the index was built are no longer candidates
+		final Iterator<ByteArrayId> it = candidates.iterator();
+		while (it.hasNext()) {
+			if (!members.contains(it.next())) {
+				it.remove();
+			}
+		}
+		return candidates;
+	}
+
+	private void buildPartitionIndices() {
+		partitionIndices.clear();
+		if (neighborEnvelopeFn == null) {
+			return;
+		}
+		for (final Map.Entry<PartitionData, Set<ByteArrayId>> entry : partitionsToIds.entrySet()) {
+			if (entry.getValue().size() < minIndexedPartitionSize) {
+				continue;
+			}
+			final STRtree partitionIndex = new STRtree();
+			boolean locatable = true;
+			for (final ByteArrayId id : entry.getValue()) {
+				STORE_VALUE value = primaries.get(id);
+				if (value == null) {
+					value = others.get(id);
+				}
+				if (value == null) {
+					continue;
+				}
+				final Envelope envelope = neighborEnvelopeFn.getEnvelope(value);
+				if ((envelope == null) || envelope.isNull()) {
+					locatable = false;
+					break;
+				}
+				partitionIndex.insert(
+						envelope,
+						id);
+			}
+			if (locatable) {
+				partitionIndex.build();
+				partitionIndices.put(
+						entry.getKey(),
+						partitionIndex);
+			}
+		}
+		LOGGER.info("Indexed " + partitionIndices.size() + " of " + partitionsToIds.size() + " sub-partitions");
+	}
+
+	public NeighborEnvelopeFn<STORE_VALUE> getNeighborEnvelopeFn() {
+		return neighborEnvelopeFn;
+	}
+
+	/**
+	 * 
+	 * @param neighborEnvelopeFn
+	 *            locates items to spatially index large partitions, or null
+	 *            to compare every pair of members
+	 */
+	public void setNeighborEnvelopeFn(
+			NeighborEnvelopeFn<STORE_VALUE> neighborEnvelopeFn ) {
+		this.neighborEnvelopeFn = neighborEnvelopeFn;
+	}
+
+	public int getMinIndexedPartitionSize() {
+		return minIndexedPartitionSize;
+	}
+
+	public void setMinIndexedPartitionSize(
+			int minIndexedPartitionSize ) {
+		this.minIndexedPartitionSize = minIndexedPartitionSize;
+	}
+
 	public int getUpperBoundPerPartition() {
 		return upperBoundPerPartition;
 	}
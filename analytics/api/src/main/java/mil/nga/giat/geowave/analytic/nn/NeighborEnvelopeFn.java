@@ -0,0 +1,33 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Locate items in space so that the NN processor can spatially index the
+ * members of a partition and only compute the distance to those items that may
+ * be within the maximum distance, rather than to every member.
+ * 
+ * The search envelope must be conservative with respect to the distance
+ * function used by the processor: any item within the maximum distance of an
+ * item must have an envelope that intersects the item's search envelope.
+ * 
+ * @param <ITEM>
+ */
+public interface NeighborEnvelopeFn<ITEM>
+{
+	/**
+	 * @return the envelope of the item or null if the item can not be located,
+	 *         in which case its partition is not indexed
+	 */
+	public Envelope getEnvelope(
+			ITEM item );
+
+	/**
+	 * @return an envelope that intersects the envelope of every item within
+	 *         the maximum distance of the given item, or null if the neighbors
+	 *         of the item can not be bounded and must all be inspected
+	 */
+	public Envelope getSearchEnvelope(
+			ITEM item,
+			double maxDistance );
+}
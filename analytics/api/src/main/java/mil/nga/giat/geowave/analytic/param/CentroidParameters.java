@@ -29,7 +29,13 @@ public class CentroidParameters
 		WRAPPER_FACTORY_CLASS(
 				AnalyticItemWrapperFactory.class),
 		ZOOM_LEVEL(
-				Integer.class);
+				Integer.class),
+		PRUNE_ASSOCIATIONS(
+				Boolean.class),
+		DISTRIBUTE_SNAPSHOT(
+				Boolean.class),
+		SNAPSHOT_PATH(
+				String.class);
 
 		private final Class<?> baseClass;
 
@@ -118,6 +124,26 @@ public class CentroidParameters
 					"Data Type Namespace for centroid item",
 					true));
 		}
+
+		if (contains(
+				params,
+				Centroid.PRUNE_ASSOCIATIONS)) {
+			options.add(PropertyManagement.newOption(
+					Centroid.PRUNE_ASSOCIATIONS,
+					"cpa",
+					"Skip distances to centroids that cannot be the closest (requires a metric distance function)",
+					false));
+		}
+
+		if (contains(
+				params,
+				Centroid.DISTRIBUTE_SNAPSHOT)) {
+			options.add(PropertyManagement.newOption(
+					Centroid.DISTRIBUTE_SNAPSHOT,
+					"csd",
+					"Distribute the centroids to map reduce tasks as a snapshot file rather than each task querying them",
+					false));
+		}
 	}
 
 	private static boolean contains(
@@ -0,0 +1,90 @@
+package mil.nga.giat.geowave.analytic.param;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+
+import org.apache.commons.cli.Option;
+
+public class KDEParameters
+{
+	public enum KDE
+			implements
+			ParameterEnum {
+		MIN_LEVEL(
+				Integer.class),
+		MAX_LEVEL(
+				Integer.class),
+		COVERAGE_NAME(
+				String.class),
+		TILE_SIZE(
+				Integer.class);
+
+		private final Class<?> baseClass;
+
+		KDE(
+				final Class<?> baseClass ) {
+			this.baseClass = baseClass;
+		}
+
+		@Override
+		public Class<?> getBaseClass() {
+			return baseClass;
+		}
+
+		@Override
+		public Enum<?> self() {
+			return this;
+		}
+	}
+
+	public static final void fillOptions(
+			final Set<Option> options,
+			final KDE[] params ) {
+		if (contains(
+				params,
+				KDE.MIN_LEVEL)) {
+			options.add(PropertyManagement.newOption(
+					KDE.MIN_LEVEL,
+					"kmn",
+					"Minimum level of the density grid (default 1)",
+					true));
+		}
+		if (contains(
+				params,
+				KDE.MAX_LEVEL)) {
+			options.add(PropertyManagement.newOption(
+					KDE.MAX_LEVEL,
+					"kmx",
+					"Maximum level of the density grid (default 25)",
+					true));
+		}
+		if (contains(
+				params,
+				KDE.COVERAGE_NAME)) {
+			options.add(PropertyManagement.newOption(
+					KDE.COVERAGE_NAME,
+					"kcn",
+					"Name of the density coverage",
+					true));
+		}
+		if (contains(
+				params,
+				KDE.TILE_SIZE)) {
+			options.add(PropertyManagement.newOption(
+					KDE.TILE_SIZE,
+					"kts",
+					"Width and height in pixels of each tile of the density coverage (default 1)",
+					true));
+		}
+	}
+
+	private static boolean contains(
+			final KDE[] params,
+			final KDE option ) {
+		return Arrays.asList(
+				params).contains(
+				option);
+	}
+}
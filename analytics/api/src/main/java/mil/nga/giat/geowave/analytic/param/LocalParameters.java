@@ -0,0 +1,57 @@
+package mil.nga.giat.geowave.analytic.param;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+
+import org.apache.commons.cli.Option;
+
+public class LocalParameters
+{
+	public enum Local
+			implements
+			ParameterEnum {
+		THREADS(
+				Integer.class);
+
+		private final Class<?> baseClass;
+
+		Local(
+				final Class<?> baseClass ) {
+			this.baseClass = baseClass;
+		}
+
+		@Override
+		public Class<?> getBaseClass() {
+			return baseClass;
+		}
+
+		@Override
+		public Enum<?> self() {
+			return this;
+		}
+	}
+
+	public static final void fillOptions(
+			final Set<Option> options,
+			final Local[] params ) {
+		if (contains(
+				params,
+				Local.THREADS)) {
+			options.add(PropertyManagement.newOption(
+					Local.THREADS,
+					"lt",
+					"Number of threads used to run the analytic locally (default is the number of processors)",
+					true));
+		}
+	}
+
+	private static boolean contains(
+			final Local[] params,
+			final Local option ) {
+		return Arrays.asList(
+				params).contains(
+				option);
+	}
+}
@@ -1,8 +1,11 @@
 package mil.nga.giat.geowave.analytic.clustering;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
 
@@ -252,4 +255,165 @@ public class CentroidManagerTest
 		});
 
 	}
+
+	@Test
+	public void testSnapshot()
+			throws AccumuloException,
+			AccumuloSecurityException,
+			IOException {
+		final MockInstance mockDataInstance = new MockInstance(
+				"snapshot");
+		final Connector mockDataConnector = mockDataInstance.getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+
+		final BasicAccumuloOperations dataOps = new BasicAccumuloOperations(
+				mockDataConnector);
+
+		final SimpleFeatureType ftype = AnalyticFeature.createGeometryFeatureAdapter(
+				"centroid",
+				new String[] {
+					"extra1"
+				},
+				BasicFeatureTypes.DEFAULT_NAMESPACE,
+				ClusteringUtils.CLUSTERING_CRS).getType();
+		final GeometryFactory factory = new GeometryFactory();
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final FeatureDataAdapter adapter = new FeatureDataAdapter(
+				ftype);
+		final AccumuloDataStore dataStore = new AccumuloDataStore(
+				dataOps);
+
+		final String[][] centroidSpecs = new String[][] {
+			{
+				"s1",
+				"123",
+				"g1",
+				"1"
+			},
+			{
+				"s1",
+				"231",
+				"g1",
+				"1"
+			},
+			{
+				"s1",
+				"321",
+				"g2",
+				"1"
+			},
+			{
+				"s1",
+				"132",
+				"g2",
+				"2"
+			},
+			{
+				"s2",
+				"312",
+				"g2",
+				"1"
+			}
+		};
+		for (final String[] centroidSpec : centroidSpecs) {
+			dataStore.ingest(
+					adapter,
+					index,
+					AnalyticFeature.createGeometryFeature(
+							ftype,
+							centroidSpec[0],
+							centroidSpec[1],
+							"fred",
+							centroidSpec[2],
+							20.30203,
+							factory.createPoint(new Coordinate(
+									02.33,
+									0.23)),
+							new String[] {
+								"extra1"
+							},
+							new double[] {
+								0.022
+							},
+							Integer.parseInt(centroidSpec[3]),
+							1,
+							0));
+		}
+
+		final CentroidManagerGeoWave<SimpleFeature> writer = new CentroidManagerGeoWave<SimpleFeature>(
+				dataOps,
+				new SimpleFeatureItemWrapperFactory(),
+				StringUtils.stringFromBinary(adapter.getAdapterId().getBytes()),
+				StringUtils.stringFromBinary(index.getId().getBytes()),
+				"s1",
+				1);
+		final File snapshotFile = File.createTempFile(
+				"centroids",
+				".snapshot");
+		snapshotFile.deleteOnExit();
+		final FileOutputStream output = new FileOutputStream(
+				snapshotFile);
+		try {
+			writer.writeSnapshot(
+					output,
+					new String[] {
+						"s1"
+					});
+		}
+		finally {
+			output.close();
+		}
+
+		// changes to the table after the snapshot are not seen for the
+		// batches in the snapshot
+		writer.delete(new String[] {
+			"123"
+		});
+
+		final CentroidManagerGeoWave<SimpleFeature> mananger = new CentroidManagerGeoWave<SimpleFeature>(
+				dataOps,
+				new SimpleFeatureItemWrapperFactory(),
+				StringUtils.stringFromBinary(adapter.getAdapterId().getBytes()),
+				StringUtils.stringFromBinary(index.getId().getBytes()),
+				"s1",
+				1);
+		mananger.setSnapshotLocation(snapshotFile.toURI().toString());
+
+		List<AnalyticItemWrapper<SimpleFeature>> centroids = mananger.getCentroidsForGroup("g1");
+		assertEquals(
+				2,
+				centroids.size());
+		assertEquals(
+				0.022,
+				(Double) centroids.get(
+						0).getWrappedItem().getAttribute(
+						"extra1"),
+				0.001);
+		// the snapshot is read once for each group
+		assertSame(
+				centroids,
+				mananger.getCentroidsForGroup("g1"));
+		// the level applies to all groups, but not to a single group
+		assertEquals(
+				3,
+				mananger.getCentroidsForGroup(
+						null).size());
+		assertEquals(
+				2,
+				mananger.getCentroidsForGroup(
+						"g2").size());
+		// a batch not in the snapshot is queried from the table
+		centroids = mananger.getCentroidsForGroup(
+				"s2",
+				"g2");
+		assertEquals(
+				1,
+				centroids.size());
+		assertEquals(
+				"312",
+				centroids.get(
+						0).getID());
+	}
 }
@@ -1,8 +1,10 @@
 package mil.nga.giat.geowave.analytic.kmeans;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import mil.nga.giat.geowave.analytic.AnalyticItemWrapper;
@@ -125,4 +127,87 @@ public class CentroidAssociationFnTest
 				0.0001);
 	}
 
+	@Test
+	public void testPruning() {
+		final DistanceFn<Long> distanceFn = new DistanceFn<Long>() {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public double measure(
+					final Long x,
+					final Long y ) {
+				return Math.abs(x.longValue() - y.longValue());
+			}
+		};
+		final CentroidAssociationFn<Long> fn = new CentroidAssociationFn<Long>();
+		fn.setDistanceFunction(distanceFn);
+		final CentroidAssociationFn<Long> prunedFn = new CentroidAssociationFn<Long>();
+		prunedFn.setDistanceFunction(distanceFn);
+		prunedFn.setPruning(true);
+
+		final Random random = new Random(
+				3);
+		final List<AnalyticItemWrapper<Long>> centroidSet = new ArrayList<AnalyticItemWrapper<Long>>();
+		for (int i = 0; i < 50; i++) {
+			centroidSet.add(new LongCentroid(
+					random.nextInt(10000),
+					"",
+					0));
+		}
+		final List<AnalyticItemWrapper<Long>> dataSet = new ArrayList<AnalyticItemWrapper<Long>>();
+		for (int i = 0; i < 1000; i++) {
+			dataSet.add(new LongCentroid(
+					random.nextInt(10000),
+					"",
+					0));
+		}
+
+		final List<CentroidPairing<Long>> pairings = new ArrayList<CentroidPairing<Long>>();
+		final double cost = fn.compute(
+				dataSet,
+				centroidSet,
+				new AssociationNotification<Long>() {
+
+					@Override
+					public void notify(
+							final CentroidPairing<Long> pairing ) {
+						pairings.add(pairing);
+					}
+				});
+		final List<CentroidPairing<Long>> prunedPairings = new ArrayList<CentroidPairing<Long>>();
+		final double prunedCost = prunedFn.compute(
+				dataSet,
+				centroidSet,
+				new AssociationNotification<Long>() {
+
+					@Override
+					public void notify(
+							final CentroidPairing<Long> pairing ) {
+						prunedPairings.add(pairing);
+					}
+				});
+
+		// pruning picks the same centroids with fewer distances
+		Assert.assertEquals(
+				pairings,
+				prunedPairings);
+		Assert.assertEquals(
+				cost,
+				prunedCost,
+				0.0001);
+		Assert.assertEquals(
+				50000,
+				fn.getComputedDistanceCount());
+		Assert.assertEquals(
+				0,
+				fn.getPrunedDistanceCount());
+		Assert.assertEquals(
+				50000,
+				prunedFn.getComputedDistanceCount() + prunedFn.getPrunedDistanceCount());
+		Assert.assertTrue(prunedFn.getPrunedDistanceCount() > prunedFn.getComputedDistanceCount());
+	}
+
 }
@@ -5,10 +5,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
 
 import junit.framework.Assert;
@@ -24,6 +26,10 @@ import org.apache.hadoop.conf.Configuration;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vividsolutions.jts.geom.Envelope;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assert.assertNotNull;
@@ -75,6 +81,11 @@ public class NNProcessorTest
 	}
 
 	NNProcessor<Integer, Integer> buildProcessor() {
+		return buildProcessor(300);
+	}
+
+	NNProcessor<Integer, Integer> buildProcessor(
+			final int partitionWidth ) {
 		return new NNProcessor<Integer, Integer>(
 				new Partitioner<Object>() {
 
@@ -87,7 +98,9 @@ public class NNProcessorTest
 					public List<mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData> getCubeIdentifiers(
 							Object entry ) {
 						return Collections.singletonList(new PartitionData(
-								NNProcessorTest.partition((Integer) entry),
+								NNProcessorTest.partition(
+										(Integer) entry,
+										partitionWidth),
 								true));
 					}
 
@@ -249,6 +262,99 @@ public class NNProcessorTest
 				});
 	}
 
+	private Map<Integer, Set<Integer>> findNeighbors(
+			final NNProcessor<Integer, Integer> processor,
+			final List<Integer> values )
+			throws IOException,
+			InterruptedException {
+		for (Integer v : values) {
+			addToProcess(
+					processor,
+					v);
+		}
+		final Map<Integer, Set<Integer>> neighbors = new HashMap<Integer, Set<Integer>>();
+		processor.process(
+				new NeighborListFactory<Integer>() {
+
+					@Override
+					public NeighborList<Integer> buildNeighborList(
+							ByteArrayId cnterId,
+							Integer center ) {
+						return new DefaultNeighborList<Integer>();
+					}
+
+				},
+				new CompleteNotifier<Integer>() {
+
+					@Override
+					public void complete(
+							ByteArrayId id,
+							Integer value,
+							NeighborList<Integer> list )
+							throws IOException,
+							InterruptedException {
+						final Set<Integer> neighborSet = new HashSet<Integer>();
+						for (Entry<ByteArrayId, Integer> neighbor : list) {
+							neighborSet.add(neighbor.getValue());
+						}
+						assertNull(neighbors.put(
+								value,
+								neighborSet));
+					}
+				});
+		return neighbors;
+	}
+
+	@Test
+	public void testIndexedPartition()
+			throws IOException,
+			InterruptedException {
+		final Random random = new Random(
+				7);
+		final Set<Integer> values = new HashSet<Integer>();
+		while (values.size() < 2000) {
+			values.add(random.nextInt(100000));
+		}
+		final List<Integer> valueList = new ArrayList<Integer>(
+				values);
+
+		final Map<Integer, Set<Integer>> expectedNeighbors = findNeighbors(
+				buildProcessor(Integer.MAX_VALUE),
+				valueList);
+
+		final NNProcessor<Integer, Integer> indexedProcessor = buildProcessor(Integer.MAX_VALUE);
+		indexedProcessor.setNeighborEnvelopeFn(new NeighborEnvelopeFn<Integer>() {
+			@Override
+			public Envelope getEnvelope(
+					Integer item ) {
+				return new Envelope(
+						item,
+						item,
+						0,
+						0);
+			}
+
+			@Override
+			public Envelope getSearchEnvelope(
+					Integer item,
+					double maxDistance ) {
+				return new Envelope(
+						item - maxDistance,
+						item + maxDistance,
+						0,
+						0);
+			}
+		});
+		assertEquals(
+				expectedNeighbors,
+				findNeighbors(
+						indexedProcessor,
+						valueList));
+		assertEquals(
+				values.size(),
+				expectedNeighbors.size());
+	}
+
 	private void runProcess(
 			NNProcessor<Integer, Integer> processor,
 			CompleteNotifier<Integer> notifier )
@@ -296,9 +402,10 @@ public class NNProcessorTest
 	}
 
 	private static ByteArrayId partition(
-			Integer v ) {
+			Integer v,
+			int partitionWidth ) {
 		return new ByteArrayId(
-				Integer.toString((v.intValue() / 300)));
+				Integer.toString((v.intValue() / partitionWidth)));
 	}
 
 	private void addToProcess(
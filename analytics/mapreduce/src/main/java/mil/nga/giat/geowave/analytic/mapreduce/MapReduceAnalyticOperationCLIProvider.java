@@ -5,6 +5,10 @@ import mil.nga.giat.geowave.analytic.AnalyticOperationCategory;
 import mil.nga.giat.geowave.analytic.mapreduce.clustering.runner.MultiLevelJumpKMeansClusteringJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.clustering.runner.MultiLevelKMeansClusteringJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.dbscan.DBScanIterationsJobRunner;
+import mil.nga.giat.geowave.analytic.mapreduce.local.LocalDBScanJobRunner;
+import mil.nga.giat.geowave.analytic.mapreduce.local.LocalKDEJobRunner;
+import mil.nga.giat.geowave.analytic.mapreduce.local.LocalKMeansJobRunner;
+import mil.nga.giat.geowave.analytic.mapreduce.local.LocalNNJobRunner;
 import mil.nga.giat.geowave.analytic.mapreduce.nn.GeoWaveExtractNNJobRunner;
 import mil.nga.giat.geowave.core.cli.CLIOperation;
 import mil.nga.giat.geowave.core.cli.CLIOperationCategory;
@@ -37,7 +41,27 @@ public class MapReduceAnalyticOperationCLIProvider implements
 				"kmeansjump",
 				"KMeans Clustering using Jump Method",
 				new AnalyticCLIOperationDriver(
-						new MultiLevelJumpKMeansClusteringJobRunner()))
+						new MultiLevelJumpKMeansClusteringJobRunner())),
+		new CLIOperation(
+				"nnlocal",
+				"Nearest Neighbors run within this process",
+				new AnalyticCLIOperationDriver(
+						new LocalNNJobRunner())),
+		new CLIOperation(
+				"kmeanslocal",
+				"KMeans Clustering run within this process",
+				new AnalyticCLIOperationDriver(
+						new LocalKMeansJobRunner())),
+		new CLIOperation(
+				"dbscanlocal",
+				"Density Based Scanner run within this process",
+				new AnalyticCLIOperationDriver(
+						new LocalDBScanJobRunner())),
+		new CLIOperation(
+				"kdelocal",
+				"Kernel Density Estimate run within this process",
+				new AnalyticCLIOperationDriver(
+						new LocalKDEJobRunner()))
 	};
 
 	private static final CLIOperationCategory CATEGORY = new AnalyticOperationCategory();
@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.analytic.mapreduce.dbscan;
 
 import java.util.Map;
 
+import mil.nga.giat.geowave.analytic.GeometryHullTool;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
 import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
@@ -33,11 +34,29 @@ public class ClusterUnionList extends
 			final ClusterItem center,
 			final NeighborListFactory<ClusterItem> factory,
 			final Map<ByteArrayId, Cluster> index ) {
+		this(
+				centerId,
+				center,
+				factory,
+				index,
+				DBScanClusterList.getHullTool(),
+				DBScanClusterList.getMergeSize());
+	}
+
+	public ClusterUnionList(
+			final ByteArrayId centerId,
+			final ClusterItem center,
+			final NeighborListFactory<ClusterItem> factory,
+			final Map<ByteArrayId, Cluster> index,
+			final GeometryHullTool connectGeometryTool,
+			final int mergeSize ) {
 		super(
 				center.getGeometry(),
 				(int) center.getCount(),
 				centerId,
-				index);
+				index,
+				connectGeometryTool,
+				mergeSize);
 	}
 
 	protected long addAndFetchCount(
@@ -68,11 +87,25 @@ public class ClusterUnionList extends
 			NeighborListFactory<ClusterItem>
 	{
 		private final Map<ByteArrayId, Cluster> index;
+		private final GeometryHullTool connectGeometryTool;
+		private final int mergeSize;
 
 		public ClusterUnionListFactory(
 				final Map<ByteArrayId, Cluster> index ) {
+			this(
+					index,
+					DBScanClusterList.getHullTool(),
+					DBScanClusterList.getMergeSize());
+		}
+
+		public ClusterUnionListFactory(
+				final Map<ByteArrayId, Cluster> index,
+				final GeometryHullTool connectGeometryTool,
+				final int mergeSize ) {
 			super();
 			this.index = index;
+			this.connectGeometryTool = connectGeometryTool;
+			this.mergeSize = mergeSize;
 		}
 
 		public NeighborList<ClusterItem> buildNeighborList(
@@ -84,7 +117,9 @@ public class ClusterUnionList extends
 						centerId,
 						center,
 						this,
-						index);
+						index,
+						connectGeometryTool,
+						mergeSize);
 			}
 			return list;
 		}
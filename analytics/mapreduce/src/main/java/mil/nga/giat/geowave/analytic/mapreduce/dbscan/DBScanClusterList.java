@@ -43,21 +43,38 @@ public abstract class DBScanClusterList implements
 	private List<ByteArrayId> ids = null;
 	private ByteArrayId id;
 
-	// global configuration...to save memory...passing this stuff around.
-	private static GeometryHullTool connectGeometryTool = new GeometryHullTool();
-	private static int mergeSize = 0;
+	// global configuration, the default for lists not given their own
+	private static GeometryHullTool defaultConnectGeometryTool = new GeometryHullTool();
+	private static int defaultMergeSize = 0;
+
+	// configuration shared by the lists of one partition
+	protected final GeometryHullTool connectGeometryTool;
+	private final int mergeSize;
 
 	// global state
 	// ID to cluster.
 	protected final Map<ByteArrayId, Cluster> index;
 
+	/**
+	 * @return the hull tool of lists not given their own
+	 */
 	public static GeometryHullTool getHullTool() {
-		return connectGeometryTool;
+		return defaultConnectGeometryTool;
 	}
 
+	/**
+	 * @return the merge size of lists not given their own
+	 */
+	public static int getMergeSize() {
+		return defaultMergeSize;
+	}
+
+	/**
+	 * Set the merge size of lists not given their own
+	 */
 	public static void setMergeSize(
 			int size ) {
-		mergeSize = size;
+		defaultMergeSize = size;
 	}
 
 	public DBScanClusterList(
@@ -65,10 +82,35 @@ public abstract class DBScanClusterList implements
 			final int itemCount,
 			final ByteArrayId centerId,
 			final Map<ByteArrayId, Cluster> index ) {
+		this(
+				clusterGeo,
+				itemCount,
+				centerId,
+				index,
+				defaultConnectGeometryTool,
+				defaultMergeSize);
+	}
+
+	/**
+	 * @param connectGeometryTool
+	 *            connects and compresses the geometries of the clusters
+	 * @param mergeSize
+	 *            the minimum size of a linked cluster that is followed to
+	 *            its own links when merging
+	 */
+	public DBScanClusterList(
+			final Geometry clusterGeo,
+			final int itemCount,
+			final ByteArrayId centerId,
+			final Map<ByteArrayId, Cluster> index,
+			final GeometryHullTool connectGeometryTool,
+			final int mergeSize ) {
 		super();
 		this.clusterGeo = clusterGeo;
 		this.itemCount = itemCount;
 		this.index = index;
+		this.connectGeometryTool = connectGeometryTool;
+		this.mergeSize = mergeSize;
 		id = centerId;
 	}
 
@@ -1,9 +1,11 @@
 package mil.nga.giat.geowave.analytic.mapreduce.dbscan;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -13,6 +15,7 @@ import mil.nga.giat.geowave.adapter.vector.FeatureWritable;
 import mil.nga.giat.geowave.analytic.AdapterWithObjectWritable;
 import mil.nga.giat.geowave.analytic.AnalyticFeature;
 import mil.nga.giat.geowave.analytic.ConfigurationWrapper;
+import mil.nga.giat.geowave.analytic.GeometryHullTool;
 import mil.nga.giat.geowave.analytic.Projection;
 import mil.nga.giat.geowave.analytic.SimpleFeatureProjection;
 import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
@@ -26,6 +29,7 @@ import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce;
 import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce.NNReducer;
 import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce.PartitionDataWritable;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfileGenerateFn;
+import mil.nga.giat.geowave.analytic.nn.GeometryNeighborEnvelopeFn;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
@@ -41,11 +45,15 @@ import mil.nga.giat.geowave.datastore.accumulo.mapreduce.input.GeoWaveInputKey;
 
 import org.apache.hadoop.io.ObjectWritable;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.util.Progressable;
 import org.geotools.feature.type.BasicFeatureTypes;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 /**
  * The approach differs from the approach commonly documented (e.g.
  * https://en.wikipedia.org/wiki/DBSCAN). This approach does not maintain a
@@ -111,19 +119,10 @@ public class DBScanMapReduce
 						"Finish {} ",
 						primaryId);
 			}
-			if (neighbors == null) {
-				return;
-			}
-			Cluster cluster = ((ClusterNeighborList) neighbors).getCluster();
-			if (cluster == null) return;
-			if (cluster.size() < minOwners) {
-				LOGGER.trace(
-						"Invalidate {} ",
-						primaryId);
-				cluster.invalidate();
-				return;
-			}
-			cluster.finish();
+			completeCluster(
+					primaryId,
+					neighbors,
+					minOwners);
 		}
 
 		@Override
@@ -188,15 +187,11 @@ public class DBScanMapReduce
 		private boolean firstIteration = true;
 
 		protected int calculateCondensingMinimum() {
-			return Math.min(
-					Math.max(
-							minOwners,
-							200),
-					minOwners * 10);
+			return DBScanMapReduce.calculateCondensingMinimum(minOwners);
 		}
 
 		protected int calculateTossMinimum() {
-			return (minOwners - 2);
+			return DBScanMapReduce.calculateTossMinimum(minOwners);
 		}
 
 		/**
@@ -215,54 +210,14 @@ public class DBScanMapReduce
 				InterruptedException {
 			if (!this.firstIteration) return;
 
-			processor.trimSmallPartitions(calculateTossMinimum());
-			// 2.0 times minimum compression size.
-			// if compression is not likely to increase
-			// performance, then pre-processing does not buy much performance
-			if (processor.size() < calculateCondensingMinimum() * 2.0) return;
-
-			processor.process(
-					new ClusterNeighborListFactory(
-							new PreProcessSingleItemClusterListFactory(
-									index),
-							index),
-					new CompleteNotifier<ClusterItem>() {
-
-						final int condenseSize = calculateCondensingMinimum();
-						final int tossSize = calculateTossMinimum();
-
-						@Override
-						public void complete(
-								ByteArrayId id,
-								ClusterItem value,
-								NeighborList<ClusterItem> list ) {
-							Cluster cluster = ((ClusterNeighborList) list).getCluster();
-							// this basically excludes points that cannot
-							// contribute to extending the network.
-							// may be a BAD idea.
-							if (cluster.size() < tossSize) {
-								processor.remove(id);
-							}
-							// this is a condensing component
-							else if (cluster.size() > condenseSize) {
-								cluster.finish();
-								value.setGeometry(cluster.getGeometry());
-								value.setCount(list.size());
-								value.setCompressed();
-								Iterator<ByteArrayId> it = cluster.getLinkedClusters().iterator();
-								while (it.hasNext()) {
-									ByteArrayId idToRemove = it.next();
-									processor.remove(idToRemove);
-									it.remove();
-								}
-							}
-							else {
-								cluster.clear();
-							}
-							context.progress();
-						}
-					});
-			index.clear();
+			condense(
+					processor,
+					index,
+					calculateTossMinimum(),
+					calculateCondensingMinimum(),
+					DBScanClusterList.getHullTool(),
+					minOwners,
+					context);
 		}
 
 		@Override
@@ -273,45 +228,23 @@ public class DBScanMapReduce
 				throws IOException,
 				InterruptedException {
 			final HadoopWritableSerializer<SimpleFeature, FeatureWritable> serializer = outputAdapter.createWritableSerializer();
-			final Set<Cluster> processed = new HashSet<Cluster>();
-			final Iterator<Map.Entry<ByteArrayId, Cluster>> clusterIt = summary.entrySet().iterator();
-			while (clusterIt.hasNext()) {
-				final Cluster cluster = clusterIt.next().getValue();
-				clusterIt.remove();
-				if (cluster.isCompressed() && !processed.contains(cluster)) {
-					processed.add(cluster);
-					final SimpleFeature newPolygonFeature = AnalyticFeature.createGeometryFeature(
-							outputAdapter.getType(),
-							batchID,
-							UUID.randomUUID().toString(),
-							cluster.getId().getString(), // name
-							partitionData.getGroupId() != null ? partitionData.getGroupId().toString() : cluster.getId().getString(), // group
-							0.0,
-							cluster.getGeometry(),
-							new String[0],
-							new double[0],
-							zoomLevel,
-							iteration,
-							cluster.size());
-					output.set(serializer.toWritable(newPolygonFeature));
-					if (LOGGER.isTraceEnabled()) LOGGER.trace(
-							"Generating {}",
-							newPolygonFeature.toString());
-					// ShapefileTool.writeShape(
-					// cluster.getId().getString() + iteration,
-					// new File(
-					// "./target/testdb_" + cluster.getId().getString() +
-					// iteration),
-					// new Geometry[] {
-					// (Geometry) cluster.get()
-					// });
-					context.write(
-							new GeoWaveInputKey(
-									outputAdapter.getAdapterId(),
-									new ByteArrayId(
-											newPolygonFeature.getID())),
-							output);
-				}
+			for (final SimpleFeature newPolygonFeature : createHulls(
+					partitionData,
+					summary,
+					outputAdapter.getType(),
+					batchID,
+					zoomLevel,
+					iteration)) {
+				output.set(serializer.toWritable(newPolygonFeature));
+				if (LOGGER.isTraceEnabled()) LOGGER.trace(
+						"Generating {}",
+						newPolygonFeature.toString());
+				context.write(
+						new GeoWaveInputKey(
+								outputAdapter.getAdapterId(),
+								new ByteArrayId(
+										newPolygonFeature.getID())),
+						output);
 			}
 		}
 
@@ -394,6 +327,169 @@ public class DBScanMapReduce
 
 			super.distanceFn = new ClusterItemDistanceFn();
 
+			super.neighborEnvelopeFn = new GeometryNeighborEnvelopeFn<ClusterItem>(
+					((ClusterItemDistanceFn) super.distanceFn).getCoordinateDistanceFunction()) {
+				@Override
+				protected Geometry getGeometry(
+						final ClusterItem item ) {
+					return item.getGeometry();
+				}
+			};
+
+		}
+	}
+
+	/**
+	 * @return the size of a cluster above which it is condensed to a hull by
+	 *         the pre-processing step
+	 */
+	public static int calculateCondensingMinimum(
+			final int minOwners ) {
+		return Math.min(
+				Math.max(
+						minOwners,
+						200),
+				minOwners * 10);
+	}
+
+	/**
+	 * @return the size of a cluster below which its center is tossed by the
+	 *         pre-processing step
+	 */
+	public static int calculateTossMinimum(
+			final int minOwners ) {
+		return (minOwners - 2);
+	}
+
+	/**
+	 * Find the large clusters of the partition and condense them down. Find
+	 * the points that are not reachable to viable clusters and remove them.
+	 * 
+	 * @param connectGeometryTool
+	 *            connects and compresses the geometries of the clusters
+	 * @param mergeSize
+	 *            the minimum size of a linked cluster that is merged
+	 * @param progress
+	 *            told of each processed item, if not null
+	 */
+	public static void condense(
+			final NNProcessor<Object, ClusterItem> processor,
+			final Map<ByteArrayId, Cluster> index,
+			final int tossSize,
+			final int condenseSize,
+			final GeometryHullTool connectGeometryTool,
+			final int mergeSize,
+			final Progressable progress )
+			throws IOException,
+			InterruptedException {
+		processor.trimSmallPartitions(tossSize);
+		// 2.0 times minimum compression size.
+		// if compression is not likely to increase
+		// performance, then pre-processing does not buy much performance
+		if (processor.size() < condenseSize * 2.0) return;
+
+		processor.process(
+				new ClusterNeighborListFactory(
+						new PreProcessSingleItemClusterListFactory(
+								index,
+								connectGeometryTool,
+								mergeSize),
+						index),
+				new CompleteNotifier<ClusterItem>() {
+
+					@Override
+					public void complete(
+							ByteArrayId id,
+							ClusterItem value,
+							NeighborList<ClusterItem> list ) {
+						Cluster cluster = ((ClusterNeighborList) list).getCluster();
+						// this basically excludes points that cannot
+						// contribute to extending the network.
+						// may be a BAD idea.
+						if (cluster.size() < tossSize) {
+							processor.remove(id);
+						}
+						// this is a condensing component
+						else if (cluster.size() > condenseSize) {
+							cluster.finish();
+							value.setGeometry(cluster.getGeometry());
+							value.setCount(list.size());
+							value.setCompressed();
+							Iterator<ByteArrayId> it = cluster.getLinkedClusters().iterator();
+							while (it.hasNext()) {
+								ByteArrayId idToRemove = it.next();
+								processor.remove(idToRemove);
+								it.remove();
+							}
+						}
+						else {
+							cluster.clear();
+						}
+						if (progress != null) {
+							progress.progress();
+						}
+					}
+				});
+		index.clear();
+	}
+
+	/**
+	 * Invalidate the cluster of the neighbors if it is smaller than the minimum
+	 * owners, otherwise finish it
+	 */
+	public static void completeCluster(
+			final ByteArrayId primaryId,
+			final NeighborList<ClusterItem> neighbors,
+			final int minOwners ) {
+		if (neighbors == null) {
+			return;
+		}
+		Cluster cluster = ((ClusterNeighborList) neighbors).getCluster();
+		if (cluster == null) return;
+		if (cluster.size() < minOwners) {
+			LOGGER.trace(
+					"Invalidate {} ",
+					primaryId);
+			cluster.invalidate();
+			return;
+		}
+		cluster.finish();
+	}
+
+	/**
+	 * Create a hull feature for each compressed cluster of the partition,
+	 * removing every cluster from the summary
+	 */
+	public static List<SimpleFeature> createHulls(
+			final PartitionData partitionData,
+			final Map<ByteArrayId, Cluster> summary,
+			final SimpleFeatureType hullType,
+			final String batchID,
+			final int zoomLevel,
+			final int iteration ) {
+		final List<SimpleFeature> hulls = new ArrayList<SimpleFeature>();
+		final Set<Cluster> processed = new HashSet<Cluster>();
+		final Iterator<Map.Entry<ByteArrayId, Cluster>> clusterIt = summary.entrySet().iterator();
+		while (clusterIt.hasNext()) {
+			final Cluster cluster = clusterIt.next().getValue();
+			clusterIt.remove();
+			if (cluster.isCompressed() && !processed.contains(cluster)) {
+				processed.add(cluster);
+				hulls.add(AnalyticFeature.createGeometryFeature(
+						hullType,
+						batchID,
+						UUID.randomUUID().toString(),
+						cluster.getId().getString(), // name
+						partitionData.getGroupId() != null ? partitionData.getGroupId().toString() : cluster.getId().getString(), // group
+						0.0,
+						cluster.getGeometry(),
+						new String[0],
+						new double[0],
+						zoomLevel,
+						iteration,
+						cluster.size()));
+			}
 		}
+		return hulls;
 	}
 }
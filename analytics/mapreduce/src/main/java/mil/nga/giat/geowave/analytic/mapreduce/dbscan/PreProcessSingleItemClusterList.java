@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.analytic.mapreduce.dbscan;
 import java.util.Arrays;
 import java.util.Map;
 
+import mil.nga.giat.geowave.analytic.GeometryHullTool;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
 import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
@@ -31,6 +32,22 @@ public class PreProcessSingleItemClusterList extends
 				index);
 	}
 
+	public PreProcessSingleItemClusterList(
+			ByteArrayId centerId,
+			ClusterItem center,
+			NeighborListFactory<ClusterItem> factory,
+			Map<ByteArrayId, Cluster> index,
+			GeometryHullTool connectGeometryTool,
+			int mergeSize ) {
+		super(
+				centerId,
+				center,
+				factory,
+				index,
+				connectGeometryTool,
+				mergeSize);
+	}
+
 	@Override
 	protected void mergeLinks(
 			final boolean deleteNonLinks ) {
@@ -56,11 +73,25 @@ public class PreProcessSingleItemClusterList extends
 			NeighborListFactory<ClusterItem>
 	{
 		private final Map<ByteArrayId, Cluster> index;
+		private final GeometryHullTool connectGeometryTool;
+		private final int mergeSize;
 
 		public PreProcessSingleItemClusterListFactory(
 				final Map<ByteArrayId, Cluster> index ) {
+			this(
+					index,
+					DBScanClusterList.getHullTool(),
+					DBScanClusterList.getMergeSize());
+		}
+
+		public PreProcessSingleItemClusterListFactory(
+				final Map<ByteArrayId, Cluster> index,
+				final GeometryHullTool connectGeometryTool,
+				final int mergeSize ) {
 			super();
 			this.index = index;
+			this.connectGeometryTool = connectGeometryTool;
+			this.mergeSize = mergeSize;
 		}
 
 		@Override
@@ -73,7 +104,9 @@ public class PreProcessSingleItemClusterList extends
 						centerId,
 						center,
 						this,
-						index);
+						index,
+						connectGeometryTool,
+						mergeSize);
 
 			}
 			return list;
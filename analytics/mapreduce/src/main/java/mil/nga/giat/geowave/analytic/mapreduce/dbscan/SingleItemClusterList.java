@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import mil.nga.giat.geowave.analytic.GeometryHullTool;
 import mil.nga.giat.geowave.analytic.mapreduce.dbscan.ClusterItemDistanceFn.ClusterProfileContext;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
@@ -36,11 +37,29 @@ public class SingleItemClusterList extends
 			final ClusterItem center,
 			final NeighborListFactory<ClusterItem> factory,
 			final Map<ByteArrayId, Cluster> index ) {
+		this(
+				centerId,
+				center,
+				factory,
+				index,
+				DBScanClusterList.getHullTool(),
+				DBScanClusterList.getMergeSize());
+	}
+
+	public SingleItemClusterList(
+			final ByteArrayId centerId,
+			final ClusterItem center,
+			final NeighborListFactory<ClusterItem> factory,
+			final Map<ByteArrayId, Cluster> index,
+			final GeometryHullTool connectGeometryTool,
+			final int mergeSize ) {
 		super(
 				center.getGeometry() instanceof Point || center.isCompressed() ? center.getGeometry() : null,
 				(int) center.getCount(),
 				centerId,
-				index);
+				index,
+				connectGeometryTool,
+				mergeSize);
 
 		final Geometry clusterGeo = center.getGeometry();
 
@@ -150,7 +169,7 @@ public class SingleItemClusterList extends
 	protected Geometry compress() {
 		if (getClusterPoints(
 				false).size() > 0) {
-			return DBScanClusterList.getHullTool().createHullFromGeometry(
+			return connectGeometryTool.createHullFromGeometry(
 					clusterGeo,
 					clusterPoints,
 					true);
@@ -163,11 +182,25 @@ public class SingleItemClusterList extends
 			NeighborListFactory<ClusterItem>
 	{
 		private final Map<ByteArrayId, Cluster> index;
+		private final GeometryHullTool connectGeometryTool;
+		private final int mergeSize;
 
 		public SingleItemClusterListFactory(
 				final Map<ByteArrayId, Cluster> index ) {
+			this(
+					index,
+					DBScanClusterList.getHullTool(),
+					DBScanClusterList.getMergeSize());
+		}
+
+		public SingleItemClusterListFactory(
+				final Map<ByteArrayId, Cluster> index,
+				final GeometryHullTool connectGeometryTool,
+				final int mergeSize ) {
 			super();
 			this.index = index;
+			this.connectGeometryTool = connectGeometryTool;
+			this.mergeSize = mergeSize;
 		}
 
 		public NeighborList<ClusterItem> buildNeighborList(
@@ -179,7 +212,9 @@ public class SingleItemClusterList extends
 						centerId,
 						center,
 						this,
-						index);
+						index,
+						connectGeometryTool,
+						mergeSize);
 
 			}
 			return list;
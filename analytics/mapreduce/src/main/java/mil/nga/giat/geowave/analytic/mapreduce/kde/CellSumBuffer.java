@@ -0,0 +1,77 @@
+package mil.nga.giat.geowave.analytic.mapreduce.kde;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper.Context;
+
+/**
+ * Sums the weights of cells within a map task so each cell is written once
+ * rather than once for every point that touches it. The sums are kept in
+ * {@link CellSums}, and when the number of cells reaches the maximum every sum
+ * is written to the context and the sums are cleared, bounding the memory used
+ * to roughly 32 bytes per cell.
+ */
+public class CellSumBuffer
+{
+	public static final int DEFAULT_MAX_CELLS = 1 << 19;
+
+	private final Context context;
+	private final int maxCells;
+	private final LongWritable outputKey = new LongWritable();
+	private final DoubleWritable outputValue = new DoubleWritable();
+	private final CellSums sums = new CellSums();
+
+	public CellSumBuffer(
+			final Context context,
+			final int maxCells ) {
+		this.context = context;
+		this.maxCells = Math.max(
+				1,
+				maxCells);
+	}
+
+	/**
+	 * Add the weight to the sum of the cell, writing every sum to the context
+	 * if the maximum number of cells is reached
+	 */
+	public void add(
+			final long cellId,
+			final double weight )
+			throws IOException,
+			InterruptedException {
+		sums.increment(
+				cellId,
+				weight);
+		if (sums.size() >= maxCells) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write the sum of every cell to the context and clear the sums
+	 */
+	public void flush()
+			throws IOException,
+			InterruptedException {
+		if (sums.size() == 0) {
+			return;
+		}
+		for (int i = 0; i < sums.getCapacity(); i++) {
+			final double sum = sums.getSum(i);
+			if (sum != 0) {
+				outputKey.set(sums.getCellId(i));
+				outputValue.set(sum);
+				context.write(
+						outputKey,
+						outputValue);
+			}
+		}
+		sums.clear();
+	}
+
+	public int size() {
+		return sums.size();
+	}
+}
@@ -0,0 +1,132 @@
+package mil.nga.giat.geowave.analytic.mapreduce.kde;
+
+import java.util.Arrays;
+
+/**
+ * Sums the weights of cells in an open addressing hash map of primitive longs
+ * to doubles, using roughly 32 bytes per cell.
+ *
+ * A slot is empty when its sum is zero, which is never the sum of a cell
+ * because only positive weights are added. The sums are read by slot, from 0
+ * to {@link #getCapacity()} - 1, skipping the slots whose sum is zero.
+ */
+public class CellSums implements
+		CellCounter
+{
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	private long[] cellIds;
+	private double[] sums;
+	private int mask;
+	private int size;
+
+	public CellSums() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Add the weight to the sum of the cell, ignoring weights that are not
+	 * positive
+	 */
+	@Override
+	public void increment(
+			final long cellId,
+			final double weight ) {
+		if (!(weight > 0)) {
+			return;
+		}
+		int slot = slot(cellId);
+		while (sums[slot] != 0) {
+			if (cellIds[slot] == cellId) {
+				sums[slot] += weight;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		cellIds[slot] = cellId;
+		sums[slot] = weight;
+		size++;
+		if ((size * 2) > sums.length) {
+			rehash(sums.length * 2);
+		}
+	}
+
+	/**
+	 * Add the sums of the other cells to these sums
+	 */
+	public void incrementAll(
+			final CellSums other ) {
+		for (int i = 0; i < other.sums.length; i++) {
+			if (other.sums[i] != 0) {
+				increment(
+						other.cellIds[i],
+						other.sums[i]);
+			}
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(
+				sums,
+				0);
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return sums.length;
+	}
+
+	public long getCellId(
+			final int slot ) {
+		return cellIds[slot];
+	}
+
+	/**
+	 * @return the sum of the cell in the slot, or zero if the slot is empty
+	 */
+	public double getSum(
+			final int slot ) {
+		return sums[slot];
+	}
+
+	private int slot(
+			final long cellId ) {
+		// the finalizer of murmur3 spreads the sequential cell IDs of a level
+		// over the table
+		long h = cellId;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h & mask;
+	}
+
+	private void allocate(
+			final int capacity ) {
+		cellIds = new long[capacity];
+		sums = new double[capacity];
+		mask = capacity - 1;
+	}
+
+	private void rehash(
+			final int capacity ) {
+		final long[] oldCellIds = cellIds;
+		final double[] oldSums = sums;
+		allocate(capacity);
+		for (int i = 0; i < oldSums.length; i++) {
+			if (oldSums[i] != 0) {
+				int slot = slot(oldCellIds[i]);
+				while (sums[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				cellIds[slot] = oldCellIds[i];
+				sums[slot] = oldSums[i];
+			}
+		}
+	}
+}
@@ -29,6 +29,7 @@ public class GaussianCellMapper extends
 	protected int tileSize;
 	protected Filter filter;
 	protected Map<Integer, LevelStore> levelStoreMap;
+	protected CellSumBuffer cellSums;
 
 	@Override
 	protected void setup(
@@ -57,6 +58,15 @@ public class GaussianCellMapper extends
 						e);
 			}
 		}
+		if (context.getConfiguration().getBoolean(
+				KDEJobRunner.IN_MAPPER_COMBINING_KEY,
+				true)) {
+			cellSums = new CellSumBuffer(
+					context,
+					context.getConfiguration().getInt(
+							KDEJobRunner.MAX_CELL_SUMS_KEY,
+							CellSumBuffer.DEFAULT_MAX_CELLS));
+		}
 		levelStoreMap = new HashMap<Integer, LevelStore>();
 
 		for (int level = maxLevel; level >= minLevel; level--) {
@@ -89,7 +99,8 @@ public class GaussianCellMapper extends
 								context,
 								level,
 								minLevel,
-								maxLevel)));
+								maxLevel,
+								cellSums)));
 	}
 
 	@Override
@@ -120,6 +131,17 @@ public class GaussianCellMapper extends
 		}
 	}
 
+	@Override
+	protected void cleanup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		if (cellSums != null) {
+			cellSums.flush();
+		}
+		super.cleanup(context);
+	}
+
 	protected void incrementLevelStore(
 			final int level,
 			final Point pt,
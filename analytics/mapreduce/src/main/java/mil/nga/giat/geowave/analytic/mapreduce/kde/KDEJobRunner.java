@@ -60,6 +60,14 @@ public class KDEJobRunner extends
 	public static final String MIN_LEVEL_KEY = "MIN_LEVEL";
 	public static final String COVERAGE_NAME_KEY = "COVERAGE_NAME";
 	public static final String TILE_SIZE_KEY = "TILE_SIZE";
+	/**
+	 * Whether the mapper sums cell weights before writing them, true by default
+	 */
+	public static final String IN_MAPPER_COMBINING_KEY = "IN_MAPPER_COMBINING";
+	/**
+	 * The number of cells the mapper sums before writing them all
+	 */
+	public static final String MAX_CELL_SUMS_KEY = "MAX_CELL_SUMS";
 	protected String user;
 	protected String password;
 	protected String instance;
@@ -14,13 +14,34 @@ public class MapContextCellCounter implements
 	private final long maxLevel;
 	private final long numLevels;
 	private final long level;
+	private final CellSumBuffer cellSums;
 
 	public MapContextCellCounter(
 			final Context context,
 			final long level,
 			final long minLevel,
 			final long maxLevel ) {
+		this(
+				context,
+				level,
+				minLevel,
+				maxLevel,
+				null);
+	}
+
+	/**
+	 * @param cellSums
+	 *            if not null the weights are summed in the buffer rather than
+	 *            written to the context for every increment
+	 */
+	public MapContextCellCounter(
+			final Context context,
+			final long level,
+			final long minLevel,
+			final long maxLevel,
+			final CellSumBuffer cellSums ) {
 		this.context = context;
+		this.cellSums = cellSums;
 		this.level = level;
 		this.minLevel = minLevel;
 		this.maxLevel = maxLevel;
@@ -33,6 +54,12 @@ public class MapContextCellCounter implements
 			final double weight ) {
 		if (weight > 0) {
 			try {
+				if (cellSums != null) {
+					cellSums.add(
+							getCellId(cellId),
+							weight);
+					return;
+				}
 				context.write(
 						new LongWritable(
 								getCellId(cellId)),
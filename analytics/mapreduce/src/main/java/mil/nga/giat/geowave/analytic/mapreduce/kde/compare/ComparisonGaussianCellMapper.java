@@ -51,7 +51,8 @@ public class ComparisonGaussianCellMapper extends
 								context,
 								level,
 								minLevel,
-								maxLevel)));
+								maxLevel,
+								cellSums)));
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package mil.nga.giat.geowave.analytic.mapreduce.kde.compare;
 
+import mil.nga.giat.geowave.analytic.mapreduce.kde.CellSumBuffer;
 import mil.nga.giat.geowave.analytic.mapreduce.kde.MapContextCellCounter;
 
 import org.apache.hadoop.mapreduce.Mapper.Context;
@@ -20,6 +21,20 @@ public class NegativeCellIdCounter extends
 				maxLevel);
 	}
 
+	public NegativeCellIdCounter(
+			final Context context,
+			final long level,
+			final long minLevel,
+			final long maxLevel,
+			final CellSumBuffer cellSums ) {
+		super(
+				context,
+				level,
+				minLevel,
+				maxLevel,
+				cellSums);
+	}
+
 	@Override
 	protected long getCellId(
 			final long cellId ) {
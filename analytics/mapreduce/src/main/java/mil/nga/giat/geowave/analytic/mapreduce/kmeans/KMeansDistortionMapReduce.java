@@ -54,6 +54,9 @@ import com.vividsolutions.jts.geom.Point;
  *                <p/>
  *                "KMeansDistortionMapReduce.Jump.CountOfCentroids" -> May be
  *                different from actual.
+ *                <p/>
+ *                "KMeansDistortionMapReduce.Centroid.PruneAssociations" -> Skip
+ *                distances to centroids that cannot be the closest
  * @formatter:on
  * @see CentroidManagerGeoWave
  */
@@ -166,6 +169,17 @@ public class KMeansDistortionMapReduce
 						e1);
 			}
 		}
+
+		@Override
+		protected void cleanup(
+				final Mapper<GeoWaveInputKey, ObjectWritable, Text, CountofDoubleWritable>.Context context )
+				throws IOException,
+				InterruptedException {
+			KMeansMapReduce.incrementAssociationCounters(
+					nestedGroupCentroidAssigner,
+					context);
+			super.cleanup(context);
+		}
 	}
 
 	public static class KMeansDistorationCombiner extends
@@ -26,6 +26,7 @@ import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.ObjectWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +55,10 @@ import com.vividsolutions.jts.geom.Point;
  *                objects with Centroid management function
  *                <p/>
  *                "KMeansMapReduce.Centroid.ZoomLevel" -> The current zoom level
+ *                <p/>
+ *                "KMeansMapReduce.Centroid.PruneAssociations" -> Skip distances
+ *                to centroids that cannot be the closest, reported by the
+ *                {@link #ASSOCIATION_COUNTER_GROUP} counters
  * @See CentroidManagerGeoWave
  * @formatter:on
  */
@@ -62,6 +67,35 @@ public class KMeansMapReduce
 
 	protected static final Logger LOGGER = LoggerFactory.getLogger(KMeansMapReduce.class);
 
+	public static final String ASSOCIATION_COUNTER_GROUP = "Centroid associations";
+	public static final String COMPUTED_DISTANCES_COUNTER = "Distances computed";
+	public static final String PRUNED_DISTANCES_COUNTER = "Distances pruned";
+
+	/**
+	 * Count the distances from items to centroids measured and skipped by
+	 * pruning
+	 */
+	public static void incrementAssociationCounters(
+			final NestedGroupCentroidAssignment<?> nestedGroupCentroidAssigner,
+			final TaskAttemptContext context ) {
+		final long computed = nestedGroupCentroidAssigner.getComputedDistanceCount();
+		final long pruned = nestedGroupCentroidAssigner.getPrunedDistanceCount();
+		context.getCounter(
+				ASSOCIATION_COUNTER_GROUP,
+				COMPUTED_DISTANCES_COUNTER).increment(
+				computed);
+		context.getCounter(
+				ASSOCIATION_COUNTER_GROUP,
+				PRUNED_DISTANCES_COUNTER).increment(
+				pruned);
+		if ((pruned > 0) && LOGGER.isInfoEnabled()) {
+			LOGGER.info(
+					"Pruned {} of {} distances to centroids",
+					pruned,
+					computed + pruned);
+		}
+	}
+
 	public static class KMeansMapper extends
 			GeoWaveWritableInputMapper<GroupIDText, BytesWritable>
 	{
@@ -157,6 +191,17 @@ public class KMeansMapReduce
 						e1);
 			}
 		}
+
+		@Override
+		protected void cleanup(
+				final Mapper<GeoWaveInputKey, ObjectWritable, GroupIDText, BytesWritable>.Context context )
+				throws IOException,
+				InterruptedException {
+			incrementAssociationCounters(
+					nestedGroupCentroidAssigner,
+					context);
+			super.cleanup(context);
+		}
 	}
 
 	/**
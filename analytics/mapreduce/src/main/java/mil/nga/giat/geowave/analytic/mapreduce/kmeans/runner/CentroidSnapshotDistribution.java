@@ -0,0 +1,143 @@
+package mil.nga.giat.geowave.analytic.mapreduce.kmeans.runner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.RunnerUtils;
+import mil.nga.giat.geowave.analytic.clustering.CentroidManagerGeoWave;
+import mil.nga.giat.geowave.analytic.clustering.CentroidSnapshot;
+import mil.nga.giat.geowave.analytic.param.CentroidParameters;
+import mil.nga.giat.geowave.analytic.param.GlobalParameters;
+import mil.nga.giat.geowave.analytic.param.MapReduceParameters;
+import mil.nga.giat.geowave.analytic.param.ParameterEnum;
+import mil.nga.giat.geowave.datastore.accumulo.mapreduce.GeoWaveConfiguratorBase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distribute the centroids of the current and parent batches to the tasks of
+ * a job as a {@link CentroidSnapshot}, so that each task reads the snapshot
+ * from the distributed cache rather than querying the centroid table.
+ *
+ * Each job gets a new snapshot file, named uniquely under the HDFS base
+ * directory, since the centroids of a batch change with each iteration. The
+ * snapshot is only distributed if "Centroid.DistributeSnapshot" is set.
+ */
+public class CentroidSnapshotDistribution
+{
+	final static Logger LOGGER = LoggerFactory.getLogger(CentroidSnapshotDistribution.class);
+
+	private static final String SNAPSHOT_PATH_KEY = GeoWaveConfiguratorBase.enumToConfKey(
+			CentroidManagerGeoWave.class,
+			CentroidParameters.Centroid.SNAPSHOT_PATH);
+
+	/**
+	 * Write the snapshot and add it to the distributed cache of the job
+	 * configuration
+	 *
+	 * @return true if the snapshot was distributed
+	 */
+	public static boolean distribute(
+			final Configuration config,
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		if (!runTimeProperties.getPropertyAsBoolean(
+				CentroidParameters.Centroid.DISTRIBUTE_SNAPSHOT,
+				false)) {
+			return false;
+		}
+		final String batchId = runTimeProperties.getPropertyAsString(GlobalParameters.Global.BATCH_ID);
+		if (batchId == null) {
+			LOGGER.warn("Centroids are not distributed without a batch ID");
+			return false;
+		}
+		final String parentBatchId = runTimeProperties.getPropertyAsString(
+				GlobalParameters.Global.PARENT_BATCH_ID,
+				batchId);
+		final String[] batchIds = batchId.equals(parentBatchId) ? new String[] {
+			batchId
+		} : new String[] {
+			batchId,
+			parentBatchId
+		};
+
+		final FileSystem fs = FileSystem.get(config);
+		final Path path = fs.makeQualified(new Path(
+				runTimeProperties.getPropertyAsString(
+						MapReduceParameters.MRConfig.HDFS_BASE_DIR,
+						"/tmp"),
+				"centroids-" + UUID.randomUUID().toString() + ".snapshot"));
+		final CentroidManagerGeoWave<Object> centroidManager = new CentroidManagerGeoWave<Object>(
+				runTimeProperties);
+		final FSDataOutputStream output = fs.create(path);
+		try {
+			centroidManager.writeSnapshot(
+					output,
+					batchIds);
+		}
+		finally {
+			output.close();
+		}
+
+		// link the file into the working directory of each task by its name
+		final String cacheFile = path.toUri().toString() + "#" + path.getName();
+		final String cacheFiles = config.get(MRJobConfig.CACHE_FILES);
+		config.set(
+				MRJobConfig.CACHE_FILES,
+				cacheFiles == null ? cacheFile : cacheFiles + "," + cacheFile);
+		RunnerUtils.setParameter(
+				config,
+				CentroidManagerGeoWave.class,
+				new Object[] {
+					path.toUri().toString()
+				},
+				new ParameterEnum[] {
+					CentroidParameters.Centroid.SNAPSHOT_PATH
+				});
+		LOGGER.info("Distributing centroids as " + path);
+		return true;
+	}
+
+	/**
+	 * Remove the snapshot, if any, from the job configuration and delete it, so
+	 * that later jobs sharing the configuration query the centroid table
+	 */
+	public static void release(
+			final Configuration config )
+			throws IOException {
+		final String location = config.get(SNAPSHOT_PATH_KEY);
+		if (location == null) {
+			return;
+		}
+		config.unset(SNAPSHOT_PATH_KEY);
+		final List<String> cacheFiles = new ArrayList<String>();
+		for (final String cacheFile : config.getTrimmedStrings(MRJobConfig.CACHE_FILES)) {
+			if (!cacheFile.startsWith(location)) {
+				cacheFiles.add(cacheFile);
+			}
+		}
+		if (cacheFiles.isEmpty()) {
+			config.unset(MRJobConfig.CACHE_FILES);
+		}
+		else {
+			config.setStrings(
+					MRJobConfig.CACHE_FILES,
+					cacheFiles.toArray(new String[cacheFiles.size()]));
+		}
+		final Path path = new Path(
+				location);
+		path.getFileSystem(
+				config).delete(
+				path,
+				false);
+	}
+}
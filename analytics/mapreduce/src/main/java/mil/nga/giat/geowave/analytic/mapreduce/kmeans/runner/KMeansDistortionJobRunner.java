@@ -187,8 +187,16 @@ public class KMeansDistortionJobRunner extends
 				config,
 				runTimeProperties);
 
-		return super.run(
+		CentroidSnapshotDistribution.distribute(
 				config,
 				runTimeProperties);
+		try {
+			return super.run(
+					config,
+					runTimeProperties);
+		}
+		finally {
+			CentroidSnapshotDistribution.release(config);
+		}
 	}
 }
\ No newline at end of file
@@ -264,7 +264,8 @@ public class KMeansIterationsJobRunner<T> implements
 					CentroidParameters.Centroid.DATA_TYPE_ID,
 					CentroidParameters.Centroid.DATA_NAMESPACE_URI,
 					CentroidParameters.Centroid.EXTRACTOR_CLASS,
-					CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS
+					CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS,
+					CentroidParameters.Centroid.DISTRIBUTE_SNAPSHOT
 				});
 		ClusteringParameters.fillOptions(
 				options,
@@ -83,8 +83,16 @@ public class KMeansJobRunner extends
 					CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS
 				});
 
-		return super.run(
+		CentroidSnapshotDistribution.distribute(
 				configuration,
 				runTimeProperties);
+		try {
+			return super.run(
+					configuration,
+					runTimeProperties);
+		}
+		finally {
+			CentroidSnapshotDistribution.release(configuration);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.param.LocalParameters;
+
+/**
+ * Runs the steps of an analytic over items held in memory with a fork-join
+ * pool. Each step splits the items into ranges, folds each range into its own
+ * result and merges the results of neighboring ranges, so the state of a
+ * range is only ever touched by one thread.
+ */
+public class LocalAnalyticEngine implements
+		Closeable
+{
+	/**
+	 * The number of ranges per thread, so that threads finishing early can
+	 * steal work from slower ones
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+
+	private final ForkJoinPool pool;
+
+	public LocalAnalyticEngine(
+			final int threads ) {
+		pool = new ForkJoinPool(
+				Math.max(
+						1,
+						threads));
+	}
+
+	public LocalAnalyticEngine(
+			final PropertyManagement runTimeProperties ) {
+		this(
+				runTimeProperties.getPropertyAsInt(
+						LocalParameters.Local.THREADS,
+						Runtime.getRuntime().availableProcessors()));
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Fold the items into results, one for each range of items
+	 *
+	 * @param <R>
+	 *            the result of a range of items
+	 */
+	public interface Aggregation<R>
+	{
+		/**
+		 * @return the empty result of a range
+		 */
+		public R create()
+				throws Exception;
+
+		public void add(
+				R result,
+				int item )
+				throws Exception;
+
+		/**
+		 * Combine the results of two neighboring ranges, the first preceding
+		 * the second
+		 */
+		public R merge(
+				R result1,
+				R result2 );
+	}
+
+	/**
+	 * Apply the aggregation to each item from 0 to count - 1. The results are
+	 * merged in the order of the items, so the merged result does not depend on
+	 * the number of threads as long as the merge is associative.
+	 *
+	 * @return the merged result of all items
+	 * @throws Exception
+	 *             the first exception thrown by the aggregation
+	 */
+	public <R> R aggregate(
+			final int count,
+			final Aggregation<R> aggregation )
+			throws Exception {
+		final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		final int rangeSize = Math.max(
+				1,
+				count / (pool.getParallelism() * RANGES_PER_THREAD));
+		final R result = pool.invoke(new AggregationTask<R>(
+				aggregation,
+				failure,
+				rangeSize,
+				0,
+				count));
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		return result;
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	private static class AggregationTask<R> extends
+			RecursiveTask<R>
+	{
+		private static final long serialVersionUID = 1L;
+		private final Aggregation<R> aggregation;
+		private final AtomicReference<Exception> failure;
+		private final int rangeSize;
+		private final int start;
+		private final int end;
+
+		public AggregationTask(
+				final Aggregation<R> aggregation,
+				final AtomicReference<Exception> failure,
+				final int rangeSize,
+				final int start,
+				final int end ) {
+			this.aggregation = aggregation;
+			this.failure = failure;
+			this.rangeSize = rangeSize;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected R compute() {
+			if ((end - start) > rangeSize) {
+				final int middle = (start + end) >>> 1;
+				final AggregationTask<R> left = new AggregationTask<R>(
+						aggregation,
+						failure,
+						rangeSize,
+						start,
+						middle);
+				left.fork();
+				final R rightResult = new AggregationTask<R>(
+						aggregation,
+						failure,
+						rangeSize,
+						middle,
+						end).compute();
+				final R leftResult = left.join();
+				if (failure.get() != null) {
+					return null;
+				}
+				return aggregation.merge(
+						leftResult,
+						rightResult);
+			}
+			try {
+				final R result = aggregation.create();
+				for (int i = start; (i < end) && (failure.get() == null); i++) {
+					aggregation.add(
+							result,
+							i);
+				}
+				return result;
+			}
+			catch (final Exception e) {
+				failure.compareAndSet(
+						null,
+						e);
+				return null;
+			}
+		}
+	}
+}
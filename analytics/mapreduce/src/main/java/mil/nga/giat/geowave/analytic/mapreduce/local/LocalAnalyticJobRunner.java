@@ -0,0 +1,180 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.analytic.IndependentJobRunner;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.param.ExtractParameters;
+import mil.nga.giat.geowave.analytic.param.GlobalParameters;
+import mil.nga.giat.geowave.analytic.param.LocalParameters;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+
+import org.apache.commons.cli.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs an analytic within this process rather than as map reduce jobs. The
+ * input is queried from GeoWave with the same extract parameters as the
+ * GeoWave input format and held in memory, and the analytic is run over it by
+ * a {@link LocalAnalyticEngine}. Local runners suit data sets that fit in
+ * memory and need no Hadoop cluster.
+ */
+public abstract class LocalAnalyticJobRunner implements
+		IndependentJobRunner
+{
+	protected static final Logger LOGGER = LoggerFactory.getLogger(LocalAnalyticJobRunner.class);
+
+	/**
+	 * An item of the input and its data ID
+	 */
+	public static class InputItem
+	{
+		private final ByteArrayId dataId;
+		private final Object value;
+
+		public InputItem(
+				final ByteArrayId dataId,
+				final Object value ) {
+			this.dataId = dataId;
+			this.value = value;
+		}
+
+		public ByteArrayId getDataId() {
+			return dataId;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+	}
+
+	@Override
+	public int run(
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		final LocalAnalyticEngine engine = new LocalAnalyticEngine(
+				runTimeProperties);
+		try {
+			LOGGER.info(
+					"Running locally with {} threads",
+					engine.getParallelism());
+			return run(
+					engine,
+					runTimeProperties);
+		}
+		finally {
+			engine.close();
+		}
+	}
+
+	protected abstract int run(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties )
+			throws Exception;
+
+	/**
+	 * Query the input from GeoWave, optionally limited to the extract adapter,
+	 * index and query
+	 */
+	protected List<InputItem> loadInput(
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		final DataStore dataStore = new AccumuloDataStore(
+				ClusteringUtils.createOperations(runTimeProperties));
+		final String indexId = runTimeProperties.getPropertyAsString(ExtractParameters.Extract.INDEX_ID);
+		final String adapterId = runTimeProperties.getPropertyAsString(ExtractParameters.Extract.ADAPTER_ID);
+		final Query query = runTimeProperties.getPropertyAsQuery(ExtractParameters.Extract.QUERY);
+
+		Index index = null;
+		if (indexId != null) {
+			final ByteArrayId byteId = new ByteArrayId(
+					StringUtils.stringToBinary(indexId));
+			for (final Index candidate : ClusteringUtils.getIndices(runTimeProperties)) {
+				if (byteId.equals(candidate.getId())) {
+					index = candidate;
+				}
+			}
+		}
+
+		final List<InputItem> items = new ArrayList<InputItem>();
+		final ByteArrayId adapterByteId = adapterId == null ? null : new ByteArrayId(
+				StringUtils.stringToBinary(adapterId));
+		for (final DataAdapter<?> adapter : ClusteringUtils.getAdapters(runTimeProperties)) {
+			if ((adapterByteId == null) || adapterByteId.equals(adapter.getAdapterId())) {
+				addItems(
+						items,
+						dataStore,
+						adapter,
+						index,
+						query);
+			}
+		}
+		LOGGER.info(
+				"Loaded {} items",
+				items.size());
+		return items;
+	}
+
+	private static <T> void addItems(
+			final List<InputItem> items,
+			final DataStore dataStore,
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query )
+			throws Exception {
+		final CloseableIterator<T> it = (index == null) ? dataStore.query(
+				adapter,
+				query) : dataStore.query(
+				adapter,
+				index,
+				query);
+		try {
+			while (it.hasNext()) {
+				final T entry = it.next();
+				items.add(new InputItem(
+						adapter.getDataId(entry),
+						entry));
+			}
+		}
+		finally {
+			it.close();
+		}
+	}
+
+	@Override
+	public void fillOptions(
+			final Set<Option> options ) {
+		GlobalParameters.fillOptions(
+				options,
+				new GlobalParameters.Global[] {
+					GlobalParameters.Global.ZOOKEEKER,
+					GlobalParameters.Global.ACCUMULO_INSTANCE,
+					GlobalParameters.Global.ACCUMULO_PASSWORD,
+					GlobalParameters.Global.ACCUMULO_USER,
+					GlobalParameters.Global.ACCUMULO_NAMESPACE
+				});
+		ExtractParameters.fillOptions(
+				options,
+				new ExtractParameters.Extract[] {
+					ExtractParameters.Extract.INDEX_ID,
+					ExtractParameters.Extract.ADAPTER_ID,
+					ExtractParameters.Extract.QUERY
+				});
+		LocalParameters.fillOptions(
+				options,
+				new LocalParameters.Local[] {
+					LocalParameters.Local.THREADS
+				});
+	}
+}
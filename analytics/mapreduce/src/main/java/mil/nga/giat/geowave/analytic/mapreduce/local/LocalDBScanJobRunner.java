@@ -0,0 +1,486 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.analytic.AnalyticFeature;
+import mil.nga.giat.geowave.analytic.GeometryHullTool;
+import mil.nga.giat.geowave.analytic.Projection;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.SimpleFeatureProjection;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.Cluster;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.ClusterItem;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.ClusterItemDistanceFn;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.ClusterNeighborList.ClusterNeighborListFactory;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.ClusterUnionList.ClusterUnionListFactory;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.DBScanClusterList;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.DBScanMapReduce;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.DBScanMapReduce.SimpleFeatureToClusterItemConverter;
+import mil.nga.giat.geowave.analytic.mapreduce.dbscan.SingleItemClusterList.SingleItemClusterListFactory;
+import mil.nga.giat.geowave.analytic.mapreduce.local.LocalNNJobRunner.PartitionMember;
+import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce;
+import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce.PassthruPartitioner;
+import mil.nga.giat.geowave.analytic.nn.GeometryNeighborEnvelopeFn;
+import mil.nga.giat.geowave.analytic.nn.NNProcessor;
+import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
+import mil.nga.giat.geowave.analytic.nn.NeighborEnvelopeFn;
+import mil.nga.giat.geowave.analytic.nn.NeighborList;
+import mil.nga.giat.geowave.analytic.param.ClusteringParameters;
+import mil.nga.giat.geowave.analytic.param.ClusteringParameters.Clustering;
+import mil.nga.giat.geowave.analytic.param.GlobalParameters;
+import mil.nga.giat.geowave.analytic.param.HullParameters;
+import mil.nga.giat.geowave.analytic.param.HullParameters.Hull;
+import mil.nga.giat.geowave.analytic.param.PartitionParameters;
+import mil.nga.giat.geowave.analytic.param.PartitionParameters.Partition;
+import mil.nga.giat.geowave.analytic.partitioner.AbstractPartitioner;
+import mil.nga.giat.geowave.analytic.partitioner.OrthodromicDistancePartitioner;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData;
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+
+import org.apache.commons.cli.Option;
+import org.geotools.feature.type.BasicFeatureTypes;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Find density based clusters within this process and write their hulls to
+ * GeoWave, as {@link mil.nga.giat.geowave.analytic.mapreduce.dbscan.DBScanIterationsJobRunner}
+ * does with a map reduce job per iteration.
+ *
+ * Each iteration partitions its input in parallel as the NN mapper would and
+ * gives each partition to its own {@link NNProcessor}, clustering as the
+ * DBSCAN hull reducer does. The first iteration clusters the input features
+ * and each later iteration merges the hulls of the previous one with a lower
+ * partition precision, until the number of hulls stops changing, the maximum
+ * number of iterations is reached or the precision is too low to partition.
+ *
+ * The cluster lists are given their own hull tool and merge size rather than
+ * the static defaults of {@link DBScanClusterList} that the reducer sets, so
+ * any number of local and map reduce DBSCANs may run in a process.
+ */
+public class LocalDBScanJobRunner extends
+		LocalAnalyticJobRunner
+{
+	@Override
+	protected int run(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		final FeatureDataAdapter adapter = AnalyticFeature.createGeometryFeatureAdapter(
+				runTimeProperties.getPropertyAsString(
+						Hull.DATA_TYPE_ID,
+						"concave_hull"),
+				new String[0],
+				runTimeProperties.getPropertyAsString(
+						Hull.DATA_NAMESPACE_URI,
+						BasicFeatureTypes.DEFAULT_NAMESPACE),
+				ClusteringUtils.CLUSTERING_CRS);
+		final Index index = ClusteringUtils.createIndex(
+				runTimeProperties.getPropertyAsString(
+						Hull.INDEX_ID,
+						IndexType.SPATIAL_VECTOR.getDefaultId()),
+				runTimeProperties);
+
+		final List<SimpleFeature> hulls = cluster(
+				engine,
+				runTimeProperties,
+				adapter.getType(),
+				loadInput(runTimeProperties));
+
+		final DataStore dataStore = new AccumuloDataStore(
+				ClusteringUtils.createOperations(runTimeProperties));
+		final IndexWriter writer = dataStore.createIndexWriter(index);
+		try {
+			for (final SimpleFeature hull : hulls) {
+				writer.write(
+						adapter,
+						hull);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the hulls of the clusters, as features of the hull type
+	 */
+	public List<SimpleFeature> cluster(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final SimpleFeatureType hullType,
+			final List<InputItem> items )
+			throws Exception {
+		runTimeProperties.storeIfEmpty(
+				GlobalParameters.Global.BATCH_ID,
+				UUID.randomUUID().toString());
+		runTimeProperties.storeIfEmpty(
+				Partition.PARTITIONER_CLASS,
+				OrthodromicDistancePartitioner.class);
+		// the partitioners and the processors use the same distance
+		runTimeProperties.storeIfEmpty(
+				Partition.PARTITION_DISTANCE,
+				10.0);
+
+		final double maxDistance = runTimeProperties.getPropertyAsDouble(
+				Partition.PARTITION_DISTANCE,
+				10);
+		final double precisionDecreaseRate = runTimeProperties.getPropertyAsDouble(
+				Partition.PARTITION_DECREASE_RATE,
+				0.15);
+		double precisionFactor = runTimeProperties.getPropertyAsDouble(
+				Partition.PARTITION_PRECISION,
+				1.0);
+
+		if (!runTimeProperties.hasProperty(Clustering.DISTANCE_THRESHOLDS)) {
+			runTimeProperties.copy(
+					Partition.PARTITION_DISTANCE,
+					Clustering.DISTANCE_THRESHOLDS);
+		}
+
+		final boolean overrideSecondary = runTimeProperties.hasProperty(Partition.SECONDARY_PARTITIONER_CLASS);
+		if (!overrideSecondary) {
+			final double[] distances = AbstractPartitioner.getDistances(
+					runTimeProperties,
+					AbstractPartitioner.class);
+			boolean secondary = precisionFactor < 1.0;
+			double total = 1.0;
+			for (final double dist : distances) {
+				total *= dist;
+			}
+			secondary |= (total >= (Math.pow(
+					maxDistance,
+					distances.length) * 2.0));
+			if (secondary) {
+				runTimeProperties.copy(
+						Partition.PARTITIONER_CLASS,
+						Partition.SECONDARY_PARTITIONER_CLASS);
+			}
+		}
+
+		AbstractPartitioner.putDistances(
+				runTimeProperties,
+				new double[] {
+					maxDistance
+				});
+
+		final int zoomLevel = runTimeProperties.getPropertyAsInt(
+				Hull.ZOOM_LEVEL,
+				1);
+		// first run must at least form a triangle
+		List<SimpleFeature> hulls = clusterPartitions(
+				engine,
+				runTimeProperties,
+				items,
+				new Iteration(
+						hullType,
+						runTimeProperties.getPropertyAsString(GlobalParameters.Global.BATCH_ID),
+						zoomLevel,
+						1,
+						runTimeProperties.getPropertyAsInt(
+								Clustering.MINIMUM_SIZE,
+								2),
+						maxDistance));
+
+		precisionFactor = precisionFactor - precisionDecreaseRate;
+
+		int maxIterationCount = runTimeProperties.getPropertyAsInt(
+				Clustering.MAX_ITERATIONS,
+				15);
+		int iteration = 2;
+		long lastRecordCount = 0;
+
+		while ((maxIterationCount > 0) && (precisionFactor > 0)) {
+			final PropertyManagement localScopeProperties = new PropertyManagement(
+					runTimeProperties);
+			localScopeProperties.store(
+					Partition.PARTITION_PRECISION,
+					precisionFactor);
+			try {
+				final Partitioner<?> partitioner = localScopeProperties.getClassInstance(
+						Partition.PARTITIONER_CLASS,
+						Partitioner.class,
+						OrthodromicDistancePartitioner.class);
+				partitioner.initialize(localScopeProperties);
+			}
+			catch (final IllegalArgumentException argEx) {
+				// this occurs if the partitioner decides that the distance is
+				// invalid (e.g. bigger than the map space), in which case the
+				// hulls of the last iteration are final
+				break;
+			}
+
+			// re-partitioning the fat hulls can force a large number of
+			// partitions, so secondary partitioning is skipped
+			if ((precisionFactor <= 0.9) && !overrideSecondary) {
+				localScopeProperties.store(
+						Partition.SECONDARY_PARTITIONER_CLASS,
+						PassthruPartitioner.class);
+			}
+
+			final List<InputItem> hullItems = new ArrayList<InputItem>(
+					hulls.size());
+			for (final SimpleFeature hull : hulls) {
+				hullItems.add(new InputItem(
+						new ByteArrayId(
+								hull.getID()),
+						hull));
+			}
+			// a minimum size of zero moves each cluster into the next
+			// iteration even if no merge occurs
+			hulls = clusterPartitions(
+					engine,
+					localScopeProperties,
+					hullItems,
+					new Iteration(
+							hullType,
+							runTimeProperties.getPropertyAsString(GlobalParameters.Global.BATCH_ID),
+							zoomLevel,
+							iteration,
+							0,
+							maxDistance));
+
+			if (hulls.size() == lastRecordCount) {
+				maxIterationCount = 0;
+			}
+			lastRecordCount = hulls.size();
+			maxIterationCount--;
+			precisionFactor -= precisionDecreaseRate;
+			iteration++;
+		}
+		return hulls;
+	}
+
+	private List<SimpleFeature> clusterPartitions(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final List<InputItem> items,
+			final Iteration iteration )
+			throws Exception {
+		final List<Map.Entry<PartitionData, List<PartitionMember>>> partitions = LocalNNJobRunner.partition(
+				engine,
+				runTimeProperties,
+				items);
+		final List<SimpleFeature> hulls = engine.aggregate(
+				partitions.size(),
+				new LocalAnalyticEngine.Aggregation<ClusterFinder>() {
+
+					@Override
+					public ClusterFinder create()
+							throws Exception {
+						return new ClusterFinder(
+								runTimeProperties,
+								iteration);
+					}
+
+					@Override
+					public void add(
+							final ClusterFinder result,
+							final int item )
+							throws Exception {
+						result.process(partitions.get(item));
+					}
+
+					@Override
+					public ClusterFinder merge(
+							final ClusterFinder result1,
+							final ClusterFinder result2 ) {
+						result1.hulls.addAll(result2.hulls);
+						return result1;
+					}
+				}).hulls;
+		LOGGER.info(
+				"Iteration {} found {} hulls",
+				iteration.iteration,
+				hulls.size());
+		return hulls;
+	}
+
+	/**
+	 * The settings of one iteration
+	 */
+	private static class Iteration
+	{
+		private final SimpleFeatureType hullType;
+		private final String batchId;
+		private final int zoomLevel;
+		private final int iteration;
+		private final int minOwners;
+		private final double maxDistance;
+
+		public Iteration(
+				final SimpleFeatureType hullType,
+				final String batchId,
+				final int zoomLevel,
+				final int iteration,
+				final int minOwners,
+				final double maxDistance ) {
+			this.hullType = hullType;
+			this.batchId = batchId;
+			this.zoomLevel = zoomLevel;
+			this.iteration = iteration;
+			this.minOwners = minOwners;
+			this.maxDistance = maxDistance;
+		}
+
+		public boolean isFirst() {
+			return iteration == 1;
+		}
+	}
+
+	/**
+	 * Clusters partitions with the secondary partitioner and projection of one
+	 * thread
+	 */
+	private static class ClusterFinder
+	{
+		private final Iteration iteration;
+		private final Partitioner<Object> partitioner;
+		private final SimpleFeatureToClusterItemConverter typeConverter;
+		private final ClusterItemDistanceFn distanceFn = new ClusterItemDistanceFn();
+		private final GeometryHullTool hullTool = new GeometryHullTool();
+		private final NeighborEnvelopeFn<ClusterItem> neighborEnvelopeFn;
+		private final List<SimpleFeature> hulls = new ArrayList<SimpleFeature>();
+
+		@SuppressWarnings("unchecked")
+		public ClusterFinder(
+				final PropertyManagement runTimeProperties,
+				final Iteration iteration )
+				throws Exception {
+			this.iteration = iteration;
+			hullTool.setDistanceFnForCoordinate(new CoordinateCircleDistanceFn());
+			partitioner = runTimeProperties.getClassInstance(
+					Partition.SECONDARY_PARTITIONER_CLASS,
+					Partitioner.class,
+					PassthruPartitioner.class);
+			partitioner.initialize(NNMapReduce.createSecondaryPartitionerConfiguration(runTimeProperties));
+			final Projection<SimpleFeature> projection = runTimeProperties.getClassInstance(
+					Hull.PROJECTION_CLASS,
+					Projection.class,
+					SimpleFeatureProjection.class);
+			projection.initialize(runTimeProperties);
+			typeConverter = new SimpleFeatureToClusterItemConverter(
+					projection);
+			neighborEnvelopeFn = new GeometryNeighborEnvelopeFn<ClusterItem>(
+					distanceFn.getCoordinateDistanceFunction()) {
+				@Override
+				protected Geometry getGeometry(
+						final ClusterItem item ) {
+					return item.getGeometry();
+				}
+			};
+		}
+
+		public void process(
+				final Map.Entry<PartitionData, List<PartitionMember>> partition )
+				throws IOException,
+				InterruptedException {
+			final Map<ByteArrayId, Cluster> summary = new HashMap<ByteArrayId, Cluster>();
+			final NNProcessor<Object, ClusterItem> processor = new NNProcessor<Object, ClusterItem>(
+					partitioner,
+					typeConverter,
+					distanceFn,
+					iteration.maxDistance,
+					partition.getKey());
+			processor.setNeighborEnvelopeFn(neighborEnvelopeFn);
+			for (final PartitionMember member : partition.getValue()) {
+				processor.add(
+						member.getDataId(),
+						member.isPrimary(),
+						member.getFeature());
+			}
+			if (iteration.isFirst()) {
+				DBScanMapReduce.condense(
+						processor,
+						summary,
+						DBScanMapReduce.calculateTossMinimum(iteration.minOwners),
+						DBScanMapReduce.calculateCondensingMinimum(iteration.minOwners),
+						hullTool,
+						iteration.minOwners,
+						null);
+			}
+			processor.process(
+					new ClusterNeighborListFactory(
+							iteration.isFirst() ? new SingleItemClusterListFactory(
+									summary,
+									hullTool,
+									iteration.minOwners) : new ClusterUnionListFactory(
+									summary,
+									hullTool,
+									iteration.minOwners),
+							summary),
+					new CompleteNotifier<ClusterItem>() {
+						@Override
+						public void complete(
+								final ByteArrayId id,
+								final ClusterItem value,
+								final NeighborList<ClusterItem> primaryList ) {
+							DBScanMapReduce.completeCluster(
+									id,
+									primaryList,
+									iteration.minOwners);
+							processor.remove(id);
+						}
+					});
+			hulls.addAll(DBScanMapReduce.createHulls(
+					partition.getKey(),
+					summary,
+					iteration.hullType,
+					iteration.batchId,
+					iteration.zoomLevel,
+					iteration.iteration));
+		}
+	}
+
+	@Override
+	public void fillOptions(
+			final Set<Option> options ) {
+		super.fillOptions(options);
+		PartitionParameters.fillOptions(
+				options,
+				new PartitionParameters.Partition[] {
+					Partition.PARTITIONER_CLASS,
+					Partition.PARTITION_DISTANCE,
+					Partition.PARTITION_PRECISION,
+					Partition.PARTITION_DECREASE_RATE
+				});
+		ClusteringParameters.fillOptions(
+				options,
+				new ClusteringParameters.Clustering[] {
+					Clustering.MAX_ITERATIONS,
+					Clustering.MINIMUM_SIZE,
+					Clustering.GEOMETRIC_DISTANCE_UNIT,
+					Clustering.DISTANCE_THRESHOLDS
+				});
+		HullParameters.fillOptions(
+				options,
+				new HullParameters.Hull[] {
+					Hull.INDEX_ID,
+					Hull.DATA_TYPE_ID,
+					Hull.DATA_NAMESPACE_URI,
+					Hull.PROJECTION_CLASS
+				});
+		GlobalParameters.fillOptions(
+				options,
+				new GlobalParameters.Global[] {
+					GlobalParameters.Global.BATCH_ID
+				});
+	}
+}
@@ -0,0 +1,354 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mil.nga.giat.geowave.adapter.raster.RasterUtils;
+import mil.nga.giat.geowave.adapter.raster.adapter.RasterDataAdapter;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.mapreduce.kde.AccumuloKDEReducer;
+import mil.nga.giat.geowave.analytic.mapreduce.kde.CellSums;
+import mil.nga.giat.geowave.analytic.mapreduce.kde.GaussianFilter;
+import mil.nga.giat.geowave.analytic.param.KDEParameters;
+import mil.nga.giat.geowave.analytic.param.KDEParameters.KDE;
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+
+import org.apache.commons.cli.Option;
+import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Compute the kernel density of the input within this process and write it to
+ * GeoWave as a coverage with the weight, normalized weight and percentile bands
+ * of {@link mil.nga.giat.geowave.analytic.mapreduce.kde.KDEJobRunner}.
+ *
+ * The centroid of each feature is spread over the cells of every level with
+ * the {@link GaussianFilter}, as the Gaussian cell mapper does, with each range
+ * of features summing into its own cells. The percentile of a cell is then
+ * found from the sorted weights of its level, giving all cells with matching
+ * weight the percentile of the first, as the KDE reducer does. Rather than a
+ * coverage for every cell, a coverage is written for every tile.
+ */
+public class LocalKDEJobRunner extends
+		LocalAnalyticJobRunner
+{
+	@Override
+	protected int run(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		final String coverageName = runTimeProperties.getPropertyAsString(KDE.COVERAGE_NAME);
+		if (coverageName == null) {
+			LOGGER.error("Missing the coverage name");
+			return 1;
+		}
+		final int tileSize = runTimeProperties.getPropertyAsInt(
+				KDE.TILE_SIZE,
+				1);
+		final List<GridCoverage> coverages = computeCoverages(
+				engine,
+				runTimeProperties,
+				loadInput(runTimeProperties));
+
+		final RasterDataAdapter adapter = RasterUtils.createDataAdapterTypeDouble(
+				coverageName,
+				AccumuloKDEReducer.NUM_BANDS,
+				tileSize,
+				AccumuloKDEReducer.MINS_PER_BAND,
+				AccumuloKDEReducer.MAXES_PER_BAND,
+				AccumuloKDEReducer.NAME_PER_BAND);
+		final DataStore dataStore = new AccumuloDataStore(
+				ClusteringUtils.createOperations(runTimeProperties));
+		final IndexWriter writer = dataStore.createIndexWriter(IndexType.SPATIAL_RASTER.createDefaultIndex());
+		try {
+			for (final GridCoverage coverage : coverages) {
+				writer.write(
+						adapter,
+						coverage);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return a coverage for each tile with a weighted cell, from the minimum
+	 *         to the maximum level
+	 */
+	public List<GridCoverage> computeCoverages(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final List<InputItem> items )
+			throws Exception {
+		final String coverageName = runTimeProperties.getPropertyAsString(
+				KDE.COVERAGE_NAME,
+				"");
+		final int minLevel = runTimeProperties.getPropertyAsInt(
+				KDE.MIN_LEVEL,
+				1);
+		final int maxLevel = runTimeProperties.getPropertyAsInt(
+				KDE.MAX_LEVEL,
+				25);
+		final int tileSize = runTimeProperties.getPropertyAsInt(
+				KDE.TILE_SIZE,
+				1);
+		final CellSums[] sumsPerLevel = sumCells(
+				engine,
+				items,
+				minLevel,
+				maxLevel,
+				tileSize);
+		return engine.aggregate(
+				sumsPerLevel.length,
+				new LocalAnalyticEngine.Aggregation<List<GridCoverage>>() {
+
+					@Override
+					public List<GridCoverage> create() {
+						return new ArrayList<GridCoverage>();
+					}
+
+					@Override
+					public void add(
+							final List<GridCoverage> result,
+							final int item ) {
+						addCoverages(
+								result,
+								coverageName,
+								minLevel + item,
+								tileSize,
+								sumsPerLevel[item]);
+					}
+
+					@Override
+					public List<GridCoverage> merge(
+							final List<GridCoverage> result1,
+							final List<GridCoverage> result2 ) {
+						result1.addAll(result2);
+						return result1;
+					}
+				});
+	}
+
+	/**
+	 * Spread the centroid of each feature over the cells of each level
+	 *
+	 * @return the summed weight of each cell, for each level from the minimum
+	 *         to the maximum
+	 */
+	private static CellSums[] sumCells(
+			final LocalAnalyticEngine engine,
+			final List<InputItem> items,
+			final int minLevel,
+			final int maxLevel,
+			final int tileSize )
+			throws Exception {
+		final int numLevels = (maxLevel - minLevel) + 1;
+		final CellSums[] sumsPerLevel = engine.aggregate(
+				items.size(),
+				new LocalAnalyticEngine.Aggregation<CellSums[]>() {
+
+					@Override
+					public CellSums[] create() {
+						final CellSums[] result = new CellSums[numLevels];
+						for (int i = 0; i < numLevels; i++) {
+							result[i] = new CellSums();
+						}
+						return result;
+					}
+
+					@Override
+					public void add(
+							final CellSums[] result,
+							final int item ) {
+						final Object value = items.get(
+								item).getValue();
+						if (!(value instanceof SimpleFeature)) {
+							return;
+						}
+						final Object geomObj = ((SimpleFeature) value).getDefaultGeometry();
+						if (!(geomObj instanceof Geometry)) {
+							return;
+						}
+						final Point pt = ((Geometry) geomObj).getCentroid();
+						if (pt.isEmpty()) {
+							return;
+						}
+						for (int level = maxLevel; level >= minLevel; level--) {
+							GaussianFilter.incrementPt(
+									pt.getY(),
+									pt.getX(),
+									result[level - minLevel],
+									(int) Math.pow(
+											2,
+											level + 1) * tileSize,
+									(int) Math.pow(
+											2,
+											level) * tileSize);
+						}
+					}
+
+					@Override
+					public CellSums[] merge(
+							final CellSums[] result1,
+							final CellSums[] result2 ) {
+						for (int i = 0; i < numLevels; i++) {
+							// add the smaller sums to the larger
+							if (result1[i].size() < result2[i].size()) {
+								result2[i].incrementAll(result1[i]);
+								result1[i] = result2[i];
+							}
+							else {
+								result1[i].incrementAll(result2[i]);
+							}
+						}
+						return result1;
+					}
+				});
+		for (int level = minLevel; level <= maxLevel; level++) {
+			LOGGER.info(
+					"Level {} has {} weighted cells",
+					level,
+					sumsPerLevel[level - minLevel].size());
+		}
+		return sumsPerLevel;
+	}
+
+	/**
+	 * Set the weight, normalized weight and percentile of each cell of the
+	 * level in the raster of its tile, and add a coverage for each tile
+	 */
+	private static void addCoverages(
+			final List<GridCoverage> coverages,
+			final String coverageName,
+			final int level,
+			final int tileSize,
+			final CellSums sums ) {
+		if (sums.size() == 0) {
+			return;
+		}
+		final double[] weights = new double[sums.size()];
+		int count = 0;
+		for (int i = 0; i < sums.getCapacity(); i++) {
+			if (sums.getSum(i) != 0) {
+				weights[count++] = sums.getSum(i);
+			}
+		}
+		Arrays.sort(weights);
+		final double max = weights[weights.length - 1];
+
+		final int numXTiles = (int) Math.pow(
+				2,
+				level + 1);
+		final int numYTiles = (int) Math.pow(
+				2,
+				level);
+		final long numYPosts = (long) numYTiles * tileSize;
+		final Map<Long, WritableRaster> rasters = new LinkedHashMap<Long, WritableRaster>();
+		for (int i = 0; i < sums.getCapacity(); i++) {
+			final double weight = sums.getSum(i);
+			if (weight == 0) {
+				continue;
+			}
+			final long cellId = sums.getCellId(i);
+			final long xPost = cellId / numYPosts;
+			final long yPost = cellId % numYPosts;
+			final long tileId = ((xPost / tileSize) * numYTiles) + (yPost / tileSize);
+			WritableRaster raster = rasters.get(tileId);
+			if (raster == null) {
+				raster = RasterUtils.createRasterTypeDouble(
+						AccumuloKDEReducer.NUM_BANDS,
+						tileSize);
+				rasters.put(
+						tileId,
+						raster);
+			}
+			final int x = (int) (xPost % tileSize);
+			// java rasters go from 0 at the top to (height-1) at the bottom, so
+			// the y that goes from bottom to top is inverted
+			final int y = tileSize - (int) (yPost % tileSize) - 1;
+			raster.setSample(
+					x,
+					y,
+					0,
+					weight);
+			raster.setSample(
+					x,
+					y,
+					1,
+					weight / max);
+			raster.setSample(
+					x,
+					y,
+					2,
+					(lowerBound(
+							weights,
+							weight) + 1.0) / weights.length);
+		}
+
+		for (final Map.Entry<Long, WritableRaster> entry : rasters.entrySet()) {
+			final long xTile = entry.getKey() / numYTiles;
+			final long yTile = entry.getKey() % numYTiles;
+			final double tileWestLon = ((xTile * 360.0) / numXTiles) - 180.0;
+			final double tileSouthLat = ((yTile * 180.0) / numYTiles) - 90.0;
+			coverages.add(RasterUtils.createCoverageTypeDouble(
+					coverageName,
+					tileWestLon,
+					tileWestLon + (360.0 / numXTiles),
+					tileSouthLat,
+					tileSouthLat + (180.0 / numYTiles),
+					AccumuloKDEReducer.MINS_PER_BAND,
+					AccumuloKDEReducer.MAXES_PER_BAND,
+					AccumuloKDEReducer.NAME_PER_BAND,
+					entry.getValue()));
+		}
+	}
+
+	/**
+	 * @return the index of the first of the sorted values that is not less than
+	 *         the value
+	 */
+	private static int lowerBound(
+			final double[] sortedValues,
+			final double value ) {
+		int low = 0;
+		int high = sortedValues.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (sortedValues[middle] < value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public void fillOptions(
+			final Set<Option> options ) {
+		super.fillOptions(options);
+		KDEParameters.fillOptions(
+				options,
+				new KDEParameters.KDE[] {
+					KDE.MIN_LEVEL,
+					KDE.MAX_LEVEL,
+					KDE.COVERAGE_NAME,
+					KDE.TILE_SIZE
+				});
+	}
+}
@@ -0,0 +1,538 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.analytic.AnalyticFeature;
+import mil.nga.giat.geowave.analytic.AnalyticItemWrapper;
+import mil.nga.giat.geowave.analytic.AnalyticItemWrapperFactory;
+import mil.nga.giat.geowave.analytic.GeoObjectDimensionValues;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.SimpleFeatureItemWrapperFactory;
+import mil.nga.giat.geowave.analytic.clustering.CentroidPairing;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidDistanceFn;
+import mil.nga.giat.geowave.analytic.extract.CentroidExtractor;
+import mil.nga.giat.geowave.analytic.extract.SimpleFeatureCentroidExtractor;
+import mil.nga.giat.geowave.analytic.extract.SimpleFeatureGeometryExtractor;
+import mil.nga.giat.geowave.analytic.kmeans.AssociationNotification;
+import mil.nga.giat.geowave.analytic.kmeans.CentroidAssociationFn;
+import mil.nga.giat.geowave.analytic.param.CentroidParameters;
+import mil.nga.giat.geowave.analytic.param.ClusteringParameters;
+import mil.nga.giat.geowave.analytic.param.CommonParameters;
+import mil.nga.giat.geowave.analytic.param.GlobalParameters;
+import mil.nga.giat.geowave.analytic.param.SampleParameters;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+
+import org.apache.commons.cli.Option;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Cluster the input into 'K' centroids within this process and write the
+ * centroids to GeoWave, as the single level
+ * {@link mil.nga.giat.geowave.analytic.mapreduce.kmeans.runner.KMeansSingleSampleJobRunner}
+ * does with map reduce jobs.
+ *
+ * The initial centroids are chosen with k-means++ seeding, each choice
+ * weighting the items by their squared distance to the closest centroid
+ * chosen so far. The centroids are then moved to the mean of their associated
+ * items, as the KMeans reducer does, until the average distance moved falls
+ * below the convergence tolerance or the maximum number of iterations is
+ * reached. Each pass over the items runs in parallel, with each range of items
+ * using its own distance function and summing its own associations. When
+ * pruning associations, the distances between the centroids are computed once
+ * per iteration and shared by the ranges.
+ */
+public class LocalKMeansJobRunner extends
+		LocalAnalyticJobRunner
+{
+	@Override
+	protected int run(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		runTimeProperties.store(
+				CentroidParameters.Centroid.ZOOM_LEVEL,
+				1);
+		runTimeProperties.storeIfEmpty(
+				GlobalParameters.Global.BATCH_ID,
+				UUID.randomUUID().toString());
+		runTimeProperties.storeIfEmpty(
+				CommonParameters.Common.DIMENSION_EXTRACT_CLASS,
+				SimpleFeatureGeometryExtractor.class);
+
+		final FeatureDataAdapter adapter = (FeatureDataAdapter) ClusteringUtils.createAdapter(runTimeProperties);
+		final Index index = ClusteringUtils.createIndex(runTimeProperties);
+
+		final List<SimpleFeature> centroids = cluster(
+				engine,
+				runTimeProperties,
+				adapter.getType(),
+				loadInput(runTimeProperties));
+
+		final DataStore dataStore = new AccumuloDataStore(
+				ClusteringUtils.createOperations(runTimeProperties));
+		final IndexWriter writer = dataStore.createIndexWriter(index);
+		try {
+			for (final SimpleFeature centroid : centroids) {
+				writer.write(
+						adapter,
+						centroid);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the centroids of the clusters, as features of the centroid type
+	 */
+	@SuppressWarnings("unchecked")
+	public List<SimpleFeature> cluster(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final SimpleFeatureType centroidType,
+			final List<InputItem> inputItems )
+			throws Exception {
+		final int k = runTimeProperties.getPropertyAsInt(
+				SampleParameters.Sample.SAMPLE_SIZE,
+				1);
+		final double convergenceTol = runTimeProperties.getPropertyAsDouble(
+				ClusteringParameters.Clustering.CONVERGANCE_TOLERANCE,
+				0.0001);
+		final int maxIterations = runTimeProperties.getPropertyAsInt(
+				ClusteringParameters.Clustering.MAX_ITERATIONS,
+				15);
+		final String batchId = runTimeProperties.getPropertyAsString(
+				GlobalParameters.Global.BATCH_ID,
+				UUID.randomUUID().toString());
+		final String groupId = UUID.randomUUID().toString();
+
+		final AnalyticItemWrapperFactory<Object> itemWrapperFactory = runTimeProperties.getClassInstance(
+				CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS,
+				AnalyticItemWrapperFactory.class,
+				SimpleFeatureItemWrapperFactory.class);
+		itemWrapperFactory.initialize(runTimeProperties);
+		final CentroidExtractor<Object> centroidExtractor = runTimeProperties.getClassInstance(
+				CentroidParameters.Centroid.EXTRACTOR_CLASS,
+				CentroidExtractor.class,
+				SimpleFeatureCentroidExtractor.class);
+		final DistanceFn<Object> distanceFn = createDistanceFn(runTimeProperties);
+
+		final List<AnalyticItemWrapper<Object>> items = new ArrayList<AnalyticItemWrapper<Object>>(
+				inputItems.size());
+		for (final InputItem inputItem : inputItems) {
+			items.add(itemWrapperFactory.create(inputItem.getValue()));
+		}
+		final Point[] points = new Point[items.size()];
+		engine.aggregate(
+				items.size(),
+				new PassAggregation<Object>() {
+					@Override
+					public void add(
+							final Object result,
+							final int item ) {
+						points[item] = centroidExtractor.getCentroid(items.get(item).getWrappedItem());
+					}
+				});
+
+		List<AnalyticItemWrapper<Object>> centroids = new ArrayList<AnalyticItemWrapper<Object>>();
+		for (final int seed : seed(
+				engine,
+				runTimeProperties,
+				items,
+				k,
+				new Random())) {
+			final AnalyticItemWrapper<Object> item = items.get(seed);
+			centroids.add(itemWrapperFactory.create(AnalyticFeature.createGeometryFeature(
+					centroidType,
+					batchId,
+					UUID.randomUUID().toString(),
+					UUID.randomUUID().toString(),
+					groupId,
+					0.0,
+					points[seed],
+					item.getExtraDimensions(),
+					item.getDimensionValues(),
+					1,
+					1,
+					0)));
+		}
+		if (centroids.isEmpty()) {
+			LOGGER.warn("No items to cluster");
+			return new ArrayList<SimpleFeature>();
+		}
+
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			final Map<String, GeoObjectDimensionValues> totals = associate(
+					engine,
+					runTimeProperties,
+					items,
+					points,
+					centroids);
+
+			final List<AnalyticItemWrapper<Object>> nextCentroids = new ArrayList<AnalyticItemWrapper<Object>>(
+					centroids.size());
+			double distance = 0;
+			int movedCount = 0;
+			for (final AnalyticItemWrapper<Object> centroid : centroids) {
+				final GeoObjectDimensionValues total = totals.get(centroid.getID());
+				if (total == null) {
+					// a centroid without associated items is left in place, as
+					// the KMeans reducer does
+					nextCentroids.add(centroid);
+					continue;
+				}
+				final double count = total.getCount();
+				final double[] means = new double[centroid.getExtraDimensions().length];
+				for (int i = 0; i < means.length; i++) {
+					means[i] = total.values[i] / count;
+				}
+				final AnalyticItemWrapper<Object> nextCentroid = itemWrapperFactory.createNextItem(
+						centroid.getWrappedItem(),
+						groupId,
+						new Coordinate(
+								total.x / count,
+								total.y / count,
+								total.z / count),
+						centroid.getExtraDimensions(),
+						means);
+				nextCentroid.resetAssociatonCount();
+				nextCentroid.incrementAssociationCount(total.getCount());
+				nextCentroids.add(nextCentroid);
+				distance += distanceFn.measure(
+						centroid.getWrappedItem(),
+						nextCentroid.getWrappedItem());
+				movedCount++;
+			}
+			centroids = nextCentroids;
+			// averaged over the prior and next centroids, as the map reduce
+			// convergence check does
+			distance /= (centroids.size() + movedCount);
+			LOGGER.info(
+					"Iteration {} moved centroids by an average of {}",
+					iteration + 1,
+					distance);
+			if (distance < convergenceTol) {
+				break;
+			}
+		}
+
+		final List<SimpleFeature> result = new ArrayList<SimpleFeature>(
+				centroids.size());
+		for (final AnalyticItemWrapper<Object> centroid : centroids) {
+			result.add((SimpleFeature) centroid.getWrappedItem());
+		}
+		return result;
+	}
+
+	/**
+	 * Choose the items to seed the centroids with k-means++
+	 *
+	 * @return the indices of the chosen items, fewer than k if there are fewer
+	 *         than k distinct items
+	 */
+	private List<Integer> seed(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final List<AnalyticItemWrapper<Object>> items,
+			final int k,
+			final Random random )
+			throws Exception {
+		final List<Integer> seeds = new ArrayList<Integer>();
+		if (items.isEmpty()) {
+			return seeds;
+		}
+		final double[] minDistances = new double[items.size()];
+		Arrays.fill(
+				minDistances,
+				Double.POSITIVE_INFINITY);
+		int seed = random.nextInt(items.size());
+		while (true) {
+			seeds.add(seed);
+			if (seeds.size() >= k) {
+				return seeds;
+			}
+			final Object seedItem = items.get(
+					seed).getWrappedItem();
+			final double sum = engine.aggregate(
+					items.size(),
+					new LocalAnalyticEngine.Aggregation<DistanceSum>() {
+
+						@Override
+						public DistanceSum create()
+								throws Exception {
+							return new DistanceSum(
+									createDistanceFn(runTimeProperties));
+						}
+
+						@Override
+						public void add(
+								final DistanceSum result,
+								final int item ) {
+							final double distance = result.distanceFn.measure(
+									items.get(
+											item).getWrappedItem(),
+									seedItem);
+							if (distance < minDistances[item]) {
+								minDistances[item] = distance;
+							}
+							result.sum += minDistances[item] * minDistances[item];
+						}
+
+						@Override
+						public DistanceSum merge(
+								final DistanceSum result1,
+								final DistanceSum result2 ) {
+							result1.sum += result2.sum;
+							return result1;
+						}
+					}).sum;
+			if (!(sum > 0)) {
+				// every item is at a chosen centroid
+				return seeds;
+			}
+			double target = random.nextDouble() * sum;
+			for (int i = 0; i < minDistances.length; i++) {
+				if (minDistances[i] > 0) {
+					seed = i;
+					target -= minDistances[i] * minDistances[i];
+					if (target < 0) {
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Associate each item with its closest centroid
+	 *
+	 * @return the sum of the dimension values of the items associated with
+	 *         each centroid, by centroid ID
+	 */
+	private Map<String, GeoObjectDimensionValues> associate(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final List<AnalyticItemWrapper<Object>> items,
+			final Point[] points,
+			final List<AnalyticItemWrapper<Object>> centroids )
+			throws Exception {
+		final boolean pruning = runTimeProperties.getPropertyAsBoolean(
+				CentroidParameters.Centroid.PRUNE_ASSOCIATIONS,
+				false) && (centroids.size() <= CentroidAssociationFn.MAX_PRUNED_TARGET_SIZE);
+		final double[] halfDistances = pruning ? CentroidAssociationFn.computeHalfDistances(
+				centroids,
+				createDistanceFn(runTimeProperties)) : null;
+		final Associations associations = engine.aggregate(
+				items.size(),
+				new LocalAnalyticEngine.Aggregation<Associations>() {
+
+					@Override
+					public Associations create()
+							throws Exception {
+						return new Associations(
+								createDistanceFn(runTimeProperties),
+								centroids,
+								halfDistances);
+					}
+
+					@Override
+					public void add(
+							final Associations result,
+							final int item ) {
+						result.associationFn.compute(
+								items.get(item),
+								centroids,
+								result);
+						final double[] extra = result.pairing.getPairedItem().getDimensionValues();
+						final Coordinate coordinate = points[item].getCoordinate();
+						GeoObjectDimensionValues total = result.totals.get(result.pairing.getCentroid().getID());
+						if (total == null) {
+							total = new GeoObjectDimensionValues(
+									extra.length);
+							result.totals.put(
+									result.pairing.getCentroid().getID(),
+									total);
+						}
+						total.add(new GeoObjectDimensionValues(
+								coordinate.x,
+								coordinate.y,
+								coordinate.z,
+								extra,
+								result.pairing.getDistance()));
+					}
+
+					@Override
+					public Associations merge(
+							final Associations result1,
+							final Associations result2 ) {
+						for (final Map.Entry<String, GeoObjectDimensionValues> entry : result2.totals.entrySet()) {
+							final GeoObjectDimensionValues total = result1.totals.get(entry.getKey());
+							if (total == null) {
+								result1.totals.put(
+										entry.getKey(),
+										entry.getValue());
+							}
+							else {
+								total.add(entry.getValue());
+							}
+						}
+						result1.mergedComputedDistanceCount += result2.getComputedDistanceCount();
+						result1.mergedPrunedDistanceCount += result2.getPrunedDistanceCount();
+						return result1;
+					}
+				});
+		if (pruning) {
+			LOGGER.info(
+					"Pruned {} of {} distances to centroids",
+					associations.getPrunedDistanceCount(),
+					associations.getComputedDistanceCount() + associations.getPrunedDistanceCount());
+		}
+		return associations.totals;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static DistanceFn<Object> createDistanceFn(
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		return runTimeProperties.getClassInstance(
+				CommonParameters.Common.DISTANCE_FUNCTION_CLASS,
+				DistanceFn.class,
+				FeatureCentroidDistanceFn.class);
+	}
+
+	/**
+	 * The sum of the squared distances of a range of items to their closest
+	 * centroid
+	 */
+	private static class DistanceSum
+	{
+		private final DistanceFn<Object> distanceFn;
+		private double sum = 0;
+
+		public DistanceSum(
+				final DistanceFn<Object> distanceFn ) {
+			this.distanceFn = distanceFn;
+		}
+	}
+
+	/**
+	 * The closest centroids of a range of items and the sum of their dimension
+	 * values
+	 */
+	private static class Associations implements
+			AssociationNotification<Object>
+	{
+		private final CentroidAssociationFn<Object> associationFn = new CentroidAssociationFn<Object>();
+		private final Map<String, GeoObjectDimensionValues> totals = new LinkedHashMap<String, GeoObjectDimensionValues>();
+		private CentroidPairing<Object> pairing;
+		private long mergedComputedDistanceCount = 0;
+		private long mergedPrunedDistanceCount = 0;
+
+		public Associations(
+				final DistanceFn<Object> distanceFn,
+				final List<AnalyticItemWrapper<Object>> centroids,
+				final double[] halfDistances ) {
+			associationFn.setDistanceFunction(distanceFn);
+			if (halfDistances != null) {
+				associationFn.setPruning(true);
+				associationFn.setHalfDistances(
+						centroids,
+						halfDistances);
+			}
+		}
+
+		/**
+		 * @return the distances computed for this range and the ranges merged
+		 *         into it
+		 */
+		public long getComputedDistanceCount() {
+			return associationFn.getComputedDistanceCount() + mergedComputedDistanceCount;
+		}
+
+		public long getPrunedDistanceCount() {
+			return associationFn.getPrunedDistanceCount() + mergedPrunedDistanceCount;
+		}
+
+		@Override
+		public void notify(
+				final CentroidPairing<Object> pairing ) {
+			this.pairing = pairing;
+		}
+	}
+
+	/**
+	 * A pass over the items without a result
+	 */
+	private abstract static class PassAggregation<T> implements
+			LocalAnalyticEngine.Aggregation<T>
+	{
+		@Override
+		public T create() {
+			return null;
+		}
+
+		@Override
+		public T merge(
+				final T result1,
+				final T result2 ) {
+			return null;
+		}
+	}
+
+	@Override
+	public void fillOptions(
+			final Set<Option> options ) {
+		super.fillOptions(options);
+		SampleParameters.fillOptions(
+				options,
+				new SampleParameters.Sample[] {
+					SampleParameters.Sample.SAMPLE_SIZE
+				});
+		CentroidParameters.fillOptions(
+				options,
+				new CentroidParameters.Centroid[] {
+					CentroidParameters.Centroid.WRAPPER_FACTORY_CLASS,
+					CentroidParameters.Centroid.INDEX_ID,
+					CentroidParameters.Centroid.DATA_TYPE_ID,
+					CentroidParameters.Centroid.DATA_NAMESPACE_URI,
+					CentroidParameters.Centroid.EXTRACTOR_CLASS,
+					CentroidParameters.Centroid.PRUNE_ASSOCIATIONS
+				});
+		ClusteringParameters.fillOptions(
+				options,
+				new ClusteringParameters.Clustering[] {
+					ClusteringParameters.Clustering.MAX_ITERATIONS,
+					ClusteringParameters.Clustering.CONVERGANCE_TOLERANCE
+				});
+		CommonParameters.fillOptions(
+				options,
+				new CommonParameters.Common[] {
+					CommonParameters.Common.DISTANCE_FUNCTION_CLASS,
+					CommonParameters.Common.DIMENSION_EXTRACT_CLASS
+				});
+		GlobalParameters.fillOptions(
+				options,
+				new GlobalParameters.Global[] {
+					GlobalParameters.Global.BATCH_ID
+				});
+	}
+}
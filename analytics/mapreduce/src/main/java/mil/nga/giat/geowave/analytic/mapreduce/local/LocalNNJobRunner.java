@@ -0,0 +1,394 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureGeometryDistanceFn;
+import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce;
+import mil.nga.giat.geowave.analytic.mapreduce.nn.NNMapReduce.PassthruPartitioner;
+import mil.nga.giat.geowave.analytic.nn.DefaultNeighborList;
+import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
+import mil.nga.giat.geowave.analytic.nn.DistanceProfileGenerateFn;
+import mil.nga.giat.geowave.analytic.nn.NNProcessor;
+import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
+import mil.nga.giat.geowave.analytic.nn.NeighborEnvelopeFn;
+import mil.nga.giat.geowave.analytic.nn.NeighborList;
+import mil.nga.giat.geowave.analytic.nn.TypeConverter;
+import mil.nga.giat.geowave.analytic.param.CommonParameters;
+import mil.nga.giat.geowave.analytic.param.OutputParameters;
+import mil.nga.giat.geowave.analytic.param.PartitionParameters;
+import mil.nga.giat.geowave.analytic.param.PartitionParameters.Partition;
+import mil.nga.giat.geowave.analytic.partitioner.OrthodromicDistancePartitioner;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionDataCallback;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import org.apache.commons.cli.Option;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.opengis.feature.simple.SimpleFeature;
+
+/**
+ * Find the nearest neighbors of each feature within this process, producing
+ * the same sequence file of feature IDs to comma separated neighbor IDs as
+ * {@link mil.nga.giat.geowave.analytic.mapreduce.nn.GeoWaveExtractNNJobRunner}.
+ *
+ * The features are partitioned in parallel as the NN mapper would, and each
+ * partition is then given to its own {@link NNProcessor} as the NN reducer
+ * would. The partitioners and distance functions are not thread safe, so each
+ * range of features or partitions gets its own.
+ */
+public class LocalNNJobRunner extends
+		LocalAnalyticJobRunner
+{
+	/**
+	 * A feature within a partition
+	 */
+	protected static class PartitionMember
+	{
+		private final ByteArrayId dataId;
+		private final boolean primary;
+		private final SimpleFeature feature;
+
+		public PartitionMember(
+				final ByteArrayId dataId,
+				final boolean primary,
+				final SimpleFeature feature ) {
+			this.dataId = dataId;
+			this.primary = primary;
+			this.feature = feature;
+		}
+
+		public ByteArrayId getDataId() {
+			return dataId;
+		}
+
+		public boolean isPrimary() {
+			return primary;
+		}
+
+		public SimpleFeature getFeature() {
+			return feature;
+		}
+	}
+
+	private static final TypeConverter<SimpleFeature> TYPE_CONVERTER = new TypeConverter<SimpleFeature>() {
+		@Override
+		public SimpleFeature convert(
+				final ByteArrayId id,
+				final Object o ) {
+			return (SimpleFeature) o;
+		}
+	};
+
+	@Override
+	protected int run(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		final Path outputPath = runTimeProperties.getPropertyAsPath(OutputParameters.Output.HDFS_OUTPUT_PATH);
+		if (outputPath == null) {
+			LOGGER.error("Missing the output path");
+			return 1;
+		}
+		final List<Text[]> neighbors = findNeighbors(
+				engine,
+				runTimeProperties,
+				loadInput(runTimeProperties));
+
+		final Configuration config = new Configuration();
+		final SequenceFile.Writer writer = SequenceFile.createWriter(
+				config,
+				SequenceFile.Writer.file(new Path(
+						outputPath,
+						"part-r-00000")),
+				SequenceFile.Writer.keyClass(Text.class),
+				SequenceFile.Writer.valueClass(Text.class));
+		try {
+			for (final Text[] pair : neighbors) {
+				writer.append(
+						pair[0],
+						pair[1]);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the ID of each feature with neighbors and the comma separated IDs
+	 *         of its neighbors
+	 */
+	public List<Text[]> findNeighbors(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final List<InputItem> items )
+			throws Exception {
+		return findNeighbors(
+				engine,
+				runTimeProperties.getPropertyAsDouble(
+						Partition.PARTITION_DISTANCE,
+						1.0),
+				runTimeProperties,
+				partition(
+						engine,
+						runTimeProperties,
+						items));
+	}
+
+	/**
+	 * Group the features by the partitions of the primary partitioner
+	 */
+	protected static List<Map.Entry<PartitionData, List<PartitionMember>>> partition(
+			final LocalAnalyticEngine engine,
+			final PropertyManagement runTimeProperties,
+			final List<InputItem> items )
+			throws Exception {
+		final Map<PartitionData, List<PartitionMember>> partitions = engine.aggregate(
+				items.size(),
+				new LocalAnalyticEngine.Aggregation<PartitionedItems>() {
+
+					@Override
+					public PartitionedItems create()
+							throws Exception {
+						return new PartitionedItems(
+								createPartitioner(runTimeProperties));
+					}
+
+					@Override
+					public void add(
+							final PartitionedItems result,
+							final int item )
+							throws Exception {
+						final InputItem inputItem = items.get(item);
+						result.partitioner.partition(
+								inputItem.getValue(),
+								new PartitionDataCallback() {
+									@Override
+									public void partitionWith(
+											final PartitionData partitionData )
+											throws Exception {
+										List<PartitionMember> members = result.partitions.get(partitionData);
+										if (members == null) {
+											members = new ArrayList<PartitionMember>();
+											result.partitions.put(
+													partitionData,
+													members);
+										}
+										members.add(new PartitionMember(
+												inputItem.getDataId(),
+												partitionData.isPrimary(),
+												(SimpleFeature) inputItem.getValue()));
+									}
+								});
+					}
+
+					@Override
+					public PartitionedItems merge(
+							final PartitionedItems result1,
+							final PartitionedItems result2 ) {
+						for (final Map.Entry<PartitionData, List<PartitionMember>> entry : result2.partitions.entrySet()) {
+							final List<PartitionMember> members = result1.partitions.get(entry.getKey());
+							if (members == null) {
+								result1.partitions.put(
+										entry.getKey(),
+										entry.getValue());
+							}
+							else {
+								members.addAll(entry.getValue());
+							}
+						}
+						return result1;
+					}
+				}).partitions;
+		LOGGER.info(
+				"Partitioned {} items into {} partitions",
+				items.size(),
+				partitions.size());
+		return new ArrayList<Map.Entry<PartitionData, List<PartitionMember>>>(
+				partitions.entrySet());
+	}
+
+	private List<Text[]> findNeighbors(
+			final LocalAnalyticEngine engine,
+			final double maxDistance,
+			final PropertyManagement runTimeProperties,
+			final List<Map.Entry<PartitionData, List<PartitionMember>>> partitions )
+			throws Exception {
+		return engine.aggregate(
+				partitions.size(),
+				new LocalAnalyticEngine.Aggregation<NeighborsFinder>() {
+
+					@Override
+					public NeighborsFinder create()
+							throws Exception {
+						return new NeighborsFinder(
+								runTimeProperties,
+								maxDistance);
+					}
+
+					@Override
+					public void add(
+							final NeighborsFinder result,
+							final int item )
+							throws Exception {
+						result.process(partitions.get(item));
+					}
+
+					@Override
+					public NeighborsFinder merge(
+							final NeighborsFinder result1,
+							final NeighborsFinder result2 ) {
+						result1.neighbors.addAll(result2.neighbors);
+						return result1;
+					}
+				}).neighbors;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Partitioner<Object> createPartitioner(
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+		final Partitioner<Object> partitioner = runTimeProperties.getClassInstance(
+				Partition.PARTITIONER_CLASS,
+				Partitioner.class,
+				OrthodromicDistancePartitioner.class);
+		partitioner.initialize(runTimeProperties);
+		return partitioner;
+	}
+
+	private static class PartitionedItems
+	{
+		private final Partitioner<Object> partitioner;
+		private final Map<PartitionData, List<PartitionMember>> partitions = new LinkedHashMap<PartitionData, List<PartitionMember>>();
+
+		public PartitionedItems(
+				final Partitioner<Object> partitioner ) {
+			this.partitioner = partitioner;
+		}
+	}
+
+	/**
+	 * Finds the neighbors within partitions with the secondary partitioner and
+	 * distance function of one thread
+	 */
+	private static class NeighborsFinder
+	{
+		private final Partitioner<Object> partitioner;
+		private final NeighborEnvelopeFn<SimpleFeature> neighborEnvelopeFn;
+		private final DistanceProfileGenerateFn<?, SimpleFeature> distanceProfileFn;
+		private final double maxDistance;
+		private final List<Text[]> neighbors = new ArrayList<Text[]>();
+
+		@SuppressWarnings("unchecked")
+		public NeighborsFinder(
+				final PropertyManagement runTimeProperties,
+				final double maxDistance )
+				throws Exception {
+			this.maxDistance = maxDistance;
+			partitioner = runTimeProperties.getClassInstance(
+					Partition.SECONDARY_PARTITIONER_CLASS,
+					Partitioner.class,
+					PassthruPartitioner.class);
+			partitioner.initialize(NNMapReduce.createSecondaryPartitionerConfiguration(runTimeProperties));
+			final DistanceFn<SimpleFeature> distanceFn = runTimeProperties.getClassInstance(
+					CommonParameters.Common.DISTANCE_FUNCTION_CLASS,
+					DistanceFn.class,
+					FeatureGeometryDistanceFn.class);
+			neighborEnvelopeFn = (NeighborEnvelopeFn<SimpleFeature>) NNMapReduce.createNeighborEnvelopeFn(distanceFn);
+			distanceProfileFn = new DistanceProfileGenerateFn<Object, SimpleFeature>() {
+				private final DistanceProfile<Object> profile = new DistanceProfile<Object>();
+
+				@Override
+				public DistanceProfile<Object> computeProfile(
+						final SimpleFeature item1,
+						final SimpleFeature item2 ) {
+					profile.setDistance(distanceFn.measure(
+							item1,
+							item2));
+					return profile;
+				}
+			};
+		}
+
+		public void process(
+				final Map.Entry<PartitionData, List<PartitionMember>> partition )
+				throws IOException,
+				InterruptedException {
+			final NNProcessor<Object, SimpleFeature> processor = new NNProcessor<Object, SimpleFeature>(
+					partitioner,
+					TYPE_CONVERTER,
+					distanceProfileFn,
+					maxDistance,
+					partition.getKey());
+			processor.setNeighborEnvelopeFn(neighborEnvelopeFn);
+			for (final PartitionMember member : partition.getValue()) {
+				processor.add(
+						member.dataId,
+						member.primary,
+						member.feature);
+			}
+			processor.process(
+					new DefaultNeighborList.DefaultNeighborListFactory<SimpleFeature>(),
+					new CompleteNotifier<SimpleFeature>() {
+						@Override
+						public void complete(
+								final ByteArrayId id,
+								final SimpleFeature value,
+								final NeighborList<SimpleFeature> primaryList ) {
+							if ((primaryList != null) && (primaryList.size() > 0)) {
+								final StringBuilder neighborIds = new StringBuilder();
+								for (final Map.Entry<ByteArrayId, SimpleFeature> neighbor : primaryList) {
+									if (neighborIds.length() > 0) {
+										neighborIds.append(',');
+									}
+									neighborIds.append(neighbor.getValue().getID());
+								}
+								neighbors.add(new Text[] {
+									new Text(
+											value.getID()),
+									new Text(
+											neighborIds.toString())
+								});
+							}
+							processor.remove(id);
+						}
+					});
+		}
+	}
+
+	@Override
+	public void fillOptions(
+			final Set<Option> options ) {
+		super.fillOptions(options);
+		PartitionParameters.fillOptions(
+				options,
+				new PartitionParameters.Partition[] {
+					Partition.PARTITIONER_CLASS,
+					Partition.SECONDARY_PARTITIONER_CLASS,
+					Partition.PARTITION_DISTANCE,
+					Partition.MAX_MEMBER_SELECTION
+				});
+		CommonParameters.fillOptions(
+				options,
+				new CommonParameters.Common[] {
+					CommonParameters.Common.DISTANCE_FUNCTION_CLASS
+				});
+		OutputParameters.fillOptions(
+				options,
+				new OutputParameters.Output[] {
+					OutputParameters.Output.HDFS_OUTPUT_PATH
+				});
+	}
+}
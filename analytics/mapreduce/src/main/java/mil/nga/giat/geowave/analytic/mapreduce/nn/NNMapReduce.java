@@ -19,8 +19,10 @@ import mil.nga.giat.geowave.analytic.mapreduce.JobContextConfigurationWrapper;
 import mil.nga.giat.geowave.analytic.nn.DefaultNeighborList;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
 import mil.nga.giat.geowave.analytic.nn.DistanceProfileGenerateFn;
+import mil.nga.giat.geowave.analytic.nn.GeometryNeighborEnvelopeFn;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
+import mil.nga.giat.geowave.analytic.nn.NeighborEnvelopeFn;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
 import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
 import mil.nga.giat.geowave.analytic.nn.TypeConverter;
@@ -54,6 +56,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.primitives.SignedBytes;
+import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Find the nearest neighbors to a each item.
@@ -238,6 +241,12 @@ public class NNMapReduce
 
 		protected DistanceProfileGenerateFn<?, VALUEIN> distanceProfileFn = new LocalDistanceProfileGenerateFn();
 
+		/**
+		 * Locates values to spatially index large partitions, or null to
+		 * compare every pair of values within a partition
+		 */
+		protected NeighborEnvelopeFn<VALUEIN> neighborEnvelopeFn = null;
+
 		@Override
 		protected void reduce(
 				final PartitionDataWritable key,
@@ -252,6 +261,7 @@ public class NNMapReduce
 					distanceProfileFn,
 					maxDistance,
 					key.partitionData);
+			processor.setNeighborEnvelopeFn(neighborEnvelopeFn);
 			final PARTITION_SUMMARY summary = createSummary();
 
 			for (final AdapterWithObjectWritable inputValue : values) {
@@ -385,6 +395,8 @@ public class NNMapReduce
 						e);
 			}
 
+			neighborEnvelopeFn = (NeighborEnvelopeFn<VALUEIN>) createNeighborEnvelopeFn(distanceFn);
+
 			maxDistance = config.getDouble(
 					PartitionParameters.Partition.PARTITION_DISTANCE,
 					NNMapReduce.class,
@@ -398,67 +410,7 @@ public class NNMapReduce
 						Partitioner.class,
 						PassthruPartitioner.class);
 
-				partitioner.initialize(new ConfigurationWrapper() {
-
-					@Override
-					public int getInt(
-							Enum<?> property,
-							Class<?> scope,
-							int defaultValue ) {
-						return config.getInt(
-								property,
-								scope,
-								defaultValue);
-					}
-
-					@Override
-					public double getDouble(
-							Enum<?> property,
-							Class<?> scope,
-							double defaultValue ) {
-						if (property == Partition.PARTITION_PRECISION) return 1.0;
-						return config.getDouble(
-								property,
-								scope,
-								defaultValue);
-					}
-
-					@Override
-					public String getString(
-							Enum<?> property,
-							Class<?> scope,
-							String defaultValue ) {
-						return config.getString(
-								property,
-								scope,
-								defaultValue);
-					}
-
-					@Override
-					public byte[] getBytes(
-							Enum<?> property,
-							Class<?> scope ) {
-						return config.getBytes(
-								property,
-								scope);
-					}
-
-					@Override
-					public <T> T getInstance(
-							Enum<?> property,
-							Class<?> scope,
-							Class<T> iface,
-							Class<? extends T> defaultValue )
-							throws InstantiationException,
-							IllegalAccessException {
-						return config.getInstance(
-								property,
-								scope,
-								iface,
-								defaultValue);
-					}
-
-				});
+				partitioner.initialize(createSecondaryPartitionerConfiguration(config));
 			}
 			catch (final Exception e1) {
 				throw new IOException(
@@ -663,6 +615,96 @@ public class NNMapReduce
 		}
 	}
 
+	/**
+	 * The secondary partitioner divides a partition into its own cells, so it
+	 * always uses full precision.
+	 */
+	public static ConfigurationWrapper createSecondaryPartitionerConfiguration(
+			final ConfigurationWrapper config ) {
+		return new ConfigurationWrapper() {
+
+			@Override
+			public int getInt(
+					Enum<?> property,
+					Class<?> scope,
+					int defaultValue ) {
+				return config.getInt(
+						property,
+						scope,
+						defaultValue);
+			}
+
+			@Override
+			public double getDouble(
+					Enum<?> property,
+					Class<?> scope,
+					double defaultValue ) {
+				if (property == Partition.PARTITION_PRECISION) return 1.0;
+				return config.getDouble(
+						property,
+						scope,
+						defaultValue);
+			}
+
+			@Override
+			public String getString(
+					Enum<?> property,
+					Class<?> scope,
+					String defaultValue ) {
+				return config.getString(
+						property,
+						scope,
+						defaultValue);
+			}
+
+			@Override
+			public byte[] getBytes(
+					Enum<?> property,
+					Class<?> scope ) {
+				return config.getBytes(
+						property,
+						scope);
+			}
+
+			@Override
+			public <T> T getInstance(
+					Enum<?> property,
+					Class<?> scope,
+					Class<T> iface,
+					Class<? extends T> defaultValue )
+					throws InstantiationException,
+					IllegalAccessException {
+				return config.getInstance(
+						property,
+						scope,
+						iface,
+						defaultValue);
+			}
+
+		};
+	}
+
+	/**
+	 * @return a function to spatially index large partitions for the distance
+	 *         function, or null if the distance function does not measure
+	 *         geometries
+	 */
+	public static NeighborEnvelopeFn<?> createNeighborEnvelopeFn(
+			final DistanceFn<?> distanceFn ) {
+		if (distanceFn instanceof FeatureGeometryDistanceFn) {
+			final FeatureGeometryDistanceFn featureDistanceFn = (FeatureGeometryDistanceFn) distanceFn;
+			return new GeometryNeighborEnvelopeFn<SimpleFeature>(
+					featureDistanceFn.getCoordinateDistanceFunction()) {
+				@Override
+				protected Geometry getGeometry(
+						final SimpleFeature item ) {
+					return featureDistanceFn.getGeometry(item);
+				}
+			};
+		}
+		return null;
+	}
+
 	public static class PassthruPartitioner<T> implements
 			Partitioner<T>
 	{
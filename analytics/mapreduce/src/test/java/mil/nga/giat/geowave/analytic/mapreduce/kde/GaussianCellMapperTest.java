@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.analytic.mapreduce.kde;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.analytic.AnalyticFeature;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.mapreduce.kmeans.SimpleFeatureImplSerialization;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.datastore.accumulo.mapreduce.input.GeoWaveInputKey;
+
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mrunit.mapreduce.MapDriver;
+import org.apache.hadoop.mrunit.types.Pair;
+import org.geotools.feature.type.BasicFeatureTypes;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class GaussianCellMapperTest
+{
+	final GeometryFactory factory = new GeometryFactory();
+	SimpleFeatureType ftype;
+
+	@Before
+	public void setUp() {
+		ftype = AnalyticFeature.createGeometryFeatureAdapter(
+				"centroid",
+				new String[] {},
+				BasicFeatureTypes.DEFAULT_NAMESPACE,
+				ClusteringUtils.CLUSTERING_CRS).getType();
+	}
+
+	private MapDriver<GeoWaveInputKey, SimpleFeature, LongWritable, DoubleWritable> createDriver(
+			final boolean combine,
+			final int maxCellSums ) {
+		final MapDriver<GeoWaveInputKey, SimpleFeature, LongWritable, DoubleWritable> mapDriver = MapDriver.newMapDriver(new GaussianCellMapper());
+		mapDriver.getConfiguration().setInt(
+				KDEJobRunner.MIN_LEVEL_KEY,
+				1);
+		mapDriver.getConfiguration().setInt(
+				KDEJobRunner.MAX_LEVEL_KEY,
+				6);
+		mapDriver.getConfiguration().setBoolean(
+				KDEJobRunner.IN_MAPPER_COMBINING_KEY,
+				combine);
+		mapDriver.getConfiguration().setInt(
+				KDEJobRunner.MAX_CELL_SUMS_KEY,
+				maxCellSums);
+
+		final String[] strings = mapDriver.getConfiguration().getStrings(
+				"io.serializations");
+		final String[] newStrings = new String[strings.length + 1];
+		System.arraycopy(
+				strings,
+				0,
+				newStrings,
+				0,
+				strings.length);
+		newStrings[newStrings.length - 1] = SimpleFeatureImplSerialization.class.getName();
+		mapDriver.getConfiguration().setStrings(
+				"io.serializations",
+				newStrings);
+
+		final Random random = new Random(
+				3);
+		for (int i = 0; i < 50; i++) {
+			final SimpleFeature feature = AnalyticFeature.createGeometryFeature(
+					ftype,
+					"b1",
+					UUID.randomUUID().toString(),
+					"fred",
+					"NA",
+					20.30203,
+					factory.createPoint(new Coordinate(
+							-10 + (random.nextDouble() * 20),
+							-10 + (random.nextDouble() * 20))),
+					new String[] {},
+					new double[] {},
+					1,
+					1,
+					0);
+			final GeoWaveInputKey inputKey = new GeoWaveInputKey();
+			inputKey.setAdapterId(new ByteArrayId(
+					ftype.getTypeName()));
+			inputKey.setDataId(new ByteArrayId(
+					feature.getID()));
+			mapDriver.addInput(
+					inputKey,
+					feature);
+		}
+		return mapDriver;
+	}
+
+	private static Map<Long, Double> sum(
+			final List<Pair<LongWritable, DoubleWritable>> results ) {
+		final Map<Long, Double> sums = new HashMap<Long, Double>();
+		for (final Pair<LongWritable, DoubleWritable> result : results) {
+			final Double sum = sums.get(result.getFirst().get());
+			sums.put(
+					result.getFirst().get(),
+					(sum == null ? 0 : sum) + result.getSecond().get());
+		}
+		return sums;
+	}
+
+	@Test
+	public void testInMapperCombining()
+			throws IOException {
+		final List<Pair<LongWritable, DoubleWritable>> uncombinedResults = createDriver(
+				false,
+				CellSumBuffer.DEFAULT_MAX_CELLS).run();
+		final List<Pair<LongWritable, DoubleWritable>> combinedResults = createDriver(
+				true,
+				CellSumBuffer.DEFAULT_MAX_CELLS).run();
+		final List<Pair<LongWritable, DoubleWritable>> spilledResults = createDriver(
+				true,
+				16).run();
+
+		final Map<Long, Double> expected = sum(uncombinedResults);
+		// every cell is written once unless the buffer spills
+		assertEquals(
+				expected.size(),
+				combinedResults.size());
+		assertTrue(uncombinedResults.size() > combinedResults.size());
+		assertTrue(spilledResults.size() >= combinedResults.size());
+		assertSums(
+				expected,
+				sum(combinedResults));
+		assertSums(
+				expected,
+				sum(spilledResults));
+	}
+
+	private static void assertSums(
+			final Map<Long, Double> expected,
+			final Map<Long, Double> actual ) {
+		assertEquals(
+				expected.size(),
+				actual.size());
+		for (final Map.Entry<Long, Double> entry : expected.entrySet()) {
+			final Double sum = actual.get(entry.getKey());
+			assertNotNull(sum);
+			assertEquals(
+					entry.getValue(),
+					sum,
+					1e-9);
+		}
+	}
+}
@@ -0,0 +1,436 @@
+package mil.nga.giat.geowave.analytic.mapreduce.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.analytic.AnalyticFeature;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidOrthodromicDistanceFn;
+import mil.nga.giat.geowave.analytic.mapreduce.local.LocalAnalyticJobRunner.InputItem;
+import mil.nga.giat.geowave.analytic.param.CentroidParameters;
+import mil.nga.giat.geowave.analytic.param.ClusteringParameters;
+import mil.nga.giat.geowave.analytic.param.CommonParameters;
+import mil.nga.giat.geowave.analytic.param.KDEParameters;
+import mil.nga.giat.geowave.analytic.param.PartitionParameters;
+import mil.nga.giat.geowave.analytic.param.SampleParameters;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import org.apache.hadoop.io.Text;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.feature.type.BasicFeatureTypes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+
+public class LocalAnalyticJobRunnerTest
+{
+	final GeometryFactory factory = new GeometryFactory();
+	SimpleFeatureType ftype;
+	LocalAnalyticEngine engine;
+
+	@Before
+	public void setUp() {
+		ftype = AnalyticFeature.createGeometryFeatureAdapter(
+				"centroid",
+				new String[] {},
+				BasicFeatureTypes.DEFAULT_NAMESPACE,
+				ClusteringUtils.CLUSTERING_CRS).getType();
+		engine = new LocalAnalyticEngine(
+				4);
+	}
+
+	@After
+	public void tearDown() {
+		engine.close();
+	}
+
+	private InputItem createTestItem(
+			final Coordinate coord ) {
+		final SimpleFeature feature = AnalyticFeature.createGeometryFeature(
+				ftype,
+				"b1",
+				UUID.randomUUID().toString(),
+				"fred",
+				"NA",
+				20.30203,
+				factory.createPoint(coord),
+				new String[] {},
+				new double[] {},
+				1,
+				1,
+				0);
+		return new InputItem(
+				new ByteArrayId(
+						feature.getID()),
+				feature);
+	}
+
+	private static String getID(
+			final InputItem item ) {
+		return ((SimpleFeature) item.getValue()).getID();
+	}
+
+	@Test
+	public void testNearestNeighbors()
+			throws Exception {
+		final PropertyManagement propertyManagement = new PropertyManagement();
+		propertyManagement.store(
+				ClusteringParameters.Clustering.DISTANCE_THRESHOLDS,
+				"0.0002,0.0002");
+		propertyManagement.store(
+				CommonParameters.Common.DISTANCE_FUNCTION_CLASS,
+				FeatureCentroidOrthodromicDistanceFn.class);
+		propertyManagement.store(
+				PartitionParameters.Partition.PARTITION_DISTANCE,
+				0.001);
+
+		final InputItem item1 = createTestItem(new Coordinate(
+				30.0,
+				30.00000001));
+		final InputItem item2 = createTestItem(new Coordinate(
+				179.9999999999,
+				30.0000001));
+		final InputItem item3 = createTestItem(new Coordinate(
+				30.00000001,
+				30.00000001));
+		final InputItem item4 = createTestItem(new Coordinate(
+				-179.9999999999,
+				30.0000001));
+		final List<InputItem> items = new ArrayList<InputItem>();
+		items.add(item1);
+		items.add(item2);
+		items.add(item3);
+		items.add(item4);
+
+		final Map<String, String> neighbors = new HashMap<String, String>();
+		for (final Text[] pair : new LocalNNJobRunner().findNeighbors(
+				engine,
+				propertyManagement,
+				items)) {
+			neighbors.put(
+					pair[0].toString(),
+					pair[1].toString());
+		}
+
+		assertEquals(
+				4,
+				neighbors.size());
+		assertEquals(
+				getID(item3),
+				neighbors.get(getID(item1)));
+		assertEquals(
+				getID(item1),
+				neighbors.get(getID(item3)));
+		assertEquals(
+				getID(item4),
+				neighbors.get(getID(item2)));
+		assertEquals(
+				getID(item2),
+				neighbors.get(getID(item4)));
+	}
+
+	@Test
+	public void testKMeans()
+			throws Exception {
+		final PropertyManagement propertyManagement = new PropertyManagement();
+		propertyManagement.store(
+				SampleParameters.Sample.SAMPLE_SIZE,
+				2);
+		checkKMeans(propertyManagement);
+	}
+
+	@Test
+	public void testKMeansPruning()
+			throws Exception {
+		final PropertyManagement propertyManagement = new PropertyManagement();
+		propertyManagement.store(
+				SampleParameters.Sample.SAMPLE_SIZE,
+				2);
+		propertyManagement.store(
+				CentroidParameters.Centroid.PRUNE_ASSOCIATIONS,
+				Boolean.TRUE);
+		checkKMeans(propertyManagement);
+	}
+
+	private void checkKMeans(
+			final PropertyManagement propertyManagement )
+			throws Exception {
+
+		final Random random = new Random(
+				7);
+		final List<InputItem> items = new ArrayList<InputItem>();
+		for (int i = 0; i < 200; i++) {
+			final double center = (i % 2) == 0 ? -40 : 40;
+			items.add(createTestItem(new Coordinate(
+					center + random.nextDouble() - 0.5,
+					(center / 2) + random.nextDouble() - 0.5)));
+		}
+
+		final List<SimpleFeature> centroids = new LocalKMeansJobRunner().cluster(
+				engine,
+				propertyManagement,
+				ftype,
+				items);
+
+		assertEquals(
+				2,
+				centroids.size());
+		final boolean firstIsWest = ((Point) centroids.get(
+				0).getDefaultGeometry()).getX() < 0;
+		final Point west = (Point) centroids.get(
+				firstIsWest ? 0 : 1).getDefaultGeometry();
+		final Point east = (Point) centroids.get(
+				firstIsWest ? 1 : 0).getDefaultGeometry();
+		assertEquals(
+				-40,
+				west.getX(),
+				0.2);
+		assertEquals(
+				-20,
+				west.getY(),
+				0.2);
+		assertEquals(
+				40,
+				east.getX(),
+				0.2);
+		assertEquals(
+				20,
+				east.getY(),
+				0.2);
+		for (final SimpleFeature centroid : centroids) {
+			assertEquals(
+					100L,
+					((Number) centroid.getAttribute(AnalyticFeature.ClusterFeatureAttribute.COUNT.attrName())).longValue());
+		}
+	}
+
+	@Test
+	public void testDBScan()
+			throws Exception {
+		final PropertyManagement propertyManagement = new PropertyManagement();
+		propertyManagement.store(
+				ClusteringParameters.Clustering.DISTANCE_THRESHOLDS,
+				"10,10");
+		propertyManagement.store(
+				PartitionParameters.Partition.PARTITION_DISTANCE,
+				10.0);
+		propertyManagement.store(
+				ClusteringParameters.Clustering.MINIMUM_SIZE,
+				4);
+
+		final Random random = new Random(
+				3434);
+		final List<InputItem> items = new ArrayList<InputItem>();
+		for (int i = 0; i < 16; i++) {
+			final double center = (i % 2) == 0 ? -30 : 30;
+			items.add(createTestItem(new Coordinate(
+					center + (random.nextGaussian() * 0.00001),
+					center + (random.nextGaussian() * 0.00001))));
+		}
+
+		final List<SimpleFeature> hulls = new LocalDBScanJobRunner().cluster(
+				engine,
+				propertyManagement,
+				AnalyticFeature.createGeometryFeatureAdapter(
+						"concave_hull",
+						new String[0],
+						BasicFeatureTypes.DEFAULT_NAMESPACE,
+						ClusteringUtils.CLUSTERING_CRS).getType(),
+				items);
+
+		// every hull is a cluster of one of the two groups of points
+		boolean west = false;
+		boolean east = false;
+		for (final SimpleFeature hull : hulls) {
+			final Point centroid = ((Geometry) hull.getDefaultGeometry()).getCentroid();
+			if (Math.abs(centroid.getX() + 30) < 0.001) {
+				assertEquals(
+						-30,
+						centroid.getY(),
+						0.001);
+				west = true;
+			}
+			else {
+				assertEquals(
+						30,
+						centroid.getX(),
+						0.001);
+				assertEquals(
+						30,
+						centroid.getY(),
+						0.001);
+				east = true;
+			}
+		}
+		assertTrue(west);
+		assertTrue(east);
+	}
+
+	@Test
+	public void testKDE()
+			throws Exception {
+		final PropertyManagement propertyManagement = new PropertyManagement();
+		propertyManagement.store(
+				KDEParameters.KDE.COVERAGE_NAME,
+				"kde");
+		propertyManagement.store(
+				KDEParameters.KDE.MIN_LEVEL,
+				2);
+		propertyManagement.store(
+				KDEParameters.KDE.MAX_LEVEL,
+				3);
+		propertyManagement.store(
+				KDEParameters.KDE.TILE_SIZE,
+				8);
+
+		final List<InputItem> items = new ArrayList<InputItem>();
+		for (int i = 0; i < 10; i++) {
+			items.add(createTestItem(new Coordinate(
+					10.1,
+					10.1)));
+		}
+		items.add(createTestItem(new Coordinate(
+				-100.1,
+				-40.1)));
+
+		final List<GridCoverage> coverages = new LocalKDEJobRunner().computeCoverages(
+				engine,
+				propertyManagement,
+				items);
+
+		assertTrue(coverages.size() > 0);
+		int maxCells = 0;
+		for (final GridCoverage coverage : coverages) {
+			final Raster raster = ((GridCoverage2D) coverage).getRenderedImage().getData();
+			for (int x = 0; x < raster.getWidth(); x++) {
+				for (int y = 0; y < raster.getHeight(); y++) {
+					final double weight = raster.getSampleDouble(
+							x,
+							y,
+							0);
+					if (Double.isNaN(weight)) {
+						continue;
+					}
+					assertTrue(weight > 0);
+					final double normalized = raster.getSampleDouble(
+							x,
+							y,
+							1);
+					final double percentile = raster.getSampleDouble(
+							x,
+							y,
+							2);
+					assertTrue((normalized > 0) && (normalized <= 1));
+					assertTrue((percentile > 0) && (percentile <= 1));
+					if (normalized == 1) {
+						// the densest cell of a level has every other cell
+						// below it
+						assertEquals(
+								1,
+								percentile,
+								0);
+						maxCells++;
+					}
+				}
+			}
+		}
+		// one densest cell for each level
+		assertEquals(
+				2,
+				maxCells);
+	}
+
+	@Test
+	public void testAggregate()
+			throws Exception {
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			expected.append(i).append(',');
+		}
+		final StringBuilder result = engine.aggregate(
+				1000,
+				new LocalAnalyticEngine.Aggregation<StringBuilder>() {
+
+					@Override
+					public StringBuilder create() {
+						return new StringBuilder();
+					}
+
+					@Override
+					public void add(
+							final StringBuilder result,
+							final int item ) {
+						result.append(
+								item).append(
+								',');
+					}
+
+					@Override
+					public StringBuilder merge(
+							final StringBuilder result1,
+							final StringBuilder result2 ) {
+						return result1.append(result2);
+					}
+				});
+		// the results are merged in the order of the items
+		assertEquals(
+				expected.toString(),
+				result.toString());
+
+		try {
+			engine.aggregate(
+					1000,
+					new LocalAnalyticEngine.Aggregation<Object>() {
+
+						@Override
+						public Object create() {
+							return null;
+						}
+
+						@Override
+						public void add(
+								final Object result,
+								final int item )
+								throws IOException {
+							if (item == 500) {
+								throw new IOException(
+										"item " + item);
+							}
+						}
+
+						@Override
+						public Object merge(
+								final Object result1,
+								final Object result2 ) {
+							return null;
+						}
+					});
+			fail("Expected the exception thrown by the aggregation");
+		}
+		catch (final IOException e) {
+			assertNotNull(e.getMessage());
+			assertTrue(e.getMessage().contains(
+					"500"));
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package mil.nga.giat.geowave.core.benchmarks;
+
+import java.util.Random;
+
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
+
+/**
+ * Shared generators for the benchmark suites. All data is generated from a
+ * fixed seed so that every run (and every fork) measures exactly the same
+ * inputs.
+ */
+public class BenchmarkUtils
+{
+	public static final long SEED = 8675309L;
+	public static final double DIMENSION_MIN = -180;
+	public static final double DIMENSION_MAX = 180;
+	public static final int POINT_COUNT = 1024;
+	public static final int QUERY_COUNT = 64;
+
+	public static NumericDimensionDefinition[] createDimensions(
+			final int dimensionCount ) {
+		final NumericDimensionDefinition[] dimensions = new NumericDimensionDefinition[dimensionCount];
+		for (int d = 0; d < dimensionCount; d++) {
+			dimensions[d] = new BasicDimensionDefinition(
+					DIMENSION_MIN,
+					DIMENSION_MAX);
+		}
+		return dimensions;
+	}
+
+	public static int[] createBitsPerDimension(
+			final int dimensionCount,
+			final int bitsOfPrecision ) {
+		final int[] bitsPerDimension = new int[dimensionCount];
+		for (int d = 0; d < dimensionCount; d++) {
+			bitsPerDimension[d] = bitsOfPrecision;
+		}
+		return bitsPerDimension;
+	}
+
+	public static double[][] createPoints(
+			final int dimensionCount,
+			final int pointCount ) {
+		final Random random = new Random(
+				SEED);
+		final double[][] points = new double[pointCount][dimensionCount];
+		for (int i = 0; i < pointCount; i++) {
+			for (int d = 0; d < dimensionCount; d++) {
+				points[i][d] = DIMENSION_MIN + (random.nextDouble() * (DIMENSION_MAX - DIMENSION_MIN));
+			}
+		}
+		return points;
+	}
+
+	public static MultiDimensionalNumericData[] createPointData(
+			final int dimensionCount,
+			final int pointCount ) {
+		final double[][] points = createPoints(
+				dimensionCount,
+				pointCount);
+		final MultiDimensionalNumericData[] data = new MultiDimensionalNumericData[pointCount];
+		for (int i = 0; i < pointCount; i++) {
+			final NumericData[] values = new NumericData[dimensionCount];
+			for (int d = 0; d < dimensionCount; d++) {
+				values[d] = new NumericValue(
+						points[i][d]);
+			}
+			data[i] = new BasicNumericDataset(
+					values);
+		}
+		return data;
+	}
+
+	/**
+	 * Creates randomly placed boxes that fit entirely within the dimension
+	 * bounds.
+	 * 
+	 * @param dimensionCount
+	 *            the number of dimensions of each box
+	 * @param boxCount
+	 *            the number of boxes to generate
+	 * @param boxSize
+	 *            the width of the box in every dimension as a fraction of the
+	 *            dimension's full range
+	 * @return the boxes
+	 */
+	public static MultiDimensionalNumericData[] createBoxes(
+			final int dimensionCount,
+			final int boxCount,
+			final double boxSize ) {
+		final Random random = new Random(
+				SEED);
+		final double width = (DIMENSION_MAX - DIMENSION_MIN) * Math.min(
+				boxSize,
+				1);
+		final MultiDimensionalNumericData[] boxes = new MultiDimensionalNumericData[boxCount];
+		for (int i = 0; i < boxCount; i++) {
+			final NumericData[] ranges = new NumericData[dimensionCount];
+			for (int d = 0; d < dimensionCount; d++) {
+				final double min = DIMENSION_MIN + (random.nextDouble() * ((DIMENSION_MAX - DIMENSION_MIN) - width));
+				ranges[d] = new NumericRange(
+						min,
+						min + width);
+			}
+			boxes[i] = new BasicNumericDataset(
+					ranges);
+		}
+		return boxes;
+	}
+}
@@ -0,0 +1,100 @@
+package mil.nga.giat.geowave.core.benchmarks.index;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.benchmarks.BenchmarkUtils;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures merging of overlapping query ranges, which is applied to the ranges
+ * of every query before they are handed to the data store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ByteArrayRangeBenchmark
+{
+	@Param({
+		"100",
+		"1000",
+		"5000"
+	})
+	public int rangeCount;
+
+	/**
+	 * the fraction of ranges that overlap the range preceding it
+	 */
+	@Param({
+		"0.1",
+		"0.5"
+	})
+	public double overlapRatio;
+
+	private List<ByteArrayRange> ranges;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(
+				BenchmarkUtils.SEED);
+		ranges = new ArrayList<ByteArrayRange>(
+				rangeCount);
+		long start = 0;
+		for (int i = 0; i < rangeCount; i++) {
+			final long length = 1 + random.nextInt(1000);
+			ranges.add(new ByteArrayRange(
+					new ByteArrayId(
+							toBytes(start)),
+					new ByteArrayId(
+							toBytes(start + length))));
+			if (random.nextDouble() < overlapRatio) {
+				start += length / 2;
+			}
+			else {
+				start += length + 1 + random.nextInt(1000);
+			}
+		}
+		// merging sorts the list, so make sure it is not already sorted
+		Collections.shuffle(
+				ranges,
+				random);
+	}
+
+	private static byte[] toBytes(
+			final long value ) {
+		return ByteBuffer.allocate(
+				8).putLong(
+				value).array();
+	}
+
+	@Benchmark
+	public Object mergeIntersections() {
+		// merging is done in place, so work on a copy of the original ranges
+		final List<ByteArrayRange> copy = new ArrayList<ByteArrayRange>(
+				ranges);
+		ByteArrayRange.mergeIntersections(
+				copy,
+				Integer.MAX_VALUE);
+		return copy;
+	}
+}
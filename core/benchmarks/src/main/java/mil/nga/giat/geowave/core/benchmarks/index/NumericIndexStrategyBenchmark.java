@@ -0,0 +1,141 @@
+package mil.nga.giat.geowave.core.benchmarks.index;
+
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.benchmarks.BenchmarkUtils;
+import mil.nga.giat.geowave.core.index.CompoundIndexStrategy;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures insertion ID generation and query range generation for the tiered
+ * SFC index strategy (which backs the spatial and spatial-temporal indices)
+ * and for a compound index strategy that prefixes it with a single-dimension
+ * strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NumericIndexStrategyBenchmark
+{
+	private static final int MAX_RANGE_DECOMPOSITION = 5000;
+	private static final int MAX_DUPLICATE_IDS = 4;
+
+	@Param({
+		"TIERED",
+		"COMPOUND"
+	})
+	public String strategyType;
+
+	@Param({
+		"2",
+		"3"
+	})
+	public int dimensions;
+
+	@Param({
+		"16",
+		"31"
+	})
+	public int bitsOfPrecision;
+
+	@Param({
+		"0.001",
+		"0.01",
+		"0.1"
+	})
+	public double queryBoxSize;
+
+	private NumericIndexStrategy strategy;
+	private MultiDimensionalNumericData[] points;
+	private MultiDimensionalNumericData[] boxes;
+	private int boxIndex;
+
+	@Setup
+	public void setup() {
+		final NumericDimensionDefinition[] baseDefinitions = BenchmarkUtils.createDimensions(dimensions);
+		final NumericIndexStrategy tieredStrategy = TieredSFCIndexFactory.createFullIncrementalTieredStrategy(
+				baseDefinitions,
+				BenchmarkUtils.createBitsPerDimension(
+						dimensions,
+						bitsOfPrecision),
+				SFCType.HILBERT);
+		if ("COMPOUND".equals(strategyType)) {
+			// the first dimension of each generated data item is indexed by a
+			// simple single-dimension strategy and the remaining dimensions by
+			// the tiered strategy
+			final NumericIndexStrategy prefixStrategy = TieredSFCIndexFactory.createSingleTierStrategy(
+					BenchmarkUtils.createDimensions(1),
+					new int[] {
+						16
+					},
+					SFCType.HILBERT);
+			strategy = new CompoundIndexStrategy(
+					prefixStrategy,
+					tieredStrategy);
+			points = BenchmarkUtils.createPointData(
+					dimensions + 1,
+					BenchmarkUtils.POINT_COUNT);
+			boxes = BenchmarkUtils.createBoxes(
+					dimensions + 1,
+					BenchmarkUtils.QUERY_COUNT,
+					queryBoxSize);
+		}
+		else {
+			strategy = tieredStrategy;
+			points = BenchmarkUtils.createPointData(
+					dimensions,
+					BenchmarkUtils.POINT_COUNT);
+			boxes = BenchmarkUtils.createBoxes(
+					dimensions,
+					BenchmarkUtils.QUERY_COUNT,
+					queryBoxSize);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkUtils.POINT_COUNT)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void getInsertionIdsForPoints(
+			final Blackhole blackhole ) {
+		for (final MultiDimensionalNumericData point : points) {
+			blackhole.consume(strategy.getInsertionIds(point));
+		}
+	}
+
+	@Benchmark
+	public Object getInsertionIdsForBoxes() {
+		boxIndex = (boxIndex + 1) % boxes.length;
+		return strategy.getInsertionIds(
+				boxes[boxIndex],
+				MAX_DUPLICATE_IDS);
+	}
+
+	@Benchmark
+	public Object getQueryRanges() {
+		boxIndex = (boxIndex + 1) % boxes.length;
+		return strategy.getQueryRanges(
+				boxes[boxIndex],
+				MAX_RANGE_DECOMPOSITION);
+	}
+}
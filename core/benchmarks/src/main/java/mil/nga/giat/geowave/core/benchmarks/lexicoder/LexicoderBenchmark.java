@@ -0,0 +1,116 @@
+package mil.nga.giat.geowave.core.benchmarks.lexicoder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.benchmarks.BenchmarkUtils;
+import mil.nga.giat.geowave.core.index.lexicoder.Lexicoders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures encoding and decoding of the number lexicoders used by the simple
+ * numeric index strategies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LexicoderBenchmark
+{
+	private static final int VALUE_COUNT = 1024;
+
+	private short[] shortValues;
+	private int[] intValues;
+	private long[] longValues;
+	private byte[][] shortBytes;
+	private byte[][] intBytes;
+	private byte[][] longBytes;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(
+				BenchmarkUtils.SEED);
+		shortValues = new short[VALUE_COUNT];
+		intValues = new int[VALUE_COUNT];
+		longValues = new long[VALUE_COUNT];
+		shortBytes = new byte[VALUE_COUNT][];
+		intBytes = new byte[VALUE_COUNT][];
+		longBytes = new byte[VALUE_COUNT][];
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			shortValues[i] = (short) random.nextInt();
+			intValues[i] = random.nextInt();
+			longValues[i] = random.nextLong();
+			shortBytes[i] = Lexicoders.SHORT.toByteArray(shortValues[i]);
+			intBytes[i] = Lexicoders.INT.toByteArray(intValues[i]);
+			longBytes[i] = Lexicoders.LONG.toByteArray(longValues[i]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUE_COUNT)
+	public void encodeShort(
+			final Blackhole blackhole ) {
+		for (final short value : shortValues) {
+			blackhole.consume(Lexicoders.SHORT.toByteArray(value));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUE_COUNT)
+	public void decodeShort(
+			final Blackhole blackhole ) {
+		for (final byte[] bytes : shortBytes) {
+			blackhole.consume(Lexicoders.SHORT.fromByteArray(bytes));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUE_COUNT)
+	public void encodeInt(
+			final Blackhole blackhole ) {
+		for (final int value : intValues) {
+			blackhole.consume(Lexicoders.INT.toByteArray(value));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUE_COUNT)
+	public void decodeInt(
+			final Blackhole blackhole ) {
+		for (final byte[] bytes : intBytes) {
+			blackhole.consume(Lexicoders.INT.fromByteArray(bytes));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUE_COUNT)
+	public void encodeLong(
+			final Blackhole blackhole ) {
+		for (final long value : longValues) {
+			blackhole.consume(Lexicoders.LONG.toByteArray(value));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUE_COUNT)
+	public void decodeLong(
+			final Blackhole blackhole ) {
+		for (final byte[] bytes : longBytes) {
+			blackhole.consume(Lexicoders.LONG.fromByteArray(bytes));
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package mil.nga.giat.geowave.core.benchmarks.sfc;
+
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.benchmarks.BenchmarkUtils;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.SpaceFillingCurve;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures point encoding (getId) and query decomposition for the Hilbert and
+ * Z-Order space filling curves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SpaceFillingCurveBenchmark
+{
+	/**
+	 * the range decomposition budget used by a constraints query
+	 */
+	private static final int MAX_RANGE_DECOMPOSITION = 5000;
+
+	@Param({
+		"HILBERT",
+		"ZORDER"
+	})
+	public SFCType sfcType;
+
+	@Param({
+		"2",
+		"3"
+	})
+	public int dimensions;
+
+	@Param({
+		"16",
+		"31"
+	})
+	public int bitsOfPrecision;
+
+	@Param({
+		"0.001",
+		"0.01",
+		"0.1"
+	})
+	public double queryBoxSize;
+
+	private SpaceFillingCurve sfc;
+	private double[][] points;
+	private MultiDimensionalNumericData[] queries;
+	private int queryIndex;
+
+	@Setup
+	public void setup() {
+		final NumericDimensionDefinition[] baseDefinitions = BenchmarkUtils.createDimensions(dimensions);
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[dimensions];
+		for (int d = 0; d < dimensions; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					baseDefinitions[d],
+					bitsOfPrecision);
+		}
+		sfc = SFCFactory.createSpaceFillingCurve(
+				sfcDimensions,
+				sfcType);
+		points = BenchmarkUtils.createPoints(
+				dimensions,
+				BenchmarkUtils.POINT_COUNT);
+		queries = BenchmarkUtils.createBoxes(
+				dimensions,
+				BenchmarkUtils.QUERY_COUNT,
+				queryBoxSize);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkUtils.POINT_COUNT)
+	public void getId(
+			final Blackhole blackhole ) {
+		for (final double[] point : points) {
+			blackhole.consume(sfc.getId(point));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object decomposeQuery() {
+		queryIndex = (queryIndex + 1) % queries.length;
+		return sfc.decomposeQuery(
+				queries[queryIndex],
+				MAX_RANGE_DECOMPOSITION);
+	}
+}
@@ -1,6 +1,12 @@
 package mil.nga.giat.geowave.core.geotime.index.sfc.hilbert;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
 import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
@@ -273,5 +279,59 @@ public class HilbertSFCTest
 
 	}
 
+	@Test
+	public void testGetId_2DSpatialConcurrent()
+			throws Exception {
+		final SFCDimensionDefinition[] SPATIAL_DIMENSIONS = new SFCDimensionDefinition[] {
+			new SFCDimensionDefinition(
+					new LatitudeDefinition(),
+					31),
+			new SFCDimensionDefinition(
+					new LongitudeDefinition(),
+					31)
+		};
+
+		final SpaceFillingCurve hilbertSFC = SFCFactory.createSpaceFillingCurve(
+				SPATIAL_DIMENSIONS,
+				SFCType.HILBERT);
+		final int pointCount = 1000;
+		final double[][] points = new double[pointCount][];
+		final byte[][] expectedIds = new byte[pointCount][];
+		for (int i = 0; i < pointCount; i++) {
+			points[i] = new double[] {
+				((i * 179.0) / pointCount) - 89,
+				((i * 359.0) / pointCount) - 179
+			};
+			expectedIds[i] = hilbertSFC.getId(points[i]);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 8; t++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call()
+							throws Exception {
+						for (int i = 0; i < pointCount; i++) {
+							if (SignedBytes.lexicographicalComparator().compare(
+									expectedIds[i],
+									hilbertSFC.getId(points[i])) != 0) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (final Future<Boolean> result : results) {
+				Assert.assertTrue(result.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/* public void testDecomposeQuery_2DSpatialRanges() {} */
 }
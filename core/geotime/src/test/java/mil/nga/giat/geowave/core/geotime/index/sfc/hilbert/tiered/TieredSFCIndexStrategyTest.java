@@ -22,6 +22,7 @@ import mil.nga.giat.geowave.core.geotime.index.dimension.TemporalBinningStrategy
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
 import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
 import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
@@ -30,6 +31,7 @@ import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
 import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexStrategy;
 
 import org.junit.Test;
 
@@ -251,6 +253,110 @@ public class TieredSFCIndexStrategyTest
 		}
 	}
 
+	@Test
+	public void testQueryRangeBudget() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							10,
+							10.5),
+					new NumericRange(
+							20,
+							20.5)
+				});
+		final List<ByteArrayId> insertionIds = strategy.getInsertionIds(new BasicNumericDataset(
+				new NumericData[] {
+					new NumericValue(
+							10.25),
+					new NumericValue(
+							20.25)
+				}));
+		final byte denseTier = insertionIds.get(
+				0).getBytes()[0];
+
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+				query,
+				100);
+		assertTrue(
+				"Query ranges expected to stay within the budget",
+				ranges.size() <= 100);
+		assertCovered(
+				insertionIds,
+				ranges);
+
+		// estimate that every row is in a single tier so that it is given the
+		// bulk of the budget
+		final List<ByteArrayRange> estimatedRanges = strategy.getQueryRanges(
+				query,
+				100,
+				new RowCardinalityEstimator() {
+					@Override
+					public double estimateRowCount(
+							final byte[] rowIdPrefix ) {
+						return rowIdPrefix[0] == denseTier ? 1000 : 0;
+					}
+				});
+		assertTrue(
+				"Query ranges expected to stay within the budget",
+				estimatedRanges.size() <= 100);
+		assertCovered(
+				insertionIds,
+				estimatedRanges);
+		assertTrue(
+				"Dense tier expected to be decomposed further",
+				countRangesInTier(
+						estimatedRanges,
+						denseTier) > countRangesInTier(
+						ranges,
+						denseTier));
+
+		// an unknown estimate falls back to dividing the budget evenly
+		assertEquals(
+				ranges,
+				strategy.getQueryRanges(
+						query,
+						100,
+						new RowCardinalityEstimator() {
+							@Override
+							public double estimateRowCount(
+									final byte[] rowIdPrefix ) {
+								return -1;
+							}
+						}));
+	}
+
+	private static void assertCovered(
+			final List<ByteArrayId> insertionIds,
+			final List<ByteArrayRange> ranges ) {
+		for (final ByteArrayId id : insertionIds) {
+			boolean covered = false;
+			for (final ByteArrayRange range : ranges) {
+				if ((range.getStart().compareTo(
+						id) <= 0) && (range.getEnd().compareTo(
+						id) >= 0)) {
+					covered = true;
+					break;
+				}
+			}
+			assertTrue(
+					"Insertion ID expected to be within the query ranges",
+					covered);
+		}
+	}
+
+	private static int countRangesInTier(
+			final List<ByteArrayRange> ranges,
+			final byte tier ) {
+		int count = 0;
+		for (final ByteArrayRange range : ranges) {
+			if (range.getStart().getBytes()[0] == tier) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	@Test
 	public void testRegions()
 			throws ParseException {
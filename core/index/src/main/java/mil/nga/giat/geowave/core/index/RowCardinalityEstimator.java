@@ -0,0 +1,18 @@
+package mil.nga.giat.geowave.core.index;
+
+/**
+ * Provides an estimate of how many rows have been written under a given row ID
+ * prefix. Index strategies can use this to focus their range decomposition
+ * budget on the portions of the index that actually contain data.
+ */
+public interface RowCardinalityEstimator
+{
+	/**
+	 * @param rowIdPrefix
+	 *            the prefix of the row IDs to estimate
+	 * @return the estimated number of rows prefixed by the given bytes, or a
+	 *         negative value if no estimate is available
+	 */
+	public double estimateRowCount(
+			byte[] rowIdPrefix );
+}
@@ -23,7 +23,12 @@ import com.google.uzaygezen.core.MultiDimensionalSpec;
 public class HilbertSFC implements
 		SpaceFillingCurve
 {
-	protected CompactHilbertCurve compactHilbertCurve;
+	/**
+	 * The compact Hilbert curve keeps mutable scratch state while indexing,
+	 * so rather than sharing one instance behind a monitor each thread gets
+	 * its own curve built from the same (immutable) spec
+	 */
+	protected ThreadLocal<CompactHilbertCurve> compactHilbertCurve;
 	protected SFCDimensionDefinition[] dimensionDefinitions;
 	protected int totalPrecision;
 
@@ -54,9 +59,15 @@ public class HilbertSFC implements
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 
-		compactHilbertCurve = new CompactHilbertCurve(
-				new MultiDimensionalSpec(
-						bitsPerDimension));
+		final MultiDimensionalSpec spec = new MultiDimensionalSpec(
+				bitsPerDimension);
+		compactHilbertCurve = new ThreadLocal<CompactHilbertCurve>() {
+			@Override
+			protected CompactHilbertCurve initialValue() {
+				return new CompactHilbertCurve(
+						spec);
+			}
+		};
 
 		dimensionDefinitions = dimensionDefs;
 		setOptimalOperations(
@@ -115,7 +126,7 @@ public class HilbertSFC implements
 			final double[] values ) {
 		return getIdOperations.convertToHilbert(
 				values,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -143,7 +154,7 @@ public class HilbertSFC implements
 		}
 		return decomposeQueryOperations.decomposeRange(
 				query.getDataPerDimension(),
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions,
 				totalPrecision,
 				maxFilteredIndexedRanges,
@@ -269,7 +280,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.convertFromHilbert(
 				id,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -278,7 +289,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.indicesFromHilbert(
 				id,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -16,6 +16,9 @@ import com.google.uzaygezen.core.CompactHilbertCurve;
  * adequately represented by primitives) and non-primitive based operations for
  * unbounded bits of precision.
  * 
+ * Compact Hilbert curves are not thread-safe, so callers are expected to pass
+ * a curve that is confined to the calling thread.
+ * 
  */
 public interface HilbertSFCOperations
 {
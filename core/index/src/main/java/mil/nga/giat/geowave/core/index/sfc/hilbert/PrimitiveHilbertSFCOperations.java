@@ -39,6 +39,9 @@ import com.google.uzaygezen.core.ranges.LongRangeHome;
  * for query decomposition it is currently used if the total precision is <= 62
  * bits.
  * 
+ * The compact Hilbert curve passed into these operations must be confined to
+ * the calling thread (HilbertSFC keeps a curve per thread), and intermediate
+ * bit vectors are reused per thread, so these operations do not synchronize.
  * 
  */
 public class PrimitiveHilbertSFCOperations implements
@@ -52,9 +55,16 @@ public class PrimitiveHilbertSFCOperations implements
 	protected long minHilbertValue;
 	protected long maxHilbertValue;
 
+	/**
+	 * reusable per-thread bit vectors so that encoding a point does not
+	 * allocate anything beyond the resulting byte array
+	 */
+	private ThreadLocal<HilbertWorkspace> workspaces;
+
 	@Override
 	public void init(
 			final SFCDimensionDefinition[] dimensionDefs ) {
+		final SFCDimensionDefinition[] workspaceDefinitions = dimensionDefs.clone();
 		binsPerDimension = new long[dimensionDefs.length];
 		int totalPrecision = 0;
 		for (int d = 0; d < dimensionDefs.length; d++) {
@@ -68,6 +78,15 @@ public class PrimitiveHilbertSFCOperations implements
 		maxHilbertValue = (long) (Math.pow(
 				2,
 				totalPrecision) - 1);
+		final int hilbertBits = totalPrecision;
+		workspaces = new ThreadLocal<HilbertWorkspace>() {
+			@Override
+			protected HilbertWorkspace initialValue() {
+				return new HilbertWorkspace(
+						hilbertBits,
+						workspaceDefinitions);
+			}
+		};
 	}
 
 	@Override
@@ -76,29 +95,31 @@ public class PrimitiveHilbertSFCOperations implements
 			final CompactHilbertCurve compactHilbertCurve,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
 
-		final List<Long> dimensionValues = new ArrayList<Long>();
-
 		// Compare the number of dimensions to the number of values sent in
 		if (dimensionDefinitions.length != values.length) {
 			throw new ArrayIndexOutOfBoundsException(
 					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
 		}
+		final HilbertWorkspace workspace = getWorkspace(
+				compactHilbertCurve,
+				dimensionDefinitions);
+		final long[] dimensionValues = workspace.normalizedValues;
 
 		// Loop through each value, then normalize the value based on the
 		// dimension definition
 		for (int i = 0; i < dimensionDefinitions.length; i++) {
-			dimensionValues.add(normalizeDimension(
+			dimensionValues[i] = normalizeDimension(
 					dimensionDefinitions[i],
 					values[i],
 					binsPerDimension[i],
-					false));
+					false);
 		}
 
 		// Convert the normalized values to a BitVector
 		final BitVector hilbertBitVector = convertToHilbert(
 				dimensionValues,
 				compactHilbertCurve,
-				dimensionDefinitions);
+				workspace);
 
 		return hilbertBitVector.toBigEndianByteArray();
 	}
@@ -111,40 +132,68 @@ public class PrimitiveHilbertSFCOperations implements
 	 * @param values
 	 *            n-dimensional point to transoform to a point on the hilbert
 	 *            SFC
+	 * @param workspace
+	 *            the calling thread's reusable bit vectors, the returned value
+	 *            is only valid until the next call on this thread
 	 * @return point on hilbert SFC
 	 */
-	private BitVector convertToHilbert(
-			final List<Long> values,
+	private static BitVector convertToHilbert(
+			final long[] values,
 			final CompactHilbertCurve compactHilbertCurve,
-			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		final BitVector[] bitVectors = new BitVector[values.size()];
-
-		final BitVector hilbertBitVector = BitVectorFactories.OPTIMAL.apply(compactHilbertCurve.getSpec().sumBitsPerDimension());
+			final HilbertWorkspace workspace ) {
+		final BitVector[] bitVectors = workspace.dimensionBitVectors;
+		final BitVector hilbertBitVector = workspace.hilbertBitVector;
 
-		for (int i = 0; i < values.size(); i++) {
-			bitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
-			bitVectors[i].copyFrom(values.get(i));
-		}
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.index(
-					bitVectors,
-					0,
-					hilbertBitVector);
+		for (int i = 0; i < values.length; i++) {
+			bitVectors[i].copyFrom(values[i]);
 		}
+		hilbertBitVector.clear();
+		// the curve is expected to be confined to the calling thread (see
+		// HilbertSFC), so no synchronization is necessary here
+		compactHilbertCurve.index(
+				bitVectors,
+				0,
+				hilbertBitVector);
 		return hilbertBitVector;
 	}
 
+	/**
+	 * Get the calling thread's workspace, allocating a new one only if the
+	 * cached workspace doesn't fit the given curve (which is only the case if
+	 * this instance is used with curves other than the one it was initialized
+	 * for)
+	 */
+	private HilbertWorkspace getWorkspace(
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		HilbertWorkspace workspace = workspaces.get();
+		if (!workspace.fits(
+				compactHilbertCurve.getSpec().sumBitsPerDimension(),
+				dimensionDefinitions)) {
+			workspace = new HilbertWorkspace(
+					compactHilbertCurve.getSpec().sumBitsPerDimension(),
+					dimensionDefinitions);
+			workspaces.set(workspace);
+		}
+		return workspace;
+	}
+
 	@Override
 	public long[] indicesFromHilbert(
 			final byte[] hilbertValue,
 			final CompactHilbertCurve compactHilbertCurve,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		// because it returns an array of longs right now, just use a static
-		// method that the unbounded operations can use as well
-		return internalIndicesFromHilbert(
+		final BitVector[] perDimensionBitVectors = indexInverse(
 				hilbertValue,
 				compactHilbertCurve,
-				dimensionDefinitions);
+				getWorkspace(
+						compactHilbertCurve,
+						dimensionDefinitions));
+		final long[] retVal = new long[dimensionDefinitions.length];
+		for (int i = 0; i < retVal.length; i++) {
+			retVal[i] = perDimensionBitVectors[i].toExactLong();
+		}
+		return retVal;
 	}
 
 	protected static long[] internalIndicesFromHilbert(
@@ -170,7 +219,9 @@ public class PrimitiveHilbertSFCOperations implements
 		final BitVector[] perDimensionBitVectors = indexInverse(
 				hilbertValue,
 				compactHilbertCurve,
-				dimensionDefinitions);
+				getWorkspace(
+						compactHilbertCurve,
+						dimensionDefinitions));
 		final NumericRange[] retVal = new NumericRange[dimensionDefinitions.length];
 		for (int i = 0; i < retVal.length; i++) {
 			retVal[i] = denormalizeDimension(
@@ -194,11 +245,25 @@ public class PrimitiveHilbertSFCOperations implements
 			perDimensionBitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
 		}
 
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.indexInverse(
-					hilbertBitVector,
-					perDimensionBitVectors);
+		compactHilbertCurve.indexInverse(
+				hilbertBitVector,
+				perDimensionBitVectors);
+		return perDimensionBitVectors;
+	}
+
+	private static BitVector[] indexInverse(
+			final byte[] hilbertValue,
+			final CompactHilbertCurve compactHilbertCurve,
+			final HilbertWorkspace workspace ) {
+		final BitVector[] perDimensionBitVectors = workspace.dimensionBitVectors;
+		final BitVector hilbertBitVector = workspace.hilbertBitVector;
+		hilbertBitVector.copyFromBigEndian(hilbertValue);
+		for (final BitVector bitVector : perDimensionBitVectors) {
+			bitVector.clear();
 		}
+		compactHilbertCurve.indexInverse(
+				hilbertBitVector,
+				perDimensionBitVectors);
 		return perDimensionBitVectors;
 	}
 
@@ -302,8 +367,8 @@ public class PrimitiveHilbertSFCOperations implements
 			final boolean removeVacuum ) {// List of query range minimum and
 											// maximum
 		// values
-		final List<Long> minRangeList = new ArrayList<Long>();
-		final List<Long> maxRangeList = new ArrayList<Long>();
+		final long[] minRangeList = new long[dimensionDefinitions.length];
+		final long[] maxRangeList = new long[dimensionDefinitions.length];
 
 		final LongContent zero = new LongContent(
 				0L);
@@ -327,8 +392,8 @@ public class PrimitiveHilbertSFCOperations implements
 				// inclusive in this case)
 				normalizedMax = normalizedMin;
 			}
-			minRangeList.add(normalizedMin);
-			maxRangeList.add(normalizedMax);
+			minRangeList[d] = normalizedMin;
+			maxRangeList[d] = normalizedMax;
 			region.add(LongRange.of(
 					normalizedMin,
 					normalizedMax + 1L));
@@ -359,11 +424,9 @@ public class PrimitiveHilbertSFCOperations implements
 				removeVacuum,
 				LongRangeHome.INSTANCE,
 				zero);
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
-					compactHilbertCurve,
-					queryBuilder));
-		}
+		compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
+				compactHilbertCurve,
+				queryBuilder));
 		final List<FilteredIndexRange<LongRange, LongRange>> hilbertRanges = queryBuilder.get().getFilteredIndexRanges();
 
 		final ByteArrayRange[] sfcRanges = new ByteArrayRange[hilbertRanges.size()];
@@ -442,16 +505,16 @@ public class PrimitiveHilbertSFCOperations implements
 	 * @return largest range that will be fully decomposed
 	 */
 	private long getMinimumQuadSize(
-			final List<Long> minRangeList,
-			final List<Long> maxRangeList ) {
+			final long[] minRangeList,
+			final long[] maxRangeList ) {
 		long maxRange = 1;
 		final int dimensionality = Math.min(
-				minRangeList.size(),
-				maxRangeList.size());
+				minRangeList.length,
+				maxRangeList.length);
 		for (int d = 0; d < dimensionality; d++) {
 			maxRange = Math.max(
 					maxRange,
-					(Math.abs(maxRangeList.get(d) - minRangeList.get(d)) + 1));
+					(Math.abs(maxRangeList[d] - minRangeList[d]) + 1));
 		}
 		final long maxRangeDecomposed = (long) Math.pow(
 				maxRange,
@@ -507,4 +570,41 @@ public class PrimitiveHilbertSFCOperations implements
 		}
 		return retVal;
 	}
+
+	private static class HilbertWorkspace
+	{
+		private final int hilbertBits;
+		private final int[] bitsPerDimension;
+		private final long[] normalizedValues;
+		private final BitVector[] dimensionBitVectors;
+		private final BitVector hilbertBitVector;
+
+		private HilbertWorkspace(
+				final int hilbertBits,
+				final SFCDimensionDefinition[] dimensionDefinitions ) {
+			this.hilbertBits = hilbertBits;
+			bitsPerDimension = new int[dimensionDefinitions.length];
+			normalizedValues = new long[dimensionDefinitions.length];
+			dimensionBitVectors = new BitVector[dimensionDefinitions.length];
+			for (int d = 0; d < dimensionDefinitions.length; d++) {
+				bitsPerDimension[d] = dimensionDefinitions[d].getBitsOfPrecision();
+				dimensionBitVectors[d] = BitVectorFactories.OPTIMAL.apply(bitsPerDimension[d]);
+			}
+			hilbertBitVector = BitVectorFactories.OPTIMAL.apply(hilbertBits);
+		}
+
+		private boolean fits(
+				final int hilbertBits,
+				final SFCDimensionDefinition[] dimensionDefinitions ) {
+			if ((this.hilbertBits != hilbertBits) || (bitsPerDimension.length != dimensionDefinitions.length)) {
+				return false;
+			}
+			for (int d = 0; d < dimensionDefinitions.length; d++) {
+				if (bitsPerDimension[d] != dimensionDefinitions[d].getBitsOfPrecision()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
 }
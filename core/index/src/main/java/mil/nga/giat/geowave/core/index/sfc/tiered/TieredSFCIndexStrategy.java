@@ -14,6 +14,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.RowCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
 import mil.nga.giat.geowave.core.index.dimension.bin.BinRange;
@@ -74,25 +75,206 @@ public class TieredSFCIndexStrategy implements
 	public List<ByteArrayRange> getQueryRanges(
 			final MultiDimensionalNumericData indexedRange,
 			final int maxRangeDecomposition ) {
-		// TODO don't just pass max ranges along to the SFC, take tiering and
-		// binning into account to limit the number of ranges correctly
+		return getQueryRanges(
+				indexedRange,
+				maxRangeDecomposition,
+				null);
+	}
 
+	/**
+	 * Returns a list of query ranges for a specified numeric range, dividing
+	 * the range decomposition budget across each tier and bin intersecting the
+	 * query rather than evenly. No tier or bin is given more ranges than the
+	 * number of IDs the query covers within it, and any unused budget is
+	 * redistributed to the remaining tiers and bins. If a cardinality
+	 * estimator is provided, the budget is divided in proportion to the
+	 * estimated number of rows within each tier and bin so that finer
+	 * decomposition is spent where the data actually is.
+	 * 
+	 * @param indexedRange
+	 *            defines the numeric range for the query
+	 * @param maxRangeDecomposition
+	 *            the total number of ranges to target, -1 for no limit
+	 * @param cardinalityEstimator
+	 *            an optional estimator of the number of rows per row ID
+	 *            prefix, may be null
+	 * @return a List of query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final RowCardinalityEstimator cardinalityEstimator ) {
 		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
 		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
 				indexedRange,
 				baseDefinitions);
-		int maxRangeDecompositionPerSfc = maxRangeDecomposition;
-		if ((maxRangeDecomposition > 1) && (orderedSfcs.length > 1)) {
-			maxRangeDecompositionPerSfc = (int) Math.ceil((double) maxRangeDecomposition / (double) orderedSfcs.length);
+		if (maxRangeDecomposition <= 1) {
+			// there is no budget to divide
+			for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
+				queryRanges.addAll(getQueryRanges(
+						binnedQueries,
+						orderedSfcs[sfcIndex],
+						maxRangeDecomposition,
+						orderedSfcIndexToTierId.get(sfcIndex)));
+			}
+			return queryRanges;
 		}
+		final int binCount = binnedQueries.length;
+		final int cellCount = orderedSfcs.length * binCount;
+		final long[] maxRangesPerCell = new long[cellCount];
+		final double[] weightPerCell = new double[cellCount];
+		final byte[][] tierAndBinIds = new byte[cellCount][];
+		boolean useEstimates = (cardinalityEstimator != null);
+		int cell = 0;
 		for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
 			final SpaceFillingCurve sfc = orderedSfcs[sfcIndex];
-			final Byte tier = orderedSfcIndexToTierId.get(sfcIndex);
+			final byte tier = orderedSfcIndexToTierId.get(sfcIndex);
+			for (final BinnedNumericDataset binnedQuery : binnedQueries) {
+				tierAndBinIds[cell] = ByteArrayUtils.combineArrays(
+						new byte[] {
+							tier
+						},
+						binnedQuery.getBinId());
+				// a decomposition can never produce more ranges than the
+				// number of IDs within the query
+				final BigInteger estimatedIdCount = sfc.getEstimatedIdCount(binnedQuery);
+				maxRangesPerCell[cell] = (estimatedIdCount.bitLength() > 31) ? Integer.MAX_VALUE : Math.max(
+						1L,
+						estimatedIdCount.longValue());
+				if (useEstimates) {
+					weightPerCell[cell] = cardinalityEstimator.estimateRowCount(tierAndBinIds[cell]);
+					if (weightPerCell[cell] < 0) {
+						// without an estimate for every tier and bin the
+						// estimates cannot be compared
+						useEstimates = false;
+					}
+				}
+				cell++;
+			}
+		}
+		if (!useEstimates) {
+			Arrays.fill(
+					weightPerCell,
+					1);
+		}
+		final int[] rangesPerCell = allocateRanges(
+				maxRangeDecomposition,
+				maxRangesPerCell,
+				weightPerCell);
+		for (int c = 0; c < cellCount; c++) {
 			queryRanges.addAll(getQueryRanges(
-					binnedQueries,
-					sfc,
-					maxRangeDecompositionPerSfc,
-					tier));
+					binnedQueries[c % binCount],
+					orderedSfcs[orderedSfcs.length - 1 - (c / binCount)],
+					rangesPerCell[c],
+					tierAndBinIds[c]));
+		}
+		return queryRanges;
+	}
+
+	/**
+	 * Divide a range decomposition budget across tiers and bins. Every tier and
+	 * bin is given at least one range and the remainder is divided in
+	 * proportion to the weights, never exceeding the maximum for any tier and
+	 * bin. Whatever cannot be used by one tier and bin is redistributed to the
+	 * others. The total never exceeds the budget, unless there are more tiers
+	 * and bins than the budget, in which case each is still given the one range
+	 * needed to cover it.
+	 * 
+	 * @param budget
+	 *            the total number of ranges
+	 * @param maxRangesPerCell
+	 *            the most ranges that are useful for each tier and bin
+	 * @param weightPerCell
+	 *            the relative share of the budget for each tier and bin
+	 * @return the number of ranges to allocate to each tier and bin
+	 */
+	protected static int[] allocateRanges(
+			final int budget,
+			final long[] maxRangesPerCell,
+			final double[] weightPerCell ) {
+		final int cellCount = maxRangesPerCell.length;
+		final int[] rangesPerCell = new int[cellCount];
+		Arrays.fill(
+				rangesPerCell,
+				1);
+		long remaining = budget - cellCount;
+		final boolean[] saturated = new boolean[cellCount];
+		while (remaining > 0) {
+			double totalWeight = 0;
+			int unsaturatedCount = 0;
+			for (int c = 0; c < cellCount; c++) {
+				if (!saturated[c] && (rangesPerCell[c] >= maxRangesPerCell[c])) {
+					saturated[c] = true;
+				}
+				if (!saturated[c]) {
+					totalWeight += weightPerCell[c];
+					unsaturatedCount++;
+				}
+			}
+			if (unsaturatedCount == 0) {
+				break;
+			}
+			long allocated = 0;
+			for (int c = 0; c < cellCount; c++) {
+				if (saturated[c]) {
+					continue;
+				}
+				// if none of the remaining cells have any weight, divide
+				// evenly
+				final double share = (totalWeight > 0) ? (weightPerCell[c] / totalWeight) : (1.0 / unsaturatedCount);
+				// the shares may sum to slightly more than one, so never hand
+				// out more than is left of the budget
+				final long ranges = Math.min(
+						Math.min(
+								(long) Math.floor(remaining * share),
+								remaining - allocated),
+						maxRangesPerCell[c] - rangesPerCell[c]);
+				rangesPerCell[c] += ranges;
+				allocated += ranges;
+			}
+			if (allocated == 0) {
+				// only rounding remainders are left, hand them out one at a
+				// time to the most heavily weighted cells
+				while (remaining > 0) {
+					int heaviest = -1;
+					for (int c = 0; c < cellCount; c++) {
+						if ((rangesPerCell[c] < maxRangesPerCell[c]) && ((heaviest < 0) || (weightPerCell[c] > weightPerCell[heaviest]))) {
+							heaviest = c;
+						}
+					}
+					if (heaviest < 0) {
+						break;
+					}
+					rangesPerCell[heaviest]++;
+					remaining--;
+				}
+				break;
+			}
+			remaining -= allocated;
+		}
+		return rangesPerCell;
+	}
+
+	protected static List<ByteArrayRange> getQueryRanges(
+			final BinnedNumericDataset binnedQuery,
+			final SpaceFillingCurve sfc,
+			final int maxRanges,
+			final byte[] tierAndBinId ) {
+		final RangeDecomposition rangeDecomp = sfc.decomposeQuery(
+				binnedQuery,
+				maxRanges);
+		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>(
+				rangeDecomp.getRanges().length);
+		for (final ByteArrayRange range : rangeDecomp.getRanges()) {
+			queryRanges.add(new ByteArrayRange(
+					new ByteArrayId(
+							ByteArrayUtils.combineArrays(
+									tierAndBinId,
+									range.getStart().getBytes())),
+					new ByteArrayId(
+							ByteArrayUtils.combineArrays(
+									tierAndBinId,
+									range.getEnd().getBytes()))));
 		}
 		return queryRanges;
 	}
@@ -109,27 +291,17 @@ public class TieredSFCIndexStrategy implements
 			maxRangeDecompositionPerBin = (int) Math.ceil((double) maxRanges / (double) binnedQueries.length);
 		}
 		for (final BinnedNumericDataset binnedQuery : binnedQueries) {
-			final RangeDecomposition rangeDecomp = sfc.decomposeQuery(
+			queryRanges.addAll(getQueryRanges(
 					binnedQuery,
-					maxRangeDecompositionPerBin);
-			final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
-					new byte[] {
-						tier
-					// we're assuming tiers only go to 127 (the max byte
-					// value)
-					},
-					binnedQuery.getBinId());
-			for (final ByteArrayRange range : rangeDecomp.getRanges()) {
-				queryRanges.add(new ByteArrayRange(
-						new ByteArrayId(
-								ByteArrayUtils.combineArrays(
-										tierAndBinId,
-										range.getStart().getBytes())),
-						new ByteArrayId(
-								ByteArrayUtils.combineArrays(
-										tierAndBinId,
-										range.getEnd().getBytes()))));
-			}
+					sfc,
+					maxRangeDecompositionPerBin,
+					ByteArrayUtils.combineArrays(
+							new byte[] {
+								tier
+							// we're assuming tiers only go to 127 (the max byte
+							// value)
+							},
+							binnedQuery.getBinId())));
 		}
 		return queryRanges;
 	}
@@ -0,0 +1,96 @@
+package mil.nga.giat.geowave.core.index.sfc.tiered;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TieredSFCRangeAllocationTest
+{
+	@Test
+	public void testBudgetIsNeverExceeded() {
+		final Random random = new Random(
+				42);
+		for (int i = 0; i < 10000; i++) {
+			final int cellCount = 1 + random.nextInt(20);
+			final int budget = 2 + random.nextInt(500);
+			final long[] maxRangesPerCell = new long[cellCount];
+			final double[] weightPerCell = new double[cellCount];
+			long maxTotal = 0;
+			for (int c = 0; c < cellCount; c++) {
+				maxRangesPerCell[c] = random.nextBoolean() ? 1 + random.nextInt(50) : Integer.MAX_VALUE;
+				// weights that are not exactly representable are the most
+				// likely to round past the budget
+				weightPerCell[c] = random.nextInt(3) == 0 ? 0 : random.nextDouble() / 3;
+				maxTotal += maxRangesPerCell[c];
+			}
+			final int[] rangesPerCell = TieredSFCIndexStrategy.allocateRanges(
+					budget,
+					maxRangesPerCell,
+					weightPerCell);
+			long total = 0;
+			for (int c = 0; c < cellCount; c++) {
+				assertTrue(rangesPerCell[c] >= 1);
+				assertTrue(rangesPerCell[c] <= maxRangesPerCell[c]);
+				total += rangesPerCell[c];
+			}
+			if (budget >= cellCount) {
+				assertEquals(
+						Math.min(
+								budget,
+								maxTotal),
+						total);
+			}
+			else {
+				assertEquals(
+						cellCount,
+						total);
+			}
+		}
+	}
+
+	@Test
+	public void testAllocation() {
+		// the share of each cell does not divide evenly
+		assertArrayEquals(
+				new int[] {
+					4,
+					3,
+					3
+				},
+				TieredSFCIndexStrategy.allocateRanges(
+						10,
+						new long[] {
+							Integer.MAX_VALUE,
+							Integer.MAX_VALUE,
+							Integer.MAX_VALUE
+						},
+						new double[] {
+							1,
+							1,
+							1
+						}));
+		// a saturated cell gives up its share to the others
+		assertArrayEquals(
+				new int[] {
+					2,
+					9,
+					9
+				},
+				TieredSFCIndexStrategy.allocateRanges(
+						20,
+						new long[] {
+							2,
+							Integer.MAX_VALUE,
+							Integer.MAX_VALUE
+						},
+						new double[] {
+							1,
+							1,
+							1
+						}));
+	}
+}
@@ -2,7 +2,9 @@ package mil.nga.giat.geowave.core.ingest.avro;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.avro.Schema;
@@ -17,7 +19,11 @@ import org.apache.log4j.Logger;
 /**
  * Generic Avro serializer/deserializer, can convert Avro Java object to a byte
  * array and a byte array back to a usable Avro Java object.
- * 
+ *
+ * This class is thread-safe without locking. Each thread keeps its own
+ * encoder, decoder, output buffer and datum readers and writers, which are
+ * reused across calls on that thread.
+ *
  * @param <T>
  *            - Base Avro class extended by all generated class files
  */
@@ -27,35 +33,27 @@ public class GenericAvroSerializer<T>
 
 	private static final EncoderFactory ef = EncoderFactory.get();
 	private static final DecoderFactory df = DecoderFactory.get();
-	private static final Map<String, SpecificDatumWriter> writers = new HashMap<>();
-	private static final Map<String, SpecificDatumReader> readers = new HashMap<>();
+	private static final ThreadLocal<SerializationContext> context = new ThreadLocal<SerializationContext>() {
+		@Override
+		protected SerializationContext initialValue() {
+			return new SerializationContext();
+		}
+	};
 
 	public GenericAvroSerializer() {}
 
-	synchronized public static <T> byte[] serialize(
+	public static <T> byte[] serialize(
 			final T avroObject,
 			final Schema avroSchema ) {
-
 		try {
-			final ByteArrayOutputStream os = new ByteArrayOutputStream();
-			final BinaryEncoder encoder = ef.binaryEncoder(
-					os,
-					null);
-
-			final String schemaName = getSchemaName(avroSchema);
-			if (!writers.containsKey(schemaName)) {
-				writers.put(
-						schemaName,
-						new SpecificDatumWriter<T>(
-								avroSchema));
-			}
-
-			final SpecificDatumWriter<T> writer = writers.get(schemaName);
-			writer.write(
+			final SerializationContext ctx = context.get();
+			final BinaryEncoder encoder = ctx.resetEncoder();
+			ctx.<T> getWriter(
+					avroSchema).write(
 					avroObject,
 					encoder);
 			encoder.flush();
-			return os.toByteArray();
+			return ctx.outputStream.toByteArray();
 		}
 		catch (final Exception e) {
 			LOGGER.error("Unable to serialize Avro record to byte[]: " + e.getMessage());
@@ -63,24 +61,55 @@ public class GenericAvroSerializer<T>
 		}
 	}
 
-	synchronized public static <T> T deserialize(
-			final byte[] avroData,
+	/**
+	 * Serializes the records one after another into a single byte array that
+	 * can be read by deserializeBatch()
+	 */
+	public static <T> byte[] serializeBatch(
+			final List<T> avroObjects,
 			final Schema avroSchema ) {
 		try {
-			final BinaryDecoder decoder = df.binaryDecoder(
-					avroData,
-					null);
-
-			final String schemaName = getSchemaName(avroSchema);
-			if (!readers.containsKey(schemaName)) {
-				readers.put(
-						schemaName,
-						new SpecificDatumReader<T>(
-								avroSchema));
+			final SerializationContext ctx = context.get();
+			final BinaryEncoder encoder = ctx.resetEncoder();
+			final SpecificDatumWriter<T> writer = ctx.getWriter(avroSchema);
+			for (final T avroObject : avroObjects) {
+				writer.write(
+						avroObject,
+						encoder);
 			}
-			final SpecificDatumReader<T> reader = readers.get(schemaName);
-			return reader.read(
-					null,
+			encoder.flush();
+			return ctx.outputStream.toByteArray();
+		}
+		catch (final Exception e) {
+			LOGGER.error("Unable to serialize Avro records to byte[]: " + e.getMessage());
+			return null;
+		}
+	}
+
+	public static <T> T deserialize(
+			final byte[] avroData,
+			final Schema avroSchema ) {
+		return deserialize(
+				avroData,
+				avroSchema,
+				null);
+	}
+
+	/**
+	 * @param reuse
+	 *            if not null, a record whose fields are overwritten rather than
+	 *            allocating a new record
+	 */
+	public static <T> T deserialize(
+			final byte[] avroData,
+			final Schema avroSchema,
+			final T reuse ) {
+		try {
+			final SerializationContext ctx = context.get();
+			final BinaryDecoder decoder = ctx.resetDecoder(avroData);
+			return ctx.<T> getReader(
+					avroSchema).read(
+					reuse,
 					decoder);
 		}
 		catch (final IOException e) {
@@ -89,6 +118,53 @@ public class GenericAvroSerializer<T>
 		}
 	}
 
+	/**
+	 * Reads all of the records written one after another into a single byte
+	 * array, such as by serializeBatch()
+	 */
+	public static <T> List<T> deserializeBatch(
+			final byte[] avroData,
+			final Schema avroSchema ) {
+		final List<T> records = new ArrayList<T>();
+		try {
+			final SerializationContext ctx = context.get();
+			final BinaryDecoder decoder = ctx.resetDecoder(avroData);
+			final SpecificDatumReader<T> reader = ctx.getReader(avroSchema);
+			while (!decoder.isEnd()) {
+				records.add(reader.read(
+						null,
+						decoder));
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.error("Unable to deserialize byte[] to Avro objects: " + e.getMessage());
+		}
+		return records;
+	}
+
+	/**
+	 * Deserializes each of the byte arrays, skipping any that cannot be read
+	 */
+	public static <T> List<T> deserializeBatch(
+			final List<byte[]> avroData,
+			final Schema avroSchema ) {
+		final List<T> records = new ArrayList<T>(
+				avroData.size());
+		final SerializationContext ctx = context.get();
+		final SpecificDatumReader<T> reader = ctx.getReader(avroSchema);
+		for (final byte[] data : avroData) {
+			try {
+				records.add(reader.read(
+						null,
+						ctx.resetDecoder(data)));
+			}
+			catch (final IOException e) {
+				LOGGER.error("Unable to deserialize byte[] to Avro object: " + e.getMessage());
+			}
+		}
+		return records;
+	}
+
 	private static String getSchemaName(
 			final Schema schema ) {
 		try {
@@ -98,4 +174,59 @@ public class GenericAvroSerializer<T>
 			return null;
 		}
 	}
+
+	private static class SerializationContext
+	{
+		private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		private final Map<String, SpecificDatumWriter<?>> writers = new HashMap<String, SpecificDatumWriter<?>>();
+		private final Map<String, SpecificDatumReader<?>> readers = new HashMap<String, SpecificDatumReader<?>>();
+		private BinaryEncoder encoder;
+		private BinaryDecoder decoder;
+
+		private BinaryEncoder resetEncoder() {
+			outputStream.reset();
+			encoder = ef.binaryEncoder(
+					outputStream,
+					encoder);
+			return encoder;
+		}
+
+		private BinaryDecoder resetDecoder(
+				final byte[] avroData ) {
+			decoder = df.binaryDecoder(
+					avroData,
+					decoder);
+			return decoder;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> SpecificDatumWriter<T> getWriter(
+				final Schema avroSchema ) {
+			final String schemaName = getSchemaName(avroSchema);
+			SpecificDatumWriter<T> writer = (SpecificDatumWriter<T>) writers.get(schemaName);
+			if (writer == null) {
+				writer = new SpecificDatumWriter<T>(
+						avroSchema);
+				writers.put(
+						schemaName,
+						writer);
+			}
+			return writer;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> SpecificDatumReader<T> getReader(
+				final Schema avroSchema ) {
+			final String schemaName = getSchemaName(avroSchema);
+			SpecificDatumReader<T> reader = (SpecificDatumReader<T>) readers.get(schemaName);
+			if (reader == null) {
+				reader = new SpecificDatumReader<T>(
+						avroSchema);
+				readers.put(
+						schemaName,
+						reader);
+			}
+			return reader;
+		}
+	}
 }
@@ -3,11 +3,16 @@ package mil.nga.giat.geowave.core.ingest.kafka;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import kafka.consumer.Consumer;
 import kafka.consumer.ConsumerConfig;
@@ -28,6 +33,7 @@ import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloCommandLineOptions;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOptions;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -38,17 +44,33 @@ import org.apache.log4j.Logger;
 
 /**
  * This class executes the ingestion of intermediate data from a Kafka topic
- * into GeoWave.
+ * into GeoWave. Each topic can be consumed by several consumers in the same
+ * consumer group, which Kafka assigns a share of the topic's partitions. Each
+ * consumer decodes messages in batches, writes them through its own index
+ * writers and flushes them after every batch of entries or when the topic is
+ * idle. Offsets can optionally be committed only after a flush, so that a
+ * failure will consume again anything that was not flushed.
  * 
  */
 public class IngestFromKafkaDriver extends
 		AbstractIngestCommandLineDriver
 {
 	private final static Logger LOGGER = Logger.getLogger(IngestFromKafkaDriver.class);
+	private final static String CLIENT_ID_PROPERTY = "client.id";
+	private final static String GROUP_ID_PROPERTY = "group.id";
+	private final static String AUTO_COMMIT_PROPERTY = "auto.commit.enable";
+	private final static String CONSUMER_TIMEOUT_PROPERTY = "consumer.timeout.ms";
+	// how long a consumer waits for a message before flushing what it has
+	// consumed, if the consumer timeout is not set
+	private final static int IDLE_POLL_TIMEOUT_MS = 1000;
+	// the number of messages decoded and ingested together
+	private final static int DECODE_BATCH_SIZE = 100;
 
 	private KafkaConsumerCommandLineOptions kafkaOptions;
 	private AccumuloCommandLineOptions accumuloOptions;
 	private IngestCommandLineOptions ingestOptions;
+	// plugin instances that the provider gave to more than one consumer
+	private final Set<AvroFormatPlugin<?, ?>> sharedPlugins = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<AvroFormatPlugin<?, ?>, Boolean>()));
 
 	public IngestFromKafkaDriver(
 			final String operation ) {
@@ -73,10 +95,17 @@ public class IngestFromKafkaDriver extends
 			return;
 		}
 
+		// offsets committed on flush must only cover written messages, so a
+		// rejected flush has to reach the consumer rather than being logged
+		final AccumuloOptions dataStoreOptions = new AccumuloOptions();
+		dataStoreOptions.setFailOnFlushError(kafkaOptions.isCommitOnFlush());
 		final DataStore dataStore = new AccumuloDataStore(
-				operations);
+				operations,
+				dataStoreOptions);
 
-		final List<String> queue = new ArrayList<String>();
+		// the consumer threads remove their format from the queue once they are
+		// listening
+		final List<String> queue = Collections.synchronizedList(new ArrayList<String>());
 		addPluginsToQueue(
 				pluginProviders,
 				queue);
@@ -143,14 +172,12 @@ public class IngestFromKafkaDriver extends
 					final IngestPluginBase<?, ?> ingestWithAvroPlugin = avroFormatPlugin.getIngestWithAvroPlugin();
 					final WritableDataAdapter<?>[] dataAdapters = ingestWithAvroPlugin.getDataAdapters(ingestOptions.getVisibility());
 					adapters.addAll(Arrays.asList(dataAdapters));
-					final IngestRunData runData = new IngestRunData(
-							adapters,
-							dataStore);
 
-					launchTopicConsumer(
-							pluginProvider.getIngestFormatName(),
+					launchTopicConsumers(
+							pluginProvider,
 							avroFormatPlugin,
-							runData,
+							adapters,
+							dataStore,
 							queue);
 				}
 				catch (final UnsupportedOperationException e) {
@@ -168,55 +195,152 @@ public class IngestFromKafkaDriver extends
 		}
 	}
 
-	private ConsumerConnector buildKafkaConsumer() {
-
+	private ConsumerConnector buildKafkaConsumer(
+			final String clientId ) {
+		final Properties properties = getConsumerProperties(clientId);
 		final ConsumerConnector consumer = Consumer.createJavaConsumerConnector(new ConsumerConfig(
-				kafkaOptions.getProperties()));
+				properties));
 
 		return consumer;
 	}
 
-	private void launchTopicConsumer(
-			final String formatPluginName,
+	private Properties getConsumerProperties(
+			final String clientId ) {
+		final Properties properties = new Properties();
+		properties.putAll(kafkaOptions.getProperties());
+		// each consumer needs its own client ID for its lag to be reported
+		properties.put(
+				CLIENT_ID_PROPERTY,
+				clientId);
+		if (kafkaOptions.isCommitOnFlush()) {
+			properties.put(
+					AUTO_COMMIT_PROPERTY,
+					"false");
+		}
+		if (!isConsumerTimeoutSet()) {
+			// without a timeout a partial batch would wait for the next
+			// message, so poll and treat the timeout as idle time
+			properties.put(
+					CONSUMER_TIMEOUT_PROPERTY,
+					Integer.toString(IDLE_POLL_TIMEOUT_MS));
+		}
+		return properties;
+	}
+
+	private boolean isConsumerTimeoutSet() {
+		final String timeout = kafkaOptions.getProperties().getProperty(
+				CONSUMER_TIMEOUT_PROPERTY);
+		if (timeout == null) {
+			return false;
+		}
+		try {
+			return Integer.parseInt(timeout.trim()) >= 0;
+		}
+		catch (final NumberFormatException e) {
+			return true;
+		}
+	}
+
+	private String getClientIdPrefix(
+			final String formatPluginName ) {
+		final String clientId = kafkaOptions.getProperties().getProperty(
+				CLIENT_ID_PROPERTY);
+		if (clientId != null) {
+			return clientId + "-" + formatPluginName + "-";
+		}
+		return kafkaOptions.getProperties().getProperty(
+				GROUP_ID_PROPERTY,
+				"geowave") + "-" + formatPluginName + "-";
+	}
+
+	private void launchTopicConsumers(
+			final IngestFormatPluginProviderSpi<?, ?> pluginProvider,
 			final AvroFormatPlugin<?, ?> avroFormatPlugin,
-			final IngestRunData ingestRunData,
+			final List<WritableDataAdapter<?>> adapters,
+			final DataStore dataStore,
 			final List<String> queue )
 			throws Exception {
-		final ExecutorService executorService = Executors.newFixedThreadPool(queue.size());
-		executorService.execute(new Runnable() {
-
-			@Override
-			public void run() {
-				try {
-					consumeFromTopic(
-							formatPluginName,
-							avroFormatPlugin,
-							ingestRunData,
-							queue);
-				}
-				catch (final Exception e) {
-					LOGGER.error(
-							"Error consuming from Kafka topic [" + formatPluginName + "]",
-							e);
-				}
+		final String formatPluginName = pluginProvider.getIngestFormatName();
+		final int consumerThreads = kafkaOptions.getConsumerThreads();
+		final String clientIdPrefix = getClientIdPrefix(formatPluginName);
+		final KafkaIngestProgress progress = new KafkaIngestProgress(
+				formatPluginName,
+				clientIdPrefix);
+		final AtomicInteger activeConsumers = new AtomicInteger(
+				consumerThreads);
+		final ExecutorService executorService = Executors.newFixedThreadPool(consumerThreads);
+		progress.start();
+		// plugins are not required to be thread-safe, so each consumer asks
+		// the provider for its own, and any instance given to more than one
+		// consumer is locked while a record is ingested with it
+		final Set<AvroFormatPlugin<?, ?>> consumerPlugins = Collections.newSetFromMap(new IdentityHashMap<AvroFormatPlugin<?, ?>, Boolean>());
+		consumerPlugins.add(avroFormatPlugin);
+		for (int i = 0; i < consumerThreads; i++) {
+			final String clientId = clientIdPrefix + i;
+			final AvroFormatPlugin<?, ?> consumerPlugin = (i == 0) ? avroFormatPlugin : pluginProvider.getAvroFormatPlugin();
+			if (!consumerPlugins.add(consumerPlugin)) {
+				sharedPlugins.add(consumerPlugin);
 			}
-		});
+			// each consumer writes through its own index writers, so they
+			// can be flushed independently of the other consumers
+			final IngestRunData runData = new IngestRunData(
+					adapters,
+					dataStore);
+			executorService.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						consumeFromTopic(
+								formatPluginName,
+								clientId,
+								consumerPlugin,
+								runData,
+								queue,
+								progress);
+					}
+					catch (final Exception e) {
+						LOGGER.error(
+								"Error consuming from Kafka topic [" + formatPluginName + "]",
+								e);
+					}
+					finally {
+						try {
+							runData.close();
+						}
+						catch (final IOException e) {
+							LOGGER.warn(
+									"Unable to close index writers for Kafka topic [" + formatPluginName + "]",
+									e);
+						}
+						// report the final progress once every consumer has
+						// stopped
+						if (activeConsumers.decrementAndGet() == 0) {
+							progress.stop();
+						}
+					}
+				}
+			});
+		}
+		executorService.shutdown();
 	}
 
 	public <T> void consumeFromTopic(
 			final String formatPluginName,
+			final String clientId,
 			final AvroFormatPlugin<T, ?> avroFormatPlugin,
 			final IngestRunData ingestRunData,
-			final List<String> queue )
+			final List<String> queue,
+			final KafkaIngestProgress progress )
 			throws Exception {
 
-		final ConsumerConnector consumer = buildKafkaConsumer();
+		final ConsumerConnector consumer = buildKafkaConsumer(clientId);
 		if (consumer == null) {
 			throw new Exception(
 					"Kafka consumer connector is null, unable to create message streams");
 		}
 		try {
-			LOGGER.debug("Kafka consumer setup for format [" + formatPluginName + "] against topic [" + formatPluginName + "]");
+			LOGGER.debug("Kafka consumer [" + clientId + "] setup for format [" + formatPluginName + "] against topic [" + formatPluginName + "]");
 			final Map<String, Integer> topicCount = new HashMap<>();
 			topicCount.put(
 					formatPluginName,
@@ -230,7 +354,9 @@ public class IngestFromKafkaDriver extends
 					formatPluginName,
 					avroFormatPlugin,
 					ingestRunData,
-					streams.get(0));
+					streams.get(0),
+					consumer,
+					progress);
 		}
 		finally {
 			consumer.shutdown();
@@ -241,76 +367,195 @@ public class IngestFromKafkaDriver extends
 			final String formatPluginName,
 			final AvroFormatPlugin<T, ?> avroFormatPlugin,
 			final IngestRunData ingestRunData,
-			final KafkaStream<byte[], byte[]> stream ) {
-		int currentBatchId = 0;
+			final KafkaStream<byte[], byte[]> stream,
+			final ConsumerConnector consumer,
+			final KafkaIngestProgress progress ) {
 		final int batchSize = kafkaOptions.getBatchSize();
+		final boolean consumerTimeoutSet = isConsumerTimeoutSet();
+		final List<byte[]> messages = new ArrayList<byte[]>(
+				DECODE_BATCH_SIZE);
+		int unflushedCount = 0;
+		boolean flushFailed = false;
+		final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
 		try {
-			final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
-			while (messageIterator.hasNext()) {
-				final byte[] msg = messageIterator.next().message();
-				LOGGER.info("[" + formatPluginName + "] message received");
-				final T dataRecord = GenericAvroSerializer.deserialize(
-						msg,
-						avroFormatPlugin.getAvroSchema());
-
-				if (dataRecord != null) {
-					try {
-						processMessage(
-								dataRecord,
-								ingestRunData,
-								avroFormatPlugin);
-						if (++currentBatchId > batchSize) {
-							ingestRunData.flush();
-							currentBatchId = 0;
+			boolean consuming = true;
+			while (consuming) {
+				try {
+					while (messageIterator.hasNext()) {
+						messages.add(messageIterator.next().message());
+						if (messages.size() >= DECODE_BATCH_SIZE) {
+							unflushedCount += processMessages(
+									messages,
+									ingestRunData,
+									avroFormatPlugin,
+									progress);
+							if (unflushedCount >= batchSize) {
+								flush(
+										ingestRunData,
+										consumer,
+										progress);
+								unflushedCount = 0;
+							}
 						}
 					}
-					catch (final Exception e) {
-						LOGGER.error(
-								"Error processing message: " + e.getMessage(),
-								e);
+					// the stream only ends when the consumer is shut down
+					consuming = false;
+				}
+				catch (final ConsumerTimeoutException te) {
+					// flush whatever has been consumed while the topic is idle
+					unflushedCount += processMessages(
+							messages,
+							ingestRunData,
+							avroFormatPlugin,
+							progress);
+					if (unflushedCount > 0) {
+						flush(
+								ingestRunData,
+								consumer,
+								progress);
+						unflushedCount = 0;
+					}
+					if (consumerTimeoutSet) {
+						if (kafkaOptions.isFlushAndReconnect()) {
+							LOGGER.debug("Consumer timed out from Kafka topic [" + formatPluginName + "], continuing");
+						}
+						else {
+							LOGGER.warn(
+									"Consumer timed out from Kafka topic [" + formatPluginName + "]",
+									te);
+							consuming = false;
+						}
 					}
 				}
 			}
 		}
-		catch (final ConsumerTimeoutException te) {
-			if (kafkaOptions.isFlushAndReconnect()) {
-				LOGGER.info(
-						"Consumer timed out from Kafka topic [" + formatPluginName + "... ",
-						te);
-				if (currentBatchId > 0) {
-					ingestRunData.flush();
-				}
-				consumeMessages(
-						formatPluginName,
-						avroFormatPlugin,
-						ingestRunData,
-						stream);
-			}
-			else {
-				LOGGER.warn(
-						"Consumer timed out from Kafka topic [" + formatPluginName + "... ",
-						te);
-			}
+		catch (final IOException e) {
+			// offsets are cumulative, so once a flush fails nothing consumed
+			// after it can be committed without also committing the failed
+			// messages
+			flushFailed = true;
+			LOGGER.error(
+					"Stopped consuming from Kafka topic [" + formatPluginName + "]",
+					e);
 		}
 		catch (final Exception e) {
 			LOGGER.warn(
 					"Consuming from Kafka topic [" + formatPluginName + "] was interrupted... ",
 					e);
 		}
+		finally {
+			if (!flushFailed) {
+				try {
+					unflushedCount += processMessages(
+							messages,
+							ingestRunData,
+							avroFormatPlugin,
+							progress);
+					if (unflushedCount > 0) {
+						flush(
+								ingestRunData,
+								consumer,
+								progress);
+					}
+				}
+				catch (final Exception e) {
+					LOGGER.error(
+							"Unable to flush the messages consumed from Kafka topic [" + formatPluginName + "]",
+							e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decode and ingest the messages as a batch, the list is cleared
+	 *
+	 * @return the number of records that were decoded
+	 */
+	protected <T> int processMessages(
+			final List<byte[]> messages,
+			final IngestRunData ingestRunData,
+			final AvroFormatPlugin<T, ?> plugin,
+			final KafkaIngestProgress progress ) {
+		if (messages.isEmpty()) {
+			return 0;
+		}
+		final List<T> dataRecords = GenericAvroSerializer.deserializeBatch(
+				messages,
+				plugin.getAvroSchema());
+		int failedCount = messages.size() - dataRecords.size();
+		for (final T dataRecord : dataRecords) {
+			try {
+				processMessage(
+						dataRecord,
+						ingestRunData,
+						plugin);
+			}
+			catch (final Exception e) {
+				failedCount++;
+				LOGGER.error(
+						"Error processing message: " + e.getMessage(),
+						e);
+			}
+		}
+		progress.messagesConsumed(
+				messages.size(),
+				failedCount);
+		messages.clear();
+		return dataRecords.size();
+	}
 
+	/**
+	 * Flush the index writers and, if offsets are committed on flush, commit
+	 * the offsets of everything consumed so far. The offsets are not committed
+	 * if the flush fails, so the messages will be consumed again.
+	 *
+	 * @throws IOException
+	 *             if the index writers could not be flushed
+	 */
+	protected void flush(
+			final IngestRunData ingestRunData,
+			final ConsumerConnector consumer,
+			final KafkaIngestProgress progress )
+			throws IOException {
+		try {
+			ingestRunData.flush();
+		}
+		catch (final RuntimeException e) {
+			throw new IOException(
+					"Unable to flush index writers, offsets were not committed",
+					e);
+		}
+		final boolean commit = kafkaOptions.isCommitOnFlush();
+		if (commit) {
+			consumer.commitOffsets(true);
+		}
+		progress.flushed(commit);
 	}
 
-	synchronized protected <T> void processMessage(
+	protected <T> void processMessage(
 			final T dataRecord,
 			final IngestRunData ingestRunData,
 			final AvroFormatPlugin<T, ?> plugin )
 			throws IOException {
-		IngestUtils.ingest(
-				dataRecord,
-				ingestOptions,
-				plugin.getIngestWithAvroPlugin(),
-				plugin,
-				ingestRunData);
+		if (sharedPlugins.contains(plugin)) {
+			synchronized (plugin) {
+				IngestUtils.ingest(
+						dataRecord,
+						ingestOptions,
+						plugin.getIngestWithAvroPlugin(),
+						plugin,
+						ingestRunData);
+			}
+		}
+		else {
+			IngestUtils.ingest(
+					dataRecord,
+					ingestOptions,
+					plugin.getIngestWithAvroPlugin(),
+					plugin,
+					ingestRunData);
+		}
 	}
 
 	@Override
@@ -39,19 +39,40 @@ public class KafkaConsumerCommandLineOptions
 				false)
 	};
 	private static final int DEFAULT_BATCH_SIZE = 10000;
+	private static final int DEFAULT_CONSUMER_THREADS = 1;
 	private final static String RECONNECT_ON_TIMEOUT_KEY = "reconnectOnTimeout";
 	private final static String BATCH_SIZE_KEY = "batchSize";
+	private final static String CONSUMER_THREADS_KEY = "consumerThreads";
+	private final static String COMMIT_ON_FLUSH_KEY = "commitOnFlush";
 	private final Properties kafkaProperties;
 	private final boolean flushAndReconnect;
 	private final int batchSize;
+	private final int consumerThreads;
+	private final boolean commitOnFlush;
 
 	public KafkaConsumerCommandLineOptions(
 			final Properties kafkaProperties,
 			final boolean flushAndReconnect,
 			final int batchSize ) {
+		this(
+				kafkaProperties,
+				flushAndReconnect,
+				batchSize,
+				DEFAULT_CONSUMER_THREADS,
+				false);
+	}
+
+	public KafkaConsumerCommandLineOptions(
+			final Properties kafkaProperties,
+			final boolean flushAndReconnect,
+			final int batchSize,
+			final int consumerThreads,
+			final boolean commitOnFlush ) {
 		this.kafkaProperties = kafkaProperties;
 		this.flushAndReconnect = flushAndReconnect;
 		this.batchSize = batchSize;
+		this.consumerThreads = consumerThreads;
+		this.commitOnFlush = commitOnFlush;
 	}
 
 	public Properties getProperties() {
@@ -66,6 +87,14 @@ public class KafkaConsumerCommandLineOptions
 		return batchSize;
 	}
 
+	public int getConsumerThreads() {
+		return consumerThreads;
+	}
+
+	public boolean isCommitOnFlush() {
+		return commitOnFlush;
+	}
+
 	public static void applyOptions(
 			final Options allOptions ) {
 		KafkaCommandLineOptions.applyOptions(allOptions);
@@ -87,6 +116,20 @@ public class KafkaConsumerCommandLineOptions
 				"The data will automatically flush after this number of entries (default is '" + DEFAULT_BATCH_SIZE + "')");
 		batchSizeOption.setRequired(false);
 		allOptions.addOption(batchSizeOption);
+
+		final Option consumerThreadsOption = new Option(
+				CONSUMER_THREADS_KEY,
+				true,
+				"The number of consumers for each topic, each consuming its share of the topic's partitions and writing with its own index writers (default is '" + DEFAULT_CONSUMER_THREADS + "')");
+		consumerThreadsOption.setRequired(false);
+		allOptions.addOption(consumerThreadsOption);
+
+		final Option commitOnFlushOption = new Option(
+				COMMIT_ON_FLUSH_KEY,
+				false,
+				"This flag will disable the automatic commit of consumed offsets and commit them only after the consumed data has been flushed to GeoWave");
+		commitOnFlushOption.setRequired(false);
+		allOptions.addOption(commitOnFlushOption);
 	}
 
 	public static KafkaConsumerCommandLineOptions parseOptions(
@@ -108,9 +151,26 @@ public class KafkaConsumerCommandLineOptions
 						e);
 			}
 		}
+		int consumerThreads = DEFAULT_CONSUMER_THREADS;
+		if (commandLine.hasOption(CONSUMER_THREADS_KEY)) {
+			try {
+				final String value = commandLine.getOptionValue(CONSUMER_THREADS_KEY);
+				consumerThreads = Math.max(
+						1,
+						Integer.parseInt(value));
+			}
+			catch (final Exception e) {
+				LOGGER.error(
+						"Error parsing '" + CONSUMER_THREADS_KEY + "' as an integer",
+						e);
+			}
+		}
+		final boolean commitOnFlush = commandLine.hasOption(COMMIT_ON_FLUSH_KEY);
 		return new KafkaConsumerCommandLineOptions(
 				baseOptions.getProperties(),
 				flushAndReconnect,
-				batchSize);
+				batchSize,
+				consumerThreads,
+				commitOnFlush);
 	}
 }
@@ -0,0 +1,175 @@
+package mil.nga.giat.geowave.core.ingest.kafka;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Counts what the consumers of a single topic have ingested and periodically
+ * logs the throughput and the consumer lag. The lag is the largest lag of any
+ * partition as reported by the Kafka consumers through JMX, and is only
+ * available for consumers whose client ID starts with the given prefix.
+ */
+public class KafkaIngestProgress
+{
+	private final static Logger LOGGER = Logger.getLogger(KafkaIngestProgress.class);
+	private static final long REPORT_INTERVAL_SECONDS = 30;
+	private static final String MAX_LAG_METRIC = "kafka.consumer:type=ConsumerFetcherManager,name=MaxLag,*";
+
+	private final String topic;
+	private final String clientIdPrefix;
+	private final long startTimeMillis = System.currentTimeMillis();
+	private final AtomicLong messageCount = new AtomicLong();
+	private final AtomicLong failedMessageCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong commitCount = new AtomicLong();
+	private ScheduledExecutorService reporter;
+	private long lastReportTimeMillis = startTimeMillis;
+	private long lastReportMessageCount = 0;
+
+	public KafkaIngestProgress(
+			final String topic,
+			final String clientIdPrefix ) {
+		this.topic = topic;
+		this.clientIdPrefix = clientIdPrefix;
+	}
+
+	public synchronized void start() {
+		if (reporter != null) {
+			return;
+		}
+		reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(
+					final Runnable r ) {
+				final Thread thread = new Thread(
+						r,
+						"kafka-ingest-progress-" + topic);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		reporter.scheduleAtFixedRate(
+				new Runnable() {
+					@Override
+					public void run() {
+						LOGGER.info(getSummary());
+					}
+				},
+				REPORT_INTERVAL_SECONDS,
+				REPORT_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+	}
+
+	public synchronized void stop() {
+		if (reporter != null) {
+			reporter.shutdownNow();
+			reporter = null;
+			LOGGER.info(getSummary());
+		}
+	}
+
+	public void messagesConsumed(
+			final int messages,
+			final int failedMessages ) {
+		messageCount.addAndGet(messages);
+		failedMessageCount.addAndGet(failedMessages);
+	}
+
+	public void flushed(
+			final boolean committed ) {
+		flushCount.incrementAndGet();
+		if (committed) {
+			commitCount.incrementAndGet();
+		}
+	}
+
+	public long getMessageCount() {
+		return messageCount.get();
+	}
+
+	public long getFailedMessageCount() {
+		return failedMessageCount.get();
+	}
+
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	public long getCommitCount() {
+		return commitCount.get();
+	}
+
+	/**
+	 * @return the largest lag, in messages, of any partition consumed by this
+	 *         topic's consumers, or -1 if it is not available
+	 */
+	public long getMaxLag() {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		long maxLag = -1;
+		try {
+			final Set<ObjectName> names = server.queryNames(
+					new ObjectName(
+							MAX_LAG_METRIC),
+					null);
+			for (final ObjectName name : names) {
+				String clientId = name.getKeyProperty("clientId");
+				if ((clientId != null) && clientId.startsWith("\"")) {
+					clientId = ObjectName.unquote(clientId);
+				}
+				if ((clientId != null) && clientId.startsWith(clientIdPrefix)) {
+					final Object value = server.getAttribute(
+							name,
+							"Value");
+					if (value instanceof Number) {
+						maxLag = Math.max(
+								maxLag,
+								((Number) value).longValue());
+					}
+				}
+			}
+		}
+		catch (final JMException e) {
+			LOGGER.debug(
+					"Unable to read consumer lag",
+					e);
+		}
+		return maxLag;
+	}
+
+	public synchronized String getSummary() {
+		final long now = System.currentTimeMillis();
+		final long messages = messageCount.get();
+		final double seconds = Math.max(
+				1,
+				now - startTimeMillis) / 1000.0;
+		final double intervalSeconds = Math.max(
+				1,
+				now - lastReportTimeMillis) / 1000.0;
+		final double intervalRate = (messages - lastReportMessageCount) / intervalSeconds;
+		lastReportTimeMillis = now;
+		lastReportMessageCount = messages;
+		final long maxLag = getMaxLag();
+		return String.format(
+				"[%s] consumed %d messages in %.1f s, %.1f messages/s (%.1f messages/s recently), %d failed, %d flushes, %d commits, max lag %s",
+				topic,
+				messages,
+				seconds,
+				messages / seconds,
+				intervalRate,
+				failedMessageCount.get(),
+				flushCount.get(),
+				commitCount.get(),
+				(maxLag < 0) ? "unknown" : Long.toString(maxLag));
+	}
+}
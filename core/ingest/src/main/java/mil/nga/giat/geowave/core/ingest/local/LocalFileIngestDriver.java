@@ -4,9 +4,17 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import mil.nga.giat.geowave.core.ingest.IngestCommandLineOptions;
 import mil.nga.giat.geowave.core.ingest.IngestFormatPluginProviderSpi;
@@ -20,6 +28,7 @@ import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.log4j.Logger;
@@ -27,6 +36,13 @@ import org.apache.log4j.Logger;
 /**
  * This extends the local file driver to directly ingest data into GeoWave
  * utilizing the LocalFileIngestPlugin's that are discovered by the system.
+ * 
+ * If more than one thread is requested, files are placed in a bounded queue as
+ * they are discovered and ingested by a pool of worker threads, each with its
+ * own index writers and its own instance of each ingest plugin. If a plugin
+ * provider returns the same plugin instance to more than one worker, the
+ * workers take turns ingesting files with that plugin. If a worker stops
+ * unexpectedly, no more files are queued and the remaining workers stop.
  */
 public class LocalFileIngestDriver extends
 		AbstractLocalFileDriver<LocalFileIngestPlugin<?>, IngestRunData>
@@ -34,6 +50,21 @@ public class LocalFileIngestDriver extends
 	private final static Logger LOGGER = Logger.getLogger(LocalFileIngestDriver.class);
 	protected AccumuloCommandLineOptions accumulo;
 	protected IngestCommandLineOptions ingestOptions;
+	protected int threads = 1;
+
+	// how long the producer and workers wait on the file queue before
+	// checking whether the ingest has been aborted
+	private static final long QUEUE_WAIT_SECONDS = 1;
+
+	// only set while files are being ingested by worker threads
+	private BlockingQueue<IngestTask> fileQueue;
+	// set if a worker stops unexpectedly, to stop the producer and the other
+	// workers
+	private volatile boolean ingestAborted = false;
+	// placed on the queue to stop a worker
+	private static final IngestTask END_OF_INPUT = new IngestTask(
+			null,
+			null);
 
 	public LocalFileIngestDriver(
 			final String operation ) {
@@ -47,6 +78,19 @@ public class LocalFileIngestDriver extends
 			throws ParseException {
 		accumulo = AccumuloCommandLineOptions.parseOptions(commandLine);
 		ingestOptions = IngestCommandLineOptions.parseOptions(commandLine);
+		if (commandLine.hasOption("t")) {
+			try {
+				threads = Integer.parseInt(commandLine.getOptionValue("t"));
+			}
+			catch (final NumberFormatException e) {
+				throw new ParseException(
+						"Number of threads must be an integer");
+			}
+			if (threads < 1) {
+				throw new ParseException(
+						"Number of threads must be at least 1");
+			}
+		}
 		super.parseOptionsInternal(commandLine);
 	}
 
@@ -55,6 +99,11 @@ public class LocalFileIngestDriver extends
 			final Options allOptions ) {
 		AccumuloCommandLineOptions.applyOptions(allOptions);
 		IngestCommandLineOptions.applyOptions(allOptions);
+		allOptions.addOption(new Option(
+				"t",
+				"threads",
+				true,
+				"The number of files to ingest concurrently (optional, default is 1)"));
 		super.applyOptionsInternal(allOptions);
 	}
 
@@ -64,6 +113,7 @@ public class LocalFileIngestDriver extends
 			final List<IngestFormatPluginProviderSpi<?, ?>> pluginProviders ) {
 		// first collect the local file ingest plugins
 		final Map<String, LocalFileIngestPlugin<?>> localFileIngestPlugins = new HashMap<String, LocalFileIngestPlugin<?>>();
+		final Map<String, IngestFormatPluginProviderSpi<?, ?>> localFileIngestProviders = new HashMap<String, IngestFormatPluginProviderSpi<?, ?>>();
 		final List<WritableDataAdapter<?>> adapters = new ArrayList<WritableDataAdapter<?>>();
 		for (final IngestFormatPluginProviderSpi<?, ?> pluginProvider : pluginProviders) {
 			LocalFileIngestPlugin<?> localFileIngestPlugin = null;
@@ -89,6 +139,9 @@ public class LocalFileIngestDriver extends
 			localFileIngestPlugins.put(
 					pluginProvider.getIngestFormatName(),
 					localFileIngestPlugin);
+			localFileIngestProviders.put(
+					pluginProvider.getIngestFormatName(),
+					pluginProvider);
 			adapters.addAll(Arrays.asList(localFileIngestPlugin.getDataAdapters(ingestOptions.getVisibility())));
 		}
 
@@ -109,6 +162,13 @@ public class LocalFileIngestDriver extends
 		}
 		final DataStore dataStore = new AccumuloDataStore(
 				operations);
+		if (threads > 1) {
+			processInputInParallel(
+					localFileIngestPlugins,
+					localFileIngestProviders,
+					dataStore);
+			return;
+		}
 		try (IngestRunData runData = new IngestRunData(
 				adapters,
 				dataStore)) {
@@ -123,6 +183,100 @@ public class LocalFileIngestDriver extends
 		}
 	}
 
+	protected void processInputInParallel(
+			final Map<String, LocalFileIngestPlugin<?>> localFileIngestPlugins,
+			final Map<String, IngestFormatPluginProviderSpi<?, ?>> localFileIngestProviders,
+			final DataStore dataStore ) {
+		// a few files per worker are enough to keep the workers busy without
+		// getting far ahead of them
+		fileQueue = new ArrayBlockingQueue<IngestTask>(
+				threads * 4);
+		ingestAborted = false;
+		final IngestProgress progress = new IngestProgress();
+		// plugins are not required to be thread-safe, so each worker asks the
+		// providers for its own, and any instance given to more than one
+		// worker is locked while a file is ingested with it
+		final List<Map<String, LocalFileIngestPlugin<?>>> workerPlugins = new ArrayList<Map<String, LocalFileIngestPlugin<?>>>(
+				threads);
+		final Set<LocalFileIngestPlugin<?>> createdPlugins = Collections.newSetFromMap(new IdentityHashMap<LocalFileIngestPlugin<?>, Boolean>());
+		final Set<LocalFileIngestPlugin<?>> sharedPlugins = Collections.newSetFromMap(new IdentityHashMap<LocalFileIngestPlugin<?>, Boolean>());
+		createdPlugins.addAll(localFileIngestPlugins.values());
+		// the plugins created here are initialized the same way processInput()
+		// initializes the first worker's plugins
+		final File base = (localInput.getInput() == null) ? null : new File(
+				localInput.getInput());
+		for (int i = 0; i < threads; i++) {
+			final Map<String, LocalFileIngestPlugin<?>> plugins = new HashMap<String, LocalFileIngestPlugin<?>>();
+			for (final Entry<String, LocalFileIngestPlugin<?>> entry : localFileIngestPlugins.entrySet()) {
+				// the first worker can use the plugin that was already created
+				final LocalFileIngestPlugin<?> plugin = (i == 0) ? entry.getValue() : localFileIngestProviders.get(
+						entry.getKey()).getLocalFileIngestPlugin();
+				if (i > 0) {
+					if (createdPlugins.add(plugin)) {
+						if ((base != null) && base.exists()) {
+							plugin.init(base.isDirectory() ? base : base.getParentFile());
+						}
+					}
+					else {
+						sharedPlugins.add(plugin);
+					}
+				}
+				plugins.put(
+						entry.getKey(),
+						plugin);
+			}
+			workerPlugins.add(plugins);
+		}
+		final List<Thread> workers = new ArrayList<Thread>(
+				threads);
+		for (int i = 0; i < threads; i++) {
+			final Thread worker = new Thread(
+					new IngestWorker(
+							workerPlugins.get(i),
+							sharedPlugins,
+							dataStore,
+							progress),
+					"geowave-local-ingest-" + (i + 1));
+			worker.start();
+			workers.add(worker);
+		}
+		try {
+			processInput(
+					localFileIngestPlugins,
+					null);
+		}
+		catch (final IOException e) {
+			LOGGER.fatal(
+					"Unexpected I/O exception when reading input files",
+					e);
+		}
+		finally {
+			try {
+				for (int i = 0; i < threads; i++) {
+					if (!queueTask(END_OF_INPUT)) {
+						// the workers stop on their own once the ingest is
+						// aborted
+						break;
+					}
+				}
+				for (final Thread worker : workers) {
+					worker.join();
+				}
+			}
+			catch (final InterruptedException e) {
+				LOGGER.warn(
+						"Interrupted while waiting for files to be ingested",
+						e);
+				Thread.currentThread().interrupt();
+				for (final Thread worker : workers) {
+					worker.interrupt();
+				}
+			}
+			fileQueue = null;
+		}
+		LOGGER.info(progress.getSummary());
+	}
+
 	@Override
 	protected void processFile(
 			final File file,
@@ -130,6 +284,25 @@ public class LocalFileIngestDriver extends
 			final LocalFileIngestPlugin<?> plugin,
 			final IngestRunData ingestRunData )
 			throws IOException {
+		if (fileQueue != null) {
+			final boolean queued;
+			try {
+				queued = queueTask(new IngestTask(
+						file,
+						typeName));
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(
+						"Interrupted while queueing file '" + file.getAbsolutePath() + "'",
+						e);
+			}
+			if (!queued) {
+				throw new IOException(
+						"Ingest was aborted because a worker finished unexpectedly, file '" + file.getAbsolutePath() + "' was not ingested");
+			}
+			return;
+		}
 		IngestUtils.ingest(
 				file,
 				ingestOptions,
@@ -137,4 +310,174 @@ public class LocalFileIngestDriver extends
 				plugin,
 				ingestRunData);
 	}
+
+	/**
+	 * Wait for room on the file queue, giving up if the ingest is aborted
+	 *
+	 * @return true if the task was queued
+	 */
+	private boolean queueTask(
+			final IngestTask task )
+			throws InterruptedException {
+		while (!ingestAborted) {
+			if (fileQueue.offer(
+					task,
+					QUEUE_WAIT_SECONDS,
+					TimeUnit.SECONDS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class IngestTask
+	{
+		private final File file;
+		private final String typeName;
+
+		private IngestTask(
+				final File file,
+				final String typeName ) {
+			this.file = file;
+			this.typeName = typeName;
+		}
+	}
+
+	private class IngestWorker implements
+			Runnable
+	{
+		private final Map<String, LocalFileIngestPlugin<?>> plugins;
+		private final Set<LocalFileIngestPlugin<?>> sharedPlugins;
+		private final DataStore dataStore;
+		private final IngestProgress progress;
+
+		private IngestWorker(
+				final Map<String, LocalFileIngestPlugin<?>> plugins,
+				final Set<LocalFileIngestPlugin<?>> sharedPlugins,
+				final DataStore dataStore,
+				final IngestProgress progress ) {
+			this.plugins = plugins;
+			this.sharedPlugins = sharedPlugins;
+			this.dataStore = dataStore;
+			this.progress = progress;
+		}
+
+		@Override
+		public void run() {
+			boolean finished = false;
+			final List<WritableDataAdapter<?>> adapters = new ArrayList<WritableDataAdapter<?>>();
+			// each worker has its own index writers so that workers do not
+			// contend on a shared writer
+			try {
+				for (final LocalFileIngestPlugin<?> plugin : plugins.values()) {
+					adapters.addAll(Arrays.asList(plugin.getDataAdapters(ingestOptions.getVisibility())));
+				}
+				try (IngestRunData runData = new IngestRunData(
+						adapters,
+						dataStore)) {
+					while (!ingestAborted) {
+						final IngestTask task = fileQueue.poll(
+								QUEUE_WAIT_SECONDS,
+								TimeUnit.SECONDS);
+						if (task == null) {
+							continue;
+						}
+						if (task == END_OF_INPUT) {
+							break;
+						}
+						ingestFile(
+								task,
+								runData);
+					}
+					finished = true;
+				}
+			}
+			catch (final InterruptedException e) {
+				LOGGER.warn(
+						"Interrupted while waiting for files to ingest",
+						e);
+			}
+			catch (final IOException e) {
+				LOGGER.error(
+						"Unable to close index writers",
+						e);
+			}
+			finally {
+				if (!finished) {
+					ingestAborted = true;
+				}
+			}
+		}
+
+		private void ingestFile(
+				final IngestTask task,
+				final IngestRunData runData ) {
+			final LocalFileIngestPlugin<?> plugin = plugins.get(task.typeName);
+			try {
+				if (sharedPlugins.contains(plugin)) {
+					synchronized (plugin) {
+						IngestUtils.ingest(
+								task.file,
+								ingestOptions,
+								plugin,
+								plugin,
+								runData);
+					}
+				}
+				else {
+					IngestUtils.ingest(
+							task.file,
+							ingestOptions,
+							plugin,
+							plugin,
+							runData);
+				}
+				progress.fileIngested(task.file);
+			}
+			catch (final Exception e) {
+				progress.fileFailed();
+				LOGGER.error(
+						"Unable to ingest file '" + task.file.getAbsolutePath() + "'",
+						e);
+			}
+		}
+	}
+
+	private static class IngestProgress
+	{
+		// how often the progress is logged
+		private static final int LOG_FILE_INTERVAL = 1000;
+		private final long startTimeMillis = System.currentTimeMillis();
+		private final AtomicLong fileCount = new AtomicLong();
+		private final AtomicLong failedFileCount = new AtomicLong();
+		private final AtomicLong byteCount = new AtomicLong();
+
+		private void fileIngested(
+				final File file ) {
+			byteCount.addAndGet(file.length());
+			if ((fileCount.incrementAndGet() % LOG_FILE_INTERVAL) == 0) {
+				LOGGER.info(getSummary());
+			}
+		}
+
+		private void fileFailed() {
+			failedFileCount.incrementAndGet();
+		}
+
+		private String getSummary() {
+			final double seconds = Math.max(
+					1,
+					System.currentTimeMillis() - startTimeMillis) / 1000.0;
+			final long files = fileCount.get();
+			final double megabytes = byteCount.get() / (1024.0 * 1024.0);
+			return String.format(
+					"Ingested %d files (%.1f MB) in %.1f s, %.1f files/s, %.1f MB/s, %d files failed",
+					files,
+					megabytes,
+					seconds,
+					files / seconds,
+					megabytes / seconds,
+					failedFileCount.get());
+		}
+	}
 }
@@ -0,0 +1,485 @@
+package mil.nga.giat.geowave.core.ingest.text;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Reads delimited text, such as the CSV files of GPS fixes ingested by the
+ * T-Drive and GeoLife formats, one line at a time without creating a String
+ * per line or per field. The bytes are read in large blocks and the fields of
+ * the current line are located by scanning for the delimiter, then numbers and
+ * timestamps are parsed directly from the bytes of a field. Only
+ * {@link #getString(int)} decodes a field as UTF-8.
+ *
+ * Lines end with "\n" or "\r\n". Quoting is not supported, which is sufficient
+ * for the numeric trajectory formats this is intended for.
+ *
+ * A reader, like the SimpleDateFormat it replaces, is not thread-safe.
+ */
+public class DelimitedTextReader implements
+		Closeable
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final int INITIAL_FIELD_CAPACITY = 16;
+	private static final String TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss";
+	private static final long MILLIS_PER_HOUR = 3600000L;
+	// the largest integer that is exactly representable as a double
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	// the powers of ten that are exactly representable as a double
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private final InputStream in;
+	private final byte delimiter;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfInput;
+
+	private int[] fieldStarts = new int[INITIAL_FIELD_CAPACITY];
+	private int[] fieldEnds = new int[INITIAL_FIELD_CAPACITY];
+	private int fieldCount = 0;
+	private long lineNumber = 0;
+
+	// the start of the most recently parsed hour is cached, because
+	// consecutive fixes are almost always within the same hour
+	private Calendar calendar;
+	private DateFormat fallbackDateFormat;
+	private long cachedHourKey = -1;
+	private long cachedHourMillis;
+	private boolean cachedHourIsUniform;
+
+	/**
+	 * Read the delimited text of a stream, which is closed when this reader is
+	 * closed
+	 */
+	public DelimitedTextReader(
+			final InputStream in,
+			final char delimiter ) {
+		this.in = in;
+		this.delimiter = toByte(delimiter);
+		buffer = new byte[DEFAULT_BUFFER_SIZE];
+		position = 0;
+		limit = 0;
+		endOfInput = false;
+	}
+
+	/**
+	 * Read the delimited text already in memory, without copying it
+	 */
+	public DelimitedTextReader(
+			final byte[] text,
+			final int offset,
+			final int length,
+			final char delimiter ) {
+		in = null;
+		this.delimiter = toByte(delimiter);
+		buffer = text;
+		position = offset;
+		limit = offset + length;
+		endOfInput = true;
+	}
+
+	private static byte toByte(
+			final char delimiter ) {
+		if (delimiter > 0x7F) {
+			throw new IllegalArgumentException(
+					"The delimiter must be an ASCII character");
+		}
+		return (byte) delimiter;
+	}
+
+	/**
+	 * Advance to the next line
+	 *
+	 * @return false if there are no more lines
+	 * @throws IOException
+	 *             if the underlying stream can not be read
+	 */
+	public boolean nextLine()
+			throws IOException {
+		while (true) {
+			final int lineStart = position;
+			int fieldStart = lineStart;
+			int i = lineStart;
+			fieldCount = 0;
+			while ((i < limit) && (buffer[i] != '\n')) {
+				if (buffer[i] == delimiter) {
+					addField(
+							fieldStart,
+							i);
+					fieldStart = i + 1;
+				}
+				i++;
+			}
+			if ((i == limit) && !endOfInput) {
+				// the line may continue past the end of the buffer
+				fill(lineStart);
+				continue;
+			}
+			if (lineStart == limit) {
+				fieldCount = 0;
+				return false;
+			}
+			int fieldEnd = i;
+			if ((fieldEnd > fieldStart) && (buffer[fieldEnd - 1] == '\r')) {
+				fieldEnd--;
+			}
+			addField(
+					fieldStart,
+					fieldEnd);
+			position = (i < limit) ? i + 1 : i;
+			lineNumber++;
+			return true;
+		}
+	}
+
+	private void fill(
+			final int lineStart )
+			throws IOException {
+		final int remaining = limit - lineStart;
+		if (remaining == buffer.length) {
+			// the line is longer than the buffer
+			buffer = Arrays.copyOfRange(
+					buffer,
+					lineStart,
+					lineStart + (buffer.length * 2));
+		}
+		else if (lineStart > 0) {
+			System.arraycopy(
+					buffer,
+					lineStart,
+					buffer,
+					0,
+					remaining);
+		}
+		position = 0;
+		limit = remaining;
+		while (limit < buffer.length) {
+			final int read = in.read(
+					buffer,
+					limit,
+					buffer.length - limit);
+			if (read < 0) {
+				endOfInput = true;
+				return;
+			}
+			limit += read;
+			if (read > 0) {
+				return;
+			}
+		}
+	}
+
+	private void addField(
+			final int start,
+			final int end ) {
+		if (fieldCount == fieldStarts.length) {
+			fieldStarts = Arrays.copyOf(
+					fieldStarts,
+					fieldCount * 2);
+			fieldEnds = Arrays.copyOf(
+					fieldEnds,
+					fieldCount * 2);
+		}
+		fieldStarts[fieldCount] = start;
+		fieldEnds[fieldCount] = end;
+		fieldCount++;
+	}
+
+	/**
+	 * @return the number of fields of the current line, including empty fields
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * @return the 1-based number of the current line
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	private void checkField(
+			final int field ) {
+		if ((field < 0) || (field >= fieldCount)) {
+			throw new IndexOutOfBoundsException(
+					"Line " + lineNumber + " has " + fieldCount + " fields, field " + field + " does not exist");
+		}
+	}
+
+	public String getString(
+			final int field ) {
+		checkField(field);
+		return new String(
+				buffer,
+				fieldStarts[field],
+				fieldEnds[field] - fieldStarts[field],
+				UTF8);
+	}
+
+	public int getInt(
+			final int field ) {
+		final long value = getLong(field);
+		if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE)) {
+			throw new NumberFormatException(
+					"Value out of range: \"" + getString(field) + "\"");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parse a field as a decimal integer, with the same syntax as
+	 * Long.parseLong
+	 */
+	public long getLong(
+			final int field ) {
+		checkField(field);
+		final int start = fieldStarts[field];
+		final int end = fieldEnds[field];
+		int i = start;
+		boolean negative = false;
+		if ((i < end) && ((buffer[i] == '-') || (buffer[i] == '+'))) {
+			negative = buffer[i] == '-';
+			i++;
+		}
+		if ((i == end) || ((end - i) > 18)) {
+			// empty or possibly out of range, let Long produce the result or
+			// the error
+			return Long.parseLong(getString(field));
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			final int digit = buffer[i] - '0';
+			if ((digit < 0) || (digit > 9)) {
+				throw new NumberFormatException(
+						"For input string: \"" + getString(field) + "\"");
+			}
+			value = (value * 10) + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parse a field as a double, with the same result as Double.parseDouble.
+	 * Plain decimals that fit exactly in a double mantissa are parsed directly
+	 * from the bytes, which is correctly rounded because both the mantissa and
+	 * the power of ten are exact, and anything else falls back to
+	 * Double.parseDouble.
+	 */
+	public double getDouble(
+			final int field ) {
+		checkField(field);
+		final int start = fieldStarts[field];
+		final int end = fieldEnds[field];
+		int i = start;
+		boolean negative = false;
+		if ((i < end) && ((buffer[i] == '-') || (buffer[i] == '+'))) {
+			negative = buffer[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = -1;
+		boolean hasDigits = false;
+		for (; i < end; i++) {
+			final byte b = buffer[i];
+			if ((b >= '0') && (b <= '9')) {
+				hasDigits = true;
+				if ((mantissa == 0) && (b == '0') && (fractionDigits < 0)) {
+					// leading zeros of the integer part are not significant
+					continue;
+				}
+				mantissa = (mantissa * 10) + (b - '0');
+				if (fractionDigits >= 0) {
+					fractionDigits++;
+				}
+				if (++digits > 18) {
+					return Double.parseDouble(getString(field));
+				}
+			}
+			else if ((b == '.') && (fractionDigits < 0)) {
+				fractionDigits = 0;
+			}
+			else {
+				return Double.parseDouble(getString(field));
+			}
+		}
+		if (!hasDigits || (mantissa >= MAX_EXACT_MANTISSA) || (fractionDigits >= POWERS_OF_TEN.length)) {
+			return Double.parseDouble(getString(field));
+		}
+		double value = mantissa;
+		if (fractionDigits > 0) {
+			value /= POWERS_OF_TEN[fractionDigits];
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parse a field formatted as "yyyy-MM-dd HH:mm:ss" in the default time
+	 * zone, with the same result as a SimpleDateFormat of that pattern
+	 *
+	 * @return the time in milliseconds since the epoch
+	 * @throws ParseException
+	 *             if the field is not a timestamp
+	 */
+	public long getTimestamp(
+			final int field )
+			throws ParseException {
+		checkField(field);
+		final int start = fieldStarts[field];
+		if (((fieldEnds[field] - start) == 19) && (buffer[start + 10] == ' ')) {
+			final long millis = parseTimestamp(
+					start,
+					start + 11);
+			if (millis != Long.MIN_VALUE) {
+				return millis;
+			}
+		}
+		return parseFallback(getString(field));
+	}
+
+	/**
+	 * Parse a timestamp split into a date field formatted as "yyyy-MM-dd" and a
+	 * time field formatted as "HH:mm:ss", in the default time zone, with the
+	 * same result as a SimpleDateFormat of the combined pattern
+	 *
+	 * @return the time in milliseconds since the epoch
+	 * @throws ParseException
+	 *             if the fields are not a timestamp
+	 */
+	public long getTimestamp(
+			final int dateField,
+			final int timeField )
+			throws ParseException {
+		checkField(dateField);
+		checkField(timeField);
+		if (((fieldEnds[dateField] - fieldStarts[dateField]) == 10) && ((fieldEnds[timeField] - fieldStarts[timeField]) == 8)) {
+			final long millis = parseTimestamp(
+					fieldStarts[dateField],
+					fieldStarts[timeField]);
+			if (millis != Long.MIN_VALUE) {
+				return millis;
+			}
+		}
+		return parseFallback(getString(dateField) + " " + getString(timeField));
+	}
+
+	/**
+	 * @return the parsed time, or Long.MIN_VALUE if the date or time is not
+	 *         in the expected fixed width format
+	 */
+	private long parseTimestamp(
+			final int dateStart,
+			final int timeStart ) {
+		if ((buffer[dateStart + 4] != '-') || (buffer[dateStart + 7] != '-') || (buffer[timeStart + 2] != ':') || (buffer[timeStart + 5] != ':')) {
+			return Long.MIN_VALUE;
+		}
+		final int year = parseDigits(
+				dateStart,
+				4);
+		final int month = parseDigits(
+				dateStart + 5,
+				2);
+		final int day = parseDigits(
+				dateStart + 8,
+				2);
+		final int hour = parseDigits(
+				timeStart,
+				2);
+		final int minute = parseDigits(
+				timeStart + 3,
+				2);
+		final int second = parseDigits(
+				timeStart + 6,
+				2);
+		if ((year < 0) || (month < 0) || (day < 0) || (hour < 0) || (minute < 0) || (second < 0)) {
+			return Long.MIN_VALUE;
+		}
+		final long hourKey = (((((year * 100L) + month) * 100L) + day) * 100L) + hour;
+		if (hourKey != cachedHourKey) {
+			if (calendar == null) {
+				calendar = new GregorianCalendar();
+			}
+			calendar.clear();
+			calendar.set(
+					year,
+					month - 1,
+					day,
+					hour,
+					0,
+					0);
+			cachedHourMillis = calendar.getTimeInMillis();
+			cachedHourKey = hourKey;
+			// minutes and seconds can only be added to the start of the hour
+			// if the offset of the time zone does not change around it,
+			// which is not the case for an hour skipped by daylight saving
+			// time or for a zone that changes its offset by half an hour
+			final TimeZone timeZone = calendar.getTimeZone();
+			final int offset = timeZone.getOffset(cachedHourMillis);
+			cachedHourIsUniform = (timeZone.getOffset(cachedHourMillis - MILLIS_PER_HOUR) == offset) && (timeZone.getOffset(cachedHourMillis + MILLIS_PER_HOUR) == offset);
+		}
+		if (!cachedHourIsUniform) {
+			calendar.clear();
+			calendar.set(
+					year,
+					month - 1,
+					day,
+					hour,
+					minute,
+					second);
+			return calendar.getTimeInMillis();
+		}
+		return cachedHourMillis + (minute * 60000L) + (second * 1000L);
+	}
+
+	private int parseDigits(
+			final int start,
+			final int length ) {
+		int value = 0;
+		for (int i = start; i < (start + length); i++) {
+			final int digit = buffer[i] - '0';
+			if ((digit < 0) || (digit > 9)) {
+				return -1;
+			}
+			value = (value * 10) + digit;
+		}
+		return value;
+	}
+
+	private long parseFallback(
+			final String timestamp )
+			throws ParseException {
+		if (fallbackDateFormat == null) {
+			fallbackDateFormat = new SimpleDateFormat(
+					TIMESTAMP_FORMAT);
+		}
+		return fallbackDateFormat.parse(
+				timestamp).getTime();
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		if (in != null) {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package mil.nga.giat.geowave.core.ingest.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class DelimitedTextReaderTest
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String[] DOUBLES = new String[] {
+		"0",
+		"-0",
+		"+0",
+		"0.0",
+		"-0.0",
+		"1",
+		"+1",
+		"-1",
+		"1.5",
+		"+1.5",
+		"-1.5",
+		".5",
+		"-.25",
+		"+.125",
+		"1.",
+		"-1.",
+		"00012.50",
+		"116.40702",
+		"39.916527",
+		"-73.98571",
+		"0.1",
+		"0.0001",
+		"39906.7295717593",
+		"1e5",
+		"1E5",
+		"1.5e-3",
+		"-2.5E+2",
+		".5e1",
+		"4.9e-324",
+		"1.7976931348623157e308",
+		"123456789012345678",
+		"1234567890123456789",
+		"9007199254740993",
+		"0.1234567890123456789",
+		"3.14159265358979323846",
+		"1.0000000000000000000001",
+		"0.00000000000000000000001",
+		"NaN",
+		"Infinity",
+		"-Infinity",
+		"1.5d",
+		"2f",
+		" 1.5",
+		"1.5 "
+	};
+
+	private static final String[] MALFORMED_DOUBLES = new String[] {
+		"",
+		"-",
+		"+",
+		".",
+		"-.",
+		"1.2.3",
+		"--1",
+		"+-1",
+		"1-2",
+		"e5",
+		"1e",
+		"1e+",
+		"abc",
+		"1 2"
+	};
+
+	private static final String[] LONGS = new String[] {
+		"0",
+		"-0",
+		"+7",
+		"123",
+		"-123",
+		"0012",
+		"999999999999999999",
+		"9223372036854775807",
+		"-9223372036854775808"
+	};
+
+	private static final String[] MALFORMED_LONGS = new String[] {
+		"",
+		"-",
+		"+",
+		"1.0",
+		"12a",
+		"--1",
+		" 1",
+		"9223372036854775808",
+		"-9223372036854775809"
+	};
+
+	private static final String[] TIMESTAMPS = new String[] {
+		"2008-02-02 15:36:08",
+		"2008-02-02 15:59:59",
+		"2008-02-02 16:00:00",
+		"2000-02-29 23:59:59",
+		"1999-12-31 23:59:59",
+		// the hour skipped by daylight saving time in New York
+		"2009-03-08 02:30:00",
+		"2009-03-08 01:59:59",
+		"2009-03-08 03:00:00",
+		// the hour repeated when daylight saving time ends in New York
+		"2009-11-01 01:30:00",
+		"2009-11-01 02:30:00",
+		// SimpleDateFormat is lenient, so these roll over
+		"2008-02-30 10:00:00",
+		"2008-02-02 24:00:00",
+		"2008-02-02 15:36:60",
+		// not the fixed width format, so parsed by the fallback
+		"2008-2-2 15:36:08",
+		"2008-02-02 5:36:08"
+	};
+
+	private static final String[] MALFORMED_TIMESTAMPS = new String[] {
+		"",
+		"2008-02-02",
+		"2008-02-02T15:36:08",
+		"2008/02/02 15:36:08",
+		"not a timestamp!!!!"
+	};
+
+	@Test
+	public void testDoubles()
+			throws IOException {
+		for (final String value : DOUBLES) {
+			assertEquals(
+					value,
+					Double.doubleToLongBits(Double.parseDouble(value)),
+					Double.doubleToLongBits(read(
+							value).getDouble(
+							0)));
+		}
+	}
+
+	@Test
+	public void testMalformedDoubles()
+			throws IOException {
+		for (final String value : MALFORMED_DOUBLES) {
+			try {
+				Double.parseDouble(value);
+				fail("\"" + value + "\" should not be a double");
+			}
+			catch (final NumberFormatException e) {}
+			try {
+				read(
+						value).getDouble(
+						0);
+				fail("\"" + value + "\" should not be parsed as a double");
+			}
+			catch (final NumberFormatException e) {}
+		}
+	}
+
+	@Test
+	public void testLongs()
+			throws IOException {
+		for (final String value : LONGS) {
+			assertEquals(
+					value,
+					Long.parseLong(value),
+					read(
+							value).getLong(
+							0));
+		}
+		assertEquals(
+				-7,
+				read(
+						"-7").getInt(
+						0));
+	}
+
+	@Test
+	public void testMalformedLongs()
+			throws IOException {
+		for (final String value : MALFORMED_LONGS) {
+			try {
+				Long.parseLong(value);
+				fail("\"" + value + "\" should not be a long");
+			}
+			catch (final NumberFormatException e) {}
+			try {
+				read(
+						value).getLong(
+						0);
+				fail("\"" + value + "\" should not be parsed as a long");
+			}
+			catch (final NumberFormatException e) {}
+		}
+		try {
+			read(
+					"2147483648").getInt(
+					0);
+			fail("2147483648 should not be parsed as an int");
+		}
+		catch (final NumberFormatException e) {}
+	}
+
+	@Test
+	public void testTimestamps()
+			throws IOException,
+			ParseException {
+		final TimeZone defaultTimeZone = TimeZone.getDefault();
+		TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+		try {
+			final DateFormat dateFormat = new SimpleDateFormat(
+					"yyyy-MM-dd HH:mm:ss");
+			// a single reader for every timestamp exercises its cached hour
+			final StringBuilder text = new StringBuilder();
+			for (final String timestamp : TIMESTAMPS) {
+				text.append(
+						timestamp).append(
+						',').append(
+						timestamp.replace(
+								' ',
+								',')).append(
+						'\n');
+			}
+			final DelimitedTextReader reader = new DelimitedTextReader(
+					new ByteArrayInputStream(
+							text.toString().getBytes(
+									UTF8)),
+					',');
+			for (final String timestamp : TIMESTAMPS) {
+				assertTrue(reader.nextLine());
+				final long expected = dateFormat.parse(
+						timestamp).getTime();
+				assertEquals(
+						timestamp,
+						expected,
+						reader.getTimestamp(0));
+				assertEquals(
+						timestamp,
+						expected,
+						reader.getTimestamp(
+								1,
+								2));
+			}
+			assertFalse(reader.nextLine());
+			reader.close();
+
+			for (final String timestamp : MALFORMED_TIMESTAMPS) {
+				try {
+					dateFormat.parse(timestamp);
+					fail("\"" + timestamp + "\" should not be a timestamp");
+				}
+				catch (final ParseException e) {}
+				try {
+					read(
+							timestamp).getTimestamp(
+							0);
+					fail("\"" + timestamp + "\" should not be parsed as a timestamp");
+				}
+				catch (final ParseException e) {}
+			}
+		}
+		finally {
+			TimeZone.setDefault(defaultTimeZone);
+		}
+	}
+
+	@Test
+	public void testFields()
+			throws IOException {
+		final byte[] text = "a,,1.5\r\n\nlast,line".getBytes(UTF8);
+		final DelimitedTextReader reader = new DelimitedTextReader(
+				text,
+				0,
+				text.length,
+				',');
+		assertTrue(reader.nextLine());
+		assertEquals(
+				3,
+				reader.getFieldCount());
+		assertEquals(
+				"a",
+				reader.getString(0));
+		assertEquals(
+				"",
+				reader.getString(1));
+		assertEquals(
+				"1.5",
+				reader.getString(2));
+		assertTrue(reader.nextLine());
+		assertEquals(
+				1,
+				reader.getFieldCount());
+		assertEquals(
+				"",
+				reader.getString(0));
+		assertTrue(reader.nextLine());
+		assertEquals(
+				"line",
+				reader.getString(1));
+		assertEquals(
+				3,
+				reader.getLineNumber());
+		assertFalse(reader.nextLine());
+		reader.close();
+	}
+
+	/**
+	 * @return a reader positioned on a line whose first field is the value,
+	 *         followed by an empty field so an empty value is still a line
+	 */
+	private static DelimitedTextReader read(
+			final String value )
+			throws IOException {
+		final byte[] text = (value + ",").getBytes(UTF8);
+		final DelimitedTextReader reader = new DelimitedTextReader(
+				text,
+				0,
+				text.length,
+				',');
+		assertTrue(reader.nextLine());
+		return reader;
+	}
+}
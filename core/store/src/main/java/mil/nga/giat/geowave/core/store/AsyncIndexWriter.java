@@ -0,0 +1,337 @@
+package mil.nga.giat.geowave.core.store;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * This index writer hands each entry to a pool of worker threads that write it
+ * through another index writer, so that the producer does not wait while row
+ * IDs, field encodings and statistics are computed. At most a fixed number of
+ * entries can be pending at once; once that limit is reached the producer
+ * blocks until a worker completes an entry, which bounds the memory used when
+ * the producer is faster than the underlying store.
+ *
+ * Because the row IDs are not known when an entry is accepted, write() returns
+ * an empty list. Use writeAsync() to receive the row IDs, either from the
+ * returned future or through a callback. Once any entry has failed to be
+ * written, flush() and close() throw so that the failure is not lost. The
+ * wrapped writer and the data adapters used must support concurrent writes.
+ */
+public class AsyncIndexWriter implements
+		IndexWriter
+{
+	private final static Logger LOGGER = Logger.getLogger(AsyncIndexWriter.class);
+	private static final AtomicInteger WRITER_COUNT = new AtomicInteger();
+
+	private final IndexWriter writer;
+	private final int maxPendingEntries;
+	private final ThreadPoolExecutor threadPool;
+	private final ListeningExecutorService writeExecutor;
+
+	private final Object pendingLock = new Object();
+	private int pendingEntries = 0;
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private volatile long startTimeMillis = -1;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param writer
+	 *            the writer that entries are written through, it must be
+	 *            thread-safe
+	 * @param writeThreads
+	 *            the number of worker threads writing entries
+	 * @param maxPendingEntries
+	 *            the number of entries that can be accepted but not yet
+	 *            written before the producer is blocked
+	 */
+	public AsyncIndexWriter(
+			final IndexWriter writer,
+			final int writeThreads,
+			final int maxPendingEntries ) {
+		this.writer = writer;
+		this.maxPendingEntries = Math.max(
+				1,
+				maxPendingEntries);
+		final String threadPrefix = "geowave-write-" + WRITER_COUNT.incrementAndGet() + "-";
+		final AtomicInteger threadCount = new AtomicInteger();
+		final int threads = Math.max(
+				1,
+				writeThreads);
+		// the task queue is unbounded because the pending entry limit already
+		// bounds the number of tasks
+		threadPool = new ThreadPoolExecutor(
+				threads,
+				threads,
+				0L,
+				TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(
+							final Runnable r ) {
+						final Thread thread = new Thread(
+								r,
+								threadPrefix + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		writeExecutor = MoreExecutors.listeningDecorator(threadPool);
+	}
+
+	/**
+	 * Accepts the entry to be written asynchronously, blocking if the maximum
+	 * number of entries are already pending. Failures are logged and reported
+	 * by the next flush() or close().
+	 *
+	 * @return an empty list, the row IDs are not known until the entry is
+	 *         written
+	 */
+	@Override
+	public <T> List<ByteArrayId> write(
+			final WritableDataAdapter<T> writableAdapter,
+			final T entry ) {
+		writeAsync(
+				writableAdapter,
+				entry);
+		return Collections.emptyList();
+	}
+
+	public <T> ListenableFuture<List<ByteArrayId>> writeAsync(
+			final WritableDataAdapter<T> writableAdapter,
+			final T entry ) {
+		return writeAsync(
+				writableAdapter,
+				entry,
+				null);
+	}
+
+	/**
+	 * Accepts the entry to be written asynchronously, blocking if the maximum
+	 * number of entries are already pending.
+	 *
+	 * @param callback
+	 *            if not null, notified on a worker thread when the entry is
+	 *            written or fails
+	 * @return a future for the row IDs the entry is written to
+	 */
+	public <T> ListenableFuture<List<ByteArrayId>> writeAsync(
+			final WritableDataAdapter<T> writableAdapter,
+			final T entry,
+			final IndexWriteCallback<T> callback ) {
+		if (closed) {
+			throw new IllegalStateException(
+					"Index writer has been closed");
+		}
+		try {
+			acquirePending();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failedCount.incrementAndGet();
+			if (callback != null) {
+				callback.entryFailed(
+						entry,
+						e);
+			}
+			return Futures.immediateFailedFuture(e);
+		}
+		if (startTimeMillis < 0) {
+			startTimeMillis = System.currentTimeMillis();
+		}
+		return writeExecutor.submit(new Callable<List<ByteArrayId>>() {
+			@Override
+			public List<ByteArrayId> call()
+					throws Exception {
+				// the entry remains pending until its callback completes so
+				// that a flush also waits for the callbacks
+				try {
+					final List<ByteArrayId> rowIds;
+					try {
+						rowIds = writer.write(
+								writableAdapter,
+								entry);
+					}
+					catch (final RuntimeException e) {
+						failedCount.incrementAndGet();
+						if (callback != null) {
+							callback.entryFailed(
+									entry,
+									e);
+						}
+						else {
+							LOGGER.error(
+									"Unable to write entry",
+									e);
+						}
+						throw e;
+					}
+					writtenCount.incrementAndGet();
+					if (callback != null) {
+						callback.entryWritten(
+								entry,
+								rowIds);
+					}
+					return rowIds;
+				}
+				finally {
+					releasePending();
+				}
+			}
+		});
+	}
+
+	private void acquirePending()
+			throws InterruptedException {
+		synchronized (pendingLock) {
+			while (pendingEntries >= maxPendingEntries) {
+				pendingLock.wait();
+			}
+			pendingEntries++;
+		}
+	}
+
+	private void releasePending() {
+		synchronized (pendingLock) {
+			pendingEntries--;
+			pendingLock.notifyAll();
+		}
+	}
+
+	private void awaitPending() {
+		synchronized (pendingLock) {
+			while (pendingEntries > 0) {
+				try {
+					pendingLock.wait();
+				}
+				catch (final InterruptedException e) {
+					LOGGER.warn(
+							"Interrupted while waiting for pending entries to be written",
+							e);
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public <T> void setupAdapter(
+			final WritableDataAdapter<T> writableAdapter ) {
+		writer.setupAdapter(writableAdapter);
+	}
+
+	@Override
+	public Index getIndex() {
+		return writer.getIndex();
+	}
+
+	/**
+	 * Waits for all pending entries to be written and then flushes the wrapped
+	 * writer
+	 *
+	 * @throws IllegalStateException
+	 *             if any entry accepted by this writer failed to be written
+	 */
+	@Override
+	public void flush() {
+		awaitPending();
+		writer.flush();
+		final long failed = failedCount.get();
+		if (failed > 0) {
+			throw new IllegalStateException(
+					getFailureMessage(failed));
+		}
+	}
+
+	/**
+	 * Waits for all pending entries to be written and then closes the wrapped
+	 * writer
+	 *
+	 * @throws IOException
+	 *             if the wrapped writer cannot be closed or any entry accepted
+	 *             by this writer failed to be written
+	 */
+	@Override
+	public void close()
+			throws IOException {
+		closed = true;
+		awaitPending();
+		writeExecutor.shutdown();
+		writer.close();
+		final long failed = failedCount.get();
+		if (failed > 0) {
+			throw new IOException(
+					getFailureMessage(failed));
+		}
+	}
+
+	private String getFailureMessage(
+			final long failed ) {
+		return failed + " of " + (writtenCount.get() + failed) + " entries failed to be written";
+	}
+
+	/**
+	 * @return the number of entries that have been accepted but not yet
+	 *         written, including those currently being written
+	 */
+	public int getPendingCount() {
+		synchronized (pendingLock) {
+			return pendingEntries;
+		}
+	}
+
+	/**
+	 * @return the number of entries waiting for a worker thread
+	 */
+	public int getQueueDepth() {
+		return threadPool.getQueue().size();
+	}
+
+	public int getMaxPendingEntries() {
+		return maxPendingEntries;
+	}
+
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * @return the average number of entries written per second since the
+	 *         first entry was accepted
+	 */
+	public double getEntriesPerSecond() {
+		final long start = startTimeMillis;
+		if (start < 0) {
+			return 0;
+		}
+		final long elapsedMillis = Math.max(
+				1,
+				System.currentTimeMillis() - start);
+		return (writtenCount.get() * 1000.0) / elapsedMillis;
+	}
+}
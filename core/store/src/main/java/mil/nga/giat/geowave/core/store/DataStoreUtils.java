@@ -0,0 +1,318 @@
+package mil.nga.giat.geowave.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowCardinalityEstimator;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexStrategy;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.data.DataWriter;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
+import mil.nga.giat.geowave.core.store.data.field.FieldVisibilityHandler;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A set of convenience methods shared by the data store implementations, for
+ * decomposing query constraints into ranges and for encoding entries into the
+ * row IDs and field values that are written for them.
+ */
+public class DataStoreUtils
+{
+	private final static Logger LOGGER = Logger.getLogger(DataStoreUtils.class);
+
+	public static List<ByteArrayRange> constraintsToByteArrayRanges(
+			final MultiDimensionalNumericData constraints,
+			final NumericIndexStrategy indexStrategy ) {
+		if ((constraints == null) || constraints.isEmpty()) {
+			return new ArrayList<ByteArrayRange>(); // implies in negative and
+			// positive infinity
+		}
+		else {
+			return indexStrategy.getQueryRanges(constraints);
+		}
+	}
+
+	public static List<ByteArrayRange> constraintsToByteArrayRanges(
+			final List<MultiDimensionalNumericData> constraints,
+			final NumericIndexStrategy indexStrategy ) {
+		if ((constraints == null) || constraints.isEmpty()) {
+			return new ArrayList<ByteArrayRange>(); // implies in negative and
+			// positive infinity
+		}
+		else {
+			final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
+			for (final MultiDimensionalNumericData nd : constraints) {
+				ranges.addAll(indexStrategy.getQueryRanges(nd));
+			}
+			ByteArrayRange.mergeIntersections(
+					ranges,
+					0);
+			return ranges;
+		}
+	}
+
+	public static List<ByteArrayRange> constraintsToByteArrayRanges(
+			final List<MultiDimensionalNumericData> constraints,
+			final NumericIndexStrategy indexStrategy,
+			final int maxRanges ) {
+		return constraintsToByteArrayRanges(
+				constraints,
+				indexStrategy,
+				maxRanges,
+				null);
+	}
+
+	/**
+	 * Decompose the constraints into ranges, using the estimator (if the index
+	 * strategy supports it) to divide the range budget according to where rows
+	 * are actually stored
+	 */
+	public static List<ByteArrayRange> constraintsToByteArrayRanges(
+			final List<MultiDimensionalNumericData> constraints,
+			final NumericIndexStrategy indexStrategy,
+			final int maxRanges,
+			final RowCardinalityEstimator cardinalityEstimator ) {
+		if ((constraints == null) || constraints.isEmpty()) {
+			return new ArrayList<ByteArrayRange>(); // implies in negative and
+			// positive infinity
+		}
+		else {
+			final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
+			for (final MultiDimensionalNumericData nd : constraints) {
+				if (indexStrategy instanceof TieredSFCIndexStrategy) {
+					ranges.addAll(((TieredSFCIndexStrategy) indexStrategy).getQueryRanges(
+							nd,
+							maxRanges,
+							cardinalityEstimator));
+				}
+				else {
+					ranges.addAll(indexStrategy.getQueryRanges(
+							nd,
+							maxRanges));
+				}
+			}
+			ByteArrayRange.mergeIntersections(
+					ranges,
+					maxRanges);
+			return ranges;
+		}
+	}
+
+	/**
+	 *
+	 * @param dataWriter
+	 * @param index
+	 * @param entry
+	 * @return List of zero or more matches
+	 */
+	public static <T> List<ByteArrayId> getRowIds(
+			final WritableDataAdapter<T> dataWriter,
+			final Index index,
+			final T entry ) {
+		final CommonIndexModel indexModel = index.getIndexModel();
+		final AdapterPersistenceEncoding encodedData = dataWriter.encode(
+				entry,
+				indexModel);
+		final List<ByteArrayId> insertionIds = encodedData.getInsertionIds(index);
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+				insertionIds.size());
+
+		addToRowIds(
+				rowIds,
+				insertionIds,
+				dataWriter.getDataId(
+						entry).getBytes(),
+				dataWriter.getAdapterId().getBytes(),
+				encodedData.isDeduplicationEnabled());
+
+		return rowIds;
+	}
+
+	private static <T> void addToRowIds(
+			final List<ByteArrayId> rowIds,
+			final List<ByteArrayId> insertionIds,
+			final byte[] dataId,
+			final byte[] adapterId,
+			final boolean enableDeduplication ) {
+
+		final int numberOfDuplicates = insertionIds.size() - 1;
+
+		for (final ByteArrayId insertionId : insertionIds) {
+			final byte[] indexId = insertionId.getBytes();
+			// because the combination of the adapter ID and data ID
+			// gaurantees uniqueness, we combine them in the row ID to
+			// disambiguate index values that are the same, also adding
+			// enough length values to be able to read the row ID again, we
+			// lastly add a number of duplicates which can be useful as
+			// metadata in our de-duplication
+			// step
+			rowIds.add(new ByteArrayId(
+					new EntryRowId(
+							indexId,
+							dataId,
+							adapterId,
+							enableDeduplication ? numberOfDuplicates : -1).getRowId()));
+		}
+	}
+
+	public static <T> DataStoreEntryInfo getIngestInfo(
+			final WritableDataAdapter<T> dataWriter,
+			final Index index,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		return getIngestInfo(
+				dataWriter,
+				index,
+				index.getIndexModel(),
+				entry,
+				customFieldVisibilityWriter);
+	}
+
+	/**
+	 * Encode the entry into the row IDs and field values to write for it
+	 *
+	 * @param indexModel
+	 *            the model to encode the common index fields with, which may
+	 *            differ from the model of the index if the data store converts
+	 *            it for the adapter
+	 */
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	public static <T> DataStoreEntryInfo getIngestInfo(
+			final WritableDataAdapter<T> dataWriter,
+			final Index index,
+			final CommonIndexModel indexModel,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		final AdapterPersistenceEncoding encodedData = dataWriter.encode(
+				entry,
+				indexModel);
+		final List<ByteArrayId> insertionIds = encodedData.getInsertionIds(index);
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+				insertionIds.size());
+		final PersistentDataset extendedData = encodedData.getAdapterExtendedData();
+		final PersistentDataset indexedData = encodedData.getCommonData();
+		final List<PersistentValue> extendedValues = extendedData.getValues();
+		final List<PersistentValue> commonValues = indexedData.getValues();
+
+		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>();
+
+		if (!insertionIds.isEmpty()) {
+			addToRowIds(
+					rowIds,
+					insertionIds,
+					dataWriter.getDataId(
+							entry).getBytes(),
+					dataWriter.getAdapterId().getBytes(),
+					encodedData.isDeduplicationEnabled());
+
+			for (final PersistentValue fieldValue : commonValues) {
+				final FieldInfo<T> fieldInfo = getFieldInfo(
+						indexModel,
+						fieldValue,
+						entry,
+						customFieldVisibilityWriter);
+				if (fieldInfo != null) {
+					fieldInfoList.add(fieldInfo);
+				}
+			}
+			for (final PersistentValue fieldValue : extendedValues) {
+				if (fieldValue.getValue() != null) {
+					final FieldInfo<T> fieldInfo = getFieldInfo(
+							dataWriter,
+							fieldValue,
+							entry,
+							customFieldVisibilityWriter);
+					if (fieldInfo != null) {
+						fieldInfoList.add(fieldInfo);
+					}
+				}
+			}
+			return new DataStoreEntryInfo(
+					rowIds,
+					fieldInfoList);
+		}
+		LOGGER.warn("Indexing failed to produce insertion ids; entry [" + dataWriter.getDataId(
+				entry).getString() + "] not saved.");
+		return new DataStoreEntryInfo(
+				Collections.EMPTY_LIST,
+				Collections.EMPTY_LIST);
+	}
+
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	private static <T> FieldInfo<T> getFieldInfo(
+			final DataWriter dataWriter,
+			final PersistentValue<T> fieldValue,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		final FieldWriter fieldWriter = dataWriter.getWriter(fieldValue.getId());
+		final FieldVisibilityHandler<T, Object> customVisibilityHandler = customFieldVisibilityWriter.getFieldVisibilityHandler(fieldValue.getId());
+		if (fieldWriter != null) {
+			final Object value = fieldValue.getValue();
+			return new FieldInfo<T>(
+					fieldValue,
+					fieldWriter.writeField(value),
+					mergeVisibilities(
+							customVisibilityHandler.getVisibility(
+									entry,
+									fieldValue.getId(),
+									value),
+							fieldWriter.getVisibility(
+									entry,
+									fieldValue.getId(),
+									value)));
+		}
+		else if (fieldValue.getValue() != null) {
+			LOGGER.warn("Data writer of class " + dataWriter.getClass() + " does not support field for " + fieldValue.getValue());
+		}
+		return null;
+	}
+
+	private static final byte[] OPEN_PAREN = "(".getBytes(StringUtils.UTF8_CHAR_SET);
+	private static final byte[] CLOSE_AND_OPEN = ")&(".getBytes(StringUtils.UTF8_CHAR_SET);
+	private static final byte[] CLOSE_PAREN = ")".getBytes(StringUtils.UTF8_CHAR_SET);
+
+	/**
+	 * Combine two visibility expressions so that both must be satisfied
+	 *
+	 * @return "(vis1)&(vis2)", or whichever expression is non-empty
+	 */
+	public static byte[] mergeVisibilities(
+			final byte vis1[],
+			final byte vis2[] ) {
+		if ((vis1 == null) || (vis1.length == 0)) {
+			return vis2;
+		}
+		else if ((vis2 == null) || (vis2.length == 0)) {
+			return vis1;
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(vis1.length + vis2.length + OPEN_PAREN.length + CLOSE_AND_OPEN.length + CLOSE_PAREN.length);
+		buffer.put(OPEN_PAREN);
+		buffer.put(vis1);
+		buffer.put(CLOSE_AND_OPEN);
+		buffer.put(vis2);
+		buffer.put(CLOSE_PAREN);
+		return buffer.array();
+	}
+}
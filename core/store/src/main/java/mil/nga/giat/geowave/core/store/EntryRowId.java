@@ -0,0 +1,92 @@
+package mil.nga.giat.geowave.core.store;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This class encapsulates the elements that compose a row ID, and can
+ * serialize and deserialize the individual elements to/from the row ID. The
+ * row ID consists of the insertion ID, followed by an adapter ID, followed by
+ * a data ID, followed by adapter ID length and data ID length, and lastly the
+ * number of duplicate row IDs for this entry. The data ID must be unique for
+ * an adapter, so the combination of adapter ID and data ID is intended to
+ * guarantee uniqueness for this row ID. The layout is shared by all data
+ * stores.
+ * 
+ */
+public class EntryRowId
+{
+	private final byte[] insertionId;
+	private final byte[] dataId;
+	private final byte[] adapterId;
+	private final int numberOfDuplicates;
+
+	public EntryRowId(
+			final byte[] rowId ) {
+		final byte[] metadata = Arrays.copyOfRange(
+				rowId,
+				rowId.length - 12,
+				rowId.length);
+		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
+		final int adapterIdLength = metadataBuf.getInt();
+		final int dataIdLength = metadataBuf.getInt();
+		final int numberOfDuplicates = metadataBuf.getInt();
+
+		final ByteBuffer buf = ByteBuffer.wrap(
+				rowId,
+				0,
+				rowId.length - 12);
+		final byte[] insertionId = new byte[rowId.length - 12 - adapterIdLength - dataIdLength];
+		final byte[] adapterId = new byte[adapterIdLength];
+		final byte[] dataId = new byte[dataIdLength];
+		buf.get(insertionId);
+		buf.get(adapterId);
+		buf.get(dataId);
+		this.insertionId = insertionId;
+		this.dataId = dataId;
+		this.adapterId = adapterId;
+		this.numberOfDuplicates = numberOfDuplicates;
+	}
+
+	public EntryRowId(
+			final byte[] insertionId,
+			final byte[] dataId,
+			final byte[] adapterId,
+			final int numberOfDuplicates ) {
+		this.insertionId = insertionId;
+		this.dataId = dataId;
+		this.adapterId = adapterId;
+		this.numberOfDuplicates = numberOfDuplicates;
+	}
+
+	public byte[] getRowId() {
+		final ByteBuffer buf = ByteBuffer.allocate(12 + dataId.length + adapterId.length + insertionId.length);
+		buf.put(insertionId);
+		buf.put(adapterId);
+		buf.put(dataId);
+		buf.putInt(adapterId.length);
+		buf.putInt(dataId.length);
+		buf.putInt(numberOfDuplicates);
+		return buf.array();
+	}
+
+	public byte[] getInsertionId() {
+		return insertionId;
+	}
+
+	public byte[] getDataId() {
+		return dataId;
+	}
+
+	public byte[] getAdapterId() {
+		return adapterId;
+	}
+
+	public int getNumberOfDuplicates() {
+		return numberOfDuplicates;
+	}
+
+	public boolean isDeduplicationEnabled() {
+		return numberOfDuplicates >= 0;
+	}
+}
@@ -0,0 +1,41 @@
+package mil.nga.giat.geowave.core.store;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+/**
+ * This interface provides a callback mechanism for entries that are written
+ * asynchronously, to receive the row IDs where each entry is written or the
+ * reason it could not be written. Callbacks are invoked on the thread that
+ * wrote the entry.
+ *
+ * @param <T>
+ *            A generic type for written entries
+ */
+public interface IndexWriteCallback<T>
+{
+	/**
+	 * This will be called after an entry is successfully written
+	 *
+	 * @param entry
+	 *            the entry that was written
+	 * @param rowIds
+	 *            the row IDs that were used
+	 */
+	public void entryWritten(
+			T entry,
+			List<ByteArrayId> rowIds );
+
+	/**
+	 * This will be called if an entry could not be written
+	 *
+	 * @param entry
+	 *            the entry that failed
+	 * @param cause
+	 *            the reason it failed
+	 */
+	public void entryFailed(
+			T entry,
+			Throwable cause );
+}
@@ -0,0 +1,125 @@
+package mil.nga.giat.geowave.core.store.adapter.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+/**
+ * This is a simple in-memory implementation of the DataStatisticsStore, keyed
+ * by data adapter ID and statistics ID. Statistics are copied on the way in
+ * and on the way out so that callers can never mutate the stored state.
+ * Visibility is retained on the statistics but authorizations are not
+ * enforced.
+ */
+public class MemoryDataStatisticsStore implements
+		DataStatisticsStore
+{
+	private final ConcurrentMap<ByteArrayId, ConcurrentMap<ByteArrayId, DataStatistics<?>>> statisticsMap = new ConcurrentHashMap<ByteArrayId, ConcurrentMap<ByteArrayId, DataStatistics<?>>>();
+
+	@Override
+	public void setStatistics(
+			final DataStatistics<?> statistics ) {
+		getAdapterStatistics(
+				statistics.getDataAdapterId()).put(
+				statistics.getStatisticsId(),
+				copy(statistics));
+	}
+
+	@Override
+	public void incorporateStatistics(
+			final DataStatistics<?> statistics ) {
+		final ConcurrentMap<ByteArrayId, DataStatistics<?>> adapterStatistics = getAdapterStatistics(statistics.getDataAdapterId());
+		synchronized (adapterStatistics) {
+			final DataStatistics<?> existing = adapterStatistics.get(statistics.getStatisticsId());
+			final DataStatistics<?> merged = copy(statistics);
+			if (existing != null) {
+				merged.merge(existing);
+			}
+			adapterStatistics.put(
+					statistics.getStatisticsId(),
+					merged);
+		}
+	}
+
+	@Override
+	public CloseableIterator<DataStatistics<?>> getDataStatistics(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		final Map<ByteArrayId, DataStatistics<?>> adapterStatistics = statisticsMap.get(adapterId);
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		if (adapterStatistics != null) {
+			for (final DataStatistics<?> stats : adapterStatistics.values()) {
+				statistics.add(copy(stats));
+			}
+		}
+		return new CloseableIterator.Wrapper<DataStatistics<?>>(
+				statistics.iterator());
+	}
+
+	@Override
+	public CloseableIterator<DataStatistics<?>> getAllDataStatistics(
+			final String... authorizations ) {
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		for (final Map<ByteArrayId, DataStatistics<?>> adapterStatistics : statisticsMap.values()) {
+			for (final DataStatistics<?> stats : adapterStatistics.values()) {
+				statistics.add(copy(stats));
+			}
+		}
+		return new CloseableIterator.Wrapper<DataStatistics<?>>(
+				statistics.iterator());
+	}
+
+	@Override
+	public DataStatistics<?> getDataStatistics(
+			final ByteArrayId adapterId,
+			final ByteArrayId statisticsId,
+			final String... authorizations ) {
+		final Map<ByteArrayId, DataStatistics<?>> adapterStatistics = statisticsMap.get(adapterId);
+		if (adapterStatistics == null) {
+			return null;
+		}
+		final DataStatistics<?> stats = adapterStatistics.get(statisticsId);
+		return (stats == null) ? null : copy(stats);
+	}
+
+	@Override
+	public boolean removeStatistics(
+			final ByteArrayId adapterId,
+			final ByteArrayId statisticsId,
+			final String... authorizations ) {
+		final Map<ByteArrayId, DataStatistics<?>> adapterStatistics = statisticsMap.get(adapterId);
+		return (adapterStatistics != null) && (adapterStatistics.remove(statisticsId) != null);
+	}
+
+	private ConcurrentMap<ByteArrayId, DataStatistics<?>> getAdapterStatistics(
+			final ByteArrayId adapterId ) {
+		ConcurrentMap<ByteArrayId, DataStatistics<?>> adapterStatistics = statisticsMap.get(adapterId);
+		if (adapterStatistics == null) {
+			adapterStatistics = new ConcurrentHashMap<ByteArrayId, DataStatistics<?>>();
+			final ConcurrentMap<ByteArrayId, DataStatistics<?>> existing = statisticsMap.putIfAbsent(
+					adapterId,
+					adapterStatistics);
+			if (existing != null) {
+				adapterStatistics = existing;
+			}
+		}
+		return adapterStatistics;
+	}
+
+	private static DataStatistics<?> copy(
+			final DataStatistics<?> statistics ) {
+		// the adapter ID and visibility are not part of the persisted binary
+		final DataStatistics<?> copy = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(statistics),
+				DataStatistics.class);
+		copy.setDataAdapterId(statistics.getDataAdapterId());
+		copy.setVisibility(statistics.getVisibility());
+		return copy;
+	}
+}
@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.Mergeable;
+import mil.nga.giat.geowave.core.index.RowCardinalityEstimator;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.adapter.statistics.histogram.ByteUtils;
 import mil.nga.giat.geowave.core.store.adapter.statistics.histogram.FixedBinNumericHistogram;
@@ -19,7 +20,8 @@ import org.apache.commons.lang3.ArrayUtils;
  * 
  */
 public class RowRangeHistogramStatistics<T> extends
-		AbstractDataStatistics<T>
+		AbstractDataStatistics<T> implements
+		RowCardinalityEstimator
 {
 	public static final ByteArrayId STATS_ID = new ByteArrayId(
 			"RANGE_HISTOGRAM_");
@@ -103,6 +105,26 @@ public class RowRangeHistogramStatistics<T> extends
 				false);
 	}
 
+	@Override
+	public double estimateRowCount(
+			final byte[] rowIdPrefix ) {
+		if (totalSampleSize() == 0) {
+			return -1;
+		}
+		// the histogram only resolves the leading bytes of each row ID, so
+		// the prefix is extended to the smallest and largest row IDs it can
+		// represent
+		final byte[] end = ByteUtils.toPaddedBytes(rowIdPrefix);
+		for (int i = rowIdPrefix.length; i < end.length; i++) {
+			end[i] = (byte) 0xff;
+		}
+		return Math.max(
+				0,
+				cardinality(
+						rowIdPrefix,
+						end));
+	}
+
 	public byte[][] quantile(
 			final int bins ) {
 		final byte[][] result = new byte[bins][];
@@ -0,0 +1,109 @@
+package mil.nga.giat.geowave.core.store.data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+
+/**
+ * This is a persistent dataset that can hold values in their binary form,
+ * along with the reader for each, and only deserializes a value when it is
+ * first accessed. This avoids the cost of reading fields that are never used,
+ * such as the fields of rows that are rejected by a filter.
+ *
+ * @param <T>
+ *            The most specific generalization for the type for all of the
+ *            values in this dataset.
+ */
+public class LazyPersistentDataset<T> extends
+		PersistentDataset<T>
+{
+	private final Map<ByteArrayId, DeferredValue<T>> fieldIdToDeferredValueMap = new LinkedHashMap<ByteArrayId, DeferredValue<T>>();
+
+	/**
+	 * Add the field ID and binary value to this data set, to be read when it
+	 * is first accessed. Do not overwrite.
+	 *
+	 * @param fieldId
+	 *            the field ID
+	 * @param reader
+	 *            the reader for the binary value
+	 * @param value
+	 *            the binary value
+	 */
+	public void addDeferredValue(
+			final ByteArrayId fieldId,
+			final FieldReader<? extends T> reader,
+			final byte[] value ) {
+		if (fieldIdToDeferredValueMap.containsKey(fieldId) || (super.getValue(fieldId) != null)) {
+			return;
+		}
+		fieldIdToDeferredValueMap.put(
+				fieldId,
+				new DeferredValue<T>(
+						reader,
+						value));
+	}
+
+	@Override
+	public void addValue(
+			final PersistentValue<T> value ) {
+		if (fieldIdToDeferredValueMap.containsKey(value.getId())) {
+			return;
+		}
+		super.addValue(value);
+	}
+
+	@Override
+	public void addOrUpdateValue(
+			final PersistentValue<T> value ) {
+		fieldIdToDeferredValueMap.remove(value.getId());
+		super.addOrUpdateValue(value);
+	}
+
+	@Override
+	public T getValue(
+			final ByteArrayId fieldId ) {
+		final DeferredValue<T> deferredValue = fieldIdToDeferredValueMap.remove(fieldId);
+		if (deferredValue != null) {
+			super.addValue(new PersistentValue<T>(
+					fieldId,
+					deferredValue.read()));
+		}
+		return super.getValue(fieldId);
+	}
+
+	@Override
+	public List<PersistentValue<T>> getValues() {
+		final Iterator<Entry<ByteArrayId, DeferredValue<T>>> it = fieldIdToDeferredValueMap.entrySet().iterator();
+		while (it.hasNext()) {
+			final Entry<ByteArrayId, DeferredValue<T>> entry = it.next();
+			super.addValue(new PersistentValue<T>(
+					entry.getKey(),
+					entry.getValue().read()));
+			it.remove();
+		}
+		return super.getValues();
+	}
+
+	private static class DeferredValue<T>
+	{
+		private final FieldReader<? extends T> reader;
+		private final byte[] value;
+
+		private DeferredValue(
+				final FieldReader<? extends T> reader,
+				final byte[] value ) {
+			this.reader = reader;
+			this.value = value;
+		}
+
+		private T read() {
+			return reader.readField(value);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+import java.util.Arrays;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A compact set of 64-bit fingerprints of adapter ID and data ID pairs. The
+ * fingerprints are stored in a primitive open-addressing table that grows up
+ * to a fixed memory limit, after which no more fingerprints are added. Two
+ * distinct IDs can share a fingerprint, but the probability is negligible
+ * (roughly n^2/2^65 for n IDs).
+ */
+public class DataIdFingerprintSet
+{
+	private static final int MIN_CAPACITY = 1024;
+	private static final double LOAD_FACTOR = 0.7;
+	// an empty slot is marked by 0, which is never used as a fingerprint
+	private static final long EMPTY = 0;
+
+	private final int maxCapacity;
+	private long[] slots;
+	private int mask;
+	private int threshold;
+	private int size = 0;
+
+	/**
+	 * @param maxMemoryBytes
+	 *            the maximum number of bytes the table may occupy, it will
+	 *            always be allowed at least a minimal table
+	 */
+	public DataIdFingerprintSet(
+			final long maxMemoryBytes ) {
+		maxCapacity = floorPowerOfTwo(Math.max(
+				MIN_CAPACITY,
+				Math.min(
+						1 << 30,
+						maxMemoryBytes / 8)));
+		allocate(MIN_CAPACITY);
+	}
+
+	public static long fingerprint(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId ) {
+		final Hasher hasher = Hashing.murmur3_128().newHasher();
+		final byte[] adapterIdBytes = adapterId.getBytes();
+		hasher.putInt(adapterIdBytes.length);
+		hasher.putBytes(adapterIdBytes);
+		hasher.putBytes(dataId.getBytes());
+		final long fingerprint = hasher.hash().asLong();
+		return fingerprint == EMPTY ? 1 : fingerprint;
+	}
+
+	public boolean contains(
+			final long fingerprint ) {
+		int i = index(fingerprint);
+		while (slots[i] != EMPTY) {
+			if (slots[i] == fingerprint) {
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @param fingerprint
+	 *            the fingerprint to add
+	 * @return false if the fingerprint could not be added because the memory
+	 *         limit has been reached, true otherwise
+	 */
+	public boolean add(
+			final long fingerprint ) {
+		if (size >= threshold) {
+			if (slots.length >= maxCapacity) {
+				return contains(fingerprint);
+			}
+			rehash(slots.length << 1);
+		}
+		int i = index(fingerprint);
+		while (slots[i] != EMPTY) {
+			if (slots[i] == fingerprint) {
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		slots[i] = fingerprint;
+		size++;
+		return true;
+	}
+
+	public boolean isFull() {
+		return (size >= threshold) && (slots.length >= maxCapacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getMemoryBytes() {
+		return slots.length * 8L;
+	}
+
+	public void clear() {
+		Arrays.fill(
+				slots,
+				EMPTY);
+		size = 0;
+	}
+
+	private int index(
+			final long fingerprint ) {
+		return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+	}
+
+	private void allocate(
+			final int capacity ) {
+		slots = new long[capacity];
+		mask = capacity - 1;
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private void rehash(
+			final int capacity ) {
+		final long[] oldSlots = slots;
+		allocate(capacity);
+		for (final long fingerprint : oldSlots) {
+			if (fingerprint != EMPTY) {
+				int i = index(fingerprint);
+				while (slots[i] != EMPTY) {
+					i = (i + 1) & mask;
+				}
+				slots[i] = fingerprint;
+			}
+		}
+	}
+
+	private static int floorPowerOfTwo(
+			final long value ) {
+		return (int) Long.highestOneBit(value);
+	}
+}
@@ -1,5 +1,6 @@
 package mil.nga.giat.geowave.core.store.filter;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -8,19 +9,64 @@ import java.util.Set;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
 
+import org.apache.log4j.Logger;
+
 /**
  * This filter will perform de-duplication using the combination of data adapter
  * ID and data ID to determine uniqueness. It can be performed client-side
  * and/or distributed.
  * 
+ * By default every visited ID is retained. If a memory limit is given, only a
+ * 64-bit fingerprint of each visited ID is retained in a primitive hash table
+ * bounded by that limit. Once the limit is reached, further IDs are no longer
+ * tracked and duplicates of those IDs will pass through the filter.
+ * 
  */
 public class DedupeFilter implements
 		DistributableQueryFilter
 {
-	private final Map<ByteArrayId, Set<ByteArrayId>> adapterIdToVisitedDataIdMap;
+	private final static Logger LOGGER = Logger.getLogger(DedupeFilter.class);
+
+	private long maxMemoryBytes;
+	private Map<ByteArrayId, Set<ByteArrayId>> adapterIdToVisitedDataIdMap;
+	private DataIdFingerprintSet visitedFingerprints;
+
+	private long checkedCount = 0;
+	private long duplicateCount = 0;
+	private long trackedCount = 0;
+	private long untrackedCount = 0;
 
 	public DedupeFilter() {
-		adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Set<ByteArrayId>>();
+		this(
+				-1);
+	}
+
+	/**
+	 * @param maxMemoryBytes
+	 *            the maximum memory to use for tracking visited IDs, or a
+	 *            non-positive value to track every ID without a limit
+	 */
+	public DedupeFilter(
+			final long maxMemoryBytes ) {
+		init(maxMemoryBytes);
+	}
+
+	private void init(
+			final long maxMemoryBytes ) {
+		this.maxMemoryBytes = maxMemoryBytes;
+		if (maxMemoryBytes > 0) {
+			adapterIdToVisitedDataIdMap = null;
+			visitedFingerprints = new DataIdFingerprintSet(
+					maxMemoryBytes);
+		}
+		else {
+			adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Set<ByteArrayId>>();
+			visitedFingerprints = null;
+		}
+		checkedCount = 0;
+		duplicateCount = 0;
+		trackedCount = 0;
+		untrackedCount = 0;
 	}
 
 	@Override
@@ -38,8 +84,14 @@ public class DedupeFilter implements
 			// and this is only intended to support a single index
 			return true;
 		}
+		checkedCount++;
 		final ByteArrayId adapterId = persistenceEncoding.getAdapterId();
 		final ByteArrayId dataId = persistenceEncoding.getDataId();
+		if (visitedFingerprints != null) {
+			return acceptFingerprint(DataIdFingerprintSet.fingerprint(
+					adapterId,
+					dataId));
+		}
 		Set<ByteArrayId> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
 		if (visitedDataIds == null) {
 			visitedDataIds = new HashSet<ByteArrayId>();
@@ -48,9 +100,29 @@ public class DedupeFilter implements
 					visitedDataIds);
 		}
 		else if (visitedDataIds.contains(dataId)) {
+			duplicateCount++;
 			return false;
 		}
 		visitedDataIds.add(dataId);
+		trackedCount++;
+		return true;
+	}
+
+	private boolean acceptFingerprint(
+			final long fingerprint ) {
+		if (visitedFingerprints.contains(fingerprint)) {
+			duplicateCount++;
+			return false;
+		}
+		if (visitedFingerprints.add(fingerprint)) {
+			trackedCount++;
+		}
+		else {
+			if (untrackedCount == 0) {
+				LOGGER.warn("De-duplication memory limit of " + maxMemoryBytes + " bytes reached after " + trackedCount + " IDs, duplicates of subsequent IDs will not be filtered");
+			}
+			untrackedCount++;
+		}
 		return true;
 	}
 
@@ -58,13 +130,90 @@ public class DedupeFilter implements
 		return false;
 	}
 
+	/**
+	 * @return the memory limit for tracking visited IDs, non-positive if
+	 *         unbounded
+	 */
+	public long getMaxMemoryBytes() {
+		return maxMemoryBytes;
+	}
+
+	/**
+	 * @return the number of entries that were checked against the visited IDs
+	 */
+	public long getCheckedCount() {
+		return checkedCount;
+	}
+
+	/**
+	 * @return the number of entries that were rejected as duplicates
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	/**
+	 * @return the number of distinct IDs currently tracked
+	 */
+	public long getTrackedCount() {
+		return trackedCount;
+	}
+
+	/**
+	 * @return the number of entries that passed without being tracked because
+	 *         the memory limit was reached
+	 */
+	public long getUntrackedCount() {
+		return untrackedCount;
+	}
+
+	/**
+	 * @return the fraction of checked entries that were rejected as duplicates
+	 */
+	public double getDuplicateRatio() {
+		if (checkedCount == 0) {
+			return 0;
+		}
+		return (double) duplicateCount / (double) checkedCount;
+	}
+
+	/**
+	 * Log how many entries were checked and rejected as duplicates, intended
+	 * to be called once the scan using this filter is closed. If the memory
+	 * limit was reached the number of entries that passed untracked is logged
+	 * as a warning, otherwise the statistics are only logged at debug level.
+	 */
+	public void logStatistics() {
+		if (untrackedCount > 0) {
+			LOGGER.warn("De-duplication checked " + checkedCount + " entries and rejected " + duplicateCount + " duplicates; " + untrackedCount + " entries passed untracked after the memory limit of " + maxMemoryBytes + " bytes was reached with " + trackedCount + " IDs tracked");
+		}
+		else if (LOGGER.isDebugEnabled() && (checkedCount > 0)) {
+			LOGGER.debug("De-duplication checked " + checkedCount + " entries and rejected " + duplicateCount + " duplicates (" + String.format(
+					"%.1f",
+					getDuplicateRatio() * 100) + "%), tracking " + trackedCount + " IDs");
+		}
+	}
+
 	@Override
 	public byte[] toBinary() {
-		return new byte[] {};
+		if (maxMemoryBytes <= 0) {
+			return new byte[] {};
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(8);
+		buf.putLong(maxMemoryBytes);
+		return buf.array();
 	}
 
 	@Override
 	public void fromBinary(
-			final byte[] bytes ) {}
+			final byte[] bytes ) {
+		if (bytes.length >= 8) {
+			init(ByteBuffer.wrap(
+					bytes).getLong());
+		}
+		else {
+			init(-1);
+		}
+	}
 
 }
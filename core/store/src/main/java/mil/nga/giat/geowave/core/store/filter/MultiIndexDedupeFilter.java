@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.core.store.filter;
 
+import java.nio.ByteBuffer;
+
 /**
  * This filter will perform de-duplication using the combination of data adapter
  * ID and data ID to determine uniqueness. This should only be used client-side
@@ -18,6 +20,17 @@ public class MultiIndexDedupeFilter extends
 		super();
 	}
 
+	/**
+	 * @param maxMemoryBytes
+	 *            the maximum memory to use for tracking visited IDs, or a
+	 *            non-positive value to track every ID without a limit
+	 */
+	public MultiIndexDedupeFilter(
+			final long maxMemoryBytes ) {
+		super(
+				maxMemoryBytes);
+	}
+
 	@Override
 	protected boolean supportsMultipleIndices() {
 		return multiIndexSupport;
@@ -30,9 +43,11 @@ public class MultiIndexDedupeFilter extends
 
 	@Override
 	public byte[] toBinary() {
-		return new byte[] {
-			(byte) (multiIndexSupport ? 0 : 1)
-		};
+		final byte[] superBinary = super.toBinary();
+		final ByteBuffer buf = ByteBuffer.allocate(1 + superBinary.length);
+		buf.put((byte) (multiIndexSupport ? 0 : 1));
+		buf.put(superBinary);
+		return buf.array();
 	}
 
 	@Override
@@ -40,6 +55,17 @@ public class MultiIndexDedupeFilter extends
 			final byte[] bytes ) {
 		if (bytes.length > 0) {
 			multiIndexSupport = (bytes[0] == 0);
+			final byte[] superBinary = new byte[bytes.length - 1];
+			System.arraycopy(
+					bytes,
+					1,
+					superBinary,
+					0,
+					superBinary.length);
+			super.fromBinary(superBinary);
+		}
+		else {
+			super.fromBinary(bytes);
 		}
 	}
 
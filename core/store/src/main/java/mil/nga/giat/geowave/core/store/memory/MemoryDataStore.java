@@ -0,0 +1,822 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.DataStoreUtils;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.IngestCallback;
+import mil.nga.giat.geowave.core.store.IngestCallbackList;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.IndexDependentDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.MemoryAdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.MemoryDataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
+import mil.nga.giat.geowave.core.store.data.visibility.UniformVisibilityWriter;
+import mil.nga.giat.geowave.core.store.data.visibility.UnconstrainedVisibilityHandler;
+import mil.nga.giat.geowave.core.store.filter.FilterList;
+import mil.nga.giat.geowave.core.store.filter.MultiIndexDedupeFilter;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.MemoryIndexStore;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
+
+/**
+ * This is an implementation of the DataStore interface that keeps every row in
+ * memory, sorted by row ID within a table per index. Rows are encoded exactly
+ * as they would be by the Accumulo data store so the same index strategies,
+ * query ranges, filters and de-duplication apply, which makes this useful for
+ * unit tests, prototyping and small local workloads that do not warrant a
+ * cluster.
+ * 
+ * Field visibilities are retained on each row but authorizations are not
+ * enforced; every query sees every row.
+ */
+public class MemoryDataStore implements
+		DataStore
+{
+	private final static Logger LOGGER = Logger.getLogger(MemoryDataStore.class);
+	public static final int MAX_RANGE_DECOMPOSITION = 5000;
+
+	protected final IndexStore indexStore;
+	protected final AdapterStore adapterStore;
+	protected final DataStatisticsStore statisticsStore;
+	private final ConcurrentMap<ByteArrayId, MemoryIndexTable> tables = new ConcurrentHashMap<ByteArrayId, MemoryIndexTable>();
+
+	public MemoryDataStore() {
+		this(
+				new MemoryIndexStore(
+						new Index[] {}),
+				new MemoryAdapterStore(
+						new DataAdapter<?>[] {}),
+				new MemoryDataStatisticsStore());
+	}
+
+	public MemoryDataStore(
+			final IndexStore indexStore,
+			final AdapterStore adapterStore,
+			final DataStatisticsStore statisticsStore ) {
+		this.indexStore = indexStore;
+		this.adapterStore = adapterStore;
+		this.statisticsStore = statisticsStore;
+	}
+
+	public IndexStore getIndexStore() {
+		return indexStore;
+	}
+
+	public AdapterStore getAdapterStore() {
+		return adapterStore;
+	}
+
+	public DataStatisticsStore getStatisticsStore() {
+		return statisticsStore;
+	}
+
+	@Override
+	public <T> IndexWriter createIndexWriter(
+			final Index index ) {
+		return new MemoryIndexWriter(
+				index,
+				this);
+	}
+
+	@Override
+	public <T> List<ByteArrayId> ingest(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final T entry ) {
+		return ingest(
+				writableAdapter,
+				index,
+				entry,
+				new UniformVisibilityWriter<T>(
+						new UnconstrainedVisibilityHandler<T, Object>()));
+	}
+
+	@Override
+	public <T> List<ByteArrayId> ingest(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		final StatsCompositionTool<T> statisticsTool = new StatsCompositionTool<T>(
+				writableAdapter,
+				statisticsStore);
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		for (final DataStoreEntryInfo entryInfo : write(
+				writableAdapter,
+				index,
+				entry,
+				customFieldVisibilityWriter,
+				statisticsTool)) {
+			rowIds.addAll(entryInfo.getRowIds());
+		}
+		statisticsTool.flush();
+		return rowIds;
+	}
+
+	@Override
+	public <T> void ingest(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final Iterator<T> entryIterator ) {
+		ingest(
+				writableAdapter,
+				index,
+				entryIterator,
+				null);
+	}
+
+	@Override
+	public <T> void ingest(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final Iterator<T> entryIterator,
+			final IngestCallback<T> ingestCallback ) {
+		ingest(
+				writableAdapter,
+				index,
+				entryIterator,
+				ingestCallback,
+				new UniformVisibilityWriter<T>(
+						new UnconstrainedVisibilityHandler<T, Object>()));
+	}
+
+	@Override
+	public <T> void ingest(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final Iterator<T> entryIterator,
+			final IngestCallback<T> ingestCallback,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		final StatsCompositionTool<T> statisticsTool = new StatsCompositionTool<T>(
+				writableAdapter,
+				statisticsStore);
+		final IngestCallback<T> callback;
+		if (ingestCallback == null) {
+			callback = statisticsTool;
+		}
+		else {
+			final List<IngestCallback<T>> callbacks = new ArrayList<IngestCallback<T>>();
+			callbacks.add(statisticsTool);
+			callbacks.add(ingestCallback);
+			callback = new IngestCallbackList<T>(
+					callbacks);
+		}
+		while (entryIterator.hasNext()) {
+			write(
+					writableAdapter,
+					index,
+					entryIterator.next(),
+					customFieldVisibilityWriter,
+					callback);
+		}
+		statisticsTool.flush();
+	}
+
+	/**
+	 * Write an entry to the table for the given index, converting the entry
+	 * first if the adapter is index dependent
+	 * 
+	 * @return the ingest info of each entry that was written
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> List<DataStoreEntryInfo> write(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter,
+			final IngestCallback<T> ingestCallback ) {
+		store(writableAdapter);
+		store(index);
+
+		final Iterator<T> indexedEntries;
+		if (writableAdapter instanceof IndexDependentDataAdapter) {
+			indexedEntries = ((IndexDependentDataAdapter<T>) writableAdapter).convertToIndex(
+					index,
+					entry);
+		}
+		else {
+			indexedEntries = Iterators.singletonIterator(entry);
+		}
+		final MemoryIndexTable table = getTable(index.getId());
+		final List<DataStoreEntryInfo> entryInfos = new ArrayList<DataStoreEntryInfo>();
+		while (indexedEntries.hasNext()) {
+			final T indexedEntry = indexedEntries.next();
+			final DataStoreEntryInfo entryInfo = DataStoreUtils.getIngestInfo(
+					writableAdapter,
+					index,
+					indexedEntry,
+					customFieldVisibilityWriter);
+			for (final MemoryEntryRow row : MemoryStoreUtils.entryToRows(entryInfo)) {
+				table.put(row);
+			}
+			if (ingestCallback != null) {
+				ingestCallback.entryIngested(
+						entryInfo,
+						indexedEntry);
+			}
+			entryInfos.add(entryInfo);
+		}
+		return entryInfos;
+	}
+
+	protected synchronized void store(
+			final DataAdapter<?> adapter ) {
+		if (!adapterStore.adapterExists(adapter.getAdapterId())) {
+			adapterStore.addAdapter(adapter);
+		}
+	}
+
+	protected synchronized void store(
+			final Index index ) {
+		if (!indexStore.indexExists(index.getId())) {
+			indexStore.addIndex(index);
+		}
+	}
+
+	protected MemoryIndexTable getTable(
+			final ByteArrayId indexId ) {
+		MemoryIndexTable table = tables.get(indexId);
+		if (table == null) {
+			final MemoryIndexTable newTable = new MemoryIndexTable();
+			table = tables.putIfAbsent(
+					indexId,
+					newTable);
+			if (table == null) {
+				table = newTable;
+			}
+		}
+		return table;
+	}
+
+	@Override
+	@Deprecated
+	public <T> T getEntry(
+			final Index index,
+			final ByteArrayId rowId ) {
+		final MemoryIndexTable table = tables.get(index.getId());
+		if (table == null) {
+			return null;
+		}
+		final MemoryEntryRow row = table.get(rowId);
+		if (row == null) {
+			return null;
+		}
+		return MemoryStoreUtils.decodeRow(
+				row,
+				(DataAdapter<T>) null,
+				adapterStore,
+				null,
+				index,
+				null,
+				null);
+	}
+
+	@Override
+	public <T> T getEntry(
+			final Index index,
+			final ByteArrayId dataId,
+			final ByteArrayId adapterId,
+			final String... additionalAuthorizations ) {
+		final MemoryIndexTable table = tables.get(index.getId());
+		if (table == null) {
+			return null;
+		}
+		final List<MemoryEntryRow> rows = table.getRows(
+				adapterId,
+				dataId);
+		if (rows.isEmpty()) {
+			return null;
+		}
+		return MemoryStoreUtils.decodeRow(
+				rows.get(0),
+				(DataAdapter<T>) null,
+				adapterStore,
+				null,
+				index,
+				null,
+				null);
+	}
+
+	@Override
+	public boolean deleteEntry(
+			final Index index,
+			final ByteArrayId dataId,
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		final MemoryIndexTable table = tables.get(index.getId());
+		if (table == null) {
+			return false;
+		}
+		final List<MemoryEntryRow> rows = table.remove(
+				adapterId,
+				dataId);
+		if (rows.isEmpty()) {
+			return false;
+		}
+		@SuppressWarnings("unchecked")
+		final DataAdapter<Object> adapter = (DataAdapter<Object>) adapterStore.getAdapter(adapterId);
+		if (adapter != null) {
+			final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+					rows.size());
+			for (final MemoryEntryRow row : rows) {
+				rowIds.add(row.getRowId());
+			}
+			final StatsCompositionTool<Object> statisticsTool = new StatsCompositionTool<Object>(
+					adapter,
+					statisticsStore);
+			// all rows of an entry share the same field values so decoding
+			// the first row is sufficient to update the statistics
+			MemoryStoreUtils.decodeRow(
+					rows.get(0),
+					adapter,
+					adapterStore,
+					null,
+					index,
+					null,
+					new ScanCallback<Object>() {
+						@Override
+						public void entryScanned(
+								final DataStoreEntryInfo entryInfo,
+								final Object entry ) {
+							statisticsTool.entryDeleted(
+									new DataStoreEntryInfo(
+											rowIds,
+											entryInfo.getFieldInfo()),
+									entry);
+						}
+					});
+			statisticsTool.flush();
+		}
+		return true;
+	}
+
+	/**
+	 * Delete every entry of the given adapter from the given index along with
+	 * the adapter's statistics
+	 */
+	@SuppressWarnings("rawtypes")
+	public <T> void deleteEntries(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final String... additionalAuthorizations )
+			throws IOException {
+		try (final CloseableIterator<DataStatistics<?>> it = statisticsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				additionalAuthorizations)) {
+			while (it.hasNext()) {
+				final DataStatistics stats = it.next();
+				statisticsStore.removeStatistics(
+						adapter.getAdapterId(),
+						stats.getStatisticsId(),
+						additionalAuthorizations);
+			}
+		}
+		final MemoryIndexTable table = tables.get(index.getId());
+		if (table != null) {
+			table.removeAll(adapter.getAdapterId());
+		}
+	}
+
+	@Override
+	public <T> CloseableIterator<T> getEntriesByPrefix(
+			final Index index,
+			final ByteArrayId rowPrefix,
+			final String... authorizations ) {
+		final MemoryIndexTable table = tables.get(index.getId());
+		if (table == null) {
+			return new CloseableIterator.Empty<T>();
+		}
+		return new CloseableIterator.Wrapper<T>(
+				decode(
+						table.scan(Arrays.asList(new ByteArrayRange(
+								rowPrefix,
+								rowPrefix))),
+						index,
+						adapterStore,
+						null,
+						null,
+						(ScanCallback<T>) null));
+	}
+
+	@Override
+	public CloseableIterator<?> query(
+			final Query query ) {
+		return query(
+				null,
+				query,
+				adapterStore,
+				null,
+				null);
+	}
+
+	public CloseableIterator<?> query(
+			final Query query,
+			final ScanCallback<?> scanCallback ) {
+		return query(
+				null,
+				query,
+				adapterStore,
+				null,
+				scanCallback);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Query query ) {
+		return query(
+				adapter,
+				query,
+				null);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final Index index,
+			final Query query ) {
+		return query(
+				index,
+				query,
+				null,
+				null);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final Index index,
+			final Query query,
+			final QueryOptions queryOptions ) {
+		return query(
+				index,
+				query,
+				null,
+				queryOptions);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query ) {
+		return query(
+				adapter,
+				index,
+				query,
+				null,
+				null);
+	}
+
+	@Override
+	public CloseableIterator<?> query(
+			final List<ByteArrayId> adapterIds,
+			final Query query ) {
+		return query(
+				adapterIds,
+				query,
+				adapterStore,
+				null,
+				null);
+	}
+
+	@Override
+	public CloseableIterator<?> query(
+			final Query query,
+			final int limit ) {
+		return query(
+				(List<ByteArrayId>) null,
+				query,
+				limit);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Query query,
+			final int limit ) {
+		return query(
+				adapter,
+				query,
+				Integer.valueOf(limit));
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final Index index,
+			final Query query,
+			final int limit ) {
+		return query(
+				index,
+				query,
+				Integer.valueOf(limit),
+				null);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final int limit ) {
+		return query(
+				adapter,
+				index,
+				query,
+				limit,
+				(String[]) null);
+	}
+
+	@Override
+	public CloseableIterator<?> query(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final int limit ) {
+		return query(
+				adapterIds,
+				query,
+				adapterStore,
+				limit,
+				null);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final int limit,
+			final String... authorizations ) {
+		return query(
+				adapter,
+				index,
+				query,
+				Integer.valueOf(limit),
+				null,
+				authorizations);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final Integer limit,
+			final ScanCallback<?> scanCallback,
+			final String... authorizations ) {
+		if ((query != null) && !query.isSupported(index)) {
+			throw new IllegalArgumentException(
+					"Index does not support the query");
+		}
+		store(adapter);
+		return (CloseableIterator<T>) query(
+				Arrays.asList(new ByteArrayId[] {
+					adapter.getAdapterId()
+				}),
+				query,
+				Arrays.asList(
+						new Index[] {
+							index
+						}).iterator(),
+				new MemoryAdapterStore(
+						new DataAdapter[] {
+							adapter
+						}),
+				limit,
+				scanCallback,
+				null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Query query,
+			final Integer limit ) {
+		store(adapter);
+		return (CloseableIterator<T>) query(
+				Arrays.asList(new ByteArrayId[] {
+					adapter.getAdapterId()
+				}),
+				query,
+				new MemoryAdapterStore(
+						new DataAdapter[] {
+							adapter
+						}),
+				limit,
+				null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> CloseableIterator<T> query(
+			final Index index,
+			final Query query,
+			final Integer limit,
+			final QueryOptions queryOptions ) {
+		if ((query != null) && !query.isSupported(index)) {
+			throw new IllegalArgumentException(
+					"Index does not support the query");
+		}
+		return (CloseableIterator<T>) query(
+				null,
+				query,
+				Arrays.asList(
+						new Index[] {
+							index
+						}).iterator(),
+				adapterStore,
+				limit,
+				null,
+				queryOptions);
+	}
+
+	private CloseableIterator<?> query(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final AdapterStore adapterStore,
+			final Integer limit,
+			final ScanCallback<?> scanCallback ) {
+		// the indices are copied so that the index store is not held open
+		// while the results are consumed
+		final List<Index> indices = new ArrayList<Index>();
+		try (final CloseableIterator<Index> it = indexStore.getIndices()) {
+			while (it.hasNext()) {
+				indices.add(it.next());
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"unable to close index iterator for query",
+					e);
+		}
+		return query(
+				adapterIds,
+				query,
+				indices.iterator(),
+				adapterStore,
+				limit,
+				scanCallback,
+				null);
+	}
+
+	@SuppressWarnings({
+		"unchecked",
+		"rawtypes"
+	})
+	private CloseableIterator<?> query(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final Iterator<Index> indices,
+			final AdapterStore adapterStore,
+			final Integer limit,
+			final ScanCallback<?> scanCallback,
+			final QueryOptions queryOptions ) {
+		// query the indices that are supported for this query object, and these
+		// data adapter Ids
+		final List<Iterator<Object>> results = new ArrayList<Iterator<Object>>();
+		int indexCount = 0;
+		// all queries will use the same instance of the dedupe filter for
+		// client side filtering because the filter needs to be applied across
+		// indices
+		final MultiIndexDedupeFilter dedupeFilter = new MultiIndexDedupeFilter(
+				queryOptions != null ? queryOptions.getMaxDedupeMemory() : -1);
+		final Collection<String> fieldIds = ((queryOptions != null) && !queryOptions.getFieldIds().isEmpty()) ? queryOptions.getFieldIds() : null;
+		final int maxRangeDecomposition = ((queryOptions != null) && (queryOptions.getMaxRangeDecomposition() > 0)) ? queryOptions.getMaxRangeDecomposition() : MAX_RANGE_DECOMPOSITION;
+		while (indices.hasNext()) {
+			final Index index = indices.next();
+			final List<ByteArrayRange> ranges;
+			final List<QueryFilter> filters = new ArrayList<QueryFilter>();
+			// de-duplication is the least expensive filter so it is applied
+			// first
+			filters.add(dedupeFilter);
+			if (query == null) {
+				ranges = null;
+			}
+			else if (query.isSupported(index)) {
+				ranges = DataStoreUtils.constraintsToByteArrayRanges(
+						query.getIndexConstraints(index.getIndexStrategy()),
+						index.getIndexStrategy(),
+						maxRangeDecomposition);
+				final List<QueryFilter> queryFilters = query.createFilters(index.getIndexModel());
+				if (queryFilters != null) {
+					filters.addAll(queryFilters);
+				}
+			}
+			else {
+				continue;
+			}
+			final MemoryIndexTable table = tables.get(index.getId());
+			indexCount++;
+			if (table == null) {
+				continue;
+			}
+			Iterator<MemoryEntryRow> rows = table.scan(ranges);
+			if (adapterIds != null) {
+				rows = Iterators.filter(
+						rows,
+						new AdapterIdPredicate(
+								adapterIds));
+			}
+			results.add(decode(
+					rows,
+					index,
+					adapterStore,
+					new FilterList<QueryFilter>(
+							filters),
+					fieldIds,
+					(ScanCallback) scanCallback));
+		}
+		// if there aren't multiple indices, the dedupe filter can just cache
+		// rows that are duplicated within the index and not everything
+		dedupeFilter.setMultiIndexSupportEnabled(indexCount > 1);
+		Iterator<Object> it = Iterators.concat(results.iterator());
+		if ((limit != null) && (limit > 0)) {
+			it = Iterators.limit(
+					it,
+					limit);
+		}
+		return new CloseableIterator.Wrapper<Object>(
+				it) {
+			@Override
+			public void close()
+					throws IOException {
+				dedupeFilter.logStatistics();
+			}
+		};
+	}
+
+	private static <T> Iterator<T> decode(
+			final Iterator<MemoryEntryRow> rows,
+			final Index index,
+			final AdapterStore adapterStore,
+			final QueryFilter filter,
+			final Collection<String> fieldIds,
+			final ScanCallback<T> scanCallback ) {
+		// rows are decoded lazily as the results are consumed
+		return Iterators.filter(
+				Iterators.transform(
+						rows,
+						new Function<MemoryEntryRow, T>() {
+							@Override
+							public T apply(
+									final MemoryEntryRow row ) {
+								return MemoryStoreUtils.decodeRow(
+										row,
+										(DataAdapter<T>) null,
+										adapterStore,
+										filter,
+										index,
+										fieldIds,
+										scanCallback);
+							}
+						}),
+				Predicates.notNull());
+	}
+
+	private static class AdapterIdPredicate implements
+			Predicate<MemoryEntryRow>
+	{
+		private final Set<ByteArrayId> adapterIds;
+
+		public AdapterIdPredicate(
+				final List<ByteArrayId> adapterIds ) {
+			this.adapterIds = new HashSet<ByteArrayId>(
+					adapterIds);
+		}
+
+		@Override
+		public boolean apply(
+				final MemoryEntryRow row ) {
+			return adapterIds.contains(row.getAdapterId());
+		}
+	}
+}
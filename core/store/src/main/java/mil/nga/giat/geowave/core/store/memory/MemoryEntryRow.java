@@ -0,0 +1,78 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.EntryRowId;
+
+/**
+ * A single row held by the in-memory data store. Only the serialized field
+ * values are retained (never the ingested object itself) so that rows are
+ * decoded exactly the way they would be when read back from any other data
+ * store.
+ */
+public class MemoryEntryRow
+{
+	public static class FieldValue
+	{
+		private final ByteArrayId fieldId;
+		private final byte[] value;
+		private final byte[] visibility;
+
+		public FieldValue(
+				final ByteArrayId fieldId,
+				final byte[] value,
+				final byte[] visibility ) {
+			this.fieldId = fieldId;
+			this.value = value;
+			this.visibility = visibility;
+		}
+
+		public ByteArrayId getFieldId() {
+			return fieldId;
+		}
+
+		public byte[] getValue() {
+			return value;
+		}
+
+		public byte[] getVisibility() {
+			return visibility;
+		}
+	}
+
+	private final ByteArrayId rowId;
+	private final EntryRowId rowIdElements;
+	private final List<FieldValue> fieldValues;
+
+	public MemoryEntryRow(
+			final ByteArrayId rowId,
+			final List<FieldValue> fieldValues ) {
+		this.rowId = rowId;
+		this.fieldValues = fieldValues;
+		rowIdElements = new EntryRowId(
+				rowId.getBytes());
+	}
+
+	public ByteArrayId getRowId() {
+		return rowId;
+	}
+
+	public EntryRowId getRowIdElements() {
+		return rowIdElements;
+	}
+
+	public ByteArrayId getAdapterId() {
+		return new ByteArrayId(
+				rowIdElements.getAdapterId());
+	}
+
+	public ByteArrayId getDataId() {
+		return new ByteArrayId(
+				rowIdElements.getDataId());
+	}
+
+	public List<FieldValue> getFieldValues() {
+		return fieldValues;
+	}
+}
@@ -0,0 +1,296 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+
+/**
+ * The rows of a single index, kept sorted by row ID in a concurrent skip list
+ * so that range scans behave like scans of a sorted key-value store. A
+ * secondary map from adapter ID and data ID to row IDs supports look-ups and
+ * deletes of individual entries without scanning the whole index.
+ * 
+ * Ranges follow the same semantics as the Accumulo data store: a range is
+ * inclusive of its start and includes every row ID that is prefixed by (or
+ * sorts before) its end.
+ */
+public class MemoryIndexTable
+{
+	private final ConcurrentNavigableMap<ByteArrayId, MemoryEntryRow> rows = new ConcurrentSkipListMap<ByteArrayId, MemoryEntryRow>();
+	private final ConcurrentMap<ByteArrayId, Set<ByteArrayId>> entryRowIds = new ConcurrentHashMap<ByteArrayId, Set<ByteArrayId>>();
+
+	public void put(
+			final MemoryEntryRow row ) {
+		rows.put(
+				row.getRowId(),
+				row);
+		final ByteArrayId entryKey = getEntryKey(
+				row.getRowIdElements().getAdapterId(),
+				row.getRowIdElements().getDataId());
+		Set<ByteArrayId> rowIds = entryRowIds.get(entryKey);
+		if (rowIds == null) {
+			final Set<ByteArrayId> newRowIds = Collections.newSetFromMap(new ConcurrentHashMap<ByteArrayId, Boolean>());
+			rowIds = entryRowIds.putIfAbsent(
+					entryKey,
+					newRowIds);
+			if (rowIds == null) {
+				rowIds = newRowIds;
+			}
+		}
+		rowIds.add(row.getRowId());
+	}
+
+	public MemoryEntryRow get(
+			final ByteArrayId rowId ) {
+		return rows.get(rowId);
+	}
+
+	/**
+	 * Get all of the rows for a single entry
+	 * 
+	 * @param adapterId
+	 *            the adapter ID of the entry
+	 * @param dataId
+	 *            the data ID of the entry
+	 * @return the rows in row ID order, empty if the entry does not exist
+	 */
+	public List<MemoryEntryRow> getRows(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId ) {
+		final Set<ByteArrayId> rowIds = entryRowIds.get(getEntryKey(
+				adapterId.getBytes(),
+				dataId.getBytes()));
+		if (rowIds == null) {
+			return Collections.emptyList();
+		}
+		final List<MemoryEntryRow> retVal = new ArrayList<MemoryEntryRow>();
+		for (final ByteArrayId rowId : rowIds) {
+			final MemoryEntryRow row = rows.get(rowId);
+			if (row != null) {
+				retVal.add(row);
+			}
+		}
+		Collections.sort(
+				retVal,
+				ROW_ORDER);
+		return retVal;
+	}
+
+	/**
+	 * Remove all of the rows for a single entry
+	 * 
+	 * @param adapterId
+	 *            the adapter ID of the entry
+	 * @param dataId
+	 *            the data ID of the entry
+	 * @return the rows that were removed, empty if the entry did not exist
+	 */
+	public List<MemoryEntryRow> remove(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId ) {
+		final Set<ByteArrayId> rowIds = entryRowIds.remove(getEntryKey(
+				adapterId.getBytes(),
+				dataId.getBytes()));
+		if (rowIds == null) {
+			return Collections.emptyList();
+		}
+		final List<MemoryEntryRow> retVal = new ArrayList<MemoryEntryRow>();
+		for (final ByteArrayId rowId : rowIds) {
+			final MemoryEntryRow row = rows.remove(rowId);
+			if (row != null) {
+				retVal.add(row);
+			}
+		}
+		Collections.sort(
+				retVal,
+				ROW_ORDER);
+		return retVal;
+	}
+
+	/**
+	 * Remove every row of the given adapter
+	 * 
+	 * @param adapterId
+	 *            the adapter ID
+	 * @return the number of rows that were removed
+	 */
+	public int removeAll(
+			final ByteArrayId adapterId ) {
+		int count = 0;
+		final Iterator<Entry<ByteArrayId, MemoryEntryRow>> it = rows.entrySet().iterator();
+		while (it.hasNext()) {
+			final MemoryEntryRow row = it.next().getValue();
+			if (adapterId.equals(row.getAdapterId())) {
+				it.remove();
+				entryRowIds.remove(getEntryKey(
+						row.getRowIdElements().getAdapterId(),
+						row.getRowIdElements().getDataId()));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * Scan the rows within the given ranges in row ID order. Overlapping ranges
+	 * are handled so that each row is returned at most once.
+	 * 
+	 * @param ranges
+	 *            the ranges to scan, null or empty implies a full table scan
+	 * @return an iterator on the rows within the ranges
+	 */
+	public Iterator<MemoryEntryRow> scan(
+			final List<ByteArrayRange> ranges ) {
+		if ((ranges == null) || ranges.isEmpty()) {
+			return rows.values().iterator();
+		}
+		final List<ByteArrayRange> sortedRanges = new ArrayList<ByteArrayRange>();
+		for (final ByteArrayRange range : ranges) {
+			// consistent with Accumulo, a range that starts after it ends is
+			// ignored
+			if (isBeforeRangeEnd(
+					range.getStart().getBytes(),
+					range.getEnd().getBytes())) {
+				sortedRanges.add(range);
+			}
+		}
+		if (sortedRanges.isEmpty()) {
+			// implies full table scan
+			return rows.values().iterator();
+		}
+		Collections.sort(sortedRanges);
+		return new RangeIterator(
+				sortedRanges.iterator());
+	}
+
+	/**
+	 * @return true if the row ID is within the range end, meaning it is either
+	 *         prefixed by the end or sorts before it
+	 */
+	protected static boolean isBeforeRangeEnd(
+			final byte[] rowId,
+			final byte[] end ) {
+		final int length = Math.min(
+				rowId.length,
+				end.length);
+		for (int i = 0; i < length; i++) {
+			final int a = rowId[i] & 0xff;
+			final int b = end[i] & 0xff;
+			if (a != b) {
+				return a < b;
+			}
+		}
+		return true;
+	}
+
+	private static ByteArrayId getEntryKey(
+			final byte[] adapterId,
+			final byte[] dataId ) {
+		// length-prefix the adapter ID so that different adapter ID and data
+		// ID splits can never produce the same key
+		final ByteBuffer buf = ByteBuffer.allocate(4 + adapterId.length + dataId.length);
+		buf.putInt(adapterId.length);
+		buf.put(adapterId);
+		buf.put(dataId);
+		return new ByteArrayId(
+				buf.array());
+	}
+
+	private static final Comparator<MemoryEntryRow> ROW_ORDER = new Comparator<MemoryEntryRow>() {
+		@Override
+		public int compare(
+				final MemoryEntryRow o1,
+				final MemoryEntryRow o2 ) {
+			return o1.getRowId().compareTo(
+					o2.getRowId());
+		}
+	};
+
+	private class RangeIterator implements
+			Iterator<MemoryEntryRow>
+	{
+		private final Iterator<ByteArrayRange> ranges;
+		private Iterator<Entry<ByteArrayId, MemoryEntryRow>> currentRows;
+		private byte[] currentEnd;
+		private ByteArrayId lastRowId;
+		private MemoryEntryRow next;
+
+		private RangeIterator(
+				final Iterator<ByteArrayRange> ranges ) {
+			this.ranges = ranges;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null) {
+				if ((currentRows != null) && currentRows.hasNext()) {
+					final Entry<ByteArrayId, MemoryEntryRow> entry = currentRows.next();
+					if (isBeforeRangeEnd(
+							entry.getKey().getBytes(),
+							currentEnd)) {
+						next = entry.getValue();
+						lastRowId = entry.getKey();
+					}
+					else {
+						currentRows = null;
+					}
+				}
+				else if (ranges.hasNext()) {
+					final ByteArrayRange range = ranges.next();
+					currentEnd = range.getEnd().getBytes();
+					final Map<ByteArrayId, MemoryEntryRow> tail;
+					// ranges are sorted by start, so only an already scanned
+					// row can precede this range's start
+					if ((lastRowId != null) && (lastRowId.compareTo(range.getStart()) >= 0)) {
+						tail = rows.tailMap(
+								lastRowId,
+								false);
+					}
+					else {
+						tail = rows.tailMap(
+								range.getStart(),
+								true);
+					}
+					currentRows = tail.entrySet().iterator();
+				}
+				else {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public MemoryEntryRow next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final MemoryEntryRow retVal = next;
+			next = null;
+			return retVal;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
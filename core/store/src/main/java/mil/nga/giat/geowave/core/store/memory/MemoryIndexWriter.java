@@ -0,0 +1,92 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.data.visibility.UniformVisibilityWriter;
+import mil.nga.giat.geowave.core.store.data.visibility.UnconstrainedVisibilityHandler;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+/**
+ * This is an index writer for the in-memory data store. Rows are visible to
+ * queries as soon as they are written; statistics are accumulated per adapter
+ * and only written to the statistics store on flush or close.
+ */
+public class MemoryIndexWriter implements
+		IndexWriter
+{
+	private final Index index;
+	private final MemoryDataStore dataStore;
+	private final Map<ByteArrayId, StatsCompositionTool<?>> statsMap = new HashMap<ByteArrayId, StatsCompositionTool<?>>();
+
+	public MemoryIndexWriter(
+			final Index index,
+			final MemoryDataStore dataStore ) {
+		this.index = index;
+		this.dataStore = dataStore;
+	}
+
+	@Override
+	public Index getIndex() {
+		return index;
+	}
+
+	@Override
+	public <T> List<ByteArrayId> write(
+			final WritableDataAdapter<T> writableAdapter,
+			final T entry ) {
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		for (final DataStoreEntryInfo entryInfo : dataStore.write(
+				writableAdapter,
+				index,
+				entry,
+				new UniformVisibilityWriter<T>(
+						new UnconstrainedVisibilityHandler<T, Object>()),
+				getStatsCompositionTool(writableAdapter))) {
+			rowIds.addAll(entryInfo.getRowIds());
+		}
+		return rowIds;
+	}
+
+	@Override
+	public <T> void setupAdapter(
+			final WritableDataAdapter<T> writableAdapter ) {
+		dataStore.store(writableAdapter);
+	}
+
+	@Override
+	public synchronized void flush() {
+		for (final StatsCompositionTool<?> tool : statsMap.values()) {
+			tool.flush();
+		}
+		statsMap.clear();
+	}
+
+	@Override
+	public void close() {
+		// write the statistics and clear it
+		flush();
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized <T> StatsCompositionTool<T> getStatsCompositionTool(
+			final WritableDataAdapter<T> writableAdapter ) {
+		StatsCompositionTool<T> tool = (StatsCompositionTool<T>) statsMap.get(writableAdapter.getAdapterId());
+		if (tool == null) {
+			tool = new StatsCompositionTool<T>(
+					writableAdapter,
+					dataStore.getStatisticsStore());
+			statsMap.put(
+					writableAdapter.getAdapterId(),
+					tool);
+		}
+		return tool;
+	}
+}
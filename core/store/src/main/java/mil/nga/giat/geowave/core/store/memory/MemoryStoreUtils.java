@@ -0,0 +1,187 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.DataStoreUtils;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.EntryRowId;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A set of convenience methods for encoding entries into rows of the in-memory
+ * data store and decoding them back into native entries. Entries are encoded
+ * with {@link DataStoreUtils}, the same as for every other data store.
+ */
+public class MemoryStoreUtils
+{
+	private final static Logger LOGGER = Logger.getLogger(MemoryStoreUtils.class);
+
+	/**
+	 * Convert the ingest info of an entry into the rows to store, one row per
+	 * row ID
+	 */
+	public static List<MemoryEntryRow> entryToRows(
+			final DataStoreEntryInfo ingestInfo ) {
+		final List<MemoryEntryRow.FieldValue> fieldValues = new ArrayList<MemoryEntryRow.FieldValue>(
+				ingestInfo.getFieldInfo().size());
+		for (final FieldInfo<?> fieldInfo : ingestInfo.getFieldInfo()) {
+			fieldValues.add(new MemoryEntryRow.FieldValue(
+					fieldInfo.getDataValue().getId(),
+					fieldInfo.getWrittenValue(),
+					fieldInfo.getVisibility()));
+		}
+		// the field values are immutable, so every row of the entry can share
+		// them
+		final List<MemoryEntryRow.FieldValue> sharedFieldValues = Collections.unmodifiableList(fieldValues);
+		final List<MemoryEntryRow> rows = new ArrayList<MemoryEntryRow>(
+				ingestInfo.getRowIds().size());
+		for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
+			rows.add(new MemoryEntryRow(
+					rowId,
+					sharedFieldValues));
+		}
+		return rows;
+	}
+
+	/**
+	 * Decode a row into the native entry it was ingested from
+	 * 
+	 * @param row
+	 *            the row to decode
+	 * @param dataAdapter
+	 *            the adapter to use, if null the adapter store is used to
+	 *            look it up
+	 * @param adapterStore
+	 *            the adapter store to use if the adapter is not supplied
+	 * @param clientFilter
+	 *            an optional filter applied to the encoded row before it is
+	 *            decoded
+	 * @param index
+	 *            the index the row was read from
+	 * @param fieldIds
+	 *            an optional subset of extended fields to decode, index fields
+	 *            are always decoded
+	 * @param scanCallback
+	 *            an optional callback notified of the decoded entry
+	 * @return the decoded entry, or null if the row was filtered or could not
+	 *         be decoded
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T decodeRow(
+			final MemoryEntryRow row,
+			final DataAdapter<T> dataAdapter,
+			final AdapterStore adapterStore,
+			final QueryFilter clientFilter,
+			final Index index,
+			final Collection<String> fieldIds,
+			final ScanCallback<T> scanCallback ) {
+		final ByteArrayId adapterId = row.getAdapterId();
+		final DataAdapter<T> adapter;
+		if (dataAdapter != null) {
+			if (!adapterId.equals(dataAdapter.getAdapterId())) {
+				return null;
+			}
+			adapter = dataAdapter;
+		}
+		else if (adapterStore != null) {
+			adapter = (DataAdapter<T>) adapterStore.getAdapter(adapterId);
+			if (adapter == null) {
+				LOGGER.error("DataAdapter does not exist");
+				return null;
+			}
+		}
+		else {
+			LOGGER.error("Could not decode row. Either adapter or adapter store must be non-null.");
+			return null;
+		}
+		final CommonIndexModel indexModel = index.getIndexModel();
+		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>();
+		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>(
+				row.getFieldValues().size());
+		for (final MemoryEntryRow.FieldValue fieldValue : row.getFieldValues()) {
+			final ByteArrayId fieldId = fieldValue.getFieldId();
+			// first check if this field is part of the index model
+			final FieldReader<? extends CommonIndexValue> indexFieldReader = indexModel.getReader(fieldId);
+			if (indexFieldReader != null) {
+				final CommonIndexValue indexValue = indexFieldReader.readField(fieldValue.getValue());
+				indexValue.setVisibility(fieldValue.getVisibility());
+				final PersistentValue<CommonIndexValue> val = new PersistentValue<CommonIndexValue>(
+						fieldId,
+						indexValue);
+				indexData.addValue(val);
+				fieldInfoList.add(new FieldInfo<CommonIndexValue>(
+						val,
+						fieldValue.getValue(),
+						fieldValue.getVisibility()));
+			}
+			else {
+				if ((fieldIds != null) && !fieldIds.isEmpty() && !fieldIds.contains(StringUtils.stringFromBinary(fieldId.getBytes()))) {
+					// this field was not requested
+					continue;
+				}
+				// next check if this field is part of the adapter's
+				// extended data model
+				final FieldReader<?> extFieldReader = adapter.getReader(fieldId);
+				if (extFieldReader == null) {
+					// if it still isn't resolved, log an error, and
+					// continue
+					LOGGER.error("field reader not found for data entry, the value will be ignored");
+					continue;
+				}
+				final Object value = extFieldReader.readField(fieldValue.getValue());
+				final PersistentValue<Object> val = new PersistentValue<Object>(
+						fieldId,
+						value);
+				extendedData.addValue(val);
+				fieldInfoList.add(new FieldInfo<Object>(
+						val,
+						fieldValue.getValue(),
+						fieldValue.getVisibility()));
+			}
+		}
+		final EntryRowId rowIdElements = row.getRowIdElements();
+		final IndexedAdapterPersistenceEncoding encodedRow = new IndexedAdapterPersistenceEncoding(
+				adapterId,
+				new ByteArrayId(
+						rowIdElements.getDataId()),
+				new ByteArrayId(
+						rowIdElements.getInsertionId()),
+				rowIdElements.getNumberOfDuplicates(),
+				indexData,
+				extendedData);
+		if ((clientFilter != null) && !clientFilter.accept(encodedRow)) {
+			return null;
+		}
+		final T entry = adapter.decode(
+				encodedRow,
+				index);
+		if (scanCallback != null) {
+			scanCallback.entryScanned(
+					new DataStoreEntryInfo(
+							Arrays.asList(row.getRowId()),
+							fieldInfoList),
+					entry);
+		}
+		return entry;
+	}
+}
@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.core.store.query;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,7 +23,17 @@ public class QueryOptions implements
 	 * 
 	 */
 	private static final long serialVersionUID = 544085046847603372L;
+	// a byte that never occurs in UTF-8, so that the binary form of these
+	// options cannot be mistaken for the field IDs alone
+	private static final byte VERSION_MARKER = (byte) 0xFF;
+	private static final byte VERSION = 1;
+	private static final int HEADER_LENGTH = 20;
 	private Collection<String> fieldIds = Collections.emptyList();
+	private int maxRangeDecomposition = -1;
+	private boolean useRowRangeStatistics = false;
+	private long maxDedupeMemory = -1;
+	private int decodeParallelism = -1;
+	private boolean preserveDecodeOrder = true;
 
 	/**
 	 * @param fieldIds
@@ -68,25 +79,165 @@ public class QueryOptions implements
 		this.fieldIds = fieldIds;
 	}
 
+	/**
+	 * @return the number of ranges the query constraints should be decomposed
+	 *         into, or a non-positive value to use the data store's default
+	 */
+	public int getMaxRangeDecomposition() {
+		return maxRangeDecomposition;
+	}
+
+	/**
+	 * @param maxRangeDecomposition
+	 *            the number of ranges the query constraints should be
+	 *            decomposed into, fewer ranges will scan more rows that must
+	 *            be filtered while more ranges will issue more scans; a
+	 *            non-positive value will use the data store's default
+	 */
+	public void setMaxRangeDecomposition(
+			final int maxRangeDecomposition ) {
+		this.maxRangeDecomposition = maxRangeDecomposition;
+	}
+
+	/**
+	 * @return whether the persisted row range histograms should guide how the
+	 *         range decomposition is divided across the index
+	 */
+	public boolean isUseRowRangeStatistics() {
+		return useRowRangeStatistics;
+	}
+
+	/**
+	 * @param useRowRangeStatistics
+	 *            whether the persisted row range histograms should guide how
+	 *            the range decomposition is divided across the index, at the
+	 *            expense of reading the statistics for each query
+	 */
+	public void setUseRowRangeStatistics(
+			final boolean useRowRangeStatistics ) {
+		this.useRowRangeStatistics = useRowRangeStatistics;
+	}
+
+	/**
+	 * @return the maximum memory in bytes that de-duplication of the results
+	 *         may use, or a non-positive value if it is unbounded
+	 */
+	public long getMaxDedupeMemory() {
+		return maxDedupeMemory;
+	}
+
+	/**
+	 * @param maxDedupeMemory
+	 *            the maximum memory in bytes that de-duplication of the
+	 *            results may use; when bounded only fingerprints of the
+	 *            visited IDs are retained and once the limit is reached
+	 *            duplicates may be returned, a non-positive value retains
+	 *            every visited ID
+	 */
+	public void setMaxDedupeMemory(
+			final long maxDedupeMemory ) {
+		this.maxDedupeMemory = maxDedupeMemory;
+	}
+
+	/**
+	 * @return the number of batches of results that may be decoded at once,
+	 *         a value of 1 or less decodes results on the caller's thread
+	 */
+	public int getDecodeParallelism() {
+		return decodeParallelism;
+	}
+
+	/**
+	 * @param decodeParallelism
+	 *            the number of batches of results that may be decoded at once
+	 *            on a shared worker pool, a value of 1 or less decodes results
+	 *            on the caller's thread; query filters must be thread-safe to
+	 *            decode in parallel
+	 */
+	public void setDecodeParallelism(
+			final int decodeParallelism ) {
+		this.decodeParallelism = decodeParallelism;
+	}
+
+	/**
+	 * @return whether results decoded in parallel are returned in the order
+	 *         they are scanned
+	 */
+	public boolean isPreserveDecodeOrder() {
+		return preserveDecodeOrder;
+	}
+
+	/**
+	 * @param preserveDecodeOrder
+	 *            whether results decoded in parallel are returned in the order
+	 *            they are scanned, otherwise they are returned as soon as they
+	 *            are decoded
+	 */
+	public void setPreserveDecodeOrder(
+			final boolean preserveDecodeOrder ) {
+		this.preserveDecodeOrder = preserveDecodeOrder;
+	}
+
 	@Override
 	public byte[] toBinary() {
-		if (fieldIds == null) return new byte[0];
 		final StringBuffer buffer = new StringBuffer();
-		for (final String fieldId : fieldIds) {
-			if (buffer.length() > 0) {
-				buffer.append(",");
+		if (fieldIds != null) {
+			for (final String fieldId : fieldIds) {
+				if (buffer.length() > 0) {
+					buffer.append(",");
+				}
+				buffer.append(fieldId);
 			}
-			buffer.append(fieldId);
 		}
-		return StringUtils.stringToBinary(buffer.toString());
+		final byte[] fieldIdsBinary = StringUtils.stringToBinary(buffer.toString());
+		final ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH + fieldIdsBinary.length);
+		buf.put(VERSION_MARKER);
+		buf.put(VERSION);
+		buf.putInt(maxRangeDecomposition);
+		buf.put(useRowRangeStatistics ? (byte) 1 : (byte) 0);
+		buf.putLong(maxDedupeMemory);
+		buf.putInt(decodeParallelism);
+		buf.put(preserveDecodeOrder ? (byte) 1 : (byte) 0);
+		buf.put(fieldIdsBinary);
+		return buf.array();
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final String data = StringUtils.stringFromBinary(bytes);
-		final String[] ids = data.split(",");
-		fieldIds = Arrays.asList(ids);
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		if ((bytes.length >= HEADER_LENGTH) && (bytes[0] == VERSION_MARKER)) {
+			buf.get();
+			final byte version = buf.get();
+			if (version != VERSION) {
+				throw new IllegalArgumentException(
+						"Unsupported query options version " + version);
+			}
+			maxRangeDecomposition = buf.getInt();
+			useRowRangeStatistics = (buf.get() == 1);
+			maxDedupeMemory = buf.getLong();
+			decodeParallelism = buf.getInt();
+			preserveDecodeOrder = (buf.get() == 1);
+		}
+		else {
+			// options persisted before the version marker was added only
+			// hold the field IDs
+			maxRangeDecomposition = -1;
+			useRowRangeStatistics = false;
+			maxDedupeMemory = -1;
+			decodeParallelism = -1;
+			preserveDecodeOrder = true;
+		}
+		final byte[] fieldIdsBinary = new byte[buf.remaining()];
+		buf.get(fieldIdsBinary);
+		if (fieldIdsBinary.length == 0) {
+			fieldIds = Collections.emptyList();
+		}
+		else {
+			final String data = StringUtils.stringFromBinary(fieldIdsBinary);
+			final String[] ids = data.split(",");
+			fieldIds = Arrays.asList(ids);
+		}
 	}
 
 }
@@ -0,0 +1,269 @@
+package mil.nga.giat.geowave.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+import org.junit.Test;
+
+public class AsyncIndexWriterTest
+{
+	@Test
+	public void testWriteAsync()
+			throws Exception {
+		final RecordingWriter recordingWriter = new RecordingWriter();
+		final AsyncIndexWriter writer = new AsyncIndexWriter(
+				recordingWriter,
+				4,
+				16);
+		final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+		final List<String> failed = Collections.synchronizedList(new ArrayList<String>());
+		final IndexWriteCallback<String> callback = new IndexWriteCallback<String>() {
+			@Override
+			public void entryWritten(
+					final String entry,
+					final List<ByteArrayId> rowIds ) {
+				written.add(entry);
+			}
+
+			@Override
+			public void entryFailed(
+					final String entry,
+					final Throwable cause ) {
+				failed.add(entry);
+			}
+		};
+		for (int i = 0; i < 100; i++) {
+			writer.writeAsync(
+					null,
+					"entry" + i,
+					callback);
+		}
+		writer.writeAsync(
+				null,
+				"fail",
+				callback);
+		assertEquals(
+				Collections.singletonList(new ByteArrayId(
+						"entry0")),
+				writer.writeAsync(
+						null,
+						"entry0",
+						callback).get());
+		try {
+			writer.flush();
+			fail("Expected the flush to report the failed entry");
+		}
+		catch (final IllegalStateException e) {
+			assertEquals(
+					"1 of 102 entries failed to be written",
+					e.getMessage());
+		}
+		assertEquals(
+				0,
+				writer.getPendingCount());
+		assertEquals(
+				101,
+				written.size());
+		assertEquals(
+				Collections.singletonList("fail"),
+				failed);
+		assertEquals(
+				101,
+				writer.getWrittenCount());
+		assertEquals(
+				1,
+				writer.getFailedCount());
+		assertTrue(recordingWriter.flushed);
+		try {
+			writer.close();
+			fail("Expected the close to report the failed entry");
+		}
+		catch (final IOException e) {
+			// the wrapped writer is still closed
+		}
+		assertTrue(recordingWriter.closed);
+	}
+
+	@Test
+	public void testFailedFuture()
+			throws IOException,
+			InterruptedException {
+		final AsyncIndexWriter writer = new AsyncIndexWriter(
+				new RecordingWriter(),
+				1,
+				1);
+		try {
+			writer.writeAsync(
+					null,
+					"fail").get();
+			fail("Expected the write to fail");
+		}
+		catch (final ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+		try {
+			writer.close();
+			fail("Expected the close to report the failed entry");
+		}
+		catch (final IOException e) {}
+	}
+
+	@Test
+	public void testWriteFailureReported()
+			throws IOException {
+		final RecordingWriter recordingWriter = new RecordingWriter();
+		final AsyncIndexWriter writer = new AsyncIndexWriter(
+				recordingWriter,
+				2,
+				4);
+		writer.write(
+				null,
+				"a");
+		writer.flush();
+		// write() cannot return the failure, so it must not be lost once the
+		// entry is accepted
+		writer.write(
+				null,
+				"fail");
+		writer.write(
+				null,
+				"b");
+		try {
+			writer.flush();
+			fail("Expected the flush to report the failed entry");
+		}
+		catch (final IllegalStateException e) {}
+		try {
+			writer.close();
+			fail("Expected the close to report the failed entry");
+		}
+		catch (final IOException e) {}
+		assertTrue(recordingWriter.closed);
+		assertEquals(
+				2,
+				recordingWriter.entries.size());
+	}
+
+	@Test
+	public void testBackpressure()
+			throws Exception {
+		final CountDownLatch release = new CountDownLatch(
+				1);
+		final RecordingWriter recordingWriter = new RecordingWriter(
+				release);
+		final AsyncIndexWriter writer = new AsyncIndexWriter(
+				recordingWriter,
+				1,
+				2);
+		writer.write(
+				null,
+				"a");
+		writer.write(
+				null,
+				"b");
+		final CountDownLatch accepted = new CountDownLatch(
+				1);
+		final Thread producer = new Thread(
+				new Runnable() {
+					@Override
+					public void run() {
+						writer.write(
+								null,
+								"c");
+						accepted.countDown();
+					}
+				});
+		producer.start();
+		// the third entry cannot be accepted until one is written
+		assertFalse(accepted.await(
+				200,
+				TimeUnit.MILLISECONDS));
+		assertEquals(
+				2,
+				writer.getPendingCount());
+		release.countDown();
+		assertTrue(accepted.await(
+				5,
+				TimeUnit.SECONDS));
+		writer.close();
+		assertEquals(
+				3,
+				recordingWriter.entries.size());
+		assertEquals(
+				3,
+				writer.getWrittenCount());
+	}
+
+	private static class RecordingWriter implements
+			IndexWriter
+	{
+		private final CountDownLatch release;
+		private final List<Object> entries = Collections.synchronizedList(new ArrayList<Object>());
+		private boolean flushed = false;
+		private boolean closed = false;
+
+		private RecordingWriter() {
+			this(
+					null);
+		}
+
+		private RecordingWriter(
+				final CountDownLatch release ) {
+			this.release = release;
+		}
+
+		@Override
+		public <T> List<ByteArrayId> write(
+				final WritableDataAdapter<T> writableAdapter,
+				final T entry ) {
+			if (release != null) {
+				try {
+					release.await();
+				}
+				catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if ("fail".equals(entry)) {
+				throw new IllegalArgumentException(
+						"Unable to write entry");
+			}
+			entries.add(entry);
+			return Collections.singletonList(new ByteArrayId(
+					entry.toString()));
+		}
+
+		@Override
+		public <T> void setupAdapter(
+				final WritableDataAdapter<T> writableAdapter ) {}
+
+		@Override
+		public Index getIndex() {
+			return null;
+		}
+
+		@Override
+		public void flush() {
+			flushed = true;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package mil.nga.giat.geowave.core.store.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+
+import org.junit.Test;
+
+public class LazyPersistentDatasetTest
+{
+	private static class CountingReader implements
+			FieldReader<Object>
+	{
+		private int readCount = 0;
+
+		@Override
+		public Object readField(
+				final byte[] fieldData ) {
+			readCount++;
+			return StringUtils.stringFromBinary(fieldData);
+		}
+	}
+
+	@Test
+	public void testDeferredRead() {
+		final CountingReader reader = new CountingReader();
+		final LazyPersistentDataset<Object> dataset = new LazyPersistentDataset<Object>();
+		final ByteArrayId fieldA = new ByteArrayId(
+				"a");
+		final ByteArrayId fieldB = new ByteArrayId(
+				"b");
+		dataset.addDeferredValue(
+				fieldA,
+				reader,
+				StringUtils.stringToBinary("valueA"));
+		dataset.addDeferredValue(
+				fieldB,
+				reader,
+				StringUtils.stringToBinary("valueB"));
+		assertEquals(
+				0,
+				reader.readCount);
+
+		assertEquals(
+				"valueB",
+				dataset.getValue(fieldB));
+		assertEquals(
+				"valueB",
+				dataset.getValue(fieldB));
+		assertEquals(
+				1,
+				reader.readCount);
+
+		final List<PersistentValue<Object>> values = dataset.getValues();
+		assertEquals(
+				2,
+				values.size());
+		assertEquals(
+				2,
+				reader.readCount);
+		dataset.getValues();
+		assertEquals(
+				2,
+				reader.readCount);
+	}
+
+	@Test
+	public void testUpdateReplacesDeferredValue() {
+		final CountingReader reader = new CountingReader();
+		final LazyPersistentDataset<Object> dataset = new LazyPersistentDataset<Object>();
+		final ByteArrayId field = new ByteArrayId(
+				"a");
+		dataset.addDeferredValue(
+				field,
+				reader,
+				StringUtils.stringToBinary("deferred"));
+		dataset.addOrUpdateValue(new PersistentValue<Object>(
+				field,
+				"updated"));
+		assertEquals(
+				"updated",
+				dataset.getValue(field));
+		assertEquals(
+				1,
+				dataset.getValues().size());
+		assertEquals(
+				0,
+				reader.readCount);
+	}
+}
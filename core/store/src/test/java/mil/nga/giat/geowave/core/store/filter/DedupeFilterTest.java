@@ -0,0 +1,125 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+
+public class DedupeFilterTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			StringUtils.stringToBinary("adapter"));
+
+	@Test
+	public void testExactDedupe() {
+		final DedupeFilter filter = new DedupeFilter();
+		assertDedupe(filter);
+		assertEquals(
+				0,
+				filter.getUntrackedCount());
+	}
+
+	@Test
+	public void testFingerprintDedupe() {
+		final DedupeFilter filter = new DedupeFilter(
+				1024 * 1024);
+		assertDedupe(filter);
+		assertEquals(
+				0,
+				filter.getUntrackedCount());
+	}
+
+	@Test
+	public void testFingerprintMemoryLimit() {
+		// the smallest table holds 1024 slots, so 8KB of fingerprints
+		final DedupeFilter filter = new DedupeFilter(
+				1);
+		int accepted = 0;
+		for (int i = 0; i < 2000; i++) {
+			if (filter.accept(entry(
+					i,
+					1))) {
+				accepted++;
+			}
+		}
+		assertEquals(
+				2000,
+				accepted);
+		assertTrue(filter.getUntrackedCount() > 0);
+		assertEquals(
+				2000,
+				filter.getTrackedCount() + filter.getUntrackedCount());
+		// tracked IDs are still rejected once the limit is reached
+		assertFalse(filter.accept(entry(
+				0,
+				1)));
+	}
+
+	@Test
+	public void testBinary() {
+		final MultiIndexDedupeFilter filter = new MultiIndexDedupeFilter(
+				4096);
+		filter.setMultiIndexSupportEnabled(false);
+		final MultiIndexDedupeFilter filter2 = new MultiIndexDedupeFilter();
+		filter2.fromBinary(filter.toBinary());
+		assertFalse(filter2.supportsMultipleIndices());
+		assertEquals(
+				4096,
+				filter2.getMaxMemoryBytes());
+
+		final DedupeFilter filter3 = new DedupeFilter();
+		filter3.fromBinary(new DedupeFilter().toBinary());
+		assertTrue(filter3.getMaxMemoryBytes() <= 0);
+	}
+
+	private static void assertDedupe(
+			final DedupeFilter filter ) {
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(filter.accept(entry(
+					i,
+					1)));
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			assertFalse(filter.accept(entry(
+					i,
+					1)));
+		}
+		// entries that are not duplicated pass without being tracked
+		assertTrue(filter.accept(entry(
+				0,
+				0)));
+		assertEquals(
+				1500,
+				filter.getCheckedCount());
+		assertEquals(
+				500,
+				filter.getDuplicateCount());
+		assertEquals(
+				1000,
+				filter.getTrackedCount());
+		assertEquals(
+				1.0 / 3.0,
+				filter.getDuplicateRatio(),
+				1e-9);
+	}
+
+	private static IndexedPersistenceEncoding entry(
+			final int id,
+			final int duplicateCount ) {
+		return new IndexedPersistenceEncoding(
+				ADAPTER_ID,
+				new ByteArrayId(
+						StringUtils.stringToBinary("data" + id)),
+				new ByteArrayId(
+						StringUtils.stringToBinary("insertion" + id)),
+				duplicateCount,
+				new PersistentDataset<CommonIndexValue>());
+	}
+}
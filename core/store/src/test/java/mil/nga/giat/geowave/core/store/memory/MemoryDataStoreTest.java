@@ -0,0 +1,647 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.bin.BinRange;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.EntryRowId;
+import mil.nga.giat.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.data.field.FieldUtils;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.dimension.DimensionField;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.BasicIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.query.Query;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryDataStoreTest
+{
+	private static final ByteArrayId VALUE_FIELD_ID = new ByteArrayId(
+			"value");
+	private static final ByteArrayId NAME_FIELD_ID = new ByteArrayId(
+			"name");
+
+	private final TestAdapter adapter = new TestAdapter();
+	private final Index index = new Index(
+			new TestIndexStrategy(),
+			new BasicIndexModel(
+					new DimensionField[] {
+						new TestDimensionField()
+					}));
+
+	private MemoryDataStore dataStore;
+
+	@Before
+	public void setUp() {
+		dataStore = new MemoryDataStore();
+		dataStore.ingest(
+				adapter,
+				index,
+				Arrays.asList(
+						new TestEntry(
+								"a",
+								"first",
+								1,
+								1),
+						new TestEntry(
+								"b",
+								"second",
+								4,
+								4),
+						// entry "c" is duplicated across three insertion IDs
+						new TestEntry(
+								"c",
+								"third",
+								2,
+								4),
+						new TestEntry(
+								"d",
+								"fourth",
+								8,
+								8)).iterator());
+	}
+
+	@Test
+	public void testIngest() {
+		final List<ByteArrayId> rowIds = dataStore.ingest(
+				adapter,
+				index,
+				new TestEntry(
+						"e",
+						"fifth",
+						6,
+						7));
+		assertEquals(
+				2,
+				rowIds.size());
+		for (final ByteArrayId rowId : rowIds) {
+			final EntryRowId rowIdElements = new EntryRowId(
+					rowId.getBytes());
+			assertEquals(
+					"e",
+					StringUtils.stringFromBinary(rowIdElements.getDataId()));
+			assertEquals(
+					adapter.getAdapterId(),
+					new ByteArrayId(
+							rowIdElements.getAdapterId()));
+			assertEquals(
+					1,
+					rowIdElements.getNumberOfDuplicates());
+		}
+		final TestEntry entry = dataStore.getEntry(
+				index,
+				new ByteArrayId(
+						"e"),
+				adapter.getAdapterId());
+		assertEquals(
+				"fifth",
+				entry.name);
+		assertEquals(
+				6,
+				entry.min);
+		assertEquals(
+				7,
+				entry.max);
+	}
+
+	@Test
+	public void testQuery()
+			throws IOException {
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"c"),
+				query(
+						0,
+						3));
+		assertEquals(
+				Arrays.asList(
+						"d"),
+				query(
+						5,
+						9));
+		assertEquals(
+				Collections.<String> emptyList(),
+				query(
+						10,
+						12));
+	}
+
+	@Test
+	public void testDedupe()
+			throws IOException {
+		// "c" is stored in cells 2, 3 and 4 and must be returned once
+		assertEquals(
+				Arrays.asList(
+						"b",
+						"c"),
+				query(
+						2,
+						4));
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"b",
+						"c",
+						"d"),
+				query(
+						0,
+						9));
+	}
+
+	@Test
+	public void testDelete()
+			throws IOException {
+		assertTrue(dataStore.deleteEntry(
+				index,
+				new ByteArrayId(
+						"c"),
+				adapter.getAdapterId()));
+		assertFalse(dataStore.deleteEntry(
+				index,
+				new ByteArrayId(
+						"c"),
+				adapter.getAdapterId()));
+		assertNull(dataStore.getEntry(
+				index,
+				new ByteArrayId(
+						"c"),
+				adapter.getAdapterId()));
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"b",
+						"d"),
+				query(
+						0,
+						9));
+	}
+
+	private List<String> query(
+			final int min,
+			final int max )
+			throws IOException {
+		final List<String> ids = new ArrayList<String>();
+		try (CloseableIterator<TestEntry> it = dataStore.query(
+				adapter,
+				index,
+				new TestQuery(
+						min,
+						max))) {
+			while (it.hasNext()) {
+				ids.add(it.next().id);
+			}
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	private static class TestEntry
+	{
+		private final String id;
+		private final String name;
+		private final int min;
+		private final int max;
+
+		public TestEntry(
+				final String id,
+				final String name,
+				final int min,
+				final int max ) {
+			this.id = id;
+			this.name = name;
+			this.min = min;
+			this.max = max;
+		}
+	}
+
+	private static class TestIndexValue extends
+			NumericRange implements
+			CommonIndexValue
+	{
+		private static final long serialVersionUID = 1L;
+		private byte[] visibility = new byte[0];
+
+		public TestIndexValue(
+				final double min,
+				final double max ) {
+			super(
+					min,
+					max);
+		}
+
+		@Override
+		public byte[] getVisibility() {
+			return visibility;
+		}
+
+		@Override
+		public void setVisibility(
+				final byte[] visibility ) {
+			this.visibility = visibility;
+		}
+
+		@Override
+		public boolean overlaps(
+				final DimensionField[] field,
+				final NumericData[] rangeData ) {
+			return (getMin() <= rangeData[0].getMax()) && (getMax() >= rangeData[0].getMin());
+		}
+	}
+
+	private static class TestValueReaderWriter implements
+			FieldReader<TestIndexValue>,
+			FieldWriter<Object, TestIndexValue>
+	{
+		@Override
+		public TestIndexValue readField(
+				final byte[] fieldData ) {
+			final ByteBuffer buf = ByteBuffer.wrap(fieldData);
+			return new TestIndexValue(
+					buf.getDouble(),
+					buf.getDouble());
+		}
+
+		@Override
+		public byte[] writeField(
+				final TestIndexValue fieldValue ) {
+			final ByteBuffer buf = ByteBuffer.allocate(16);
+			buf.putDouble(fieldValue.getMin());
+			buf.putDouble(fieldValue.getMax());
+			return buf.array();
+		}
+
+		@Override
+		public byte[] getVisibility(
+				final Object rowValue,
+				final ByteArrayId fieldId,
+				final TestIndexValue fieldValue ) {
+			return new byte[0];
+		}
+	}
+
+	public static class TestDimensionField implements
+			DimensionField<TestIndexValue>
+	{
+		private final TestValueReaderWriter readerWriter = new TestValueReaderWriter();
+
+		public TestDimensionField() {}
+
+		@Override
+		public double getRange() {
+			return 100;
+		}
+
+		@Override
+		public double normalize(
+				final double value ) {
+			return value;
+		}
+
+		@Override
+		public double denormalize(
+				final double value ) {
+			return value;
+		}
+
+		@Override
+		public BinRange[] getNormalizedRanges(
+				final NumericData range ) {
+			return new BinRange[] {
+				new BinRange(
+						range.getMin(),
+						range.getMax())
+			};
+		}
+
+		@Override
+		public NumericRange getDenormalizedRange(
+				final BinRange range ) {
+			return new NumericRange(
+					range.getNormalizedMin(),
+					range.getNormalizedMax());
+		}
+
+		@Override
+		public int getFixedBinIdSize() {
+			return 0;
+		}
+
+		@Override
+		public NumericRange getBounds() {
+			return new NumericRange(
+					0,
+					100);
+		}
+
+		@Override
+		public NumericData getFullRange() {
+			return new NumericRange(
+					0,
+					100);
+		}
+
+		@Override
+		public boolean isCompatibleDefinition(
+				final NumericDimensionDefinition otherDimensionDefinition ) {
+			return otherDimensionDefinition instanceof TestDimensionField;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+
+		@Override
+		public NumericData getNumericData(
+				final TestIndexValue dataElement ) {
+			return dataElement;
+		}
+
+		@Override
+		public ByteArrayId getFieldId() {
+			return VALUE_FIELD_ID;
+		}
+
+		@Override
+		public FieldWriter<?, TestIndexValue> getWriter() {
+			return readerWriter;
+		}
+
+		@Override
+		public FieldReader<TestIndexValue> getReader() {
+			return readerWriter;
+		}
+
+		@Override
+		public NumericDimensionDefinition getBaseDefinition() {
+			return this;
+		}
+	}
+
+	/**
+	 * Assigns an insertion ID to each integer cell overlapped by an entry
+	 */
+	public static class TestIndexStrategy implements
+			NumericIndexStrategy
+	{
+		public TestIndexStrategy() {}
+
+		private static ByteArrayId toId(
+				final double value ) {
+			return new ByteArrayId(
+					ByteBuffer.allocate(
+							4).putInt(
+							(int) Math.floor(value)).array());
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+
+		@Override
+		public List<ByteArrayRange> getQueryRanges(
+				final MultiDimensionalNumericData indexedRange ) {
+			return getQueryRanges(
+					indexedRange,
+					-1);
+		}
+
+		@Override
+		public List<ByteArrayRange> getQueryRanges(
+				final MultiDimensionalNumericData indexedRange,
+				final int maxEstimatedRangeDecomposition ) {
+			return Collections.singletonList(new ByteArrayRange(
+					toId(indexedRange.getMinValuesPerDimension()[0]),
+					toId(indexedRange.getMaxValuesPerDimension()[0])));
+		}
+
+		@Override
+		public List<ByteArrayId> getInsertionIds(
+				final MultiDimensionalNumericData indexedData ) {
+			final List<ByteArrayId> insertionIds = new ArrayList<ByteArrayId>();
+			for (int cell = (int) Math.floor(indexedData.getMinValuesPerDimension()[0]); cell <= indexedData.getMaxValuesPerDimension()[0]; cell++) {
+				insertionIds.add(toId(cell));
+			}
+			return insertionIds;
+		}
+
+		@Override
+		public List<ByteArrayId> getInsertionIds(
+				final MultiDimensionalNumericData indexedData,
+				final int maxEstimatedDuplicateIds ) {
+			return getInsertionIds(indexedData);
+		}
+
+		@Override
+		public MultiDimensionalNumericData getRangeForId(
+				final ByteArrayId insertionId ) {
+			final int cell = ByteBuffer.wrap(
+					insertionId.getBytes()).getInt();
+			return new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								cell,
+								cell + 1)
+					});
+		}
+
+		@Override
+		public long[] getCoordinatesPerDimension(
+				final ByteArrayId insertionId ) {
+			return new long[] {
+				ByteBuffer.wrap(
+						insertionId.getBytes()).getInt()
+			};
+		}
+
+		@Override
+		public NumericDimensionDefinition[] getOrderedDimensionDefinitions() {
+			return new NumericDimensionDefinition[] {
+				new TestDimensionField()
+			};
+		}
+
+		@Override
+		public String getId() {
+			return "test-mdst";
+		}
+
+		@Override
+		public double[] getHighestPrecisionIdRangePerDimension() {
+			return new double[] {
+				1
+			};
+		}
+	}
+
+	private static class TestAdapter implements
+			WritableDataAdapter<TestEntry>
+	{
+		private static final ByteArrayId ID = new ByteArrayId(
+				"test");
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return ID;
+		}
+
+		@Override
+		public boolean isSupported(
+				final TestEntry entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final TestEntry entry ) {
+			return new ByteArrayId(
+					entry.id);
+		}
+
+		@Override
+		public TestEntry decode(
+				final IndexedAdapterPersistenceEncoding data,
+				final Index index ) {
+			final TestIndexValue value = (TestIndexValue) data.getCommonData().getValue(
+					VALUE_FIELD_ID);
+			return new TestEntry(
+					data.getDataId().getString(),
+					(String) data.getAdapterExtendedData().getValue(
+							NAME_FIELD_ID),
+					(int) value.getMin(),
+					(int) value.getMax());
+		}
+
+		@Override
+		public AdapterPersistenceEncoding encode(
+				final TestEntry entry,
+				final CommonIndexModel indexModel ) {
+			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+			commonData.addValue(new PersistentValue<CommonIndexValue>(
+					VALUE_FIELD_ID,
+					new TestIndexValue(
+							entry.min,
+							entry.max)));
+			final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+			extendedData.addValue(new PersistentValue<Object>(
+					NAME_FIELD_ID,
+					entry.name));
+			return new AdapterPersistenceEncoding(
+					ID,
+					getDataId(entry),
+					commonData,
+					extendedData);
+		}
+
+		@SuppressWarnings({
+			"unchecked",
+			"rawtypes"
+		})
+		@Override
+		public FieldReader<Object> getReader(
+				final ByteArrayId fieldId ) {
+			if (NAME_FIELD_ID.equals(fieldId)) {
+				return (FieldReader) FieldUtils.getDefaultReaderForClass(String.class);
+			}
+			return null;
+		}
+
+		@SuppressWarnings({
+			"unchecked",
+			"rawtypes"
+		})
+		@Override
+		public FieldWriter<TestEntry, Object> getWriter(
+				final ByteArrayId fieldId ) {
+			if (NAME_FIELD_ID.equals(fieldId)) {
+				return (FieldWriter) FieldUtils.getDefaultWriterForClass(String.class);
+			}
+			return null;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+	}
+
+	private static class TestQuery implements
+			Query
+	{
+		private final int min;
+		private final int max;
+
+		public TestQuery(
+				final int min,
+				final int max ) {
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public List<QueryFilter> createFilters(
+				final CommonIndexModel indexModel ) {
+			return null;
+		}
+
+		@Override
+		public boolean isSupported(
+				final Index index ) {
+			return true;
+		}
+
+		@Override
+		public List<MultiDimensionalNumericData> getIndexConstraints(
+				final NumericIndexStrategy indexStrategy ) {
+			return Collections.<MultiDimensionalNumericData> singletonList(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								min,
+								max)
+					}));
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package mil.nga.giat.geowave.core.store.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.store.EntryRowId;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryIndexTableTest
+{
+	private static final byte[] ADAPTER_ID = "adapter".getBytes();
+
+	private MemoryIndexTable table;
+
+	@Before
+	public void setUp() {
+		table = new MemoryIndexTable();
+		// entry "a" is duplicated across two insertion IDs
+		table.put(row(
+				"aa",
+				"a",
+				1));
+		table.put(row(
+				"ca",
+				"a",
+				1));
+		table.put(row(
+				"ab",
+				"b",
+				0));
+		table.put(row(
+				"b",
+				"c",
+				0));
+		table.put(row(
+				"d",
+				"d",
+				0));
+	}
+
+	@Test
+	public void testFullScan() {
+		assertEquals(
+				5,
+				toDataIds(
+						table.scan(null)).size());
+		assertEquals(
+				5,
+				toDataIds(
+						table.scan(new ArrayList<ByteArrayRange>())).size());
+	}
+
+	@Test
+	public void testRangeEndIsPrefixInclusive() {
+		// "aa" and "ab" are both prefixed by the end "a"
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"b"),
+				toDataIds(table.scan(Collections.singletonList(range(
+						"a",
+						"a")))));
+		// a start that is prefixed by the end is still a valid range
+		assertEquals(
+				Arrays.asList("b"),
+				toDataIds(table.scan(Collections.singletonList(range(
+						"ab",
+						"a")))));
+	}
+
+	@Test
+	public void testOverlappingRanges() {
+		// each row is returned once, in row ID order
+		assertEquals(
+				Arrays.asList(
+						"a",
+						"b",
+						"c",
+						"a"),
+				toDataIds(table.scan(Arrays.asList(
+						range(
+								"b",
+								"c"),
+						range(
+								"a",
+								"b"),
+						range(
+								"ab",
+								"ab")))));
+	}
+
+	@Test
+	public void testEmptyRangeIsSkipped() {
+		assertEquals(
+				Arrays.asList("d"),
+				toDataIds(table.scan(Arrays.asList(
+						range(
+								"c",
+								"b"),
+						range(
+								"d",
+								"d")))));
+	}
+
+	@Test
+	public void testGetAndRemoveEntry() {
+		final ByteArrayId adapterId = new ByteArrayId(
+				ADAPTER_ID);
+		final ByteArrayId dataId = new ByteArrayId(
+				"a");
+		assertEquals(
+				2,
+				table.getRows(
+						adapterId,
+						dataId).size());
+		assertEquals(
+				2,
+				table.remove(
+						adapterId,
+						dataId).size());
+		assertTrue(table.getRows(
+				adapterId,
+				dataId).isEmpty());
+		assertEquals(
+				3,
+				table.size());
+		assertEquals(
+				3,
+				table.removeAll(adapterId));
+		assertEquals(
+				0,
+				table.size());
+	}
+
+	private static MemoryEntryRow row(
+			final String insertionId,
+			final String dataId,
+			final int numberOfDuplicates ) {
+		return new MemoryEntryRow(
+				new ByteArrayId(
+						new EntryRowId(
+								insertionId.getBytes(),
+								dataId.getBytes(),
+								ADAPTER_ID,
+								numberOfDuplicates).getRowId()),
+				Collections.<MemoryEntryRow.FieldValue> emptyList());
+	}
+
+	private static ByteArrayRange range(
+			final String start,
+			final String end ) {
+		return new ByteArrayRange(
+				new ByteArrayId(
+						start),
+				new ByteArrayId(
+						end));
+	}
+
+	private static List<String> toDataIds(
+			final Iterator<MemoryEntryRow> rows ) {
+		final List<String> dataIds = new ArrayList<String>();
+		while (rows.hasNext()) {
+			dataIds.add(rows.next().getDataId().getString());
+		}
+		return dataIds;
+	}
+}
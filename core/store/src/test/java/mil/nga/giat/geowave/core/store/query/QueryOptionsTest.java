@@ -1,7 +1,13 @@
 package mil.nga.giat.geowave.core.store.query;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Arrays;
 
+import mil.nga.giat.geowave.core.index.StringUtils;
+
 import org.junit.Test;
 
 public class QueryOptionsTest
@@ -21,4 +27,68 @@ public class QueryOptionsTest
 		ops.getFieldIds().contains(
 				"|abc");
 	}
+
+	@Test
+	public void testRangeDecompositionOptions() {
+		final QueryOptions ops = new QueryOptions();
+		assertTrue(ops.getMaxRangeDecomposition() <= 0);
+		assertFalse(ops.isUseRowRangeStatistics());
+
+		ops.setMaxRangeDecomposition(250);
+		ops.setUseRowRangeStatistics(true);
+		final QueryOptions ops2 = new QueryOptions();
+		ops2.fromBinary(ops.toBinary());
+		assertEquals(
+				250,
+				ops2.getMaxRangeDecomposition());
+		assertTrue(ops2.isUseRowRangeStatistics());
+		assertTrue(ops2.getFieldIds().isEmpty());
+	}
+
+	@Test
+	public void testMaxDedupeMemory() {
+		final QueryOptions ops = new QueryOptions();
+		assertTrue(ops.getMaxDedupeMemory() <= 0);
+		ops.setMaxDedupeMemory(1024 * 1024);
+		final QueryOptions ops2 = new QueryOptions();
+		ops2.fromBinary(ops.toBinary());
+		assertEquals(
+				1024 * 1024,
+				ops2.getMaxDedupeMemory());
+	}
+
+	@Test
+	public void testParallelDecodeOptions() {
+		final QueryOptions ops = new QueryOptions();
+		assertTrue(ops.getDecodeParallelism() <= 1);
+		assertTrue(ops.isPreserveDecodeOrder());
+		ops.setDecodeParallelism(8);
+		ops.setPreserveDecodeOrder(false);
+		final QueryOptions ops2 = new QueryOptions();
+		ops2.fromBinary(ops.toBinary());
+		assertEquals(
+				8,
+				ops2.getDecodeParallelism());
+		assertFalse(ops2.isPreserveDecodeOrder());
+	}
+
+	@Test
+	public void testLegacyBinary() {
+		final QueryOptions ops = new QueryOptions();
+		ops.setMaxRangeDecomposition(250);
+		ops.setDecodeParallelism(8);
+		ops.fromBinary(StringUtils.stringToBinary("123,abc"));
+		assertEquals(
+				Arrays.asList(
+						"123",
+						"abc"),
+				ops.getFieldIds());
+		assertTrue(ops.getMaxRangeDecomposition() <= 0);
+		assertTrue(ops.getDecodeParallelism() <= 1);
+
+		ops.fromBinary(new byte[0]);
+		assertTrue(ops.getFieldIds().isEmpty());
+		assertTrue(ops.getMaxDedupeMemory() <= 0);
+		assertTrue(ops.isPreserveDecodeOrder());
+	}
 }
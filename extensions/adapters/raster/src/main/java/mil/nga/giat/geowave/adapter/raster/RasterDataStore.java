@@ -6,6 +6,7 @@ import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy.SubStrategy;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
@@ -66,6 +67,38 @@ public class RasterDataStore extends
 			final Index index,
 			final Query query,
 			final double[] targetResolutionPerDimension ) {
+		return query(
+				adapter,
+				index,
+				query,
+				targetResolutionPerDimension,
+				null);
+	}
+
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final double[] targetResolutionPerDimension,
+			final ScanCallback<?> scanCallback ) {
+		return super.query(
+				adapter,
+				getIndexForResolution(
+						index,
+						targetResolutionPerDimension),
+				query,
+				null,
+				scanCallback);
+	}
+
+	/**
+	 * @return an index with only the tier of the index strategy that fits the
+	 *         target resolution, or the index itself if its strategy is not
+	 *         hierarchical
+	 */
+	public static Index getIndexForResolution(
+			final Index index,
+			final double[] targetResolutionPerDimension ) {
 		// determine the correct tier to query for the given resolution
 		final NumericIndexStrategy strategy = index.getIndexStrategy();
 		if (strategy instanceof HierarchicalNumericIndexStrategy) {
@@ -104,23 +137,15 @@ public class RasterDataStore extends
 				// dimension, which is the highest precision)
 				targetIndexStrategy = sortedStrategies.firstEntry().getValue();
 			}
-			return super.query(
-					adapter,
-					new CustomIdIndex(
-							// replace the index strategy with a single
-							// substrategy that fits the target resolution
-							targetIndexStrategy.getIndexStrategy(),
-							index.getIndexModel(),
-							index.getId()), // make sure the index ID is the
-					// same as the orginal so that we
-					// are querying the correct table
-					query);
-		}
-		else {
-			return super.query(
-					adapter,
-					index,
-					query);
+			return new CustomIdIndex(
+					// replace the index strategy with a single
+					// substrategy that fits the target resolution
+					targetIndexStrategy.getIndexStrategy(),
+					index.getIndexModel(),
+					index.getId()); // make sure the index ID is the
+			// same as the orginal so that we
+			// are querying the correct table
 		}
+		return index;
 	}
 }
@@ -0,0 +1,633 @@
+package mil.nga.giat.geowave.adapter.raster.adapter;
+
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.media.jai.TiledImage;
+
+import mil.nga.giat.geowave.adapter.raster.FitToIndexGridCoverage;
+import mil.nga.giat.geowave.adapter.raster.adapter.RasterDataAdapter.MosaicPerPyramidLevelBuilder;
+import mil.nga.giat.geowave.adapter.raster.plugin.GeoWaveGTRasterFormat;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy.SubStrategy;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
+
+import org.apache.log4j.Logger;
+import org.geotools.coverage.CoverageFactoryFinder;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.geometry.GeneralEnvelope;
+import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.geometry.Envelope;
+
+/**
+ * Tiles a grid coverage into every level of an image pyramid using a pool of
+ * worker threads. Only the tiles of the full resolution level are resampled
+ * from the original data. Each tile of a lower resolution level is resampled
+ * from a mosaic of the tiles it covers in the next higher resolution level,
+ * which is much cheaper than resampling the original data again because the
+ * mosaic is at most a few tiles in size.
+ *
+ * The full resolution tiles are ordered so that the tiles of each lower
+ * resolution tile are adjacent. A lower resolution tile is built as soon as
+ * the last of its higher resolution tiles is complete, and its higher
+ * resolution tiles are then released. Together with the limit on the number of
+ * tiles that are computed ahead of the writer this keeps the memory used
+ * proportional to the number of threads rather than to the size of the
+ * coverage. Tiles are returned in a deterministic order, each lower resolution
+ * tile following the higher resolution tiles it was built from, regardless of
+ * the order in which the workers complete them.
+ *
+ * If the levels of the pyramid are not nested, every level is resampled from
+ * the original data, which is still done in parallel.
+ */
+public class ParallelPyramidTileIterator implements
+		Iterator<GridCoverage>
+{
+	private final static Logger LOGGER = Logger.getLogger(ParallelPyramidTileIterator.class);
+	private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+	// the number of tiles per thread that may be computed ahead of the writer
+	private static final int PENDING_TILES_PER_THREAD = 4;
+	private static final double EPSILON = 1E-9;
+
+	private final List<SubStrategy> pyramidLevels;
+	private final MosaicPerPyramidLevelBuilder tileBuilder;
+	private final GridCoverage originalData;
+	private final double[] backgroundValuesPerBand;
+	private final ThreadPoolExecutor executor;
+	private final int maxPendingTiles;
+	private final Iterator<TileRequest> sourceRequests;
+	private final Deque<PendingTile> pendingTiles = new ArrayDeque<PendingTile>();
+	private final GridCoverageFactory coverageFactory = CoverageFactoryFinder.getGridCoverageFactory(null);
+	private GridCoverage nextTile;
+
+	public ParallelPyramidTileIterator(
+			final List<SubStrategy> pyramidLevels,
+			final MultiDimensionalNumericData originalBounds,
+			final GridCoverage originalData,
+			final MosaicPerPyramidLevelBuilder tileBuilder,
+			final double[] backgroundValuesPerBand,
+			final int numThreads ) {
+		this.pyramidLevels = pyramidLevels;
+		this.tileBuilder = tileBuilder;
+		this.originalData = originalData;
+		this.backgroundValuesPerBand = backgroundValuesPerBand;
+		final int threads = Math.max(
+				numThreads,
+				1);
+		maxPendingTiles = threads * PENDING_TILES_PER_THREAD;
+		sourceRequests = planRequests(
+				originalBounds).iterator();
+		final int poolId = POOL_COUNT.incrementAndGet();
+		executor = new ThreadPoolExecutor(
+				threads,
+				threads,
+				60,
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger threadCount = new AtomicInteger();
+
+					@Override
+					public Thread newThread(
+							final Runnable r ) {
+						final Thread thread = new Thread(
+								r,
+								"raster-pyramid-" + poolId + "-" + threadCount.incrementAndGet());
+						// an iterator that is abandoned by the writer must not
+						// keep the JVM alive
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Determine the tiles that are resampled from the original data, in the
+	 * order they are written, and link each tile to the lower resolution tile
+	 * that is built from it
+	 */
+	private List<TileRequest> planRequests(
+			final MultiDimensionalNumericData originalBounds ) {
+		final List<TileRequest> fullResRequests = getRequests(
+				0,
+				pyramidLevels.get(
+						0).getIndexStrategy().getInsertionIds(
+						originalBounds));
+		List<TileRequest> childRequests = fullResRequests;
+		for (int level = 1; level < pyramidLevels.size(); level++) {
+			final List<TileRequest> parentRequests = linkToParents(
+					childRequests,
+					level);
+			if (parentRequests == null) {
+				LOGGER.info("Pyramid levels are not nested, every level will be resampled from the original data");
+				for (final TileRequest request : fullResRequests) {
+					request.parent = null;
+				}
+				final List<TileRequest> requests = new ArrayList<TileRequest>(
+						fullResRequests);
+				for (int l = 1; l < pyramidLevels.size(); l++) {
+					requests.addAll(getRequests(
+							l,
+							pyramidLevels.get(
+									l).getIndexStrategy().getInsertionIds(
+									originalBounds)));
+				}
+				return requests;
+			}
+			childRequests = parentRequests;
+		}
+		// order the full resolution tiles by their lowest resolution ancestor
+		// first so that the tiles of each lower resolution tile are adjacent
+		for (final TileRequest request : fullResRequests) {
+			request.path = request.getPath();
+		}
+		Collections.sort(
+				fullResRequests,
+				new Comparator<TileRequest>() {
+					@Override
+					public int compare(
+							final TileRequest o1,
+							final TileRequest o2 ) {
+						final List<ByteArrayId> path1 = o1.path;
+						final List<ByteArrayId> path2 = o2.path;
+						for (int i = path1.size() - 1; i >= 0; i--) {
+							final int comparison = path1.get(
+									i).compareTo(
+									path2.get(i));
+							if (comparison != 0) {
+								return comparison;
+							}
+						}
+						return 0;
+					}
+				});
+		return fullResRequests;
+	}
+
+	private static List<TileRequest> getRequests(
+			final int level,
+			final List<ByteArrayId> insertionIds ) {
+		final List<TileRequest> requests = new ArrayList<TileRequest>(
+				insertionIds.size());
+		for (final ByteArrayId insertionId : insertionIds) {
+			if (insertionId != null) {
+				requests.add(new TileRequest(
+						level,
+						insertionId));
+			}
+		}
+		return requests;
+	}
+
+	/**
+	 * @return the tiles of the given level that cover the child tiles, or null
+	 *         if a child tile is not entirely within a single tile of the level
+	 */
+	private List<TileRequest> linkToParents(
+			final List<TileRequest> childRequests,
+			final int level ) {
+		final SubStrategy childLevel = pyramidLevels.get(level - 1);
+		final SubStrategy parentLevel = pyramidLevels.get(level);
+		final double[] childRange = childLevel.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
+		final double[] parentRange = parentLevel.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
+		for (int d = 0; d < childRange.length; d++) {
+			final double ratio = parentRange[d] / childRange[d];
+			if ((ratio < (1 - EPSILON)) || (Math.abs(ratio - Math.round(ratio)) > (EPSILON * ratio))) {
+				return null;
+			}
+		}
+		final Map<ByteArrayId, TileRequest> parentRequests = new HashMap<ByteArrayId, TileRequest>();
+		final List<TileRequest> orderedParentRequests = new ArrayList<TileRequest>();
+		for (final TileRequest childRequest : childRequests) {
+			final MultiDimensionalNumericData childBounds = childLevel.getIndexStrategy().getRangeForId(
+					childRequest.insertionId);
+			final double[] mins = childBounds.getMinValuesPerDimension();
+			final double[] maxes = childBounds.getMaxValuesPerDimension();
+			final NumericData[] center = new NumericData[mins.length];
+			for (int d = 0; d < mins.length; d++) {
+				center[d] = new NumericValue(
+						(mins[d] + maxes[d]) / 2);
+			}
+			final List<ByteArrayId> parentIds = parentLevel.getIndexStrategy().getInsertionIds(
+					new BasicNumericDataset(
+							center));
+			if (parentIds.size() != 1) {
+				return null;
+			}
+			final ByteArrayId parentId = parentIds.get(0);
+			TileRequest parentRequest = parentRequests.get(parentId);
+			if (parentRequest == null) {
+				if (!contains(
+						parentLevel.getIndexStrategy().getRangeForId(
+								parentId),
+						childBounds)) {
+					return null;
+				}
+				parentRequest = new TileRequest(
+						level,
+						parentId);
+				parentRequests.put(
+						parentId,
+						parentRequest);
+				orderedParentRequests.add(parentRequest);
+			}
+			childRequest.parent = parentRequest;
+			parentRequest.remainingChildren++;
+		}
+		return orderedParentRequests;
+	}
+
+	private static boolean contains(
+			final MultiDimensionalNumericData parentBounds,
+			final MultiDimensionalNumericData childBounds ) {
+		final double[] parentMins = parentBounds.getMinValuesPerDimension();
+		final double[] parentMaxes = parentBounds.getMaxValuesPerDimension();
+		final double[] childMins = childBounds.getMinValuesPerDimension();
+		final double[] childMaxes = childBounds.getMaxValuesPerDimension();
+		for (int d = 0; d < parentMins.length; d++) {
+			final double tolerance = EPSILON * (parentMaxes[d] - parentMins[d]);
+			if (((childMins[d] + tolerance) < parentMins[d]) || ((childMaxes[d] - tolerance) > parentMaxes[d])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (nextTile == null) {
+			fillPendingTiles();
+			final PendingTile pendingTile = pendingTiles.poll();
+			if (pendingTile == null) {
+				executor.shutdown();
+				return false;
+			}
+			final GridCoverage tile = getTile(pendingTile);
+			final TileRequest parent = pendingTile.request.parent;
+			if ((parent != null) && parent.addChild(tile)) {
+				pendingTiles.add(new PendingTile(
+						parent,
+						executor.submit(new MosaicTileBuilder(
+								parent))));
+			}
+			nextTile = tile;
+		}
+		return true;
+	}
+
+	@Override
+	public GridCoverage next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final GridCoverage tile = nextTile;
+		nextTile = null;
+		return tile;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Remove is not supported on a tile pyramid");
+	}
+
+	private void fillPendingTiles() {
+		while ((pendingTiles.size() < maxPendingTiles) && sourceRequests.hasNext()) {
+			final TileRequest request = sourceRequests.next();
+			pendingTiles.add(new PendingTile(
+					request,
+					executor.submit(new SourceTileBuilder(
+							request))));
+		}
+	}
+
+	private GridCoverage getTile(
+			final PendingTile pendingTile ) {
+		try {
+			return pendingTile.future.get();
+		}
+		catch (final ExecutionException e) {
+			LOGGER.warn(
+					"Unable to build tile '" + pendingTile.request.insertionId.getHexString() + "' of pyramid level " + pendingTile.request.level,
+					e.getCause());
+		}
+		catch (final InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while building raster pyramid",
+					e);
+		}
+		return null;
+	}
+
+	/**
+	 * Resample the tile and compute its samples so that the work is done by
+	 * the worker rather than lazily by the writer
+	 */
+	private GridCoverage buildTile(
+			final TileRequest request,
+			final GridCoverage sourceData ) {
+		final GridCoverage tile = tileBuilder.buildTile(
+				pyramidLevels.get(request.level),
+				request.insertionId,
+				sourceData);
+		if (tile instanceof FitToIndexGridCoverage) {
+			final FitToIndexGridCoverage fitToIndexTile = (FitToIndexGridCoverage) tile;
+			final GridCoverage resampledCoverage = fitToIndexTile.getOriginalCoverage();
+			if (resampledCoverage instanceof GridCoverage2D) {
+				final RenderedImage image = resampledCoverage.getRenderedImage();
+				final TiledImage computedImage = new TiledImage(
+						image.getMinX(),
+						image.getMinY(),
+						image.getWidth(),
+						image.getHeight(),
+						image.getMinX(),
+						image.getMinY(),
+						image.getSampleModel().createCompatibleSampleModel(
+								image.getWidth(),
+								image.getHeight()),
+						image.getColorModel());
+				computedImage.setData(image.getData());
+				return new FitToIndexGridCoverage(
+						coverageFactory.create(
+								((GridCoverage2D) resampledCoverage).getName(),
+								computedImage,
+								resampledCoverage.getEnvelope(),
+								((GridCoverage2D) resampledCoverage).getSampleDimensions(),
+								null,
+								null),
+						fitToIndexTile.getInsertionId(),
+						fitToIndexTile.getResolution(),
+						fitToIndexTile.getOriginalEnvelope(),
+						fitToIndexTile.getFootprintWorldGeometry(),
+						fitToIndexTile.getFootprintScreenGeometry());
+			}
+		}
+		return tile;
+	}
+
+	/**
+	 * Mosaic the tiles of the next higher resolution level that are within a
+	 * tile, at their own resolution. Areas without a tile are filled with the
+	 * background values.
+	 */
+	private GridCoverage mosaicChildren(
+			final TileRequest request,
+			final List<GridCoverage> children ) {
+		GridCoverage2D firstChild = null;
+		for (final GridCoverage child : children) {
+			if ((child instanceof FitToIndexGridCoverage) && (((FitToIndexGridCoverage) child).getOriginalCoverage() instanceof GridCoverage2D)) {
+				firstChild = (GridCoverage2D) ((FitToIndexGridCoverage) child).getOriginalCoverage();
+				break;
+			}
+		}
+		if (firstChild == null) {
+			// none of the higher resolution tiles have data
+			return null;
+		}
+		final Envelope envelope = getEnvelope(
+				pyramidLevels.get(request.level),
+				request.insertionId);
+		final RenderedImage firstImage = firstChild.getRenderedImage();
+		final double resX = firstChild.getEnvelope().getSpan(
+				0) / firstImage.getWidth();
+		final double resY = firstChild.getEnvelope().getSpan(
+				1) / firstImage.getHeight();
+		final int width = (int) Math.max(
+				Math.round(envelope.getSpan(0) / resX),
+				1);
+		final int height = (int) Math.max(
+				Math.round(envelope.getSpan(1) / resY),
+				1);
+		final SampleModel sampleModel = firstImage.getSampleModel().createCompatibleSampleModel(
+				width,
+				height);
+		final TiledImage mosaic = new TiledImage(
+				0,
+				0,
+				width,
+				height,
+				0,
+				0,
+				sampleModel,
+				firstImage.getColorModel());
+		final WritableRaster raster = mosaic.getWritableTile(
+				0,
+				0);
+		fillWithBackgroundValues(raster);
+		for (final GridCoverage child : children) {
+			if (child == null) {
+				continue;
+			}
+			final Envelope childEnvelope = child.getEnvelope();
+			final Raster childData = child.getRenderedImage().getData();
+			final int x = (int) Math.round((childEnvelope.getMinimum(0) - envelope.getMinimum(0)) / resX);
+			final int y = (int) Math.round((envelope.getMaximum(1) - childEnvelope.getMaximum(1)) / resY);
+			raster.setRect(
+					x - childData.getMinX(),
+					y - childData.getMinY(),
+					childData);
+		}
+		mosaic.releaseWritableTile(
+				0,
+				0);
+		return coverageFactory.create(
+				firstChild.getName(),
+				mosaic,
+				envelope,
+				firstChild.getSampleDimensions(),
+				null,
+				null);
+	}
+
+	private void fillWithBackgroundValues(
+			final WritableRaster raster ) {
+		if (backgroundValuesPerBand == null) {
+			return;
+		}
+		final double[] samples = new double[raster.getWidth() * raster.getHeight()];
+		for (int b = 0; (b < raster.getNumBands()) && (b < backgroundValuesPerBand.length); b++) {
+			if (backgroundValuesPerBand[b] != 0) {
+				Arrays.fill(
+						samples,
+						backgroundValuesPerBand[b]);
+				raster.setSamples(
+						raster.getMinX(),
+						raster.getMinY(),
+						raster.getWidth(),
+						raster.getHeight(),
+						b,
+						samples);
+			}
+		}
+	}
+
+	private static Envelope getEnvelope(
+			final SubStrategy pyramidLevel,
+			final ByteArrayId insertionId ) {
+		final MultiDimensionalNumericData range = pyramidLevel.getIndexStrategy().getRangeForId(
+				insertionId);
+		final NumericDimensionDefinition[] dimensions = pyramidLevel.getIndexStrategy().getOrderedDimensionDefinitions();
+		final double[] mins = new double[2];
+		final double[] maxes = new double[2];
+		for (int d = 0; d < dimensions.length; d++) {
+			if (dimensions[d] instanceof LatitudeDefinition) {
+				mins[1] = range.getMinValuesPerDimension()[d];
+				maxes[1] = range.getMaxValuesPerDimension()[d];
+			}
+			else if (dimensions[d] instanceof LongitudeDefinition) {
+				mins[0] = range.getMinValuesPerDimension()[d];
+				maxes[0] = range.getMaxValuesPerDimension()[d];
+			}
+		}
+		final GeneralEnvelope envelope = new GeneralEnvelope(
+				mins,
+				maxes);
+		envelope.setCoordinateReferenceSystem(GeoWaveGTRasterFormat.DEFAULT_CRS);
+		return envelope;
+	}
+
+	private class SourceTileBuilder implements
+			Callable<GridCoverage>
+	{
+		private final TileRequest request;
+
+		public SourceTileBuilder(
+				final TileRequest request ) {
+			this.request = request;
+		}
+
+		@Override
+		public GridCoverage call()
+				throws Exception {
+			return buildTile(
+					request,
+					originalData);
+		}
+	}
+
+	private class MosaicTileBuilder implements
+			Callable<GridCoverage>
+	{
+		private final TileRequest request;
+
+		public MosaicTileBuilder(
+				final TileRequest request ) {
+			this.request = request;
+		}
+
+		@Override
+		public GridCoverage call()
+				throws Exception {
+			final GridCoverage mosaic = mosaicChildren(
+					request,
+					request.releaseChildren());
+			if (mosaic == null) {
+				return null;
+			}
+			return buildTile(
+					request,
+					mosaic);
+		}
+	}
+
+	private static class PendingTile
+	{
+		private final TileRequest request;
+		private final Future<GridCoverage> future;
+
+		public PendingTile(
+				final TileRequest request,
+				final Future<GridCoverage> future ) {
+			this.request = request;
+			this.future = future;
+		}
+	}
+
+	private static class TileRequest
+	{
+		private final int level;
+		private final ByteArrayId insertionId;
+		private TileRequest parent;
+		private List<ByteArrayId> path;
+		private int remainingChildren;
+		private List<GridCoverage> children;
+
+		public TileRequest(
+				final int level,
+				final ByteArrayId insertionId ) {
+			this.level = level;
+			this.insertionId = insertionId;
+		}
+
+		/**
+		 * @return the insertion IDs of this tile and each of its ancestors,
+		 *         from the highest resolution to the lowest resolution
+		 */
+		public List<ByteArrayId> getPath() {
+			final List<ByteArrayId> path = new ArrayList<ByteArrayId>();
+			TileRequest request = this;
+			while (request != null) {
+				path.add(request.insertionId);
+				request = request.parent;
+			}
+			return path;
+		}
+
+		/**
+		 * This is only called by the thread that consumes the tiles
+		 *
+		 * @return true if this was the last child tile
+		 */
+		public boolean addChild(
+				final GridCoverage child ) {
+			if (children == null) {
+				children = new ArrayList<GridCoverage>();
+			}
+			if (child != null) {
+				children.add(child);
+			}
+			return --remainingChildren == 0;
+		}
+
+		/**
+		 * This is called by the worker once every child tile has been added,
+		 * the submission of the worker makes the children visible to it
+		 */
+		public List<GridCoverage> releaseChildren() {
+			final List<GridCoverage> released = children;
+			children = null;
+			return released;
+		}
+	}
+}
@@ -54,6 +54,7 @@ import mil.nga.giat.geowave.adapter.raster.adapter.merge.RasterTileVisibilityCom
 import mil.nga.giat.geowave.adapter.raster.adapter.merge.RootMergeStrategy;
 import mil.nga.giat.geowave.adapter.raster.adapter.merge.nodata.NoDataMergeStrategy;
 import mil.nga.giat.geowave.adapter.raster.plugin.GeoWaveGTRasterFormat;
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache;
 import mil.nga.giat.geowave.adapter.raster.stats.HistogramConfig;
 import mil.nga.giat.geowave.adapter.raster.stats.HistogramStatistics;
 import mil.nga.giat.geowave.adapter.raster.stats.OverviewStatistics;
@@ -153,6 +154,7 @@ public class RasterDataAdapter implements
 			"image");
 	public final static int DEFAULT_TILE_SIZE = 256;
 	public final static boolean DEFAULT_BUILD_PYRAMID = false;
+	public final static int DEFAULT_PYRAMID_THREADS = Runtime.getRuntime().availableProcessors();
 	private static Operations resampleOperations;
 
 	/**
@@ -180,6 +182,9 @@ public class RasterDataAdapter implements
 	private RootMergeStrategy<?> mergeStrategy;
 	private boolean equalizeHistogram;
 	private Interpolation interpolation;
+	// the number of threads used to build a pyramid on ingest, this is not
+	// persisted because it is only relevant to the process writing the data
+	private int pyramidThreads = DEFAULT_PYRAMID_THREADS;
 
 	protected RasterDataAdapter() {}
 
@@ -510,23 +515,33 @@ public class RasterDataAdapter implements
 						maxSubstrategyResToSampleSetRes,
 						substrategyResToSampleSetRes);
 			}
+			final MosaicPerPyramidLevelBuilder tileBuilder = new MosaicPerPyramidLevelBuilder(
+					bounds,
+					gridCoverage,
+					tileSize,
+					backgroundValuesPerBand,
+					RasterUtils.getFootprint(
+							projectedReferenceEnvelope,
+							gridCoverage),
+					interpolation);
+			if (pyramidLevels.size() > 1) {
+				return new ParallelPyramidTileIterator(
+						pyramidLevels,
+						bounds,
+						gridCoverage,
+						tileBuilder,
+						backgroundValuesPerBand,
+						pyramidThreads);
+			}
 			return new IteratorWrapper<SubStrategy, GridCoverage>(
 					pyramidLevels.iterator(),
-					new MosaicPerPyramidLevelBuilder(
-							bounds,
-							gridCoverage,
-							tileSize,
-							backgroundValuesPerBand,
-							RasterUtils.getFootprint(
-									projectedReferenceEnvelope,
-									gridCoverage),
-							interpolation));
+					tileBuilder);
 		}
 		LOGGER.warn("Strategy is not an instance of HierarchicalNumericIndexStrategy : " + index.getIndexStrategy().getClass().getName());
 		return Collections.<GridCoverage> emptyList().iterator();
 	}
 
-	private static class MosaicPerPyramidLevelBuilder implements
+	static class MosaicPerPyramidLevelBuilder implements
 			Converter<SubStrategy, GridCoverage>
 	{
 		private final MultiDimensionalNumericData originalBounds;
@@ -565,192 +580,10 @@ public class RasterDataAdapter implements
 
 				@Override
 				public GridCoverage next() {
-					final ByteArrayId insertionId = insertionIds.next();
-					if (insertionId == null) {
-						return null;
-					}
-					final MultiDimensionalNumericData rangePerDimension = pyramidLevel.getIndexStrategy().getRangeForId(
-							insertionId);
-					final NumericDimensionDefinition[] dimensions = pyramidLevel.getIndexStrategy().getOrderedDimensionDefinitions();
-					int longitudeIndex = 0, latitudeIndex = 1;
-					final double[] minDP = new double[2];
-					final double[] maxDP = new double[2];
-					for (int d = 0; d < dimensions.length; d++) {
-						if (dimensions[d] instanceof LatitudeDefinition) {
-							latitudeIndex = d;
-							minDP[1] = originalBounds.getMinValuesPerDimension()[d];
-							maxDP[1] = originalBounds.getMaxValuesPerDimension()[d];
-						}
-						else if (dimensions[d] instanceof LongitudeDefinition) {
-							longitudeIndex = d;
-							minDP[0] = originalBounds.getMinValuesPerDimension()[d];
-							maxDP[0] = originalBounds.getMaxValuesPerDimension()[d];
-						}
-					}
-
-					final Envelope originalEnvelope = new GeneralEnvelope(
-							minDP,
-							maxDP);
-					final double[] minsPerDimension = rangePerDimension.getMinValuesPerDimension();
-					final double[] maxesPerDimension = rangePerDimension.getMaxValuesPerDimension();
-					final ReferencedEnvelope mapExtent = new ReferencedEnvelope(
-							minsPerDimension[longitudeIndex],
-							maxesPerDimension[longitudeIndex],
-							minsPerDimension[latitudeIndex],
-							maxesPerDimension[latitudeIndex],
-							GeoWaveGTRasterFormat.DEFAULT_CRS);
-					final AffineTransform worldToScreenTransform = RendererUtilities.worldToScreenTransform(
-							mapExtent,
-							new Rectangle(
-									tileSize,
-									tileSize));
-					GridGeometry2D insertionIdGeometry;
-					try {
-						final AffineTransform2D gridToCRS = new AffineTransform2D(
-								worldToScreenTransform.createInverse());
-						insertionIdGeometry = new GridGeometry2D(
-								new GridEnvelope2D(
-										new Rectangle(
-												tileSize,
-												tileSize)),
-								PixelInCell.CELL_CORNER,
-								gridToCRS,
-								GeoWaveGTRasterFormat.DEFAULT_CRS,
-								null);
-
-						final double[] tileRes = pyramidLevel.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
-						final double[] pixelRes = new double[tileRes.length];
-						for (int d = 0; d < tileRes.length; d++) {
-							pixelRes[d] = tileRes[d] / tileSize;
-						}
-						Geometry footprintWithinTileWorldGeom = null;
-						Geometry footprintWithinTileScreenGeom = null;
-						try {
-							final Geometry wholeFootprintScreenGeom = JTS.transform(
-									footprint,
-									new AffineTransform2D(
-											worldToScreenTransform));
-							final com.vividsolutions.jts.geom.Envelope fullTileEnvelope = new com.vividsolutions.jts.geom.Envelope(
-									0,
-									tileSize,
-									0,
-									tileSize);
-							final GeometryClipper tileClipper = new GeometryClipper(
-									fullTileEnvelope);
-							footprintWithinTileScreenGeom = tileClipper.clip(
-									wholeFootprintScreenGeom,
-									true);
-							if (footprintWithinTileScreenGeom == null) {
-								// for some reason the original image footprint
-								// falls outside this insertion ID
-								LOGGER.warn("Original footprint geometry (" + originalData.getGridGeometry() + ") falls outside the insertion bounds (" + insertionIdGeometry + ")");
-								return null;
-							}
-							footprintWithinTileWorldGeom = JTS.transform(
-									footprintWithinTileScreenGeom,
-									gridToCRS);
-							if (footprintWithinTileScreenGeom.covers(new GeometryFactory().toGeometry(fullTileEnvelope))) {
-								// if the screen geometry fully covers the tile,
-								// don't bother carrying it forward
-								footprintWithinTileScreenGeom = null;
-							}
-						}
-						catch (final TransformException e) {
-							LOGGER.warn(
-									"Unable to calculate geometry of footprint for tile",
-									e);
-						}
-
-						Interpolation tileInterpolation = defaultInterpolation;
-						final int dataType = originalData.getRenderedImage().getSampleModel().getDataType();
-
-						// TODO a JAI bug "workaround" in GeoTools does not
-						// work, this is a workaround for the GeoTools bug
-						// see https://jira.codehaus.org/browse/GEOT-3585, and
-						// line 666-698 of
-						// org.geotools.coverage.processing.operation.Resampler2D
-						// (gt-coverage-12.1)
-						if ((dataType == DataBuffer.TYPE_FLOAT) || (dataType == DataBuffer.TYPE_DOUBLE)) {
-							final Envelope tileEnvelope = insertionIdGeometry.getEnvelope();
-							final ReferencedEnvelope tileReferencedEnvelope = new ReferencedEnvelope(
-									new com.vividsolutions.jts.geom.Envelope(
-											tileEnvelope.getMinimum(0),
-											tileEnvelope.getMaximum(0),
-											tileEnvelope.getMinimum(1),
-											tileEnvelope.getMaximum(1)),
-									GeoWaveGTRasterFormat.DEFAULT_CRS);
-							final Geometry tileJTSGeometry = new GeometryFactory().toGeometry(tileReferencedEnvelope);
-							if (!footprint.contains(tileJTSGeometry)) {
-								tileInterpolation = Interpolation.getInstance(Interpolation.INTERP_NEAREST);
-							}
-						}
-						final GridCoverage resampledCoverage = (GridCoverage) getResampleOperations().resample(
-								originalData,
-								GeoWaveGTRasterFormat.DEFAULT_CRS,
-								insertionIdGeometry,
-								tileInterpolation,
-								backgroundValuesPerBand);
-						// NOTE: for now this is commented out, but beware the
-						// resample operation under certain conditions,
-						// this requires more investigation rather than adding a
-						// hacky fix
-
-						// sometimes the resample results in an image that is
-						// not tileSize in width and height although the
-						// insertionIdGeometry is telling it to resample to
-						// tileSize
-
-						// in these cases, check and perform a rescale to
-						// finalize the grid coverage to guarantee it is the
-						// correct tileSize
-
-						// final GridEnvelope e =
-						// resampledCoverage.getGridGeometry().getGridRange();
-						// boolean resize = false;
-
-						// for (int d = 0; d < e.getDimension(); d++) {
-						// if (e.getSpan(d) != tileSize) {
-						// resize = true;
-						// break;
-						// }
-						// }
-						// if (resize) {
-						// resampledCoverage = Operations.DEFAULT.scale(
-						// resampledCoverage,
-						// (double) tileSize / (double) e.getSpan(0),
-						// (double) tileSize / (double) e.getSpan(1),
-						// -resampledCoverage.getRenderedImage().getMinX(),
-						// -resampledCoverage.getRenderedImage().getMinY());
-						// }
-						// if ((resampledCoverage.getRenderedImage().getWidth()
-						// != tileSize) ||
-						// (resampledCoverage.getRenderedImage().getHeight() !=
-						// tileSize) ||
-						// (resampledCoverage.getRenderedImage().getMinX() != 0)
-						// || (resampledCoverage.getRenderedImage().getMinY() !=
-						// 0)) {
-						// resampledCoverage = Operations.DEFAULT.scale(
-						// resampledCoverage,
-						// 1,
-						// 1,
-						// -resampledCoverage.getRenderedImage().getMinX(),
-						// -resampledCoverage.getRenderedImage().getMinY());
-						// }
-						return new FitToIndexGridCoverage(
-								resampledCoverage,
-								insertionId,
-								new Resolution(
-										pixelRes),
-								originalEnvelope,
-								footprintWithinTileWorldGeom,
-								footprintWithinTileScreenGeom);
-					}
-					catch (IllegalArgumentException | NoninvertibleTransformException e) {
-						LOGGER.warn(
-								"Unable to calculate transformation for grid coordinates on write",
-								e);
-					}
-					return null;
+					return buildTile(
+							pyramidLevel,
+							insertionIds.next(),
+							originalData);
 				}
 
 				@Override
@@ -759,6 +592,209 @@ public class RasterDataAdapter implements
 				}
 			};
 		}
+
+		/**
+		 * Resample the source data to the extent of a single insertion ID
+		 *
+		 * @param pyramidLevel
+		 *            the pyramid level of the tile
+		 * @param insertionId
+		 *            the insertion ID of the tile
+		 * @param sourceData
+		 *            the data to resample, either the original data or a mosaic
+		 *            of higher resolution tiles that covers the tile
+		 * @return the tile, or null if the tile can not be created
+		 */
+		public GridCoverage buildTile(
+				final SubStrategy pyramidLevel,
+				final ByteArrayId insertionId,
+				final GridCoverage sourceData ) {
+			if (insertionId == null) {
+				return null;
+			}
+			final MultiDimensionalNumericData rangePerDimension = pyramidLevel.getIndexStrategy().getRangeForId(
+					insertionId);
+			final NumericDimensionDefinition[] dimensions = pyramidLevel.getIndexStrategy().getOrderedDimensionDefinitions();
+			int longitudeIndex = 0, latitudeIndex = 1;
+			final double[] minDP = new double[2];
+			final double[] maxDP = new double[2];
+			for (int d = 0; d < dimensions.length; d++) {
+				if (dimensions[d] instanceof LatitudeDefinition) {
+					latitudeIndex = d;
+					minDP[1] = originalBounds.getMinValuesPerDimension()[d];
+					maxDP[1] = originalBounds.getMaxValuesPerDimension()[d];
+				}
+				else if (dimensions[d] instanceof LongitudeDefinition) {
+					longitudeIndex = d;
+					minDP[0] = originalBounds.getMinValuesPerDimension()[d];
+					maxDP[0] = originalBounds.getMaxValuesPerDimension()[d];
+				}
+			}
+
+			final Envelope originalEnvelope = new GeneralEnvelope(
+					minDP,
+					maxDP);
+			final double[] minsPerDimension = rangePerDimension.getMinValuesPerDimension();
+			final double[] maxesPerDimension = rangePerDimension.getMaxValuesPerDimension();
+			final ReferencedEnvelope mapExtent = new ReferencedEnvelope(
+					minsPerDimension[longitudeIndex],
+					maxesPerDimension[longitudeIndex],
+					minsPerDimension[latitudeIndex],
+					maxesPerDimension[latitudeIndex],
+					GeoWaveGTRasterFormat.DEFAULT_CRS);
+			final AffineTransform worldToScreenTransform = RendererUtilities.worldToScreenTransform(
+					mapExtent,
+					new Rectangle(
+							tileSize,
+							tileSize));
+			GridGeometry2D insertionIdGeometry;
+			try {
+				final AffineTransform2D gridToCRS = new AffineTransform2D(
+						worldToScreenTransform.createInverse());
+				insertionIdGeometry = new GridGeometry2D(
+						new GridEnvelope2D(
+								new Rectangle(
+										tileSize,
+										tileSize)),
+						PixelInCell.CELL_CORNER,
+						gridToCRS,
+						GeoWaveGTRasterFormat.DEFAULT_CRS,
+						null);
+
+				final double[] tileRes = pyramidLevel.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
+				final double[] pixelRes = new double[tileRes.length];
+				for (int d = 0; d < tileRes.length; d++) {
+					pixelRes[d] = tileRes[d] / tileSize;
+				}
+				Geometry footprintWithinTileWorldGeom = null;
+				Geometry footprintWithinTileScreenGeom = null;
+				try {
+					final Geometry wholeFootprintScreenGeom = JTS.transform(
+							footprint,
+							new AffineTransform2D(
+									worldToScreenTransform));
+					final com.vividsolutions.jts.geom.Envelope fullTileEnvelope = new com.vividsolutions.jts.geom.Envelope(
+							0,
+							tileSize,
+							0,
+							tileSize);
+					final GeometryClipper tileClipper = new GeometryClipper(
+							fullTileEnvelope);
+					footprintWithinTileScreenGeom = tileClipper.clip(
+							wholeFootprintScreenGeom,
+							true);
+					if (footprintWithinTileScreenGeom == null) {
+						// for some reason the original image footprint
+						// falls outside this insertion ID
+						LOGGER.warn("Original footprint geometry (" + sourceData.getGridGeometry() + ") falls outside the insertion bounds (" + insertionIdGeometry + ")");
+						return null;
+					}
+					footprintWithinTileWorldGeom = JTS.transform(
+							footprintWithinTileScreenGeom,
+							gridToCRS);
+					if (footprintWithinTileScreenGeom.covers(new GeometryFactory().toGeometry(fullTileEnvelope))) {
+						// if the screen geometry fully covers the tile,
+						// don't bother carrying it forward
+						footprintWithinTileScreenGeom = null;
+					}
+				}
+				catch (final TransformException e) {
+					LOGGER.warn(
+							"Unable to calculate geometry of footprint for tile",
+							e);
+				}
+
+				Interpolation tileInterpolation = defaultInterpolation;
+				final int dataType = sourceData.getRenderedImage().getSampleModel().getDataType();
+
+				// TODO a JAI bug "workaround" in GeoTools does not
+				// work, this is a workaround for the GeoTools bug
+				// see https://jira.codehaus.org/browse/GEOT-3585, and
+				// line 666-698 of
+				// org.geotools.coverage.processing.operation.Resampler2D
+				// (gt-coverage-12.1)
+				if ((dataType == DataBuffer.TYPE_FLOAT) || (dataType == DataBuffer.TYPE_DOUBLE)) {
+					final Envelope tileEnvelope = insertionIdGeometry.getEnvelope();
+					final ReferencedEnvelope tileReferencedEnvelope = new ReferencedEnvelope(
+							new com.vividsolutions.jts.geom.Envelope(
+									tileEnvelope.getMinimum(0),
+									tileEnvelope.getMaximum(0),
+									tileEnvelope.getMinimum(1),
+									tileEnvelope.getMaximum(1)),
+							GeoWaveGTRasterFormat.DEFAULT_CRS);
+					final Geometry tileJTSGeometry = new GeometryFactory().toGeometry(tileReferencedEnvelope);
+					if (!footprint.contains(tileJTSGeometry)) {
+						tileInterpolation = Interpolation.getInstance(Interpolation.INTERP_NEAREST);
+					}
+				}
+				final GridCoverage resampledCoverage = (GridCoverage) getResampleOperations().resample(
+						sourceData,
+						GeoWaveGTRasterFormat.DEFAULT_CRS,
+						insertionIdGeometry,
+						tileInterpolation,
+						backgroundValuesPerBand);
+				// NOTE: for now this is commented out, but beware the
+				// resample operation under certain conditions,
+				// this requires more investigation rather than adding a
+				// hacky fix
+
+				// sometimes the resample results in an image that is
+				// not tileSize in width and height although the
+				// insertionIdGeometry is telling it to resample to
+				// tileSize
+
+				// in these cases, check and perform a rescale to
+				// finalize the grid coverage to guarantee it is the
+				// correct tileSize
+
+				// final GridEnvelope e =
+				// resampledCoverage.getGridGeometry().getGridRange();
+				// boolean resize = false;
+
+				// for (int d = 0; d < e.getDimension(); d++) {
+				// if (e.getSpan(d) != tileSize) {
+				// resize = true;
+				// break;
+				// }
+				// }
+				// if (resize) {
+				// resampledCoverage = Operations.DEFAULT.scale(
+				// resampledCoverage,
+				// (double) tileSize / (double) e.getSpan(0),
+				// (double) tileSize / (double) e.getSpan(1),
+				// -resampledCoverage.getRenderedImage().getMinX(),
+				// -resampledCoverage.getRenderedImage().getMinY());
+				// }
+				// if ((resampledCoverage.getRenderedImage().getWidth()
+				// != tileSize) ||
+				// (resampledCoverage.getRenderedImage().getHeight() !=
+				// tileSize) ||
+				// (resampledCoverage.getRenderedImage().getMinX() != 0)
+				// || (resampledCoverage.getRenderedImage().getMinY() !=
+				// 0)) {
+				// resampledCoverage = Operations.DEFAULT.scale(
+				// resampledCoverage,
+				// 1,
+				// 1,
+				// -resampledCoverage.getRenderedImage().getMinX(),
+				// -resampledCoverage.getRenderedImage().getMinY());
+				// }
+				return new FitToIndexGridCoverage(
+						resampledCoverage,
+						insertionId,
+						new Resolution(
+								pixelRes),
+						originalEnvelope,
+						footprintWithinTileWorldGeom,
+						footprintWithinTileScreenGeom);
+			}
+			catch (IllegalArgumentException | NoninvertibleTransformException e) {
+				LOGGER.warn(
+						"Unable to calculate transformation for grid coordinates on write",
+						e);
+			}
+			return null;
+		}
 	}
 
 	private static synchronized Operations getResampleOperations() {
@@ -1090,6 +1126,11 @@ public class RasterDataAdapter implements
 				getRasterTileFromCoverage(entry)));
 		final AdapterPersistenceEncoding encoding;
 		if (entry instanceof FitToIndexGridCoverage) {
+			// the stored tile will be merged with this tile so any decoded
+			// copy of it is no longer valid
+			RasterTileCache.invalidateTile(
+					getAdapterId(),
+					((FitToIndexGridCoverage) entry).getInsertionId());
 			encoding = new FitToIndexPersistenceEncoding(
 					getAdapterId(),
 					new ByteArrayId(
@@ -1564,6 +1605,20 @@ public class RasterDataAdapter implements
 		return tileSize;
 	}
 
+	public int getPyramidThreads() {
+		return pyramidThreads;
+	}
+
+	/**
+	 * Set the number of threads used to tile the pyramid levels of each grid
+	 * coverage that is written with this adapter, this is only used when
+	 * building a pyramid
+	 */
+	public void setPyramidThreads(
+			final int pyramidThreads ) {
+		this.pyramidThreads = pyramidThreads;
+	}
+
 	private static final class SimplifiedGridSampleDimension extends
 			GridSampleDimension implements
 			SampleDimension
@@ -1,16 +1,10 @@
 package mil.nga.giat.geowave.adapter.raster.adapter;
 
 import java.awt.image.DataBuffer;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 
-import javax.media.jai.remote.SerializableState;
-import javax.media.jai.remote.SerializerFactory;
-
+import mil.nga.giat.geowave.adapter.raster.adapter.codec.DataBufferEncoding;
 import mil.nga.giat.geowave.core.index.Mergeable;
 import mil.nga.giat.geowave.core.index.Persistable;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
@@ -45,35 +39,14 @@ public class RasterTile<T extends Persistable> implements
 
 	protected static byte[] getDataBufferBinary(
 			final DataBuffer dataBuffer ) {
-		final SerializableState serializableDataBuffer = SerializerFactory.getState(dataBuffer);
-		try {
-			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			final ObjectOutputStream oos = new ObjectOutputStream(
-					baos);
-			oos.writeObject(serializableDataBuffer);
-			return baos.toByteArray();
-		}
-		catch (final IOException e) {
-			LOGGER.warn(
-					"Unable to serialize data buffer",
-					e);
-		}
-		return new byte[] {};
+		return DataBufferEncoding.toBinary(dataBuffer);
 	}
 
 	protected static DataBuffer getDataBuffer(
 			final byte[] binary )
 			throws IOException,
 			ClassNotFoundException {
-		final ByteArrayInputStream bais = new ByteArrayInputStream(
-				binary);
-		final ObjectInputStream ois = new ObjectInputStream(
-				bais);
-		final Object o = ois.readObject();
-		if ((o instanceof SerializableState) && (((SerializableState) o).getObject() instanceof DataBuffer)) {
-			return (DataBuffer) ((SerializableState) o).getObject();
-		}
-		return null;
+		return DataBufferEncoding.fromBinary(binary);
 	}
 
 	@Override
@@ -0,0 +1,49 @@
+package mil.nga.giat.geowave.adapter.raster.adapter.codec;
+
+import java.io.IOException;
+
+/**
+ * A codec transforms the raw big-endian samples of a data buffer before they
+ * are persisted. The ID of the codec is persisted with each tile so the ID of
+ * a codec must never change once tiles have been written with it. Codecs are
+ * registered with DataBufferEncoding.
+ */
+public interface DataBufferCodec
+{
+	/**
+	 * @return the unique ID persisted with each encoded tile
+	 */
+	public byte getId();
+
+	/**
+	 * @return the name used to select this codec
+	 */
+	public String getName();
+
+	/**
+	 * @param raw
+	 *            the samples of every bank, one after another, each sample
+	 *            in big-endian order
+	 * @param sampleSize
+	 *            the number of bytes in each sample
+	 * @return the encoded samples
+	 */
+	public byte[] encode(
+			byte[] raw,
+			int sampleSize );
+
+	/**
+	 * @param encoded
+	 *            the encoded samples
+	 * @param rawLength
+	 *            the number of bytes of the raw samples
+	 * @param sampleSize
+	 *            the number of bytes in each sample
+	 * @return the raw samples
+	 */
+	public byte[] decode(
+			byte[] encoded,
+			int rawLength,
+			int sampleSize )
+			throws IOException;
+}
@@ -0,0 +1,384 @@
+package mil.nga.giat.geowave.adapter.raster.adapter.codec;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.media.jai.remote.SerializableState;
+import javax.media.jai.remote.SerializerFactory;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This persists data buffers as their raw samples, transformed by a codec,
+ * behind a small header describing the type and layout of the banks. This is
+ * far more compact and faster to read than the Java serialization of the
+ * buffer that was used originally, and which can still be read. Buffers that
+ * are not one of the standard java.awt.image types are still written with
+ * Java serialization.
+ *
+ * The codec that is written can be chosen with the system property
+ * "DataBufferEncoding.codec" set to the name of a registered codec and
+ * defaults to the predictor codec. Tiles are always read with the codec they
+ * were written with.
+ */
+public class DataBufferEncoding
+{
+	private final static Logger LOGGER = Logger.getLogger(DataBufferEncoding.class);
+	// the first byte of a Java serialization stream is always 0xAC, so this
+	// version can be distinguished from the original encoding
+	private static final byte ENCODING_VERSION = 1;
+	private static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xAC;
+	public static final String CODEC_PROPERTY = "DataBufferEncoding.codec";
+
+	private static final Map<Byte, DataBufferCodec> CODECS_BY_ID = new ConcurrentHashMap<Byte, DataBufferCodec>();
+	private static final Map<String, DataBufferCodec> CODECS_BY_NAME = new ConcurrentHashMap<String, DataBufferCodec>();
+	private static volatile DataBufferCodec defaultCodec;
+
+	static {
+		registerCodec(new UncompressedCodec());
+		registerCodec(new DeflateCodec());
+		registerCodec(new PredictorDeflateCodec());
+		defaultCodec = CODECS_BY_ID.get(PredictorDeflateCodec.ID);
+		final String codecName = System.getProperty(CODEC_PROPERTY);
+		if (codecName != null) {
+			setDefaultCodec(codecName);
+		}
+	}
+
+	/**
+	 * Registers a codec so that tiles written with it can be read, and so it
+	 * can be selected by name
+	 */
+	public static void registerCodec(
+			final DataBufferCodec codec ) {
+		final DataBufferCodec existing = CODECS_BY_ID.get(codec.getId());
+		if ((existing != null) && !existing.getClass().equals(
+				codec.getClass())) {
+			throw new IllegalArgumentException(
+					"Codec ID " + codec.getId() + " is already registered to " + existing.getClass().getName());
+		}
+		CODECS_BY_ID.put(
+				codec.getId(),
+				codec);
+		CODECS_BY_NAME.put(
+				codec.getName().toLowerCase(),
+				codec);
+	}
+
+	public static void setDefaultCodec(
+			final String codecName ) {
+		final DataBufferCodec codec = getCodec(codecName);
+		if (codec == null) {
+			LOGGER.warn("Data buffer codec '" + codecName + "' is not registered, using '" + defaultCodec.getName() + "'");
+			return;
+		}
+		defaultCodec = codec;
+	}
+
+	public static DataBufferCodec getDefaultCodec() {
+		return defaultCodec;
+	}
+
+	/**
+	 * @return the registered codec with the given name, or null if there is
+	 *         none
+	 */
+	public static DataBufferCodec getCodec(
+			final String codecName ) {
+		return CODECS_BY_NAME.get(codecName.trim().toLowerCase());
+	}
+
+	public static byte[] toBinary(
+			final DataBuffer dataBuffer ) {
+		return toBinary(
+				dataBuffer,
+				defaultCodec);
+	}
+
+	public static byte[] toBinary(
+			final DataBuffer dataBuffer,
+			final DataBufferCodec codec ) {
+		final int sampleSize = getSampleSize(dataBuffer);
+		if (sampleSize < 0) {
+			return toJavaSerializedBinary(dataBuffer);
+		}
+		final int numBanks = dataBuffer.getNumBanks();
+		final int[] offsets = dataBuffer.getOffsets();
+		final int[] bankLengths = new int[numBanks];
+		int sampleCount = 0;
+		for (int b = 0; b < numBanks; b++) {
+			bankLengths[b] = getBankLength(
+					dataBuffer,
+					b);
+			sampleCount += bankLengths[b];
+		}
+		final ByteBuffer raw = ByteBuffer.allocate(sampleCount * sampleSize);
+		for (int b = 0; b < numBanks; b++) {
+			putBank(
+					dataBuffer,
+					b,
+					raw);
+		}
+		final byte[] encoded = codec.encode(
+				raw.array(),
+				sampleSize);
+		final ByteBuffer buf = ByteBuffer.allocate(11 + (8 * numBanks) + encoded.length);
+		buf.put(ENCODING_VERSION);
+		buf.put(codec.getId());
+		buf.put((byte) dataBuffer.getDataType());
+		buf.putInt(dataBuffer.getSize());
+		buf.putInt(numBanks);
+		for (int b = 0; b < numBanks; b++) {
+			buf.putInt(offsets[b]);
+			buf.putInt(bankLengths[b]);
+		}
+		buf.put(encoded);
+		return buf.array();
+	}
+
+	public static DataBuffer fromBinary(
+			final byte[] binary )
+			throws IOException,
+			ClassNotFoundException {
+		if ((binary.length == 0) || (binary[0] == JAVA_SERIALIZATION_MAGIC)) {
+			return fromJavaSerializedBinary(binary);
+		}
+		final ByteBuffer buf = ByteBuffer.wrap(binary);
+		final byte version = buf.get();
+		if (version != ENCODING_VERSION) {
+			throw new IOException(
+					"Unsupported data buffer encoding version " + version);
+		}
+		final byte codecId = buf.get();
+		final DataBufferCodec codec = CODECS_BY_ID.get(codecId);
+		if (codec == null) {
+			throw new IOException(
+					"Data buffer codec with ID " + codecId + " is not registered");
+		}
+		final int dataType = buf.get();
+		final int size = buf.getInt();
+		final int numBanks = buf.getInt();
+		final int[] offsets = new int[numBanks];
+		final int[] bankLengths = new int[numBanks];
+		int sampleCount = 0;
+		for (int b = 0; b < numBanks; b++) {
+			offsets[b] = buf.getInt();
+			bankLengths[b] = buf.getInt();
+			sampleCount += bankLengths[b];
+		}
+		final int sampleSize = DataBuffer.getDataTypeSize(dataType) / 8;
+		final byte[] encoded = new byte[buf.remaining()];
+		buf.get(encoded);
+		final ByteBuffer raw = ByteBuffer.wrap(codec.decode(
+				encoded,
+				sampleCount * sampleSize,
+				sampleSize));
+		switch (dataType) {
+			case DataBuffer.TYPE_BYTE: {
+				final byte[][] banks = new byte[numBanks][];
+				for (int b = 0; b < numBanks; b++) {
+					banks[b] = new byte[bankLengths[b]];
+					raw.get(banks[b]);
+				}
+				return new DataBufferByte(
+						banks,
+						size,
+						offsets);
+			}
+			case DataBuffer.TYPE_USHORT: {
+				final short[][] banks = new short[numBanks][];
+				for (int b = 0; b < numBanks; b++) {
+					banks[b] = new short[bankLengths[b]];
+					raw.asShortBuffer().get(
+							banks[b]);
+					raw.position(raw.position() + (bankLengths[b] * 2));
+				}
+				return new DataBufferUShort(
+						banks,
+						size,
+						offsets);
+			}
+			case DataBuffer.TYPE_SHORT: {
+				final short[][] banks = new short[numBanks][];
+				for (int b = 0; b < numBanks; b++) {
+					banks[b] = new short[bankLengths[b]];
+					raw.asShortBuffer().get(
+							banks[b]);
+					raw.position(raw.position() + (bankLengths[b] * 2));
+				}
+				return new DataBufferShort(
+						banks,
+						size,
+						offsets);
+			}
+			case DataBuffer.TYPE_INT: {
+				final int[][] banks = new int[numBanks][];
+				for (int b = 0; b < numBanks; b++) {
+					banks[b] = new int[bankLengths[b]];
+					raw.asIntBuffer().get(
+							banks[b]);
+					raw.position(raw.position() + (bankLengths[b] * 4));
+				}
+				return new DataBufferInt(
+						banks,
+						size,
+						offsets);
+			}
+			case DataBuffer.TYPE_FLOAT: {
+				final float[][] banks = new float[numBanks][];
+				for (int b = 0; b < numBanks; b++) {
+					banks[b] = new float[bankLengths[b]];
+					raw.asFloatBuffer().get(
+							banks[b]);
+					raw.position(raw.position() + (bankLengths[b] * 4));
+				}
+				return new DataBufferFloat(
+						banks,
+						size,
+						offsets);
+			}
+			case DataBuffer.TYPE_DOUBLE: {
+				final double[][] banks = new double[numBanks][];
+				for (int b = 0; b < numBanks; b++) {
+					banks[b] = new double[bankLengths[b]];
+					raw.asDoubleBuffer().get(
+							banks[b]);
+					raw.position(raw.position() + (bankLengths[b] * 8));
+				}
+				return new DataBufferDouble(
+						banks,
+						size,
+						offsets);
+			}
+			default:
+				throw new IOException(
+						"Unsupported data buffer type " + dataType);
+		}
+	}
+
+	/**
+	 * This is the original encoding, the Java serialization of the JAI
+	 * serializable state of the buffer
+	 */
+	public static byte[] toJavaSerializedBinary(
+			final DataBuffer dataBuffer ) {
+		final SerializableState serializableDataBuffer = SerializerFactory.getState(dataBuffer);
+		try {
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final ObjectOutputStream oos = new ObjectOutputStream(
+					baos);
+			oos.writeObject(serializableDataBuffer);
+			oos.flush();
+			return baos.toByteArray();
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to serialize data buffer",
+					e);
+		}
+		return new byte[] {};
+	}
+
+	private static DataBuffer fromJavaSerializedBinary(
+			final byte[] binary )
+			throws IOException,
+			ClassNotFoundException {
+		final ByteArrayInputStream bais = new ByteArrayInputStream(
+				binary);
+		final ObjectInputStream ois = new ObjectInputStream(
+				bais);
+		final Object o = ois.readObject();
+		if ((o instanceof SerializableState) && (((SerializableState) o).getObject() instanceof DataBuffer)) {
+			return (DataBuffer) ((SerializableState) o).getObject();
+		}
+		return null;
+	}
+
+	/**
+	 * @return the size in bytes of each sample, or -1 if the buffer is not a
+	 *         standard type that can be encoded as raw samples
+	 */
+	private static int getSampleSize(
+			final DataBuffer dataBuffer ) {
+		// subclasses are left to Java serialization so they are read back as
+		// the same class
+		final Class<?> bufferClass = dataBuffer.getClass();
+		if (bufferClass.equals(DataBufferByte.class) || bufferClass.equals(DataBufferUShort.class) || bufferClass.equals(DataBufferShort.class) || bufferClass.equals(DataBufferInt.class) || bufferClass.equals(DataBufferFloat.class) || bufferClass.equals(DataBufferDouble.class)) {
+			return DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+		}
+		return -1;
+	}
+
+	private static int getBankLength(
+			final DataBuffer dataBuffer,
+			final int bank ) {
+		if (dataBuffer instanceof DataBufferByte) {
+			return ((DataBufferByte) dataBuffer).getData(bank).length;
+		}
+		if (dataBuffer instanceof DataBufferUShort) {
+			return ((DataBufferUShort) dataBuffer).getData(bank).length;
+		}
+		if (dataBuffer instanceof DataBufferShort) {
+			return ((DataBufferShort) dataBuffer).getData(bank).length;
+		}
+		if (dataBuffer instanceof DataBufferInt) {
+			return ((DataBufferInt) dataBuffer).getData(bank).length;
+		}
+		if (dataBuffer instanceof DataBufferFloat) {
+			return ((DataBufferFloat) dataBuffer).getData(bank).length;
+		}
+		return ((DataBufferDouble) dataBuffer).getData(bank).length;
+	}
+
+	private static void putBank(
+			final DataBuffer dataBuffer,
+			final int bank,
+			final ByteBuffer raw ) {
+		final int position = raw.position();
+		final int length = getBankLength(
+				dataBuffer,
+				bank);
+		if (dataBuffer instanceof DataBufferByte) {
+			raw.put(((DataBufferByte) dataBuffer).getData(bank));
+			return;
+		}
+		if (dataBuffer instanceof DataBufferUShort) {
+			raw.asShortBuffer().put(
+					((DataBufferUShort) dataBuffer).getData(bank));
+			raw.position(position + (length * 2));
+		}
+		else if (dataBuffer instanceof DataBufferShort) {
+			raw.asShortBuffer().put(
+					((DataBufferShort) dataBuffer).getData(bank));
+			raw.position(position + (length * 2));
+		}
+		else if (dataBuffer instanceof DataBufferInt) {
+			raw.asIntBuffer().put(
+					((DataBufferInt) dataBuffer).getData(bank));
+			raw.position(position + (length * 4));
+		}
+		else if (dataBuffer instanceof DataBufferFloat) {
+			raw.asFloatBuffer().put(
+					((DataBufferFloat) dataBuffer).getData(bank));
+			raw.position(position + (length * 4));
+		}
+		else {
+			raw.asDoubleBuffer().put(
+					((DataBufferDouble) dataBuffer).getData(bank));
+			raw.position(position + (length * 8));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package mil.nga.giat.geowave.adapter.raster.adapter.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the raw samples with deflate. This works well for imagery with
+ * large uniform areas such as no data, but poorly for floating point samples
+ * whose low order bytes are noisy.
+ */
+public class DeflateCodec implements
+		DataBufferCodec
+{
+	public static final byte ID = 1;
+	public static final String NAME = "deflate";
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public byte[] encode(
+			final byte[] raw,
+			final int sampleSize ) {
+		return deflate(raw);
+	}
+
+	@Override
+	public byte[] decode(
+			final byte[] encoded,
+			final int rawLength,
+			final int sampleSize )
+			throws IOException {
+		return inflate(
+				encoded,
+				rawLength);
+	}
+
+	protected static byte[] deflate(
+			final byte[] raw ) {
+		// favor speed, tiles are decoded far more often than they are encoded
+		// but the compression ratio gained by higher levels is small
+		final Deflater deflater = new Deflater(
+				Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(raw);
+			deflater.finish();
+			final ByteArrayOutputStream out = new ByteArrayOutputStream(
+					Math.max(
+							64,
+							raw.length / 2));
+			final byte[] chunk = new byte[8192];
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(chunk);
+				out.write(
+						chunk,
+						0,
+						length);
+			}
+			return out.toByteArray();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	protected static byte[] inflate(
+			final byte[] encoded,
+			final int rawLength )
+			throws IOException {
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(encoded);
+			final byte[] raw = new byte[rawLength];
+			int offset = 0;
+			while ((offset < rawLength) && !inflater.finished()) {
+				final int length = inflater.inflate(
+						raw,
+						offset,
+						rawLength - offset);
+				if ((length == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				offset += length;
+			}
+			if (offset != rawLength) {
+				throw new IOException(
+						"Expected " + rawLength + " bytes of samples but found " + offset);
+			}
+			return raw;
+		}
+		catch (final DataFormatException e) {
+			throw new IOException(
+					"Unable to inflate samples",
+					e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+}
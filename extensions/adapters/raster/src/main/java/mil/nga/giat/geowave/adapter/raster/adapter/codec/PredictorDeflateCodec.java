@@ -0,0 +1,69 @@
+package mil.nga.giat.geowave.adapter.raster.adapter.codec;
+
+import java.io.IOException;
+
+/**
+ * Applies a predictor to the raw samples before compressing them with
+ * deflate, similar to the floating point predictor of TIFF. The bytes of the
+ * samples are first split into planes, so that the most significant byte of
+ * every sample is followed by the next most significant byte of every sample
+ * and so on, and then each byte is replaced by its difference from the
+ * previous byte. Neighboring samples of imagery and elevation data tend to be
+ * close in value, so the high order planes become mostly zeros which compress
+ * much better than the interleaved samples.
+ */
+public class PredictorDeflateCodec implements
+		DataBufferCodec
+{
+	public static final byte ID = 2;
+	public static final String NAME = "predictor";
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public byte[] encode(
+			final byte[] raw,
+			final int sampleSize ) {
+		final byte[] predicted = new byte[raw.length];
+		final int sampleCount = raw.length / sampleSize;
+		for (int i = 0; i < sampleCount; i++) {
+			for (int b = 0; b < sampleSize; b++) {
+				predicted[(b * sampleCount) + i] = raw[(i * sampleSize) + b];
+			}
+		}
+		for (int i = predicted.length - 1; i > 0; i--) {
+			predicted[i] -= predicted[i - 1];
+		}
+		return DeflateCodec.deflate(predicted);
+	}
+
+	@Override
+	public byte[] decode(
+			final byte[] encoded,
+			final int rawLength,
+			final int sampleSize )
+			throws IOException {
+		final byte[] predicted = DeflateCodec.inflate(
+				encoded,
+				rawLength);
+		for (int i = 1; i < predicted.length; i++) {
+			predicted[i] += predicted[i - 1];
+		}
+		final byte[] raw = new byte[rawLength];
+		final int sampleCount = rawLength / sampleSize;
+		for (int i = 0; i < sampleCount; i++) {
+			for (int b = 0; b < sampleSize; b++) {
+				raw[(i * sampleSize) + b] = predicted[(b * sampleCount) + i];
+			}
+		}
+		return raw;
+	}
+}
@@ -0,0 +1,43 @@
+package mil.nga.giat.geowave.adapter.raster.adapter.codec;
+
+import java.io.IOException;
+
+/**
+ * Persists the raw samples as they are
+ */
+public class UncompressedCodec implements
+		DataBufferCodec
+{
+	public static final byte ID = 0;
+	public static final String NAME = "none";
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public byte[] encode(
+			final byte[] raw,
+			final int sampleSize ) {
+		return raw;
+	}
+
+	@Override
+	public byte[] decode(
+			final byte[] encoded,
+			final int rawLength,
+			final int sampleSize )
+			throws IOException {
+		if (encoded.length != rawLength) {
+			throw new IOException(
+					"Expected " + rawLength + " bytes of samples but found " + encoded.length);
+		}
+		return encoded;
+	}
+}
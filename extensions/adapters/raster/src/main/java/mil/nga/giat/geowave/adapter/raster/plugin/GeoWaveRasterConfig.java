@@ -18,6 +18,8 @@ public class GeoWaveRasterConfig
 {
 
 	static private final Map<String, GeoWaveRasterConfig> CONFIG_CACHE = new Hashtable<String, GeoWaveRasterConfig>();
+	// tiles ingested by other processes are picked up within this time
+	public static final int DEFAULT_TILE_CACHE_EXPIRATION_SECONDS = 300;
 
 	protected static enum ConfigParameter {
 		ZOOKEEPER_URLS(
@@ -35,7 +37,13 @@ public class GeoWaveRasterConfig
 		INTERPOLATION(
 				"interpolationOverride"),
 		EQUALIZE_HISTOGRAM(
-				"equalizeHistogramOverride");
+				"equalizeHistogramOverride"),
+		// the following two are optional parameters that enable caching of
+		// decoded tiles shared by every reader of the same namespace
+		TILE_CACHE_SIZE(
+				"tileCacheSizeMB"),
+		TILE_CACHE_EXPIRATION(
+				"tileCacheExpirationSeconds");
 		private String configName;
 
 		private ConfigParameter(
@@ -64,6 +72,10 @@ public class GeoWaveRasterConfig
 
 	private Integer interpolationOverride = null;
 
+	private Integer tileCacheSizeMB = null;
+
+	private Integer tileCacheExpirationSeconds = null;
+
 	protected GeoWaveRasterConfig() {}
 
 	public static GeoWaveRasterConfig createConfig(
@@ -158,6 +170,12 @@ public class GeoWaveRasterConfig
 		result.interpolationOverride = readValueInteger(
 				dom,
 				ConfigParameter.INTERPOLATION.getConfigName());
+		result.tileCacheSizeMB = readValueInteger(
+				dom,
+				ConfigParameter.TILE_CACHE_SIZE.getConfigName());
+		result.tileCacheExpirationSeconds = readValueInteger(
+				dom,
+				ConfigParameter.TILE_CACHE_EXPIRATION.getConfigName());
 		CONFIG_CACHE.put(
 				xmlURL.toString(),
 				result);
@@ -214,6 +232,39 @@ public class GeoWaveRasterConfig
 		return equalizeHistogramOverride;
 	}
 
+	public boolean isTileCacheEnabled() {
+		return (tileCacheSizeMB != null) && (tileCacheSizeMB > 0);
+	}
+
+	public long getTileCacheSizeBytes() {
+		if (!isTileCacheEnabled()) {
+			return 0;
+		}
+		return tileCacheSizeMB * 1024L * 1024L;
+	}
+
+	public int getTileCacheExpirationSeconds() {
+		if (tileCacheExpirationSeconds == null) {
+			return DEFAULT_TILE_CACHE_EXPIRATION_SECONDS;
+		}
+		return tileCacheExpirationSeconds;
+	}
+
+	/**
+	 * @param tileCacheSizeMB
+	 *            the size of the decoded tile cache in megabytes, or null to
+	 *            disable the cache
+	 * @param tileCacheExpirationSeconds
+	 *            the time after which cached tiles are queried again, or null
+	 *            to use the default
+	 */
+	public void setTileCache(
+			final Integer tileCacheSizeMB,
+			final Integer tileCacheExpirationSeconds ) {
+		this.tileCacheSizeMB = tileCacheSizeMB;
+		this.tileCacheExpirationSeconds = tileCacheExpirationSeconds;
+	}
+
 	static private String readValueString(
 			final Document dom,
 			final String elemName ) {
@@ -11,8 +11,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.imageio.ImageReadParam;
 import javax.media.jai.Histogram;
@@ -27,15 +30,24 @@ import mil.nga.giat.geowave.adapter.raster.query.IndexOnlySpatialQuery;
 import mil.nga.giat.geowave.adapter.raster.stats.HistogramStatistics;
 import mil.nga.giat.geowave.adapter.raster.stats.OverviewStatistics;
 import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
 import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloRowId;
 import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
@@ -73,6 +85,7 @@ import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 
 /**
@@ -84,6 +97,9 @@ public class GeoWaveRasterReader extends
 		GridCoverage2DReader
 {
 	private final static Logger LOGGER = Logger.getLogger(GeoWaveRasterReader.class);
+	// beyond this many tiles a request is a bulk read rather than a map tile,
+	// so it is not worth caching
+	private static final int MAX_CACHED_TILES_PER_QUERY = 1024;
 
 	private GeoWaveRasterConfig config;
 
@@ -95,6 +111,8 @@ public class GeoWaveRasterReader extends
 
 	private Index rasterIndex;
 
+	private RasterTileCache tileCache;
+
 	protected final static CoordinateOperationFactory OPERATION_FACTORY = new BufferedCoordinateOperationFactory(
 			new Hints(
 					Hints.LENIENT_DATUM_SHIFT,
@@ -193,6 +211,13 @@ public class GeoWaveRasterReader extends
 
 		rasterIndex = IndexType.SPATIAL_RASTER.createDefaultIndex();
 		crs = GeoWaveGTRasterFormat.DEFAULT_CRS;
+
+		if (config.isTileCacheEnabled()) {
+			tileCache = RasterTileCache.getInstance(
+					config.getZookeeperUrls() + "/" + config.getAccumuloInstanceId() + "/" + config.getGeowaveNamespace(),
+					config.getTileCacheSizeBytes(),
+					config.getTileCacheExpirationSeconds());
+		}
 	}
 
 	/**
@@ -696,19 +721,178 @@ public class GeoWaveRasterReader extends
 			final double levelResY,
 			final RasterDataAdapter adapter )
 			throws IOException {
+		final Query query = new IndexOnlySpatialQuery(
+				new GeometryFactory().toGeometry(new Envelope(
+						requestEnvelope.getMinimum(0),
+						requestEnvelope.getMaximum(0),
+						requestEnvelope.getMinimum(1),
+						requestEnvelope.getMaximum(1))));
+		final double[] targetResolutionPerDimension = new double[] {
+			levelResX * adapter.getTileSize(),
+			levelResY * adapter.getTileSize()
+		};
+		if (tileCache != null) {
+			final List<GridCoverage> tiles = queryForCachedTiles(
+					query,
+					targetResolutionPerDimension,
+					adapter);
+			if (tiles != null) {
+				return new CloseableIterator.Wrapper<GridCoverage>(
+						tiles.iterator());
+			}
+		}
 		return geowaveDataStore.query(
+				adapter,
+				rasterIndex,
+				query,
+				targetResolutionPerDimension);
+	}
+
+	/**
+	 * Each tile is stored under a single insertion ID of the tier that fits the
+	 * target resolution, so the insertion IDs covering the query identify the
+	 * tiles to be rendered. Only the insertion IDs that are not cached are
+	 * queried.
+	 *
+	 * @return the tiles covering the query, or null if the query cannot be
+	 *         served by the tile cache
+	 */
+	private List<GridCoverage> queryForCachedTiles(
+			final Query query,
+			final double[] targetResolutionPerDimension,
+			final RasterDataAdapter adapter )
+			throws IOException {
+		final Index tierIndex = RasterDataStore.getIndexForResolution(
+				rasterIndex,
+				targetResolutionPerDimension);
+		if (tierIndex == rasterIndex) {
+			// the index is not tiered so there is no single insertion ID per
+			// tile
+			return null;
+		}
+		final NumericIndexStrategy tierStrategy = tierIndex.getIndexStrategy();
+		final double[] idRangePerDimension = tierStrategy.getHighestPrecisionIdRangePerDimension();
+		final Set<ByteArrayId> insertionIds = new LinkedHashSet<ByteArrayId>();
+		for (final MultiDimensionalNumericData constraints : query.getIndexConstraints(tierStrategy)) {
+			double tileCount = 1;
+			for (int d = 0; d < idRangePerDimension.length; d++) {
+				tileCount *= Math.ceil((constraints.getDataPerDimension()[d].getMax() - constraints.getDataPerDimension()[d].getMin()) / idRangePerDimension[d]) + 1;
+			}
+			if ((tileCount + insertionIds.size()) > MAX_CACHED_TILES_PER_QUERY) {
+				return null;
+			}
+			insertionIds.addAll(tierStrategy.getInsertionIds(constraints));
+		}
+
+		final ByteArrayId adapterId = adapter.getAdapterId();
+		final List<GridCoverage> tiles = new ArrayList<GridCoverage>();
+		final Set<ByteArrayId> missingInsertionIds = new HashSet<ByteArrayId>();
+		for (final ByteArrayId insertionId : insertionIds) {
+			final List<GridCoverage> cachedTiles = tileCache.getTiles(
+					adapterId,
+					insertionId);
+			if (cachedTiles == null) {
+				missingInsertionIds.add(insertionId);
+			}
+			else {
+				tiles.addAll(cachedTiles);
+			}
+		}
+		if (missingInsertionIds.isEmpty()) {
+			return tiles;
+		}
+
+		// query the extent of the missing insertion IDs and keep the tiles of
+		// those insertion IDs, which are identified by their row IDs
+		final ConcurrentMap<ByteArrayId, List<GridCoverage>> scannedTiles = new ConcurrentHashMap<ByteArrayId, List<GridCoverage>>();
+		try (CloseableIterator<GridCoverage> it = geowaveDataStore.query(
 				adapter,
 				rasterIndex,
 				new IndexOnlySpatialQuery(
-						new GeometryFactory().toGeometry(new Envelope(
-								requestEnvelope.getMinimum(0),
-								requestEnvelope.getMaximum(0),
-								requestEnvelope.getMinimum(1),
-								requestEnvelope.getMaximum(1)))),
-				new double[] {
-					levelResX * adapter.getTileSize(),
-					levelResY * adapter.getTileSize()
-				});
+						getExtent(
+								missingInsertionIds,
+								tierStrategy)),
+				targetResolutionPerDimension,
+				new ScanCallback<GridCoverage>() {
+					@Override
+					public void entryScanned(
+							final DataStoreEntryInfo entryInfo,
+							final GridCoverage entry ) {
+						if ((entry == null) || entryInfo.getRowIds().isEmpty()) {
+							return;
+						}
+						final ByteArrayId insertionId = new ByteArrayId(
+								new AccumuloRowId(
+										entryInfo.getRowIds().get(
+												0).getBytes()).getInsertionId());
+						if (missingInsertionIds.contains(insertionId)) {
+							// entries may be decoded in parallel
+							List<GridCoverage> insertionIdTiles = scannedTiles.get(insertionId);
+							if (insertionIdTiles == null) {
+								final List<GridCoverage> newTiles = Collections.synchronizedList(new ArrayList<GridCoverage>());
+								insertionIdTiles = scannedTiles.putIfAbsent(
+										insertionId,
+										newTiles);
+								if (insertionIdTiles == null) {
+									insertionIdTiles = newTiles;
+								}
+							}
+							insertionIdTiles.add(entry);
+						}
+					}
+				})) {
+			while (it.hasNext()) {
+				it.next();
+			}
+		}
+		for (final ByteArrayId insertionId : missingInsertionIds) {
+			List<GridCoverage> insertionIdTiles = scannedTiles.get(insertionId);
+			if (insertionIdTiles == null) {
+				insertionIdTiles = Collections.emptyList();
+			}
+			else {
+				insertionIdTiles = new ArrayList<GridCoverage>(
+						insertionIdTiles);
+				tiles.addAll(insertionIdTiles);
+			}
+			tileCache.putTiles(
+					adapterId,
+					insertionId,
+					insertionIdTiles);
+		}
+		return tiles;
+	}
+
+	private static Geometry getExtent(
+			final Set<ByteArrayId> insertionIds,
+			final NumericIndexStrategy strategy ) {
+		final NumericDimensionDefinition[] orderedDimensions = strategy.getOrderedDimensionDefinitions();
+		final Envelope extent = new Envelope();
+		for (final ByteArrayId insertionId : insertionIds) {
+			final MultiDimensionalNumericData range = strategy.getRangeForId(insertionId);
+			final double[] minsPerDimension = range.getMinValuesPerDimension();
+			final double[] maxesPerDimension = range.getMaxValuesPerDimension();
+			double minX = 0;
+			double maxX = 0;
+			double minY = 0;
+			double maxY = 0;
+			for (int d = 0; d < orderedDimensions.length; d++) {
+				if (orderedDimensions[d] instanceof LongitudeDefinition) {
+					minX = minsPerDimension[d];
+					maxX = maxesPerDimension[d];
+				}
+				else if (orderedDimensions[d] instanceof LatitudeDefinition) {
+					minY = minsPerDimension[d];
+					maxY = maxesPerDimension[d];
+				}
+			}
+			extent.expandToInclude(new Envelope(
+					minX,
+					maxX,
+					minY,
+					maxY));
+		}
+		return new GeometryFactory().toGeometry(extent);
 	}
 
 	private GridCoverage2D transformResult(
@@ -0,0 +1,314 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import org.apache.log4j.Logger;
+import org.opengis.coverage.grid.GridCoverage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+/**
+ * A size bounded cache of decoded raster tiles, shared by every raster reader
+ * of the same GeoWave namespace within the JVM. The tiles are keyed by the
+ * adapter and the index insertion ID of the tile. Because each resolution
+ * level of the raster index is a separate tier, and the tier is the first byte
+ * of the insertion ID, the insertion ID also identifies the resolution of the
+ * tile. An insertion ID that has no tiles is cached as an empty list so that
+ * empty areas are not repeatedly queried.
+ *
+ * Tiles written by this JVM invalidate the cached tile with the same insertion
+ * ID. Tiles written by other processes are picked up once the cached tile
+ * expires. Hit and miss counters are exposed through JMX as
+ * "mil.nga.giat.geowave.adapter.raster:type=RasterTileCache,name=&lt;store&gt;".
+ */
+public class RasterTileCache implements
+		RasterTileCacheMBean
+{
+	private final static Logger LOGGER = Logger.getLogger(RasterTileCache.class);
+	private static final ConcurrentMap<String, RasterTileCache> INSTANCES = new ConcurrentHashMap<String, RasterTileCache>();
+	// the approximate overhead of the coverage, key and entry beyond the
+	// samples of the tile
+	private static final int TILE_OVERHEAD_BYTES = 1024;
+
+	private final long maxSizeBytes;
+	private final Cache<TileKey, List<GridCoverage>> cache;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private final AtomicLong invalidationCount = new AtomicLong();
+
+	protected RasterTileCache(
+			final long maxSizeBytes,
+			final long expirationSeconds ) {
+		this.maxSizeBytes = maxSizeBytes;
+		final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumWeight(
+				maxSizeBytes);
+		if (expirationSeconds > 0) {
+			builder.expireAfterWrite(
+					expirationSeconds,
+					TimeUnit.SECONDS);
+		}
+		cache = builder.weigher(
+				new Weigher<TileKey, List<GridCoverage>>() {
+					@Override
+					public int weigh(
+							final TileKey key,
+							final List<GridCoverage> tiles ) {
+						long weight = TILE_OVERHEAD_BYTES;
+						for (final GridCoverage tile : tiles) {
+							weight += getSizeBytes(tile);
+						}
+						return (int) Math.min(
+								weight,
+								Integer.MAX_VALUE);
+					}
+				}).removalListener(
+				new RemovalListener<TileKey, List<GridCoverage>>() {
+					@Override
+					public void onRemoval(
+							final RemovalNotification<TileKey, List<GridCoverage>> notification ) {
+						if (notification.wasEvicted()) {
+							evictionCount.incrementAndGet();
+						}
+					}
+				}).build();
+	}
+
+	/**
+	 * Get the cache for a GeoWave store, creating it if necessary. The size
+	 * and expiration of a cache are fixed by the first reader to request it.
+	 *
+	 * @param storeName
+	 *            a name that uniquely identifies the GeoWave store
+	 * @param maxSizeBytes
+	 *            the approximate maximum size of the decoded tiles
+	 * @param expirationSeconds
+	 *            the time after which a cached tile is queried again, a
+	 *            non-positive value never expires tiles
+	 */
+	public static RasterTileCache getInstance(
+			final String storeName,
+			final long maxSizeBytes,
+			final long expirationSeconds ) {
+		RasterTileCache tileCache = INSTANCES.get(storeName);
+		if (tileCache == null) {
+			final RasterTileCache newTileCache = new RasterTileCache(
+					maxSizeBytes,
+					expirationSeconds);
+			tileCache = INSTANCES.putIfAbsent(
+					storeName,
+					newTileCache);
+			if (tileCache == null) {
+				tileCache = newTileCache;
+				register(
+						storeName,
+						tileCache);
+			}
+		}
+		return tileCache;
+	}
+
+	private static void register(
+			final String storeName,
+			final RasterTileCache tileCache ) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+					tileCache,
+					new ObjectName(
+							"mil.nga.giat.geowave.adapter.raster:type=RasterTileCache,name=" + ObjectName.quote(storeName)));
+		}
+		catch (final JMException e) {
+			LOGGER.warn(
+					"Unable to register raster tile cache for '" + storeName + "'",
+					e);
+		}
+	}
+
+	/**
+	 * Invalidate a tile in every cache of this JVM, this is called when the
+	 * tile is written because the stored tile may be merged with the new tile
+	 */
+	public static void invalidateTile(
+			final ByteArrayId adapterId,
+			final ByteArrayId insertionId ) {
+		if (INSTANCES.isEmpty()) {
+			return;
+		}
+		for (final RasterTileCache tileCache : INSTANCES.values()) {
+			tileCache.invalidate(
+					adapterId,
+					insertionId);
+		}
+	}
+
+	/**
+	 * @return the cached tiles for the insertion ID, an empty list if the
+	 *         insertion ID is known to have no tiles, or null if it is not
+	 *         cached
+	 */
+	public List<GridCoverage> getTiles(
+			final ByteArrayId adapterId,
+			final ByteArrayId insertionId ) {
+		final List<GridCoverage> tiles = cache.getIfPresent(new TileKey(
+				adapterId,
+				insertionId));
+		if (tiles == null) {
+			missCount.incrementAndGet();
+		}
+		else {
+			hitCount.incrementAndGet();
+		}
+		return tiles;
+	}
+
+	public void putTiles(
+			final ByteArrayId adapterId,
+			final ByteArrayId insertionId,
+			final List<GridCoverage> tiles ) {
+		cache.put(
+				new TileKey(
+						adapterId,
+						insertionId),
+				tiles);
+	}
+
+	public void invalidate(
+			final ByteArrayId adapterId,
+			final ByteArrayId insertionId ) {
+		final TileKey key = new TileKey(
+				adapterId,
+				insertionId);
+		if (cache.asMap().remove(
+				key) != null) {
+			invalidationCount.incrementAndGet();
+		}
+	}
+
+	public void invalidate(
+			final ByteArrayId adapterId ) {
+		final Iterator<TileKey> it = cache.asMap().keySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().adapterId.equals(adapterId)) {
+				it.remove();
+				invalidationCount.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void invalidateAll() {
+		invalidationCount.addAndGet(cache.size());
+		cache.invalidateAll();
+	}
+
+	@Override
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	@Override
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Override
+	public double getHitRatio() {
+		final long hits = hitCount.get();
+		final long total = hits + missCount.get();
+		if (total == 0) {
+			return 0;
+		}
+		return (double) hits / (double) total;
+	}
+
+	@Override
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	@Override
+	public long getInvalidationCount() {
+		return invalidationCount.get();
+	}
+
+	@Override
+	public long getTileCount() {
+		return cache.size();
+	}
+
+	@Override
+	public long getMaxSizeBytes() {
+		return maxSizeBytes;
+	}
+
+	@Override
+	public void reset() {
+		hitCount.set(0);
+		missCount.set(0);
+		evictionCount.set(0);
+		invalidationCount.set(0);
+	}
+
+	private static long getSizeBytes(
+			final GridCoverage tile ) {
+		final RenderedImage image = tile.getRenderedImage();
+		if (image == null) {
+			return 0;
+		}
+		final SampleModel sampleModel = image.getSampleModel();
+		return ((long) image.getWidth() * image.getHeight() * sampleModel.getNumBands() * DataBuffer.getDataTypeSize(sampleModel.getDataType())) / 8;
+	}
+
+	private static class TileKey
+	{
+		private final ByteArrayId adapterId;
+		private final ByteArrayId insertionId;
+
+		public TileKey(
+				final ByteArrayId adapterId,
+				final ByteArrayId insertionId ) {
+			this.adapterId = adapterId;
+			this.insertionId = insertionId;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + adapterId.hashCode();
+			result = (prime * result) + insertionId.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final TileKey other = (TileKey) obj;
+			return adapterId.equals(other.adapterId) && insertionId.equals(other.insertionId);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+/**
+ * The management interface for a raster tile cache, registered with the
+ * platform MBean server for each GeoWave namespace that is cached.
+ */
+public interface RasterTileCacheMBean
+{
+	public long getHitCount();
+
+	public long getMissCount();
+
+	public double getHitRatio();
+
+	public long getEvictionCount();
+
+	public long getInvalidationCount();
+
+	public long getTileCount();
+
+	public long getMaxSizeBytes();
+
+	public void invalidateAll();
+
+	public void reset();
+}
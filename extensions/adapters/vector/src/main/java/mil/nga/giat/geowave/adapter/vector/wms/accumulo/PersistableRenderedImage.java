@@ -1,19 +1,16 @@
 package mil.nga.giat.geowave.adapter.vector.wms.accumulo;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
-import javax.imageio.ImageIO;
-
 import mil.nga.giat.geowave.core.index.Persistable;
 
 import org.apache.log4j.Logger;
 
 /**
  * This class wraps a rendered image as a GeoWave Persistable object. It
- * serializes and deserializes the BufferedImage as a png using ImageIO.
+ * serializes the BufferedImage using its image encoding, which is a png by
+ * default, and deserializes it using whichever encoding it was serialized with.
  * 
  */
 abstract public class PersistableRenderedImage implements
@@ -21,6 +18,7 @@ abstract public class PersistableRenderedImage implements
 {
 	private final static Logger LOGGER = Logger.getLogger(PersistableRenderedImage.class);
 	public BufferedImage image;
+	private RenderedImageEncoding encoding = RenderedImageEncoding.PNG;
 
 	protected PersistableRenderedImage() {}
 
@@ -33,24 +31,29 @@ abstract public class PersistableRenderedImage implements
 		return image;
 	}
 
+	public RenderedImageEncoding getEncoding() {
+		return encoding;
+	}
+
+	public void setEncoding(
+			final RenderedImageEncoding encoding ) {
+		this.encoding = encoding;
+	}
+
 	@Override
 	public byte[] toBinary() {
 		if (image == null) {
 			return new byte[0];
 		}
-		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		try {
-			ImageIO.write(
-					image,
-					"png",
-					baos);
+			return encoding.encode(image);
 		}
 		catch (final IOException e) {
 			LOGGER.warn(
 					"Unable to serialize image",
 					e);
 		}
-		return baos.toByteArray();
+		return new byte[0];
 	}
 
 	@Override
@@ -59,10 +62,9 @@ abstract public class PersistableRenderedImage implements
 		if (bytes.length == 0) {
 			return;
 		}
-		final ByteArrayInputStream bais = new ByteArrayInputStream(
-				bytes);
+		encoding = RenderedImageEncoding.getEncoding(bytes);
 		try {
-			image = ImageIO.read(bais);
+			image = RenderedImageEncoding.decode(bytes);
 		}
 		catch (final IOException e) {
 			LOGGER.warn(
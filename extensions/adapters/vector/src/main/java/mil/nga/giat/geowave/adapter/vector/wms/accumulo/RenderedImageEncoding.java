@@ -0,0 +1,347 @@
+package mil.nga.giat.geowave.adapter.vector.wms.accumulo;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The encodings used to transport a rendered image from the server that
+ * renders it to the client that composites it. PNG is compact but expensive to
+ * encode and decode, and because the client composites the images before
+ * producing the final image it is only necessary to encode the final image as
+ * a PNG. The other encodings transport the ARGB pixels with fast compression.
+ *
+ * Every encoding other than PNG starts with a zero byte, which can not start a
+ * PNG, followed by the ID of the encoding, so images persisted as a PNG by an
+ * earlier version are still decoded.
+ */
+public enum RenderedImageEncoding {
+	/**
+	 * The image is encoded as a PNG using ImageIO
+	 */
+	PNG(
+			(byte) 0,
+			null),
+	/**
+	 * Every ARGB pixel, compressed with the fastest deflate level
+	 */
+	DEFLATE(
+			(byte) 1,
+			new PixelCodec() {
+				@Override
+				public byte[] encodePixels(
+						final BufferedImage image ) {
+					final int[] pixels = getArgbPixels(image);
+					final ByteBuffer buf = ByteBuffer.allocate(image.getWidth() * image.getHeight() * 4);
+					buf.asIntBuffer().put(
+							pixels,
+							0,
+							image.getWidth() * image.getHeight());
+					return buf.array();
+				}
+
+				@Override
+				public void decodePixels(
+						final byte[] pixelBinary,
+						final int[] pixels ) {
+					ByteBuffer.wrap(
+							pixelBinary).asIntBuffer().get(
+							pixels);
+				}
+			}),
+	/**
+	 * Runs of transparent pixels are skipped and only the remaining ARGB
+	 * pixels are stored, compressed with the fastest deflate level, which is
+	 * much smaller and faster when most of the image is transparent such as
+	 * the image of a single style
+	 */
+	SPARSE(
+			(byte) 2,
+			new PixelCodec() {
+				@Override
+				public byte[] encodePixels(
+						final BufferedImage image ) {
+					final int[] pixels = getArgbPixels(image);
+					final int numPixels = image.getWidth() * image.getHeight();
+					// the first pass counts the runs so the buffer can be sized
+					// exactly
+					int numRuns = 0;
+					int numOpaquePixels = 0;
+					boolean inRun = false;
+					for (int i = 0; i < numPixels; i++) {
+						if (isTransparent(pixels[i])) {
+							inRun = false;
+						}
+						else {
+							if (!inRun) {
+								numRuns++;
+								inRun = true;
+							}
+							numOpaquePixels++;
+						}
+					}
+					final IntBuffer buf = IntBuffer.allocate((numRuns * 2) + numOpaquePixels);
+					int i = 0;
+					while (i < numPixels) {
+						final int runStart = i;
+						while ((i < numPixels) && isTransparent(pixels[i])) {
+							i++;
+						}
+						if (i == numPixels) {
+							break;
+						}
+						final int transparentCount = i - runStart;
+						final int pixelStart = i;
+						while ((i < numPixels) && !isTransparent(pixels[i])) {
+							i++;
+						}
+						buf.put(transparentCount);
+						buf.put(i - pixelStart);
+						buf.put(
+								pixels,
+								pixelStart,
+								i - pixelStart);
+					}
+					final ByteBuffer binary = ByteBuffer.allocate(buf.capacity() * 4);
+					binary.asIntBuffer().put(
+							buf.array());
+					return binary.array();
+				}
+
+				@Override
+				public void decodePixels(
+						final byte[] pixelBinary,
+						final int[] pixels ) {
+					final IntBuffer buf = ByteBuffer.wrap(
+							pixelBinary).asIntBuffer();
+					int i = 0;
+					while (buf.hasRemaining()) {
+						// the pixels are initially zero, which is transparent
+						i += buf.get();
+						final int opaqueCount = buf.get();
+						buf.get(
+								pixels,
+								i,
+								opaqueCount);
+						i += opaqueCount;
+					}
+				}
+			});
+
+	private static final byte RAW_MARKER = 0;
+	// marker, encoding ID, width, height, alpha flag and uncompressed length
+	private static final int HEADER_LENGTH = 15;
+
+	private final byte id;
+	// null for PNG, which is encoded and decoded as a whole by ImageIO
+	private final PixelCodec pixelCodec;
+
+	private RenderedImageEncoding(
+			final byte id,
+			final PixelCodec pixelCodec ) {
+		this.id = id;
+		this.pixelCodec = pixelCodec;
+	}
+
+	public byte getId() {
+		return id;
+	}
+
+	public static RenderedImageEncoding fromId(
+			final byte id ) {
+		for (final RenderedImageEncoding encoding : values()) {
+			if (encoding.id == id) {
+				return encoding;
+			}
+		}
+		return PNG;
+	}
+
+	/**
+	 * @return the encoding used to encode the binary image
+	 */
+	public static RenderedImageEncoding getEncoding(
+			final byte[] binary ) {
+		if ((binary.length >= HEADER_LENGTH) && (binary[0] == RAW_MARKER)) {
+			return fromId(binary[1]);
+		}
+		return PNG;
+	}
+
+	public byte[] encode(
+			final BufferedImage image )
+			throws IOException {
+		if (pixelCodec == null) {
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			ImageIO.write(
+					image,
+					"png",
+					baos);
+			return baos.toByteArray();
+		}
+		final byte[] pixelBinary = pixelCodec.encodePixels(image);
+		final byte[] compressed = deflate(pixelBinary);
+		final ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH + compressed.length);
+		buf.put(RAW_MARKER);
+		buf.put(id);
+		buf.putInt(image.getWidth());
+		buf.putInt(image.getHeight());
+		buf.put((byte) (image.getColorModel().hasAlpha() ? 1 : 0));
+		buf.putInt(pixelBinary.length);
+		buf.put(compressed);
+		return buf.array();
+	}
+
+	/**
+	 * Decode an image with whichever encoding it was encoded with
+	 */
+	public static BufferedImage decode(
+			final byte[] binary )
+			throws IOException {
+		final RenderedImageEncoding encoding = getEncoding(binary);
+		if (encoding.pixelCodec == null) {
+			return ImageIO.read(new ByteArrayInputStream(
+					binary));
+		}
+		final ByteBuffer buf = ByteBuffer.wrap(binary);
+		buf.position(2);
+		final int width = buf.getInt();
+		final int height = buf.getInt();
+		final boolean hasAlpha = buf.get() > 0;
+		final byte[] pixelBinary = inflate(
+				binary,
+				HEADER_LENGTH,
+				buf.getInt());
+		final BufferedImage image = new BufferedImage(
+				width,
+				height,
+				hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		encoding.pixelCodec.decodePixels(
+				pixelBinary,
+				((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+		return image;
+	}
+
+	/**
+	 * Converts the pixels of an image to and from the binary that is
+	 * compressed
+	 */
+	private static interface PixelCodec
+	{
+		public byte[] encodePixels(
+				BufferedImage image );
+
+		public void decodePixels(
+				byte[] pixelBinary,
+				int[] pixels );
+	}
+
+	private static boolean isTransparent(
+			final int argb ) {
+		return (argb >>> 24) == 0;
+	}
+
+	/**
+	 * @return the non-premultiplied ARGB pixels of the image in row major
+	 *         order, which may be the data of the image itself if it is already
+	 *         stored that way
+	 */
+	private static int[] getArgbPixels(
+			final BufferedImage image ) {
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		final Raster raster = image.getRaster();
+		final ColorModel colorModel = image.getColorModel();
+		final DataBuffer dataBuffer = raster.getDataBuffer();
+		if ((dataBuffer instanceof DataBufferInt) && (dataBuffer.getNumBanks() == 1) && (dataBuffer.getOffset() == 0) && (raster.getSampleModelTranslateX() == 0) && (raster.getSampleModelTranslateY() == 0) && (raster.getSampleModel() instanceof SinglePixelPackedSampleModel) && (((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() == width) && (colorModel instanceof DirectColorModel) && !colorModel.isAlphaPremultiplied()) {
+			final DirectColorModel directColorModel = (DirectColorModel) colorModel;
+			if ((directColorModel.getAlphaMask() == 0xff000000) && (directColorModel.getRedMask() == 0x00ff0000) && (directColorModel.getGreenMask() == 0x0000ff00) && (directColorModel.getBlueMask() == 0x000000ff)) {
+				return ((DataBufferInt) dataBuffer).getData();
+			}
+		}
+		return image.getRGB(
+				0,
+				0,
+				width,
+				height,
+				null,
+				0,
+				width);
+	}
+
+	private static byte[] deflate(
+			final byte[] binary ) {
+		final Deflater deflater = new Deflater(
+				Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(binary);
+			deflater.finish();
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream(
+					Math.max(
+							64,
+							binary.length / 4));
+			final byte[] chunk = new byte[8192];
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(chunk);
+				baos.write(
+						chunk,
+						0,
+						length);
+			}
+			return baos.toByteArray();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(
+			final byte[] binary,
+			final int offset,
+			final int length )
+			throws IOException {
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(
+					binary,
+					offset,
+					binary.length - offset);
+			final byte[] result = new byte[length];
+			int position = 0;
+			while (position < length) {
+				final int inflated = inflater.inflate(
+						result,
+						position,
+						length - position);
+				if ((inflated == 0) && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException(
+							"Image binary is truncated");
+				}
+				position += inflated;
+			}
+			return result;
+		}
+		catch (final DataFormatException e) {
+			throw new IOException(
+					"Image binary is corrupt",
+					e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+}
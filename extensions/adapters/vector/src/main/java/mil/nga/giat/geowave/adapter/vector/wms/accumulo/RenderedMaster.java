@@ -24,12 +24,24 @@ public class RenderedMaster extends
 	public RenderedMaster(
 			final List<ServerFeatureStyle> styles,
 			final BufferedImage image ) {
+		this(
+				styles,
+				image,
+				RenderedImageEncoding.PNG);
+	}
+
+	public RenderedMaster(
+			final List<ServerFeatureStyle> styles,
+			final BufferedImage image,
+			final RenderedImageEncoding encoding ) {
 		super(
 				image);
-
+		setEncoding(encoding);
 		for (final ServerFeatureStyle s : styles) {
-			if (s.getRenderedStyle().getImage() != null) {
-				renderedStyles.add(s.getRenderedStyle());
+			final RenderedStyle renderedStyle = s.getRenderedStyle();
+			if (renderedStyle.getImage() != null) {
+				renderedStyle.setEncoding(encoding);
+				renderedStyles.add(renderedStyle);
 			}
 		}
 	}
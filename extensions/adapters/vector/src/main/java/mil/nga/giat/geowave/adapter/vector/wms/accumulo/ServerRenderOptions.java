@@ -61,6 +61,10 @@ public class ServerRenderOptions implements
 
 	protected boolean vectorRenderingEnabled;
 	protected boolean lineOptimizationEnabled;
+	/**
+	 * The encoding of the images sent back to the client
+	 */
+	protected RenderedImageEncoding imageEncoding = RenderedImageEncoding.PNG;
 
 	protected Graphics2D masterGraphics;
 	protected DelayedBackbufferGraphic labelGraphics;
@@ -83,6 +87,36 @@ public class ServerRenderOptions implements
 			final boolean clone,
 			final boolean vectorRenderingEnabled,
 			final boolean lineOptimizationEnabled ) {
+		this(
+				renderingHints,
+				bgColor,
+				labelRenderingMode,
+				metaBuffer,
+				scaleDenominator,
+				angle,
+				useAlpha,
+				continuousMapWrapping,
+				advancedProjectionHandlingEnabled,
+				clone,
+				vectorRenderingEnabled,
+				lineOptimizationEnabled,
+				RenderedImageEncoding.PNG);
+	}
+
+	public ServerRenderOptions(
+			final RenderingHints renderingHints,
+			final Color bgColor,
+			final LabelRenderingMode labelRenderingMode,
+			final int metaBuffer,
+			final double scaleDenominator,
+			final double angle,
+			final boolean useAlpha,
+			final boolean continuousMapWrapping,
+			final boolean advancedProjectionHandlingEnabled,
+			final boolean clone,
+			final boolean vectorRenderingEnabled,
+			final boolean lineOptimizationEnabled,
+			final RenderedImageEncoding imageEncoding ) {
 		this.renderingHints = renderingHints;
 		this.bgColor = bgColor;
 		this.labelRenderingMode = labelRenderingMode;
@@ -95,6 +129,7 @@ public class ServerRenderOptions implements
 		this.clone = clone;
 		this.vectorRenderingEnabled = vectorRenderingEnabled;
 		this.lineOptimizationEnabled = lineOptimizationEnabled;
+		this.imageEncoding = imageEncoding;
 	}
 
 	protected void init(
@@ -146,7 +181,8 @@ public class ServerRenderOptions implements
 			final List<ServerFeatureStyle> styles ) {
 		return new RenderedMaster(
 				styles,
-				labelGraphics.getImage());
+				labelGraphics.getImage(),
+				imageEncoding);
 	}
 
 	@Override
@@ -167,7 +203,7 @@ public class ServerRenderOptions implements
 					"Unable to serialize rendering hints",
 					e);
 		}
-		final ByteBuffer buf = ByteBuffer.allocate(renderHintsBinary.length + 39);
+		final ByteBuffer buf = ByteBuffer.allocate(renderHintsBinary.length + 40);
 		buf.putInt(renderHintsBinary.length);
 		buf.put(renderHintsBinary);
 		buf.putInt(bgColor.getRGB());
@@ -181,6 +217,7 @@ public class ServerRenderOptions implements
 		buf.put((byte) (clone ? 1 : 0));
 		buf.put((byte) (vectorRenderingEnabled ? 1 : 0));
 		buf.put((byte) (lineOptimizationEnabled ? 1 : 0));
+		buf.put(imageEncoding.getId());
 		return buf.array();
 	}
 
@@ -234,6 +271,12 @@ public class ServerRenderOptions implements
 
 		vectorRenderingEnabled = buf.get() > 0;
 		lineOptimizationEnabled = buf.get() > 0;
+		if (buf.hasRemaining()) {
+			imageEncoding = RenderedImageEncoding.fromId(buf.get());
+		}
+		else {
+			imageEncoding = RenderedImageEncoding.PNG;
+		}
 	}
 
 	private static class TextureAnchorKeySerializer implements
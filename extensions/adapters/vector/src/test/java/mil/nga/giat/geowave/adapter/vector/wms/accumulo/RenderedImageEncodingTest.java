@@ -0,0 +1,124 @@
+package mil.nga.giat.geowave.adapter.vector.wms.accumulo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+
+import org.junit.Test;
+
+public class RenderedImageEncodingTest
+{
+	private static BufferedImage createImage(
+			final int type ) {
+		final BufferedImage image = new BufferedImage(
+				64,
+				48,
+				type);
+		final Graphics2D g = image.createGraphics();
+		g.setColor(new Color(
+				200,
+				20,
+				40,
+				128));
+		g.fillOval(
+				5,
+				5,
+				30,
+				20);
+		g.setColor(Color.BLUE);
+		g.drawLine(
+				0,
+				47,
+				63,
+				0);
+		g.dispose();
+		return image;
+	}
+
+	private static void assertSameImage(
+			final BufferedImage expected,
+			final BufferedImage actual ) {
+		assertNotNull(actual);
+		assertEquals(
+				expected.getWidth(),
+				actual.getWidth());
+		assertEquals(
+				expected.getHeight(),
+				actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				final int expectedArgb = expected.getRGB(
+						x,
+						y);
+				final int actualArgb = actual.getRGB(
+						x,
+						y);
+				if ((expectedArgb >>> 24) == 0) {
+					// the color of a transparent pixel does not matter
+					assertEquals(
+							0,
+							actualArgb >>> 24);
+				}
+				else {
+					assertEquals(
+							expectedArgb,
+							actualArgb);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTrip() {
+		for (final RenderedImageEncoding encoding : RenderedImageEncoding.values()) {
+			for (final int type : new int[] {
+				BufferedImage.TYPE_INT_ARGB,
+				BufferedImage.TYPE_4BYTE_ABGR,
+				BufferedImage.TYPE_INT_RGB
+			}) {
+				final BufferedImage image = createImage(type);
+				final RenderedStyle style = new RenderedStyle(
+						"style",
+						image);
+				style.setEncoding(encoding);
+				final RenderedStyle result = PersistenceUtils.fromBinary(
+						PersistenceUtils.toBinary(style),
+						RenderedStyle.class);
+				assertEquals(
+						"style",
+						result.getStyleId());
+				assertEquals(
+						encoding,
+						result.getEncoding());
+				assertSameImage(
+						image,
+						result.getImage());
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyImage() {
+		for (final RenderedImageEncoding encoding : RenderedImageEncoding.values()) {
+			final BufferedImage image = new BufferedImage(
+					16,
+					16,
+					BufferedImage.TYPE_INT_ARGB);
+			final RenderedStyle style = new RenderedStyle(
+					"empty",
+					image);
+			style.setEncoding(encoding);
+			final RenderedStyle result = PersistenceUtils.fromBinary(
+					PersistenceUtils.toBinary(style),
+					RenderedStyle.class);
+			assertSameImage(
+					image,
+					result.getImage());
+		}
+	}
+}
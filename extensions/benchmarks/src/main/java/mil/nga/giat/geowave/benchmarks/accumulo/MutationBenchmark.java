@@ -0,0 +1,134 @@
+package mil.nga.giat.geowave.benchmarks.accumulo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the mutations for a single entry, as is done for every
+ * entry that is ingested. An entry such as a polygon can be inserted into many
+ * row IDs, each of which gets a mutation containing every field. The
+ * "perField" benchmark reproduces building each mutation with a new Text,
+ * ColumnVisibility and Value per field. Run with "-prof gc" to compare the
+ * bytes allocated per entry (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MutationBenchmark
+{
+	private static final long SEED = 8675309L;
+
+	@Param({
+		"1",
+		"16",
+		"64"
+	})
+	public int rowIdCount;
+
+	@Param({
+		"4",
+		"16"
+	})
+	public int fieldCount;
+
+	@Param({
+		"false",
+		"true"
+	})
+	public boolean withVisibility;
+
+	private byte[] adapterId;
+	private DataStoreEntryInfo ingestInfo;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(
+				SEED);
+		adapterId = StringUtils.stringToBinary("benchmark_adapter");
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+				rowIdCount);
+		for (int i = 0; i < rowIdCount; i++) {
+			final byte[] rowId = new byte[40];
+			random.nextBytes(rowId);
+			rowIds.add(new ByteArrayId(
+					rowId));
+		}
+		final byte[] visibilityBytes = StringUtils.stringToBinary(withVisibility ? "a&(b|c)" : "");
+		final List<FieldInfo> fieldInfo = new ArrayList<FieldInfo>(
+				fieldCount);
+		for (int i = 0; i < fieldCount; i++) {
+			// a mix of small attributes and a larger geometry-sized value
+			final byte[] value = new byte[i == 0 ? 512 : 16];
+			random.nextBytes(value);
+			fieldInfo.add(new FieldInfo<Object>(
+					new PersistentValue<Object>(
+							new ByteArrayId(
+									"field" + i),
+							null),
+					value,
+					visibilityBytes));
+		}
+		ingestInfo = new DataStoreEntryInfo(
+				rowIds,
+				fieldInfo);
+	}
+
+	@Benchmark
+	public List<Mutation> perField() {
+		final List<Mutation> mutations = new ArrayList<Mutation>();
+		final List<FieldInfo> fieldInfoList = ingestInfo.getFieldInfo();
+		for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
+			final Mutation mutation = new Mutation(
+					new Text(
+							rowId.getBytes()));
+			for (final FieldInfo fieldInfo : fieldInfoList) {
+				mutation.put(
+						new Text(
+								adapterId),
+						new Text(
+								fieldInfo.getDataValue().getId().getBytes()),
+						new ColumnVisibility(
+								fieldInfo.getVisibility()),
+						new Value(
+								fieldInfo.getWrittenValue()));
+			}
+			mutations.add(mutation);
+		}
+		return mutations;
+	}
+
+	@Benchmark
+	public List<Mutation> shared() {
+		return AccumuloUtils.buildMutations(
+				adapterId,
+				ingestInfo);
+	}
+}
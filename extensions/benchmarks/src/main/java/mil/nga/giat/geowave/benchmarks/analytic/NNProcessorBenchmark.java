@@ -0,0 +1,240 @@
+package mil.nga.giat.geowave.benchmarks.analytic;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.analytic.ConfigurationWrapper;
+import mil.nga.giat.geowave.analytic.GeometryDataSetGenerator;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureGeometryDistanceFn;
+import mil.nga.giat.geowave.analytic.nn.DefaultNeighborList;
+import mil.nga.giat.geowave.analytic.nn.DistanceProfile;
+import mil.nga.giat.geowave.analytic.nn.DistanceProfileGenerateFn;
+import mil.nga.giat.geowave.analytic.nn.GeometryNeighborEnvelopeFn;
+import mil.nga.giat.geowave.analytic.nn.NNProcessor;
+import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
+import mil.nga.giat.geowave.analytic.nn.NeighborList;
+import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
+import mil.nga.giat.geowave.analytic.nn.TypeConverter;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner;
+import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import org.apache.commons.cli.Option;
+import org.apache.hadoop.conf.Configuration;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.referencing.CRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Compares finding the neighbors within a single partition by comparing every
+ * pair of members with finding them through the STR-tree built from each
+ * member's envelope. The points are generated by GeometryDataSetGenerator in
+ * a few dense clusters with some outliers, so most of the partition is far
+ * from most of its members, as in an urban partition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NNProcessorBenchmark
+{
+	@Param({
+		"1000",
+		"5000"
+	})
+	public int pointCount;
+
+	/**
+	 * the maximum distance between neighbors, in meters
+	 */
+	@Param({
+		"1000",
+		"10000"
+	})
+	public double maxDistance;
+
+	private List<SimpleFeature> points;
+	private final FeatureGeometryDistanceFn distanceFn = new FeatureGeometryDistanceFn();
+
+	@Setup
+	public void setup()
+			throws Exception {
+		final SimpleFeatureTypeBuilder typeBuilder = new SimpleFeatureTypeBuilder();
+		typeBuilder.setName("nnbenchmark");
+		typeBuilder.setCRS(CRS.decode(
+				"EPSG:4326",
+				true));
+		typeBuilder.add(
+				"geom",
+				Geometry.class);
+		typeBuilder.add(
+				"name",
+				String.class);
+		typeBuilder.add(
+				"count",
+				Long.class);
+		final GeometryDataSetGenerator dataGenerator = new GeometryDataSetGenerator(
+				new FeatureCentroidDistanceFn(),
+				new SimpleFeatureBuilder(
+						typeBuilder.buildFeatureType()));
+		dataGenerator.setIncludePolygons(false);
+		points = dataGenerator.generatePointSet(
+				0.05,
+				0.1,
+				5,
+				pointCount / 5,
+				new double[] {
+					-77.5,
+					38.5
+				},
+				new double[] {
+					-76.5,
+					39.5
+				});
+	}
+
+	@Benchmark
+	public int scan()
+			throws IOException,
+			InterruptedException {
+		return process(null);
+	}
+
+	@Benchmark
+	public int indexed()
+			throws IOException,
+			InterruptedException {
+		return process(new GeometryNeighborEnvelopeFn<SimpleFeature>(
+				distanceFn.getCoordinateDistanceFunction()) {
+			@Override
+			protected Geometry getGeometry(
+					final SimpleFeature item ) {
+				return distanceFn.getGeometry(item);
+			}
+		});
+	}
+
+	private int process(
+			final GeometryNeighborEnvelopeFn<SimpleFeature> neighborEnvelopeFn )
+			throws IOException,
+			InterruptedException {
+		final PartitionData partition = new PartitionData(
+				new ByteArrayId(
+						"benchmark"),
+				true);
+		final NNProcessor<SimpleFeature, SimpleFeature> processor = new NNProcessor<SimpleFeature, SimpleFeature>(
+				new SinglePartitioner(
+						partition),
+				new TypeConverter<SimpleFeature>() {
+					@Override
+					public SimpleFeature convert(
+							final ByteArrayId id,
+							final Object o ) {
+						return (SimpleFeature) o;
+					}
+				},
+				new DistanceProfileGenerateFn<Object, SimpleFeature>() {
+					private final DistanceProfile<Object> profile = new DistanceProfile<Object>();
+
+					@Override
+					public DistanceProfile<Object> computeProfile(
+							final SimpleFeature item1,
+							final SimpleFeature item2 ) {
+						profile.setDistance(distanceFn.measure(
+								item1,
+								item2));
+						return profile;
+					}
+				},
+				maxDistance,
+				partition);
+		processor.setUpperBoundPerPartition(Integer.MAX_VALUE);
+		processor.setNeighborEnvelopeFn(neighborEnvelopeFn);
+		for (final SimpleFeature point : points) {
+			processor.add(
+					new ByteArrayId(
+							point.getID()),
+					true,
+					point);
+		}
+		final int[] neighborCount = new int[1];
+		processor.process(
+				new NeighborListFactory<SimpleFeature>() {
+					@Override
+					public NeighborList<SimpleFeature> buildNeighborList(
+							final ByteArrayId centerId,
+							final SimpleFeature center ) {
+						return new DefaultNeighborList<SimpleFeature>();
+					}
+				},
+				new CompleteNotifier<SimpleFeature>() {
+					@Override
+					public void complete(
+							final ByteArrayId id,
+							final SimpleFeature value,
+							final NeighborList<SimpleFeature> list ) {
+						neighborCount[0] += list.size();
+					}
+				});
+		return neighborCount[0];
+	}
+
+	private static class SinglePartitioner implements
+			Partitioner<Object>
+	{
+		private final PartitionData partition;
+
+		public SinglePartitioner(
+				final PartitionData partition ) {
+			this.partition = partition;
+		}
+
+		@Override
+		public void initialize(
+				final ConfigurationWrapper context ) {}
+
+		@Override
+		public List<PartitionData> getCubeIdentifiers(
+				final Object entry ) {
+			return Collections.singletonList(partition);
+		}
+
+		@Override
+		public void partition(
+				final Object entry,
+				final PartitionDataCallback callback )
+				throws Exception {
+			callback.partitionWith(partition);
+		}
+
+		@Override
+		public void fillOptions(
+				final Set<Option> options ) {}
+
+		@Override
+		public void setup(
+				final PropertyManagement runTimeProperties,
+				final Configuration configuration ) {}
+	}
+}
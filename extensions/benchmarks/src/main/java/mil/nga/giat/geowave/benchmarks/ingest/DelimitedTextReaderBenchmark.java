@@ -0,0 +1,180 @@
+package mil.nga.giat.geowave.benchmarks.ingest;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.ingest.text.DelimitedTextReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares parsing synthetic T-Drive and GeoLife files the way the ingest
+ * plugins used to, with BufferedReader, String.split and SimpleDateFormat,
+ * against the DelimitedTextReader they now use. Each benchmark parses a whole
+ * file and returns a checksum of the parsed values. Run with "-prof gc" to
+ * compare the allocation per file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DelimitedTextReaderBenchmark
+{
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	/**
+	 * T-Drive lines are "taxi ID,yyyy-MM-dd HH:mm:ss,longitude,latitude" and
+	 * GeoLife lines are
+	 * "latitude,longitude,0,altitude,days,yyyy-MM-dd,HH:mm:ss"
+	 */
+	@Param({
+		"tdrive",
+		"geolife"
+	})
+	public String format;
+
+	@Param({
+		"100000"
+	})
+	public int lineCount;
+
+	private byte[] file;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(
+				0);
+		final DateFormat dateFormat = new SimpleDateFormat(
+				DATE_FORMAT);
+		final StringBuilder text = new StringBuilder();
+		long time = 1201959048000L;
+		double lng = 116.3;
+		double lat = 39.9;
+		for (int i = 0; i < lineCount; i++) {
+			time += (1 + random.nextInt(300)) * 1000L;
+			lng += (random.nextDouble() - 0.5) / 1000;
+			lat += (random.nextDouble() - 0.5) / 1000;
+			final String timestamp = dateFormat.format(new Date(
+					time));
+			if ("tdrive".equals(format)) {
+				text.append(
+						1 + random.nextInt(10000)).append(
+						',').append(
+						timestamp).append(
+						',').append(
+						String.format(
+								Locale.US,
+								"%.5f,%.5f",
+								lng,
+								lat));
+			}
+			else {
+				text.append(
+						String.format(
+								Locale.US,
+								"%.6f,%.6f,0,%d,%.10f,",
+								lat,
+								lng,
+								random.nextInt(500),
+								(time / 86400000.0) + 25569)).append(
+						timestamp.replace(
+								' ',
+								','));
+			}
+			text.append("\r\n");
+		}
+		file = StringUtils.stringToBinary(text.toString());
+	}
+
+	@Benchmark
+	public double split()
+			throws IOException,
+			ParseException {
+		final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(
+						new ByteArrayInputStream(
+								file),
+						StringUtils.UTF8_CHAR_SET));
+		final DateFormat dateFormat = new SimpleDateFormat(
+				DATE_FORMAT);
+		final boolean tdrive = "tdrive".equals(format);
+		double checksum = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			final String[] vals = line.split(",");
+			if (tdrive) {
+				checksum += Integer.parseInt(vals[0]) + dateFormat.parse(
+						vals[1]).getTime() + Double.parseDouble(vals[2]) + Double.parseDouble(vals[3]);
+			}
+			else {
+				checksum += Double.parseDouble(vals[0]) + Double.parseDouble(vals[1]) + Double.parseDouble(vals[3]) + dateFormat.parse(
+						vals[5] + " " + vals[6]).getTime();
+			}
+		}
+		reader.close();
+		return checksum;
+	}
+
+	@Benchmark
+	public double reader()
+			throws IOException,
+			ParseException {
+		return parse(new DelimitedTextReader(
+				file,
+				0,
+				file.length,
+				','));
+	}
+
+	@Benchmark
+	public double readerFromStream()
+			throws IOException,
+			ParseException {
+		return parse(new DelimitedTextReader(
+				new ByteArrayInputStream(
+						file),
+				','));
+	}
+
+	private double parse(
+			final DelimitedTextReader reader )
+			throws IOException,
+			ParseException {
+		final boolean tdrive = "tdrive".equals(format);
+		double checksum = 0;
+		while (reader.nextLine()) {
+			if (tdrive) {
+				checksum += reader.getInt(0) + reader.getTimestamp(1) + reader.getDouble(2) + reader.getDouble(3);
+			}
+			else {
+				checksum += reader.getDouble(0) + reader.getDouble(1) + reader.getDouble(3) + reader.getTimestamp(
+						5,
+						6);
+			}
+		}
+		reader.close();
+		return checksum;
+	}
+}
@@ -0,0 +1,164 @@
+package mil.nga.giat.geowave.benchmarks.raster;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferFloat;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.adapter.raster.adapter.codec.DataBufferCodec;
+import mil.nga.giat.geowave.adapter.raster.adapter.codec.DataBufferEncoding;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Compares the original Java serialization of raster tile data buffers with
+ * each of the data buffer codecs on a synthetic multi-band tile. The tile is
+ * smooth with a little noise, which is representative of imagery and
+ * elevation data. The encoded size of a tile is reported as the
+ * "bytesPerTile" secondary result of the encode benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RasterTileEncodingBenchmark
+{
+	private static final String LEGACY = "legacy";
+	private static final int TILE_SIZE = 256;
+	private static final int NUM_BANDS = 3;
+
+	@Param({
+		LEGACY,
+		"none",
+		"deflate",
+		"predictor"
+	})
+	public String codec;
+
+	@Param({
+		"byte",
+		"float"
+	})
+	public String dataType;
+
+	private DataBufferCodec dataBufferCodec;
+	private DataBuffer dataBuffer;
+	private byte[] encoded;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(
+				42);
+		final int size = TILE_SIZE * TILE_SIZE;
+		if ("float".equals(dataType)) {
+			final float[][] banks = new float[NUM_BANDS][size];
+			for (int b = 0; b < NUM_BANDS; b++) {
+				for (int i = 0; i < size; i++) {
+					banks[b][i] = (float) (getSmoothValue(
+							b,
+							i) + (random.nextGaussian() * 0.01));
+				}
+			}
+			dataBuffer = new DataBufferFloat(
+					banks,
+					size);
+		}
+		else {
+			final byte[][] banks = new byte[NUM_BANDS][size];
+			for (int b = 0; b < NUM_BANDS; b++) {
+				for (int i = 0; i < size; i++) {
+					banks[b][i] = (byte) (getSmoothValue(
+							b,
+							i) + random.nextInt(3));
+				}
+			}
+			dataBuffer = new DataBufferByte(
+					banks,
+					size);
+		}
+		if (!LEGACY.equals(codec)) {
+			dataBufferCodec = DataBufferEncoding.getCodec(codec);
+		}
+		encoded = encodeTile();
+	}
+
+	private static double getSmoothValue(
+			final int band,
+			final int index ) {
+		final int x = index % TILE_SIZE;
+		final int y = index / TILE_SIZE;
+		return 100 + (20 * band) + (50 * Math.sin(x / 40.0) * Math.cos(y / 30.0));
+	}
+
+	private byte[] encodeTile() {
+		if (dataBufferCodec == null) {
+			return DataBufferEncoding.toJavaSerializedBinary(dataBuffer);
+		}
+		return DataBufferEncoding.toBinary(
+				dataBuffer,
+				dataBufferCodec);
+	}
+
+	/**
+	 * Counts the encoded size of a tile, which is reported as the
+	 * "bytesPerTile" secondary result of encode. JMH sums event counters over
+	 * the measurement iterations, so the size is only counted in the first.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class EncodedSize
+	{
+		public long bytesPerTile;
+		private boolean counting;
+		private boolean counted;
+
+		@Setup(Level.Iteration)
+		public void setup(
+				final IterationParams params ) {
+			bytesPerTile = 0;
+			counting = !counted && (params.getType() == IterationType.MEASUREMENT);
+		}
+
+		private void count(
+				final byte[] binary ) {
+			if (counting) {
+				bytesPerTile = binary.length;
+				counting = false;
+				counted = true;
+			}
+		}
+	}
+
+	@Benchmark
+	public byte[] encode(
+			final EncodedSize encodedSize ) {
+		final byte[] binary = encodeTile();
+		encodedSize.count(binary);
+		return binary;
+	}
+
+	@Benchmark
+	public DataBuffer decode()
+			throws IOException,
+			ClassNotFoundException {
+		return DataBufferEncoding.fromBinary(encoded);
+	}
+}
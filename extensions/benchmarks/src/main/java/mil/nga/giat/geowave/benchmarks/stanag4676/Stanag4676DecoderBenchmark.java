@@ -0,0 +1,140 @@
+package mil.nga.giat.geowave.benchmarks.stanag4676;
+
+import java.io.ByteArrayOutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.NATO4676Decoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.NATO4676Encoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.StreamingNATO4676Decoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.TrackDecoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.TrackFileReader;
+import mil.nga.giat.geowave.format.stanag4676.parser.TrackReader.ProcessMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.GeodeticPosition;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.IDdata;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.SimulationIndicator;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackEvent;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackPoint;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackRun;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the decoder that builds a JDOM document for the whole STANAG 4676
+ * message with the streaming decoder, which holds a single track point at a
+ * time. Both decode through a TrackFileReader in streaming mode, handing each
+ * message to a handler as it is read. Run with "-prof gc" to compare the
+ * allocation per document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class Stanag4676DecoderBenchmark
+{
+	@Param({
+		"10",
+		"100"
+	})
+	public int trackCount;
+
+	@Param({
+		"10",
+		"1000"
+	})
+	public int pointsPerTrack;
+
+	private byte[] document;
+
+	@Setup
+	public void setup() {
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(UUID.randomUUID());
+		msg.setMessageTime(System.currentTimeMillis());
+		final IDdata sender = new IDdata();
+		sender.setStationId("benchmark");
+		sender.setNationality("US");
+		msg.setSenderID(sender);
+		final long startTime = 1262304000000L;
+		for (int t = 0; t < trackCount; t++) {
+			final TrackEvent event = new TrackEvent();
+			event.setUuid(UUID.randomUUID().toString());
+			event.setTrackNumber(Integer.toString(t));
+			event.setSimulationIndicator(SimulationIndicator.SIMULATED);
+			for (int p = 0; p < pointsPerTrack; p++) {
+				final TrackPoint point = new TrackPoint();
+				point.setUuid(UUID.randomUUID().toString());
+				point.setEventTime(startTime + (p * 1000L));
+				point.setLocation(new GeodeticPosition(
+						(t % 90) + (p * 0.0001),
+						(t % 180) + (p * 0.0001),
+						100.0));
+				point.setSpeed(10.0);
+				point.setCourse(90.0);
+				event.addPoint(point);
+			}
+			msg.addTrackEvent(event);
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final NATO4676Encoder encoder = new NATO4676Encoder();
+		encoder.setOutputStream(out);
+		encoder.Encode(msg);
+		document = out.toByteArray();
+	}
+
+	@Benchmark
+	public int jdom() {
+		return decode(new NATO4676Decoder());
+	}
+
+	@Benchmark
+	public int streaming() {
+		return decode(new StreamingNATO4676Decoder());
+	}
+
+	private int decode(
+			final TrackDecoder decoder ) {
+		final TrackFileReader reader = new TrackFileReader();
+		reader.setDecoder(decoder);
+		reader.setStreaming(true);
+		final CountingHandler handler = new CountingHandler();
+		reader.setHandler(handler);
+		reader.read(document);
+		return handler.pointCount;
+	}
+
+	private static class CountingHandler implements
+			ProcessMessage
+	{
+		private int pointCount = 0;
+
+		@Override
+		public void initialize(
+				final TrackRun run ) {}
+
+		@Override
+		public void notify(
+				final TrackMessage msg ) {
+			for (final TrackEvent event : msg.getTracks()) {
+				pointCount += event.getPoints().size();
+			}
+		}
+
+		@Override
+		public void notify(
+				final TrackRun run ) {}
+	}
+}
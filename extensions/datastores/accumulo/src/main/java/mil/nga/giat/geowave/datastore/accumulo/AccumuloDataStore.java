@@ -14,6 +14,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.AsyncIndexWriter;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.DataStore;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
@@ -28,6 +29,7 @@ import mil.nga.giat.geowave.core.store.adapter.MemoryAdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
 import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.core.store.data.visibility.UnconstrainedVisibilityHandler;
@@ -114,11 +116,14 @@ public class AccumuloDataStore implements
 			final AccumuloOptions accumuloOptions ) {
 		this(
 				new AccumuloIndexStore(
-						accumuloOperations),
+						accumuloOperations,
+						accumuloOptions.getMetadataCacheOptions()),
 				new AccumuloAdapterStore(
-						accumuloOperations),
+						accumuloOperations,
+						accumuloOptions.getMetadataCacheOptions()),
 				new AccumuloDataStatisticsStore(
-						accumuloOperations),
+						accumuloOperations,
+						accumuloOptions.getMetadataCacheOptions()),
 				accumuloOperations,
 				accumuloOptions);
 	}
@@ -159,6 +164,24 @@ public class AccumuloDataStore implements
 				this);
 	}
 
+	/**
+	 * Create an index writer that accepts entries into a bounded queue and
+	 * writes them on the number of threads given by the options. The row IDs
+	 * of an entry are only available through writeAsync(), and a failure to
+	 * write any entry is reported by the writer's flush() and close().
+	 */
+	public AsyncIndexWriter createAsyncIndexWriter(
+			final Index index ) {
+		return new AsyncIndexWriter(
+				new AccumuloIndexWriter(
+						index,
+						accumuloOperations,
+						accumuloOptions,
+						this),
+				accumuloOptions.getWriteThreads(),
+				accumuloOptions.getMaxPendingWrites());
+	}
+
 	@Override
 	public <T> List<ByteArrayId> ingest(
 			final WritableDataAdapter<T> writableAdapter,
@@ -1039,7 +1062,8 @@ public class AccumuloDataStore implements
 		// all queries will use the same instance of the dedupe filter for
 		// client side filtering because the filter needs to be applied across
 		// indices
-		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter();
+		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter(
+				queryOptions != null ? queryOptions.getMaxDedupeMemory() : -1);
 		while (indices.hasNext()) {
 			final Index index = indices.next();
 			final AccumuloConstraintsQuery accumuloQuery;
@@ -1065,9 +1089,23 @@ public class AccumuloDataStore implements
 			else {
 				continue;
 			}
-			if ((queryOptions != null) && (!queryOptions.getFieldIds().isEmpty())) {
-				// results should contain subset of fieldIds
-				accumuloQuery.setFieldIds(queryOptions.getFieldIds());
+			if (queryOptions != null) {
+				if (!queryOptions.getFieldIds().isEmpty()) {
+					// results should contain subset of fieldIds
+					accumuloQuery.setFieldIds(queryOptions.getFieldIds());
+				}
+				accumuloQuery.setMaxRangeDecomposition(queryOptions.getMaxRangeDecomposition());
+				accumuloQuery.setMaxDedupeMemory(queryOptions.getMaxDedupeMemory());
+				accumuloQuery.setParallelDecode(
+						queryOptions.getDecodeParallelism(),
+						queryOptions.isPreserveDecodeOrder());
+				if (queryOptions.isUseRowRangeStatistics() && (query != null)) {
+					accumuloQuery.setCardinalityEstimator(getRowRangeStatistics(
+							adapterIds,
+							index,
+							adapterStore,
+							authorizations));
+				}
 			}
 			results.add(accumuloQuery.query(
 					accumuloOperations,
@@ -1089,11 +1127,58 @@ public class AccumuloDataStore implements
 						for (final CloseableIterator<?> result : results) {
 							result.close();
 						}
+						clientDedupeFilter.logStatistics();
 					}
 				},
 				Iterators.concat(results.iterator()));
 	}
 
+	/**
+	 * Merge the row range histograms of each adapter for the given index
+	 * 
+	 * @return the merged histogram, or null if no adapter has one
+	 */
+	private RowRangeHistogramStatistics<?> getRowRangeStatistics(
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final AdapterStore adapterStore,
+			final String... authorizations ) {
+		final List<ByteArrayId> statsAdapterIds = new ArrayList<ByteArrayId>();
+		if (adapterIds != null) {
+			statsAdapterIds.addAll(adapterIds);
+		}
+		else {
+			try (final CloseableIterator<DataAdapter<?>> adapters = adapterStore.getAdapters()) {
+				while (adapters.hasNext()) {
+					statsAdapterIds.add(adapters.next().getAdapterId());
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"unable to close adapter iterator",
+						e);
+			}
+		}
+		final ByteArrayId statsId = RowRangeHistogramStatistics.composeId(index.getId());
+		RowRangeHistogramStatistics<?> mergedStats = null;
+		for (final ByteArrayId adapterId : statsAdapterIds) {
+			final RowRangeHistogramStatistics<?> stats = (RowRangeHistogramStatistics<?>) statisticsStore.getDataStatistics(
+					adapterId,
+					statsId,
+					authorizations);
+			if (stats == null) {
+				continue;
+			}
+			if (mergedStats == null) {
+				mergedStats = stats;
+			}
+			else {
+				mergedStats.merge(stats);
+			}
+		}
+		return mergedStats;
+	}
+
 	@Override
 	public CloseableIterator<?> query(
 			final Query query ) {
@@ -22,6 +22,7 @@ import mil.nga.giat.geowave.datastore.accumulo.util.DataAdapterAndIndexCache;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Mutation;
 import org.apache.log4j.Logger;
 
 /**
@@ -29,6 +30,10 @@ import org.apache.log4j.Logger;
  * open writer. The first entry that is written will open a writer and it is the
  * responsibility of the caller to close this writer when complete.
  * 
+ * This writer is thread-safe, and entries written concurrently are encoded in
+ * parallel. It can be wrapped by an AsyncIndexWriter to write entries on a
+ * pool of threads.
+ * 
  */
 public class AccumuloIndexWriter implements
 		IndexWriter
@@ -114,6 +119,7 @@ public class AccumuloIndexWriter implements
 				writer = accumuloOperations.createWriter(
 						StringUtils.stringFromBinary(index.getId().getBytes()),
 						accumuloOptions.isCreateTable());
+				setFailOnFlushError(writer);
 			}
 			catch (final TableNotFoundException e) {
 				LOGGER.error(
@@ -126,6 +132,7 @@ public class AccumuloIndexWriter implements
 				altIdxWriter = accumuloOperations.createWriter(
 						altIdxTableName,
 						accumuloOptions.isCreateTable());
+				setFailOnFlushError(altIdxWriter);
 			}
 			catch (final TableNotFoundException e) {
 				LOGGER.error(
@@ -135,6 +142,13 @@ public class AccumuloIndexWriter implements
 		}
 	}
 
+	private void setFailOnFlushError(
+			final Writer writer ) {
+		if (accumuloOptions.isFailOnFlushError() && (writer instanceof BatchWriterWrapper)) {
+			((BatchWriterWrapper) writer).setFailOnFlushError(true);
+		}
+	}
+
 	private synchronized void closeInternal() {
 		if (writer != null) {
 			writer.close();
@@ -207,17 +221,22 @@ public class AccumuloIndexWriter implements
 					"Unable to determine existence of locality group [" + writableAdapter.getAdapterId().getString() + "]",
 					e);
 		}
-		DataStoreEntryInfo entryInfo;
 		synchronized (this) {
 			dataStore.store(writableAdapter);
 			dataStore.store(index);
-
+		}
+		// encoding the entry and building its mutations does not require the
+		// lock, so concurrent writers only serialize on the write itself
+		final DataStoreEntryInfo entryInfo = AccumuloUtils.getIngestInfo(
+				writableAdapter,
+				index,
+				entry);
+		final List<Mutation> mutations = AccumuloUtils.buildMutations(
+				adapterId,
+				entryInfo);
+		synchronized (this) {
 			ensureOpen();
-			entryInfo = AccumuloUtils.write(
-					writableAdapter,
-					index,
-					entry,
-					writer);
+			writer.write(mutations);
 
 			if (useAltIndex) {
 				AccumuloUtils.writeAltIndex(
@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
+import mil.nga.giat.geowave.datastore.accumulo.metadata.MetadataCacheOptions;
+
 /**
  * This class can be used to modify the behavior of the Accumulo Data Store.
  * 
@@ -12,6 +14,10 @@ public class AccumuloOptions
 	protected boolean createTable = true;
 	protected boolean useLocalityGroups = true;
 	protected boolean useAltIndex = true;
+	protected int writeThreads = 4;
+	protected int maxPendingWrites = 1000;
+	protected boolean failOnFlushError = false;
+	protected MetadataCacheOptions metadataCacheOptions = new MetadataCacheOptions();
 
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
@@ -66,4 +72,61 @@ public class AccumuloOptions
 			final boolean useAltIndex ) {
 		this.useAltIndex = useAltIndex;
 	}
+
+	public int getWriteThreads() {
+		return writeThreads;
+	}
+
+	/**
+	 * @param writeThreads
+	 *            the number of threads that index writers created by
+	 *            AccumuloDataStore.createAsyncIndexWriter() write entries on
+	 */
+	public void setWriteThreads(
+			final int writeThreads ) {
+		this.writeThreads = writeThreads;
+	}
+
+	public int getMaxPendingWrites() {
+		return maxPendingWrites;
+	}
+
+	/**
+	 * @param maxPendingWrites
+	 *            the number of entries an asynchronous index writer accepts
+	 *            before the caller is blocked
+	 */
+	public void setMaxPendingWrites(
+			final int maxPendingWrites ) {
+		this.maxPendingWrites = maxPendingWrites;
+	}
+
+	public boolean isFailOnFlushError() {
+		return failOnFlushError;
+	}
+
+	/**
+	 * @param failOnFlushError
+	 *            if true, flushing an index writer throws an exception when
+	 *            mutations are rejected rather than only logging it, for
+	 *            callers that must know the entries were written
+	 */
+	public void setFailOnFlushError(
+			final boolean failOnFlushError ) {
+		this.failOnFlushError = failOnFlushError;
+	}
+
+	public MetadataCacheOptions getMetadataCacheOptions() {
+		return metadataCacheOptions;
+	}
+
+	/**
+	 * @param metadataCacheOptions
+	 *            the caching behavior of the adapter, index and statistics
+	 *            stores created by the data store
+	 */
+	public void setMetadataCacheOptions(
+			final MetadataCacheOptions metadataCacheOptions ) {
+		this.metadataCacheOptions = metadataCacheOptions;
+	}
 }
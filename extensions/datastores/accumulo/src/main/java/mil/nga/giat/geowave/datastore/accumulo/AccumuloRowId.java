@@ -1,11 +1,11 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
-import java.nio.ByteBuffer;
-import java.util.Arrays;
+import mil.nga.giat.geowave.core.store.EntryRowId;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.accumulo.core.data.Key;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
 /**
  * This class encapsulates the elements that compose the row ID in Accumulo, and
  * can serialize and deserialize the individual elements to/from the row ID. The
@@ -15,15 +15,12 @@ import org.apache.accumulo.core.data.Key;
  * adapter, so the combination of adapter ID and data ID is intended to
  * guarantee uniqueness for this row ID.
  * 
+ * @see EntryRowId
  */
 @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "private class only accessed internally")
-public class AccumuloRowId
+public class AccumuloRowId extends
+		EntryRowId
 {
-	private final byte[] insertionId;
-	private final byte[] dataId;
-	private final byte[] adapterId;
-	private final int numberOfDuplicates;
-
 	public AccumuloRowId(
 			final Key key ) {
 		this(
@@ -32,29 +29,8 @@ public class AccumuloRowId
 
 	public AccumuloRowId(
 			final byte[] accumuloRowId ) {
-		final byte[] metadata = Arrays.copyOfRange(
-				accumuloRowId,
-				accumuloRowId.length - 12,
-				accumuloRowId.length);
-		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
-		final int adapterIdLength = metadataBuf.getInt();
-		final int dataIdLength = metadataBuf.getInt();
-		final int numberOfDuplicates = metadataBuf.getInt();
-
-		final ByteBuffer buf = ByteBuffer.wrap(
-				accumuloRowId,
-				0,
-				accumuloRowId.length - 12);
-		final byte[] insertionId = new byte[accumuloRowId.length - 12 - adapterIdLength - dataIdLength];
-		final byte[] adapterId = new byte[adapterIdLength];
-		final byte[] dataId = new byte[dataIdLength];
-		buf.get(insertionId);
-		buf.get(adapterId);
-		buf.get(dataId);
-		this.insertionId = insertionId;
-		this.dataId = dataId;
-		this.adapterId = adapterId;
-		this.numberOfDuplicates = numberOfDuplicates;
+		super(
+				accumuloRowId);
 	}
 
 	public AccumuloRowId(
@@ -62,40 +38,10 @@ public class AccumuloRowId
 			final byte[] dataId,
 			final byte[] adapterId,
 			final int numberOfDuplicates ) {
-		this.insertionId = indexId;
-		this.dataId = dataId;
-		this.adapterId = adapterId;
-		this.numberOfDuplicates = numberOfDuplicates;
-	}
-
-	public byte[] getRowId() {
-		final ByteBuffer buf = ByteBuffer.allocate(12 + dataId.length + adapterId.length + insertionId.length);
-		buf.put(insertionId);
-		buf.put(adapterId);
-		buf.put(dataId);
-		buf.putInt(adapterId.length);
-		buf.putInt(dataId.length);
-		buf.putInt(numberOfDuplicates);
-		return buf.array();
-	}
-
-	public byte[] getInsertionId() {
-		return insertionId;
-	}
-
-	public byte[] getDataId() {
-		return dataId;
-	}
-
-	public byte[] getAdapterId() {
-		return adapterId;
-	}
-
-	public int getNumberOfDuplicates() {
-		return numberOfDuplicates;
-	}
-
-	public boolean isDeduplicationEnabled() {
-		return numberOfDuplicates >= 0;
+		super(
+				indexId,
+				dataId,
+				adapterId,
+				numberOfDuplicates);
 	}
 }
@@ -15,6 +15,7 @@ public class BatchWriterWrapper implements
 {
 	private final static Logger LOGGER = Logger.getLogger(BatchWriterWrapper.class);
 	private org.apache.accumulo.core.client.BatchWriter batchWriter;
+	private boolean failOnFlushError = false;
 
 	public BatchWriterWrapper(
 			final org.apache.accumulo.core.client.BatchWriter batchWriter ) {
@@ -30,6 +31,20 @@ public class BatchWriterWrapper implements
 		this.batchWriter = batchWriter;
 	}
 
+	public boolean isFailOnFlushError() {
+		return failOnFlushError;
+	}
+
+	/**
+	 * @param failOnFlushError
+	 *            if true, flush() throws an exception when mutations are
+	 *            rejected rather than only logging it
+	 */
+	public void setFailOnFlushError(
+			final boolean failOnFlushError ) {
+		this.failOnFlushError = failOnFlushError;
+	}
+
 	@Override
 	public void write(
 			final Iterable<Mutation> mutations ) {
@@ -77,6 +92,11 @@ public class BatchWriterWrapper implements
 			LOGGER.error(
 					"Unable to flush batch writer",
 					e);
+			if (failOnFlushError) {
+				throw new RuntimeException(
+						"Unable to flush batch writer",
+						e);
+			}
 		}
 	}
 
@@ -4,11 +4,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.Persistable;
@@ -31,6 +30,9 @@ import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * This abstract class does most of the work for storing persistable objects in
  * Accumulo and can be easily extended for any object that needs to be
@@ -38,7 +40,9 @@ import org.apache.log4j.Logger;
  * 
  * There is an LRU cache associated with it so staying in sync with external
  * updates is not practical - it assumes the objects are not updated often or at
- * all. The objects are stored in their own table.
+ * all. The objects are stored in their own table. The cache size, expiration
+ * and caching of missing objects can be configured with
+ * {@link MetadataCacheOptions}.
  * 
  * @param <T>
  *            The type of persistable object that this stores
@@ -53,30 +57,58 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 	// updating and looking up objects simultaneously that would require some
 	// locking/synchronization mechanism, and even possibly update
 	// notifications?
-	private static final int MAX_ENTRIES = 100;
-	protected final Map<ByteArrayId, T> cache = Collections.synchronizedMap(new LinkedHashMap<ByteArrayId, T>(
-			MAX_ENTRIES + 1,
-			.75F,
-			true) {
-		/**
-				 *
-				 */
-		private static final long serialVersionUID = 1L;
-
-		// This method is called just after a new entry has been added
-		@Override
-		public boolean removeEldestEntry(
-				final Map.Entry<ByteArrayId, T> eldest ) {
-			return size() > MAX_ENTRIES;
-		}
-	});
+	protected final Cache<ByteArrayId, T> cache;
+	// IDs that were looked up but not found, null if missing objects are not
+	// cached
+	private final Cache<ByteArrayId, Boolean> missingCache;
+	private MetadataCacheStatistics cacheStatistics;
 
 	// just attach iterators once per instance
 	private boolean iteratorsAttached = false;
 
 	public AbstractAccumuloPersistence(
 			final AccumuloOperations accumuloOperations ) {
+		this(
+				accumuloOperations,
+				new MetadataCacheOptions());
+	}
+
+	public AbstractAccumuloPersistence(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
 		this.accumuloOperations = accumuloOperations;
+		cache = buildCache(
+				cacheOptions.getMaxEntries(),
+				cacheOptions.getTimeToLiveMillis());
+		if (cacheOptions.getNegativeTimeToLiveMillis() > 0) {
+			missingCache = buildCache(
+					cacheOptions.getMaxEntries(),
+					cacheOptions.getNegativeTimeToLiveMillis());
+		}
+		else {
+			missingCache = null;
+		}
+	}
+
+	private static <V> Cache<ByteArrayId, V> buildCache(
+			final int maxEntries,
+			final long timeToLiveMillis ) {
+		final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(
+				maxEntries);
+		if (timeToLiveMillis > 0) {
+			builder.expireAfterWrite(
+					timeToLiveMillis,
+					TimeUnit.MILLISECONDS);
+		}
+		return builder.build();
+	}
+
+	protected MetadataCacheStatistics getCacheStatistics() {
+		// the persistence type name is not available during construction
+		if (cacheStatistics == null) {
+			cacheStatistics = MetadataCacheStatistics.getInstance(getPersistenceTypeName());
+		}
+		return cacheStatistics;
 	}
 
 	protected String getAccumuloTablename() {
@@ -228,6 +260,9 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		cache.put(
 				combinedId,
 				object);
+		if (missingCache != null) {
+			missingCache.invalidate(combinedId);
+		}
 	}
 
 	protected Object getObjectFromCache(
@@ -236,7 +271,7 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		final ByteArrayId combinedId = getCombinedId(
 				primaryId,
 				secondaryId);
-		return cache.get(combinedId);
+		return cache.getIfPresent(combinedId);
 	}
 
 	protected boolean deleteObjectFromCache(
@@ -245,7 +280,31 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		final ByteArrayId combinedId = getCombinedId(
 				primaryId,
 				secondaryId);
-		return (cache.remove(combinedId) != null);
+		return (cache.asMap().remove(
+				combinedId) != null);
+	}
+
+	/**
+	 * @return true if the object was recently looked up and not found
+	 */
+	protected boolean isMissingInCache(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		return (missingCache != null) && (missingCache.getIfPresent(getCombinedId(
+				primaryId,
+				secondaryId)) != null);
+	}
+
+	protected void addMissingToCache(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		if (missingCache != null) {
+			missingCache.put(
+					getCombinedId(
+							primaryId,
+							secondaryId),
+					Boolean.TRUE);
+		}
 	}
 
 	protected IteratorConfig[] getIteratorConfig() {
@@ -288,8 +347,17 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 				primaryId,
 				secondaryId);
 		if (cacheResult != null) {
+			getCacheStatistics().recordHit();
 			return (T) cacheResult;
 		}
+		if (isMissingInCache(
+				primaryId,
+				secondaryId)) {
+			getCacheStatistics().recordNegativeHit();
+			return null;
+		}
+		getCacheStatistics().recordMiss();
+		final long startTime = System.nanoTime();
 		try {
 			final BatchScanner scanner = getScanner(
 					primaryId,
@@ -301,6 +369,9 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 					LOGGER.warn("Object '" + getCombinedId(
 							primaryId,
 							secondaryId).getString() + "' not found");
+					addMissingToCache(
+							primaryId,
+							secondaryId);
 					return null;
 				}
 				final Entry<Key, Value> entry = it.next();
@@ -308,6 +379,8 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 			}
 			finally {
 				scanner.close();
+				getCacheStatistics().recordLoad(
+						System.nanoTime() - startTime);
 			}
 		}
 		catch (final TableNotFoundException e) {
@@ -458,8 +531,17 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		if (getObjectFromCache(
 				primaryId,
 				secondaryId) != null) {
+			getCacheStatistics().recordHit();
 			return true;
 		}
+		if (isMissingInCache(
+				primaryId,
+				secondaryId)) {
+			getCacheStatistics().recordNegativeHit();
+			return false;
+		}
+		getCacheStatistics().recordMiss();
+		final long startTime = System.nanoTime();
 		try {
 			final BatchScanner scanner = getScanner(
 					primaryId,
@@ -472,12 +554,17 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 					return (entryToValue(it.next()) != null);
 				}
 				else {
+					addMissingToCache(
+							primaryId,
+							secondaryId);
 					return false;
 				}
 
 			}
 			finally {
 				scanner.close();
+				getCacheStatistics().recordLoad(
+						System.nanoTime() - startTime);
 			}
 		}
 		catch (final TableNotFoundException e) {
@@ -26,6 +26,14 @@ public class AccumuloAdapterStore extends
 				accumuloOperations);
 	}
 
+	public AccumuloAdapterStore(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
+		super(
+				accumuloOperations,
+				cacheOptions);
+	}
+
 	@Override
 	public void addAdapter(
 			final DataAdapter<?> adapter ) {
@@ -1,11 +1,18 @@
 package mil.nga.giat.geowave.datastore.accumulo.metadata;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
@@ -22,13 +29,25 @@ import org.apache.accumulo.core.iterators.Combiner;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.hadoop.io.Text;
 
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
 /**
  * This class will persist Index objects within an Accumulo table for GeoWave
  * metadata. The adapters will be persisted in an "INDEX" column family.
  * 
- * There is an LRU cache associated with it so staying in sync with external
- * updates is not practical - it assumes the objects are not updated often or at
- * all. The objects are stored in their own table.
+ * Statistics are not cached by default because they change with each new
+ * entry. If a statistics time to live is given in the
+ * {@link MetadataCacheOptions}, statistics are cached for that long per
+ * authorization set, optionally refreshing them in the background before they
+ * expire. Statistics written by another process will not be seen until the
+ * cached value expires or is refreshed. The objects are stored in their own
+ * table.
  * 
  **/
 public class AccumuloDataStatisticsStore extends
@@ -41,10 +60,51 @@ public class AccumuloDataStatisticsStore extends
 	private static final int STATS_MULTI_VISIBILITY_COMBINER_PRIORITY = 15;
 	private static final String STATISTICS_CF = "STATS";
 
+	private static final Executor REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(
+				final Runnable r ) {
+			final Thread thread = new Thread(
+					r,
+					"geowave-statistics-refresh");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	// statistics are cached by ID and authorizations because the visible
+	// statistics depend on the authorizations, null if statistics are not
+	// cached
+	private final LoadingCache<StatisticsCacheKey, Optional<DataStatistics<?>>> statisticsCache;
+
 	public AccumuloDataStatisticsStore(
 			final AccumuloOperations accumuloOperations ) {
+		this(
+				accumuloOperations,
+				new MetadataCacheOptions());
+	}
+
+	public AccumuloDataStatisticsStore(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
 		super(
-				accumuloOperations);
+				accumuloOperations,
+				cacheOptions);
+		if (cacheOptions.getStatisticsTimeToLiveMillis() > 0) {
+			final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(
+					cacheOptions.getMaxEntries()).expireAfterWrite(
+					cacheOptions.getStatisticsTimeToLiveMillis(),
+					TimeUnit.MILLISECONDS);
+			if (cacheOptions.getStatisticsRefreshMillis() > 0) {
+				builder.refreshAfterWrite(
+						cacheOptions.getStatisticsRefreshMillis(),
+						TimeUnit.MILLISECONDS);
+			}
+			statisticsCache = builder.build(new StatisticsCacheLoader());
+		}
+		else {
+			statisticsCache = null;
+		}
 	}
 
 	@Override
@@ -53,34 +113,24 @@ public class AccumuloDataStatisticsStore extends
 		// because we're using the combiner, we should simply be able to add the
 		// object
 		addObject(statistics);
-
-		// TODO if we do allow caching after we add a statistic to Accumulo we
-		// do need to make sure we update our cache, but for now we aren't using
-		// the cache at all
-
+		// the combined statistics can only be read back from Accumulo, so
+		// drop anything cached rather than updating it
+		invalidateStatisticsCache();
 	}
 
 	@Override
 	protected void addObjectToCache(
 			final DataStatistics<?> object ) {
-		// don't use the cache at all for now
-
-		// TODO consider adding a setting to use the cache for statistics, but
-		// because it could change with each new entry, it seems that there
-		// could be too much potential for invalid caching if multiple instances
-		// of GeoWave are able to connect to the same Accumulo tables
+		// statistics are cached per set of authorizations in the statistics
+		// cache, if enabled, rather than in the cache of persisted objects
 	}
 
 	@Override
 	protected Object getObjectFromCache(
 			final ByteArrayId primaryId,
 			final ByteArrayId secondaryId ) {
-		// don't use the cache at all
-
-		// TODO consider adding a setting to use the cache for statistics, but
-		// because it could change with each new entry, it seems that there
-		// could be too much potential for invalid caching if multiple instances
-		// of GeoWave are able to connect to the same Accumulo tables
+		// the visible statistics depend on the authorizations, which are not
+		// part of this lookup, so the statistics cache is used instead
 		return null;
 	}
 
@@ -88,15 +138,28 @@ public class AccumuloDataStatisticsStore extends
 	protected boolean deleteObjectFromCache(
 			final ByteArrayId primaryId,
 			final ByteArrayId secondaryId ) {
-		// don't use the cache at all
-
-		// TODO consider adding a setting to use the cache for statistics, but
-		// because it could change with each new entry, it seems that there
-		// could be too much potential for invalid caching if multiple instances
-		// of GeoWave are able to connect to the same Accumulo tables
+		// nothing is cached here, the statistics cache is invalidated by the
+		// callers that remove statistics
 		return true;
 	}
 
+	@Override
+	protected void addMissingToCache(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		// missing statistics are expected to be written soon, so they are
+		// never cached
+	}
+
+	private void invalidateStatisticsCache() {
+		if (statisticsCache != null) {
+			// other visibilities of the same statistic are cached under
+			// different keys so simply clear everything, statistics are
+			// written infrequently
+			statisticsCache.invalidateAll();
+		}
+	}
+
 	@Override
 	protected IteratorConfig[] getIteratorConfig() {
 		final IteratorConfig statsCombiner = new IteratorConfig(
@@ -130,10 +193,37 @@ public class AccumuloDataStatisticsStore extends
 			final ByteArrayId adapterId,
 			final ByteArrayId statisticsId,
 			String... authorizations ) {
-		return getObject(
+		if (statisticsCache == null) {
+			return getObject(
+					statisticsId,
+					adapterId,
+					authorizations);
+		}
+		final StatisticsCacheKey key = new StatisticsCacheKey(
 				statisticsId,
 				adapterId,
 				authorizations);
+		Optional<DataStatistics<?>> statistics = statisticsCache.getIfPresent(key);
+		if (statistics != null) {
+			getCacheStatistics().recordHit();
+		}
+		else {
+			statistics = statisticsCache.getUnchecked(key);
+		}
+		// callers are free to modify the statistics they are given so a copy
+		// of the cached statistics is returned
+		return statistics.isPresent() ? copy(statistics.get()) : null;
+	}
+
+	private static DataStatistics<?> copy(
+			final DataStatistics<?> statistics ) {
+		// the adapter ID and visibility are not part of the persisted binary
+		final DataStatistics<?> copy = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(statistics),
+				DataStatistics.class);
+		copy.setDataAdapterId(statistics.getDataAdapterId());
+		copy.setVisibility(statistics.getVisibility());
+		return copy;
 	}
 
 	@Override
@@ -169,6 +259,7 @@ public class AccumuloDataStatisticsStore extends
 				statistics.getDataAdapterId(),
 				statistics.getStatisticsId());
 		addObject(statistics);
+		invalidateStatisticsCache();
 	}
 
 	@Override
@@ -182,10 +273,12 @@ public class AccumuloDataStatisticsStore extends
 			final ByteArrayId adapterId,
 			final ByteArrayId statisticsId,
 			String... authorizations ) {
-		return deleteObject(
+		final boolean removed = deleteObject(
 				statisticsId,
 				adapterId,
 				authorizations);
+		invalidateStatisticsCache();
+		return removed;
 	}
 
 	@Override
@@ -207,4 +300,80 @@ public class AccumuloDataStatisticsStore extends
 			final DataStatistics<?> entry ) {
 		return entry.getVisibility();
 	}
+
+	private static class StatisticsCacheKey
+	{
+		private final ByteArrayId statisticsId;
+		private final ByteArrayId adapterId;
+		private final String[] authorizations;
+
+		private StatisticsCacheKey(
+				final ByteArrayId statisticsId,
+				final ByteArrayId adapterId,
+				final String[] authorizations ) {
+			this.statisticsId = statisticsId;
+			this.adapterId = adapterId;
+			this.authorizations = authorizations != null ? authorizations.clone() : new String[0];
+			Arrays.sort(this.authorizations);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + ((adapterId == null) ? 0 : adapterId.hashCode());
+			result = (prime * result) + Arrays.hashCode(authorizations);
+			result = (prime * result) + ((statisticsId == null) ? 0 : statisticsId.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final StatisticsCacheKey other = (StatisticsCacheKey) obj;
+			return Objects.equal(
+					statisticsId,
+					other.statisticsId) && Objects.equal(
+					adapterId,
+					other.adapterId) && Arrays.equals(
+					authorizations,
+					other.authorizations);
+		}
+	}
+
+	private class StatisticsCacheLoader extends
+			CacheLoader<StatisticsCacheKey, Optional<DataStatistics<?>>>
+	{
+		@Override
+		public Optional<DataStatistics<?>> load(
+				final StatisticsCacheKey key ) {
+			final DataStatistics<?> statistics = getObject(
+					key.statisticsId,
+					key.adapterId,
+					key.authorizations);
+			return Optional.<DataStatistics<?>> fromNullable(statistics);
+		}
+
+		@Override
+		public ListenableFuture<Optional<DataStatistics<?>>> reload(
+				final StatisticsCacheKey key,
+				final Optional<DataStatistics<?>> oldValue ) {
+			// refresh in the background, the stale statistics are returned
+			// until the refresh completes
+			final ListenableFutureTask<Optional<DataStatistics<?>>> task = ListenableFutureTask.create(new Callable<Optional<DataStatistics<?>>>() {
+				@Override
+				public Optional<DataStatistics<?>> call() {
+					return load(key);
+				}
+			});
+			REFRESH_EXECUTOR.execute(task);
+			return task;
+		}
+	}
 }
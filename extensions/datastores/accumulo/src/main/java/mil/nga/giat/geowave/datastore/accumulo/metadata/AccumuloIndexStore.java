@@ -27,6 +27,14 @@ public class AccumuloIndexStore extends
 				accumuloOperations);
 	}
 
+	public AccumuloIndexStore(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
+		super(
+				accumuloOperations,
+				cacheOptions);
+	}
+
 	@Override
 	public void addIndex(
 			final Index index ) {
@@ -0,0 +1,91 @@
+package mil.nga.giat.geowave.datastore.accumulo.metadata;
+
+/**
+ * This class can be used to modify the caching behavior of the GeoWave
+ * metadata stores. By default, up to 100 objects are cached per store without
+ * expiration, missing objects are not cached, and statistics are not cached.
+ * 
+ */
+public class MetadataCacheOptions
+{
+	protected int maxEntries = 100;
+	protected long timeToLiveMillis = -1;
+	protected long negativeTimeToLiveMillis = -1;
+	protected long statisticsTimeToLiveMillis = -1;
+	protected long statisticsRefreshMillis = -1;
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of objects to cache, the least recently
+	 *            used are evicted first
+	 */
+	public void setMaxEntries(
+			final int maxEntries ) {
+		this.maxEntries = maxEntries;
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * @param timeToLiveMillis
+	 *            how long a cached object is used before it is read again, a
+	 *            non-positive value never expires cached objects
+	 */
+	public void setTimeToLiveMillis(
+			final long timeToLiveMillis ) {
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	public long getNegativeTimeToLiveMillis() {
+		return negativeTimeToLiveMillis;
+	}
+
+	/**
+	 * @param negativeTimeToLiveMillis
+	 *            how long an object that was not found is remembered as
+	 *            missing, a non-positive value does not cache missing objects;
+	 *            objects added by another process will not be seen until this
+	 *            expires
+	 */
+	public void setNegativeTimeToLiveMillis(
+			final long negativeTimeToLiveMillis ) {
+		this.negativeTimeToLiveMillis = negativeTimeToLiveMillis;
+	}
+
+	public long getStatisticsTimeToLiveMillis() {
+		return statisticsTimeToLiveMillis;
+	}
+
+	/**
+	 * @param statisticsTimeToLiveMillis
+	 *            how long statistics are cached, a non-positive value does not
+	 *            cache statistics; statistics written by another process will
+	 *            not be seen until this expires
+	 */
+	public void setStatisticsTimeToLiveMillis(
+			final long statisticsTimeToLiveMillis ) {
+		this.statisticsTimeToLiveMillis = statisticsTimeToLiveMillis;
+	}
+
+	public long getStatisticsRefreshMillis() {
+		return statisticsRefreshMillis;
+	}
+
+	/**
+	 * @param statisticsRefreshMillis
+	 *            how long after statistics are cached that they are read again
+	 *            in the background on the next access, while the cached value
+	 *            continues to be returned; a non-positive value does not
+	 *            refresh statistics ahead of their expiration
+	 */
+	public void setStatisticsRefreshMillis(
+			final long statisticsRefreshMillis ) {
+		this.statisticsRefreshMillis = statisticsRefreshMillis;
+	}
+}
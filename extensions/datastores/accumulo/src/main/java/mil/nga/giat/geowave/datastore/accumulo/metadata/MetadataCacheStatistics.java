@@ -0,0 +1,132 @@
+package mil.nga.giat.geowave.datastore.accumulo.metadata;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Hit, miss and load latency counters for the metadata caches. The counters are
+ * shared by every store of the same type of metadata within the JVM and are
+ * exposed through JMX as
+ * "mil.nga.giat.geowave.datastore.accumulo:type=MetadataCache,name=&lt;type&gt;".
+ */
+public class MetadataCacheStatistics implements
+		MetadataCacheStatisticsMBean
+{
+	private final static Logger LOGGER = Logger.getLogger(MetadataCacheStatistics.class);
+	private static final ConcurrentMap<String, MetadataCacheStatistics> INSTANCES = new ConcurrentHashMap<String, MetadataCacheStatistics>();
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong negativeHitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong loadCount = new AtomicLong();
+	private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+
+	protected MetadataCacheStatistics() {}
+
+	public static MetadataCacheStatistics getInstance(
+			final String cacheName ) {
+		MetadataCacheStatistics statistics = INSTANCES.get(cacheName);
+		if (statistics == null) {
+			final MetadataCacheStatistics newStatistics = new MetadataCacheStatistics();
+			statistics = INSTANCES.putIfAbsent(
+					cacheName,
+					newStatistics);
+			if (statistics == null) {
+				statistics = newStatistics;
+				register(
+						cacheName,
+						statistics);
+			}
+		}
+		return statistics;
+	}
+
+	private static void register(
+			final String cacheName,
+			final MetadataCacheStatistics statistics ) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+					statistics,
+					new ObjectName(
+							"mil.nga.giat.geowave.datastore.accumulo:type=MetadataCache,name=" + ObjectName.quote(cacheName)));
+		}
+		catch (final JMException e) {
+			LOGGER.warn(
+					"Unable to register metadata cache statistics for '" + cacheName + "'",
+					e);
+		}
+	}
+
+	public void recordHit() {
+		hitCount.incrementAndGet();
+	}
+
+	public void recordNegativeHit() {
+		negativeHitCount.incrementAndGet();
+	}
+
+	public void recordMiss() {
+		missCount.incrementAndGet();
+	}
+
+	public void recordLoad(
+			final long loadTimeNanos ) {
+		loadCount.incrementAndGet();
+		totalLoadTimeNanos.addAndGet(loadTimeNanos);
+	}
+
+	@Override
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	@Override
+	public long getNegativeHitCount() {
+		return negativeHitCount.get();
+	}
+
+	@Override
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Override
+	public double getHitRatio() {
+		final long hits = hitCount.get() + negativeHitCount.get();
+		final long total = hits + missCount.get();
+		if (total == 0) {
+			return 0;
+		}
+		return (double) hits / (double) total;
+	}
+
+	@Override
+	public long getLoadCount() {
+		return loadCount.get();
+	}
+
+	@Override
+	public double getAverageLoadTimeMillis() {
+		final long loads = loadCount.get();
+		if (loads == 0) {
+			return 0;
+		}
+		return (totalLoadTimeNanos.get() / 1000000.0) / loads;
+	}
+
+	@Override
+	public void reset() {
+		hitCount.set(0);
+		negativeHitCount.set(0);
+		missCount.set(0);
+		loadCount.set(0);
+		totalLoadTimeNanos.set(0);
+	}
+}
@@ -0,0 +1,22 @@
+package mil.nga.giat.geowave.datastore.accumulo.metadata;
+
+/**
+ * The management interface for the metadata cache counters, registered with
+ * the platform MBean server for each type of metadata.
+ */
+public interface MetadataCacheStatisticsMBean
+{
+	public long getHitCount();
+
+	public long getNegativeHitCount();
+
+	public long getMissCount();
+
+	public double getHitRatio();
+
+	public long getLoadCount();
+
+	public double getAverageLoadTimeMillis();
+
+	public void reset();
+}
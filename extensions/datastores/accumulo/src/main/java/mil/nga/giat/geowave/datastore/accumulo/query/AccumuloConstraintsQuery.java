@@ -7,6 +7,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.RowCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
@@ -32,6 +33,8 @@ public class AccumuloConstraintsQuery extends
 	protected final List<MultiDimensionalNumericData> constraints;
 	protected final List<DistributableQueryFilter> distributableFilters;
 	protected boolean queryFiltersEnabled;
+	protected int maxRangeDecomposition = MAX_RANGE_DECOMPOSITION;
+	protected RowCardinalityEstimator cardinalityEstimator;
 
 	public AccumuloConstraintsQuery(
 			final Index index,
@@ -192,7 +195,47 @@ public class AccumuloConstraintsQuery extends
 		return AccumuloUtils.constraintsToByteArrayRanges(
 				constraints,
 				index.getIndexStrategy(),
-				MAX_RANGE_DECOMPOSITION);
+				maxRangeDecomposition,
+				cardinalityEstimator);
+	}
+
+	public int getMaxRangeDecomposition() {
+		return maxRangeDecomposition;
+	}
+
+	/**
+	 * @param maxRangeDecomposition
+	 *            the number of ranges to decompose the constraints into, a
+	 *            non-positive value will use the default
+	 */
+	public void setMaxRangeDecomposition(
+			final int maxRangeDecomposition ) {
+		this.maxRangeDecomposition = (maxRangeDecomposition > 0) ? maxRangeDecomposition : MAX_RANGE_DECOMPOSITION;
+	}
+
+	/**
+	 * @param cardinalityEstimator
+	 *            an estimate of the number of rows per row ID prefix, used to
+	 *            divide the range decomposition across the index
+	 */
+	public void setCardinalityEstimator(
+			final RowCardinalityEstimator cardinalityEstimator ) {
+		this.cardinalityEstimator = cardinalityEstimator;
+	}
+
+	/**
+	 * @param maxDedupeMemory
+	 *            the maximum memory in bytes the server-side de-duplication
+	 *            may use per scan, or a non-positive value to retain every
+	 *            visited ID
+	 */
+	public void setMaxDedupeMemory(
+			final long maxDedupeMemory ) {
+		// the dedupe filter is always the first distributable filter
+		distributableFilters.set(
+				0,
+				new DedupeFilter(
+						maxDedupeMemory));
 	}
 
 	public boolean isQueryFiltersEnabled() {
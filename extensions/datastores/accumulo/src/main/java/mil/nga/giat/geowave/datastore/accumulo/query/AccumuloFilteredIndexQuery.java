@@ -1,6 +1,8 @@
 package mil.nga.giat.geowave.datastore.accumulo.query;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -14,6 +16,7 @@ import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.dimension.DimensionField;
+import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
 import mil.nga.giat.geowave.core.store.filter.FilterList;
 import mil.nga.giat.geowave.core.store.filter.QueryFilter;
 import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
@@ -22,6 +25,7 @@ import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.util.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.datastore.accumulo.util.CloseableIteratorWrapper.ScannerClosableWrapper;
 import mil.nga.giat.geowave.datastore.accumulo.util.EntryIteratorWrapper;
+import mil.nga.giat.geowave.datastore.accumulo.util.ParallelDecodeIterator;
 
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.hadoop.io.Text;
@@ -36,6 +40,8 @@ public abstract class AccumuloFilteredIndexQuery extends
 	private final static Logger LOGGER = Logger.getLogger(AccumuloFilteredIndexQuery.class);
 	protected final ScanCallback<?> scanCallback;
 	private Collection<String> fieldIds = null;
+	private int decodeParallelism = -1;
+	private boolean preserveDecodeOrder = true;
 
 	public AccumuloFilteredIndexQuery(
 			final Index index,
@@ -77,6 +83,22 @@ public abstract class AccumuloFilteredIndexQuery extends
 		this.fieldIds = fieldIds;
 	}
 
+	/**
+	 * @param decodeParallelism
+	 *            the number of batches of rows to decode at once on a shared
+	 *            worker pool, a value of 1 or less decodes rows on the
+	 *            caller's thread
+	 * @param preserveDecodeOrder
+	 *            whether rows decoded in parallel are returned in the order
+	 *            they were scanned
+	 */
+	public void setParallelDecode(
+			final int decodeParallelism,
+			final boolean preserveDecodeOrder ) {
+		this.decodeParallelism = decodeParallelism;
+		this.preserveDecodeOrder = preserveDecodeOrder;
+	}
+
 	protected abstract void addScanIteratorSettings(
 			final ScannerBase scanner );
 
@@ -118,30 +140,90 @@ public abstract class AccumuloFilteredIndexQuery extends
 			return new CloseableIterator.Empty();
 		}
 		addScanIteratorSettings(scanner);
-		Iterator it = initIterator(
+		final Iterator decodingIt = initIterator(
 				adapterStore,
 				scanner);
+		Iterator it = decodingIt;
 		if ((limit != null) && (limit > 0)) {
 			it = Iterators.limit(
 					it,
 					limit);
 		}
+		final Closeable scannerCloseable = new ScannerClosableWrapper(
+				scanner);
+		if (decodingIt instanceof Closeable) {
+			// stop any decoding in progress before closing the scanner
+			return new CloseableIteratorWrapper(
+					new Closeable() {
+						@Override
+						public void close()
+								throws IOException {
+							((Closeable) decodingIt).close();
+							scannerCloseable.close();
+						}
+					},
+					it);
+		}
 		return new CloseableIteratorWrapper(
-				new ScannerClosableWrapper(
-						scanner),
+				scannerCloseable,
 				it);
 	}
 
 	protected Iterator initIterator(
 			final AdapterStore adapterStore,
 			final ScannerBase scanner ) {
+		if (decodeParallelism > 1) {
+			// de-duplication must see every row in order so it is applied
+			// before the rows are handed to the decoding workers
+			final List<QueryFilter> rowIdFilters = new ArrayList<QueryFilter>();
+			final List<QueryFilter> decodeFilters = new ArrayList<QueryFilter>();
+			if (clientFilters != null) {
+				for (final QueryFilter filter : clientFilters) {
+					if (filter instanceof DedupeFilter) {
+						rowIdFilters.add(filter);
+					}
+					else {
+						decodeFilters.add(filter);
+					}
+				}
+			}
+			return new ParallelDecodeIterator(
+					adapterStore,
+					index,
+					scanner.iterator(),
+					new FilterList<QueryFilter>(
+							rowIdFilters),
+					new FilterList<QueryFilter>(
+							decodeFilters),
+					scanCallback,
+					getFieldIdSubset(),
+					decodeParallelism,
+					preserveDecodeOrder);
+		}
 		return new EntryIteratorWrapper(
 				adapterStore,
 				index,
 				scanner.iterator(),
 				new FilterList<QueryFilter>(
 						clientFilters),
-				scanCallback);
+				scanCallback,
+				getFieldIdSubset());
+	}
+
+	/**
+	 * @return the extended field IDs to decode, or null if every field is
+	 *         requested
+	 */
+	protected Set<ByteArrayId> getFieldIdSubset() {
+		if ((fieldIds == null) || fieldIds.isEmpty()) {
+			return null;
+		}
+		final Set<ByteArrayId> fieldIdSubset = new HashSet<ByteArrayId>();
+		for (final String fieldId : fieldIds) {
+			fieldIdSubset.add(new ByteArrayId(
+					StringUtils.stringToBinary(fieldId)));
+		}
+		return fieldIdSubset;
 	}
 
 	private void handleSubsetOfFieldIds(
@@ -3,38 +3,38 @@ package mil.nga.giat.geowave.datastore.accumulo.util;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.DataStoreUtils;
 import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
-import mil.nga.giat.geowave.core.store.adapter.AdapterPersistenceEncoding;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
-import mil.nga.giat.geowave.core.store.data.DataWriter;
+import mil.nga.giat.geowave.core.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.core.store.data.PersistentDataset;
 import mil.nga.giat.geowave.core.store.data.PersistentValue;
 import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.core.store.data.field.FieldReader;
-import mil.nga.giat.geowave.core.store.data.field.FieldVisibilityHandler;
-import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
 import mil.nga.giat.geowave.core.store.data.visibility.UnconstrainedVisibilityHandler;
 import mil.nga.giat.geowave.core.store.data.visibility.UniformVisibilityWriter;
 import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
@@ -92,6 +92,14 @@ public class AccumuloUtils
 	private static final UniformVisibilityWriter DEFAULT_VISIBILITY = new UniformVisibilityWriter(
 			new UnconstrainedVisibilityHandler());
 
+	// parsing a column visibility is relatively expensive and the same few
+	// visibilities are typically written for every entry, so parsed
+	// visibilities are shared
+	private static final int MAX_CACHED_VISIBILITIES = 1024;
+	private static final ColumnVisibility EMPTY_VISIBILITY = new ColumnVisibility();
+	private static final ConcurrentMap<ByteArrayId, ColumnVisibility> VISIBILITY_CACHE = new ConcurrentHashMap<ByteArrayId, ColumnVisibility>();
+	private static final byte[] EMPTY_VALUE = new byte[] {};
+
 	public static Range byteArrayRangeToAccumuloRange(
 			final ByteArrayRange byteArrayRange ) {
 		final Text start = new Text(
@@ -135,54 +143,44 @@ public class AccumuloUtils
 	public static List<ByteArrayRange> constraintsToByteArrayRanges(
 			final MultiDimensionalNumericData constraints,
 			final NumericIndexStrategy indexStrategy ) {
-		if ((constraints == null) || constraints.isEmpty()) {
-			return new ArrayList<ByteArrayRange>(); // implies in negative and
-			// positive infinity
-		}
-		else {
-			return indexStrategy.getQueryRanges(constraints);
-		}
+		return DataStoreUtils.constraintsToByteArrayRanges(
+				constraints,
+				indexStrategy);
 	}
 
 	public static List<ByteArrayRange> constraintsToByteArrayRanges(
 			final List<MultiDimensionalNumericData> constraints,
 			final NumericIndexStrategy indexStrategy ) {
-		if ((constraints == null) || constraints.isEmpty()) {
-			return new ArrayList<ByteArrayRange>(); // implies in negative and
-			// positive infinity
-		}
-		else {
-			final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
-			for (MultiDimensionalNumericData nd : constraints) {
-				ranges.addAll(indexStrategy.getQueryRanges(nd));
-			}
-			ByteArrayRange.mergeIntersections(
-					ranges,
-					0);
-			return ranges;
-		}
+		return DataStoreUtils.constraintsToByteArrayRanges(
+				constraints,
+				indexStrategy);
 	}
 
 	public static List<ByteArrayRange> constraintsToByteArrayRanges(
 			final List<MultiDimensionalNumericData> constraints,
 			final NumericIndexStrategy indexStrategy,
 			final int maxRanges ) {
-		if ((constraints == null) || constraints.isEmpty()) {
-			return new ArrayList<ByteArrayRange>(); // implies in negative and
-			// positive infinity
-		}
-		else {
-			final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
-			for (MultiDimensionalNumericData nd : constraints) {
-				ranges.addAll(indexStrategy.getQueryRanges(
-						nd,
-						maxRanges));
-			}
-			ByteArrayRange.mergeIntersections(
-					ranges,
-					maxRanges);
-			return ranges;
-		}
+		return DataStoreUtils.constraintsToByteArrayRanges(
+				constraints,
+				indexStrategy,
+				maxRanges);
+	}
+
+	/**
+	 * Decompose the constraints into ranges, using the estimator (if the index
+	 * strategy supports it) to divide the range budget according to where rows
+	 * are actually stored
+	 */
+	public static List<ByteArrayRange> constraintsToByteArrayRanges(
+			final List<MultiDimensionalNumericData> constraints,
+			final NumericIndexStrategy indexStrategy,
+			final int maxRanges,
+			final RowCardinalityEstimator cardinalityEstimator ) {
+		return DataStoreUtils.constraintsToByteArrayRanges(
+				constraints,
+				indexStrategy,
+				maxRanges,
+				cardinalityEstimator);
 	}
 
 	public static String getQualifiedTableName(
@@ -220,6 +218,24 @@ public class AccumuloUtils
 				null,
 				clientFilter,
 				index,
+				null,
+				null);
+	}
+
+	public static <T> T decodeRow(
+			final Key key,
+			final Value value,
+			final AdapterStore adapterStore,
+			final QueryFilter clientFilter,
+			final Index index,
+			final ScanCallback<T> scanCallback ) {
+		return decodeRow(
+				key,
+				value,
+				adapterStore,
+				clientFilter,
+				index,
+				scanCallback,
 				null);
 	}
 
@@ -230,7 +246,8 @@ public class AccumuloUtils
 			final AdapterStore adapterStore,
 			final QueryFilter clientFilter,
 			final Index index,
-			final ScanCallback<T> scanCallback ) {
+			final ScanCallback<T> scanCallback,
+			final Set<ByteArrayId> fieldIdSubset ) {
 		final AccumuloRowId rowId = new AccumuloRowId(
 				key.getRow().copyBytes());
 		return (T) decodeRowObj(
@@ -241,7 +258,8 @@ public class AccumuloUtils
 				adapterStore,
 				clientFilter,
 				index,
-				scanCallback);
+				scanCallback,
+				fieldIdSubset);
 	}
 
 	public static Object decodeRow(
@@ -259,6 +277,7 @@ public class AccumuloUtils
 				adapterStore,
 				clientFilter,
 				index,
+				null,
 				null);
 	}
 
@@ -270,7 +289,8 @@ public class AccumuloUtils
 			final AdapterStore adapterStore,
 			final QueryFilter clientFilter,
 			final Index index,
-			final ScanCallback<T> scanCallback ) {
+			final ScanCallback<T> scanCallback,
+			final Set<ByteArrayId> fieldIdSubset ) {
 		final Pair<T, DataStoreEntryInfo> pair = decodeRow(
 				key,
 				value,
@@ -279,12 +299,12 @@ public class AccumuloUtils
 				adapterStore,
 				clientFilter,
 				index,
-				scanCallback);
+				scanCallback,
+				fieldIdSubset);
 		return pair != null ? pair.getLeft() : null;
 
 	}
 
-	@SuppressWarnings("unchecked")
 	public static <T> Pair<T, DataStoreEntryInfo> decodeRow(
 			final Key k,
 			final Value v,
@@ -294,6 +314,73 @@ public class AccumuloUtils
 			final QueryFilter clientFilter,
 			final Index index,
 			final ScanCallback<T> scanCallback ) {
+		return decodeRow(
+				k,
+				v,
+				rowId,
+				dataAdapter,
+				adapterStore,
+				clientFilter,
+				index,
+				scanCallback,
+				null);
+	}
+
+	/**
+	 * Decode a whole row into the native type. The common index fields are
+	 * read first so that the client filter can be applied before any of the
+	 * adapter's extended fields are read, and extended fields are only read
+	 * when they are first accessed.
+	 * 
+	 * The extended fields are only included in the entry info if there is a
+	 * scan callback, so that fields the adapter does not access are not read.
+	 * 
+	 * @param fieldIdSubset
+	 *            if not null, the only extended fields to decode, any other
+	 *            extended fields in the row are ignored
+	 */
+	public static <T> Pair<T, DataStoreEntryInfo> decodeRow(
+			final Key k,
+			final Value v,
+			final AccumuloRowId rowId,
+			final DataAdapter<T> dataAdapter,
+			final AdapterStore adapterStore,
+			final QueryFilter clientFilter,
+			final Index index,
+			final ScanCallback<T> scanCallback,
+			final Set<ByteArrayId> fieldIdSubset ) {
+		return decodeRow(
+				k,
+				v,
+				rowId,
+				dataAdapter,
+				adapterStore,
+				clientFilter,
+				index,
+				scanCallback,
+				fieldIdSubset,
+				scanCallback != null);
+	}
+
+	/**
+	 * Decode a whole row into the native type, as above.
+	 * 
+	 * @param includeExtendedFieldInfo
+	 *            whether the extended fields are read into the entry info,
+	 *            for a caller that invokes its scan callback itself
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Pair<T, DataStoreEntryInfo> decodeRow(
+			final Key k,
+			final Value v,
+			final AccumuloRowId rowId,
+			final DataAdapter<T> dataAdapter,
+			final AdapterStore adapterStore,
+			final QueryFilter clientFilter,
+			final Index index,
+			final ScanCallback<T> scanCallback,
+			final Set<ByteArrayId> fieldIdSubset,
+			final boolean includeExtendedFieldInfo ) {
 		if ((dataAdapter == null) && (adapterStore == null)) {
 			LOGGER.error("Could not decode row from iterator. Either adapter or adapter store must be non-null.");
 			return null;
@@ -313,7 +400,7 @@ public class AccumuloUtils
 		// client filters and if its accepted, use the data adapter to
 		// decode the persistence model into the native data type
 		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>();
-		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		final LazyPersistentDataset<Object> extendedData = new LazyPersistentDataset<Object>();
 		// for now we are assuming all entries in a row are of the same type
 		// and use the same adapter
 		boolean adapterMatchVerified;
@@ -326,8 +413,11 @@ public class AccumuloUtils
 			adapterMatchVerified = true;
 			adapterId = null;
 		}
+		CommonIndexModel indexModel = null;
 		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>(
 				rowMapping.size());
+		final List<Entry<Key, Value>> extendedEntries = includeExtendedFieldInfo ? new ArrayList<Entry<Key, Value>>(
+				rowMapping.size()) : null;
 
 		for (final Entry<Key, Value> entry : rowMapping.entrySet()) {
 			// the column family is the data element's type ID
@@ -349,19 +439,20 @@ public class AccumuloUtils
 				}
 				adapterMatchVerified = true;
 			}
+			if (indexModel == null) {
+				if (adapter instanceof ModelConvertingDataAdapter) {
+					indexModel = ((ModelConvertingDataAdapter) adapter).convertModel(index.getIndexModel());
+				}
+				else {
+					indexModel = index.getIndexModel();
+				}
+			}
 			final ByteArrayId fieldId = new ByteArrayId(
 					entry.getKey().getColumnQualifierData().getBackingArray());
-			final CommonIndexModel indexModel;
-			if (adapter instanceof ModelConvertingDataAdapter) {
-				indexModel = ((ModelConvertingDataAdapter) adapter).convertModel(index.getIndexModel());
-			}
-			else {
-				indexModel = index.getIndexModel();
-			}
 			// first check if this field is part of the index model
 			final FieldReader<? extends CommonIndexValue> indexFieldReader = indexModel.getReader(fieldId);
-			final byte byteValue[] = entry.getValue().get();
 			if (indexFieldReader != null) {
+				final byte byteValue[] = entry.getValue().get();
 				final CommonIndexValue indexValue = indexFieldReader.readField(byteValue);
 				indexValue.setVisibility(entry.getKey().getColumnVisibilityData().getBackingArray());
 				final PersistentValue<CommonIndexValue> val = new PersistentValue<CommonIndexValue>(
@@ -373,7 +464,7 @@ public class AccumuloUtils
 						byteValue,
 						indexValue.getVisibility()));
 			}
-			else {
+			else if ((fieldIdSubset == null) || fieldIdSubset.contains(fieldId)) {
 				// next check if this field is part of the adapter's
 				// extended data model
 				final FieldReader<?> extFieldReader = adapter.getReader(fieldId);
@@ -383,15 +474,14 @@ public class AccumuloUtils
 					LOGGER.error("field reader not found for data entry, the value will be ignored");
 					continue;
 				}
-				final Object value = extFieldReader.readField(byteValue);
-				final PersistentValue<Object> val = new PersistentValue<Object>(
+				// defer reading the value until it is used
+				extendedData.addDeferredValue(
 						fieldId,
-						value);
-				extendedData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
-						byteValue,
-						entry.getKey().getColumnVisibility().getBytes()));
+						extFieldReader,
+						entry.getValue().get());
+				if (extendedEntries != null) {
+					extendedEntries.add(entry);
+				}
 			}
 		}
 		final IndexedAdapterPersistenceEncoding encodedRow = new IndexedAdapterPersistenceEncoding(
@@ -409,10 +499,23 @@ public class AccumuloUtils
 				LOGGER.error("Error, adapter was null when it should not be");
 			}
 			else {
+				final T decodedValue = adapter.decode(
+						encodedRow,
+						index);
+				if (extendedEntries != null) {
+					for (final Entry<Key, Value> entry : extendedEntries) {
+						final ByteArrayId fieldId = new ByteArrayId(
+								entry.getKey().getColumnQualifierData().getBackingArray());
+						fieldInfoList.add(getFieldInfo(
+								new PersistentValue<Object>(
+										fieldId,
+										extendedData.getValue(fieldId)),
+								entry.getValue().get(),
+								entry.getKey().getColumnVisibility().getBytes()));
+					}
+				}
 				final Pair<T, DataStoreEntryInfo> pair = Pair.of(
-						adapter.decode(
-								encodedRow,
-								index),
+						decodedValue,
 						new DataStoreEntryInfo(
 								Arrays.asList(new ByteArrayId(
 										k.getRowData().getBackingArray())),
@@ -503,15 +606,11 @@ public class AccumuloUtils
 			for (final ByteArrayId rowId : entryInfo.getRowIds()) {
 
 				final Mutation mutation = new Mutation(
-						new Text(
-								dataId));
+						dataId);
 				mutation.put(
-						new Text(
-								adapterId),
-						new Text(
-								rowId.getBytes()),
-						new Value(
-								"".getBytes(StringUtils.UTF8_CHAR_SET)));
+						adapterId,
+						rowId.getBytes(),
+						EMPTY_VALUE);
 
 				mutations.add(mutation);
 			}
@@ -534,32 +633,83 @@ public class AccumuloUtils
 				ingestInfo);
 	}
 
-	private static <T> List<Mutation> buildMutations(
+	/**
+	 * Build a mutation for each row ID of the entry. The column family,
+	 * qualifiers and values are written directly from the entry's byte arrays,
+	 * so the value of each field is shared by every row ID rather than copied
+	 * into intermediate objects.
+	 * 
+	 * @param adapterId
+	 *            the adapter ID, used as the column family
+	 * @param ingestInfo
+	 *            the row IDs and encoded fields of the entry
+	 * @return a mutation per row ID
+	 */
+	public static List<Mutation> buildMutations(
 			final byte[] adapterId,
 			final DataStoreEntryInfo ingestInfo ) {
-		final List<Mutation> mutations = new ArrayList<Mutation>();
+		final List<ByteArrayId> rowIds = ingestInfo.getRowIds();
 		final List<FieldInfo> fieldInfoList = ingestInfo.getFieldInfo();
-		for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
+		// resolve the qualifiers and visibilities once per entry rather than
+		// once per row ID
+		final int fieldCount = fieldInfoList.size();
+		final byte[][] qualifiers = new byte[fieldCount][];
+		final ColumnVisibility[] visibilities = new ColumnVisibility[fieldCount];
+		final byte[][] values = new byte[fieldCount][];
+		for (int i = 0; i < fieldCount; i++) {
+			final FieldInfo fieldInfo = fieldInfoList.get(i);
+			qualifiers[i] = fieldInfo.getDataValue().getId().getBytes();
+			visibilities[i] = getColumnVisibility(fieldInfo.getVisibility());
+			values[i] = fieldInfo.getWrittenValue();
+		}
+		final List<Mutation> mutations = new ArrayList<Mutation>(
+				rowIds.size());
+		for (final ByteArrayId rowId : rowIds) {
 			final Mutation mutation = new Mutation(
-					new Text(
-							rowId.getBytes()));
-			for (final FieldInfo fieldInfo : fieldInfoList) {
+					rowId.getBytes());
+			for (int i = 0; i < fieldCount; i++) {
 				mutation.put(
-						new Text(
-								adapterId),
-						new Text(
-								fieldInfo.getDataValue().getId().getBytes()),
-						new ColumnVisibility(
-								fieldInfo.getVisibility()),
-						new Value(
-								fieldInfo.getWrittenValue()));
+						adapterId,
+						qualifiers[i],
+						visibilities[i],
+						values[i]);
 			}
-
 			mutations.add(mutation);
 		}
 		return mutations;
 	}
 
+	/**
+	 * @param visibility
+	 *            the visibility expression
+	 * @return the parsed visibility, shared with other callers using the same
+	 *         expression
+	 */
+	public static ColumnVisibility getColumnVisibility(
+			final byte[] visibility ) {
+		if ((visibility == null) || (visibility.length == 0)) {
+			return EMPTY_VISIBILITY;
+		}
+		ColumnVisibility columnVisibility = VISIBILITY_CACHE.get(new ByteArrayId(
+				visibility));
+		if (columnVisibility == null) {
+			// the caller may reuse its array so the cache keeps its own copy
+			final byte[] visibilityCopy = visibility.clone();
+			columnVisibility = new ColumnVisibility(
+					visibilityCopy);
+			if (VISIBILITY_CACHE.size() >= MAX_CACHED_VISIBILITIES) {
+				// visibilities are expected to be few, if there are many it is
+				// not worth tracking which are used most
+				VISIBILITY_CACHE.clear();
+			}
+			VISIBILITY_CACHE.put(
+					new ByteArrayId(
+							visibilityCopy),
+					columnVisibility);
+		}
+		return columnVisibility;
+	}
+
 	/**
 	 * 
 	 * @param dataWriter
@@ -571,50 +721,22 @@ public class AccumuloUtils
 			final WritableDataAdapter<T> dataWriter,
 			final Index index,
 			final T entry ) {
-		final CommonIndexModel indexModel = index.getIndexModel();
-		final AdapterPersistenceEncoding encodedData = dataWriter.encode(
-				entry,
-				indexModel);
-		final List<ByteArrayId> insertionIds = encodedData.getInsertionIds(index);
-		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
-				insertionIds.size());
-
-		addToRowIds(
-				rowIds,
-				insertionIds,
-				dataWriter.getDataId(
-						entry).getBytes(),
-				dataWriter.getAdapterId().getBytes(),
-				encodedData.isDeduplicationEnabled());
-
-		return rowIds;
+		return DataStoreUtils.getRowIds(
+				dataWriter,
+				index,
+				entry);
 	}
 
-	private static <T> void addToRowIds(
-			final List<ByteArrayId> rowIds,
-			final List<ByteArrayId> insertionIds,
-			final byte[] dataId,
-			final byte[] adapterId,
-			final boolean enableDeduplication ) {
-
-		final int numberOfDuplicates = insertionIds.size() - 1;
-
-		for (final ByteArrayId insertionId : insertionIds) {
-			final byte[] indexId = insertionId.getBytes();
-			// because the combination of the adapter ID and data ID
-			// gaurantees uniqueness, we combine them in the row ID to
-			// disambiguate index values that are the same, also adding
-			// enough length values to be able to read the row ID again, we
-			// lastly add a number of duplicates which can be useful as
-			// metadata in our de-duplication
-			// step
-			rowIds.add(new ByteArrayId(
-					new AccumuloRowId(
-							indexId,
-							dataId,
-							adapterId,
-							enableDeduplication ? numberOfDuplicates : -1).getRowId()));
-		}
+	@SuppressWarnings("unchecked")
+	public static <T> DataStoreEntryInfo getIngestInfo(
+			final WritableDataAdapter<T> dataWriter,
+			final Index index,
+			final T entry ) {
+		return getIngestInfo(
+				dataWriter,
+				index,
+				entry,
+				DEFAULT_VISIBILITY);
 	}
 
 	@SuppressWarnings({
@@ -633,93 +755,12 @@ public class AccumuloUtils
 		else {
 			indexModel = index.getIndexModel();
 		}
-
-		final AdapterPersistenceEncoding encodedData = dataWriter.encode(
+		return DataStoreUtils.getIngestInfo(
+				dataWriter,
+				index,
+				indexModel,
 				entry,
-				indexModel);
-		final List<ByteArrayId> insertionIds = encodedData.getInsertionIds(index);
-		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
-				insertionIds.size());
-		final PersistentDataset extendedData = encodedData.getAdapterExtendedData();
-		final PersistentDataset indexedData = encodedData.getCommonData();
-		final List<PersistentValue> extendedValues = extendedData.getValues();
-		final List<PersistentValue> commonValues = indexedData.getValues();
-
-		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>();
-
-		if (!insertionIds.isEmpty()) {
-			addToRowIds(
-					rowIds,
-					insertionIds,
-					dataWriter.getDataId(
-							entry).getBytes(),
-					dataWriter.getAdapterId().getBytes(),
-					encodedData.isDeduplicationEnabled());
-
-			for (final PersistentValue fieldValue : commonValues) {
-				final FieldInfo<T> fieldInfo = getFieldInfo(
-						indexModel,
-						fieldValue,
-						entry,
-						customFieldVisibilityWriter);
-				if (fieldInfo != null) {
-					fieldInfoList.add(fieldInfo);
-				}
-			}
-			for (final PersistentValue fieldValue : extendedValues) {
-				if (fieldValue.getValue() != null) {
-					final FieldInfo<T> fieldInfo = getFieldInfo(
-							dataWriter,
-							fieldValue,
-							entry,
-							customFieldVisibilityWriter);
-					if (fieldInfo != null) {
-						fieldInfoList.add(fieldInfo);
-					}
-				}
-			}
-			return new DataStoreEntryInfo(
-					rowIds,
-					fieldInfoList);
-		}
-		LOGGER.warn("Indexing failed to produce insertion ids; entry [" + dataWriter.getDataId(
-				entry).getString() + "] not saved.");
-		return new DataStoreEntryInfo(
-				Collections.EMPTY_LIST,
-				Collections.EMPTY_LIST);
-
-	}
-
-	@SuppressWarnings({
-		"rawtypes",
-		"unchecked"
-	})
-	private static <T> FieldInfo<T> getFieldInfo(
-			final DataWriter dataWriter,
-			final PersistentValue<T> fieldValue,
-			final T entry,
-			final VisibilityWriter<T> customFieldVisibilityWriter ) {
-		final FieldWriter fieldWriter = dataWriter.getWriter(fieldValue.getId());
-		final FieldVisibilityHandler<T, Object> customVisibilityHandler = customFieldVisibilityWriter.getFieldVisibilityHandler(fieldValue.getId());
-		if (fieldWriter != null) {
-			final Object value = fieldValue.getValue();
-			return new FieldInfo<T>(
-					fieldValue,
-					fieldWriter.writeField(value),
-					merge(
-							customVisibilityHandler.getVisibility(
-									entry,
-									fieldValue.getId(),
-									value),
-							fieldWriter.getVisibility(
-									entry,
-									fieldValue.getId(),
-									value)));
-		}
-		else if (fieldValue.getValue() != null) {
-			LOGGER.warn("Data writer of class " + dataWriter.getClass() + " does not support field for " + fieldValue.getValue());
-		}
-		return null;
+				customFieldVisibilityWriter);
 	}
 
 	@SuppressWarnings({
@@ -736,29 +777,6 @@ public class AccumuloUtils
 				visibility);
 	}
 
-	private static final byte[] BEG_AND_BYTE = "&".getBytes(StringUtils.UTF8_CHAR_SET);
-	private static final byte[] END_AND_BYTE = ")".getBytes(StringUtils.UTF8_CHAR_SET);
-
-	private static byte[] merge(
-			final byte vis1[],
-			final byte vis2[] ) {
-		if ((vis1 == null) || (vis1.length == 0)) {
-			return vis2;
-		}
-		else if ((vis2 == null) || (vis2.length == 0)) {
-			return vis1;
-		}
-
-		final ByteBuffer buffer = ByteBuffer.allocate(vis1.length + 3 + vis2.length);
-		buffer.putChar('(');
-		buffer.put(vis1);
-		buffer.putChar(')');
-		buffer.put(BEG_AND_BYTE);
-		buffer.put(vis2);
-		buffer.put(END_AND_BYTE);
-		return buffer.array();
-	}
-
 	/**
 	 * Get Namespaces
 	 * 
@@ -3,7 +3,9 @@ package mil.nga.giat.geowave.datastore.accumulo.util;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
+import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.filter.QueryFilter;
@@ -29,6 +31,7 @@ public class EntryIteratorWrapper<T> implements
 	private final Iterator<Entry<Key, Value>> scannerIt;
 	private final QueryFilter clientFilter;
 	private final ScanCallback<T> scanCallback;
+	private final Set<ByteArrayId> fieldIdSubset;
 
 	private T nextValue;
 
@@ -42,6 +45,7 @@ public class EntryIteratorWrapper<T> implements
 		this.scannerIt = scannerIt;
 		this.clientFilter = clientFilter;
 		this.scanCallback = null;
+		this.fieldIdSubset = null;
 	}
 
 	public EntryIteratorWrapper(
@@ -50,11 +54,33 @@ public class EntryIteratorWrapper<T> implements
 			final Iterator<Entry<Key, Value>> scannerIt,
 			final QueryFilter clientFilter,
 			final ScanCallback<T> scanCallback ) {
+		this(
+				adapterStore,
+				index,
+				scannerIt,
+				clientFilter,
+				scanCallback,
+				null);
+	}
+
+	/**
+	 * @param fieldIdSubset
+	 *            if not null, the only extended fields of each row that will be
+	 *            decoded
+	 */
+	public EntryIteratorWrapper(
+			final AdapterStore adapterStore,
+			final Index index,
+			final Iterator<Entry<Key, Value>> scannerIt,
+			final QueryFilter clientFilter,
+			final ScanCallback<T> scanCallback,
+			final Set<ByteArrayId> fieldIdSubset ) {
 		this.adapterStore = adapterStore;
 		this.index = index;
 		this.scannerIt = scannerIt;
 		this.clientFilter = clientFilter;
 		this.scanCallback = scanCallback;
+		this.fieldIdSubset = fieldIdSubset;
 	}
 
 	private void findNext() {
@@ -81,7 +107,8 @@ public class EntryIteratorWrapper<T> implements
 				adapterStore,
 				clientFilter,
 				index,
-				scanCallback);
+				scanCallback,
+				fieldIdSubset);
 	}
 
 	@Override
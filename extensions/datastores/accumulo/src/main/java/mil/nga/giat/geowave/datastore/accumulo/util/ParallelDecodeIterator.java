@@ -0,0 +1,300 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloRowId;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.log4j.Logger;
+
+/**
+ * This translates Accumulo rows into native objects like
+ * {@link EntryIteratorWrapper}, but decodes the rows on a shared pool of worker
+ * threads. Rows are read from the scanner on the caller's thread in batches
+ * and at most a bounded number of batches are decoded ahead of the caller.
+ *
+ * Filters that must see every row in order, such as de-duplication, are
+ * applied on the caller's thread using only the row ID, before a row is handed
+ * to a worker. The remaining filters are applied by the workers and must be
+ * thread-safe. The scan callback is always invoked on the caller's thread, in
+ * the order entries are returned.
+ *
+ * @param <T>
+ *            The type for the entry
+ */
+public class ParallelDecodeIterator<T> implements
+		Iterator<T>,
+		Closeable
+{
+	private final static Logger LOGGER = Logger.getLogger(ParallelDecodeIterator.class);
+	private static final int BATCH_SIZE = 32;
+	private static ExecutorService decodeExecutor;
+
+	private final AdapterStore adapterStore;
+	private final Index index;
+	private final Iterator<Entry<Key, Value>> scannerIt;
+	private final QueryFilter rowIdFilter;
+	private final QueryFilter clientFilter;
+	private final ScanCallback<T> scanCallback;
+	private final Set<ByteArrayId> fieldIdSubset;
+	private final int maxBatchesInFlight;
+	private final boolean preserveOrder;
+
+	// the futures of the batches in flight, in the order they were read
+	private final Queue<Future<List<Pair<T, DataStoreEntryInfo>>>> batchesInFlight = new ArrayDeque<Future<List<Pair<T, DataStoreEntryInfo>>>>();
+	// only used if the order does not need to be preserved
+	private final CompletionService<List<Pair<T, DataStoreEntryInfo>>> completionService;
+	private Iterator<Pair<T, DataStoreEntryInfo>> currentBatch = null;
+	private T nextValue;
+	private boolean closed = false;
+
+	/**
+	 * @param rowIdFilter
+	 *            a filter applied on the caller's thread to an encoding that
+	 *            only contains the fields of the row ID
+	 * @param clientFilter
+	 *            a thread-safe filter applied by the workers to the fully
+	 *            read row
+	 * @param fieldIdSubset
+	 *            if not null, the only extended fields of each row that will be
+	 *            decoded
+	 * @param parallelism
+	 *            the number of batches of rows that can be decoded at once
+	 * @param preserveOrder
+	 *            whether entries are returned in the order they were scanned,
+	 *            otherwise they are returned in the order they are decoded
+	 */
+	public ParallelDecodeIterator(
+			final AdapterStore adapterStore,
+			final Index index,
+			final Iterator<Entry<Key, Value>> scannerIt,
+			final QueryFilter rowIdFilter,
+			final QueryFilter clientFilter,
+			final ScanCallback<T> scanCallback,
+			final Set<ByteArrayId> fieldIdSubset,
+			final int parallelism,
+			final boolean preserveOrder ) {
+		this.adapterStore = adapterStore;
+		this.index = index;
+		this.scannerIt = scannerIt;
+		this.rowIdFilter = rowIdFilter;
+		this.clientFilter = clientFilter;
+		this.scanCallback = scanCallback;
+		this.fieldIdSubset = fieldIdSubset;
+		this.preserveOrder = preserveOrder;
+		// keep a batch queued behind each batch being decoded so the workers
+		// are not idle while the caller consumes results
+		maxBatchesInFlight = Math.max(
+				1,
+				parallelism) * 2;
+		if (preserveOrder) {
+			completionService = null;
+		}
+		else {
+			completionService = new ExecutorCompletionService<List<Pair<T, DataStoreEntryInfo>>>(
+					getDecodeExecutor());
+		}
+	}
+
+	private static synchronized ExecutorService getDecodeExecutor() {
+		if (decodeExecutor == null) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			decodeExecutor = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(
+								final Runnable r ) {
+							final Thread thread = new Thread(
+									r,
+									"geowave-decode-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return decodeExecutor;
+	}
+
+	private void findNext() {
+		while ((nextValue == null) && !closed) {
+			if ((currentBatch != null) && currentBatch.hasNext()) {
+				final Pair<T, DataStoreEntryInfo> decoded = currentBatch.next();
+				if (scanCallback != null) {
+					scanCallback.entryScanned(
+							decoded.getRight(),
+							decoded.getLeft());
+				}
+				nextValue = decoded.getLeft();
+				return;
+			}
+			fillBatches();
+			if (batchesInFlight.isEmpty()) {
+				return;
+			}
+			currentBatch = takeBatch().iterator();
+		}
+	}
+
+	private void fillBatches() {
+		while ((batchesInFlight.size() < maxBatchesInFlight) && scannerIt.hasNext()) {
+			final List<Entry<Key, Value>> rows = new ArrayList<Entry<Key, Value>>(
+					BATCH_SIZE);
+			while ((rows.size() < BATCH_SIZE) && scannerIt.hasNext()) {
+				final Entry<Key, Value> row = scannerIt.next();
+				if (acceptRowId(row.getKey())) {
+					rows.add(row);
+				}
+			}
+			if (rows.isEmpty()) {
+				continue;
+			}
+			final Callable<List<Pair<T, DataStoreEntryInfo>>> task = new Callable<List<Pair<T, DataStoreEntryInfo>>>() {
+				@Override
+				public List<Pair<T, DataStoreEntryInfo>> call() {
+					return decodeRows(rows);
+				}
+			};
+			if (preserveOrder) {
+				batchesInFlight.add(getDecodeExecutor().submit(
+						task));
+			}
+			else {
+				batchesInFlight.add(completionService.submit(task));
+			}
+		}
+	}
+
+	private List<Pair<T, DataStoreEntryInfo>> takeBatch() {
+		try {
+			if (preserveOrder) {
+				return batchesInFlight.poll().get();
+			}
+			// any completed batch will do, the queue is only used to track
+			// how many are in flight
+			final Future<List<Pair<T, DataStoreEntryInfo>>> future = completionService.take();
+			batchesInFlight.remove(future);
+			return future.get();
+		}
+		catch (final InterruptedException e) {
+			LOGGER.warn(
+					"Interrupted while decoding rows",
+					e);
+			Thread.currentThread().interrupt();
+			close();
+		}
+		catch (final ExecutionException e) {
+			close();
+			throw new RuntimeException(
+					"Unable to decode rows",
+					e.getCause());
+		}
+		return new ArrayList<Pair<T, DataStoreEntryInfo>>();
+	}
+
+	private boolean acceptRowId(
+			final Key key ) {
+		if (rowIdFilter == null) {
+			return true;
+		}
+		final AccumuloRowId rowId = new AccumuloRowId(
+				key);
+		return rowIdFilter.accept(new IndexedPersistenceEncoding(
+				new ByteArrayId(
+						rowId.getAdapterId()),
+				new ByteArrayId(
+						rowId.getDataId()),
+				new ByteArrayId(
+						rowId.getInsertionId()),
+				rowId.getNumberOfDuplicates(),
+				new PersistentDataset<CommonIndexValue>()));
+	}
+
+	private List<Pair<T, DataStoreEntryInfo>> decodeRows(
+			final List<Entry<Key, Value>> rows ) {
+		final List<Pair<T, DataStoreEntryInfo>> decodedRows = new ArrayList<Pair<T, DataStoreEntryInfo>>(
+				rows.size());
+		for (final Entry<Key, Value> row : rows) {
+			// the scan callback is not passed through so that it is only
+			// invoked on the caller's thread
+			final Pair<T, DataStoreEntryInfo> decoded = AccumuloUtils.decodeRow(
+					row.getKey(),
+					row.getValue(),
+					new AccumuloRowId(
+							row.getKey()),
+					null,
+					adapterStore,
+					clientFilter,
+					index,
+					null,
+					fieldIdSubset,
+					scanCallback != null);
+			if (decoded != null) {
+				decodedRows.add(decoded);
+			}
+		}
+		return decodedRows;
+	}
+
+	@Override
+	public boolean hasNext() {
+		findNext();
+		return nextValue != null;
+	}
+
+	@Override
+	public T next()
+			throws NoSuchElementException {
+		findNext();
+		final T previousNext = nextValue;
+		if (nextValue == null) {
+			throw new NoSuchElementException();
+		}
+		nextValue = null;
+		return previousNext;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Entries are decoded ahead of the scanner so they cannot be removed");
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (final Future<List<Pair<T, DataStoreEntryInfo>>> future : batchesInFlight) {
+			future.cancel(true);
+		}
+		batchesInFlight.clear();
+		currentBatch = null;
+	}
+}
@@ -0,0 +1,208 @@
+package mil.nga.giat.geowave.datastore.accumulo.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOptions;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccumuloDataStatisticsStoreTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"adapter");
+
+	private static int instanceCount = 0;
+
+	private AccumuloOperations accumuloOperations;
+
+	// writes statistics the way another process would, bypassing the cache of
+	// the store under test
+	private AccumuloDataStatisticsStore uncachedStore;
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		// each test gets its own tables
+		final MockInstance mockInstance = new MockInstance(
+				"statistics" + (instanceCount++));
+		accumuloOperations = new BasicAccumuloOperations(
+				mockInstance.getConnector(
+						"root",
+						new PasswordToken(
+								new byte[0])));
+		uncachedStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+	}
+
+	@Test
+	public void testTimeToLive()
+			throws InterruptedException {
+		final MetadataCacheOptions cacheOptions = new MetadataCacheOptions();
+		cacheOptions.setStatisticsTimeToLiveMillis(500);
+		final AccumuloDataStatisticsStore cachedStore = new AccumuloDataStatisticsStore(
+				accumuloOperations,
+				cacheOptions);
+
+		assertNull(cachedStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID));
+		uncachedStore.setStatistics(count(1));
+		// the missing statistics are cached until they expire
+		assertNull(cachedStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID));
+		Thread.sleep(750);
+		assertEquals(
+				1,
+				getCount(cachedStore));
+
+		uncachedStore.setStatistics(count(2));
+		assertEquals(
+				1,
+				getCount(cachedStore));
+		Thread.sleep(750);
+		assertEquals(
+				2,
+				getCount(cachedStore));
+	}
+
+	@Test
+	public void testRefresh()
+			throws InterruptedException {
+		final MetadataCacheOptions cacheOptions = new MetadataCacheOptions();
+		cacheOptions.setStatisticsTimeToLiveMillis(60000);
+		cacheOptions.setStatisticsRefreshMillis(250);
+		final AccumuloDataStatisticsStore cachedStore = new AccumuloDataStatisticsStore(
+				accumuloOperations,
+				cacheOptions);
+
+		uncachedStore.setStatistics(count(1));
+		assertEquals(
+				1,
+				getCount(cachedStore));
+		uncachedStore.setStatistics(count(2));
+		Thread.sleep(500);
+		// the stale statistics are returned while they are read again in the
+		// background
+		assertEquals(
+				1,
+				getCount(cachedStore));
+		long count = 1;
+		for (int i = 0; (i < 50) && (count == 1); i++) {
+			Thread.sleep(100);
+			count = getCount(cachedStore);
+		}
+		assertEquals(
+				2,
+				count);
+	}
+
+	@Test
+	public void testInvalidation() {
+		final MetadataCacheOptions cacheOptions = new MetadataCacheOptions();
+		cacheOptions.setStatisticsTimeToLiveMillis(60000);
+		final AccumuloDataStatisticsStore cachedStore = new AccumuloDataStatisticsStore(
+				accumuloOperations,
+				cacheOptions);
+
+		cachedStore.setStatistics(count(1));
+		assertEquals(
+				1,
+				getCount(cachedStore));
+		// statistics written through the store are seen immediately
+		cachedStore.setStatistics(count(3));
+		assertEquals(
+				3,
+				getCount(cachedStore));
+		cachedStore.incorporateStatistics(count(2));
+		assertEquals(
+				5,
+				getCount(cachedStore));
+		cachedStore.removeStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID);
+		assertNull(cachedStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID));
+
+		// the cached statistics are copies that callers may modify
+		cachedStore.setStatistics(count(1));
+		((CountDataStatistics<?>) cachedStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID)).merge(count(10));
+		assertEquals(
+				1,
+				getCount(cachedStore));
+	}
+
+	@Test
+	public void testOptions() {
+		final AccumuloOptions accumuloOptions = new AccumuloOptions();
+		accumuloOptions.getMetadataCacheOptions().setStatisticsTimeToLiveMillis(60000);
+		final TestDataStore dataStore = new TestDataStore(
+				accumuloOperations,
+				accumuloOptions);
+
+		uncachedStore.setStatistics(count(1));
+		assertEquals(
+				1,
+				((CountDataStatistics<?>) dataStore.getStatisticsStore().getDataStatistics(
+						ADAPTER_ID,
+						CountDataStatistics.STATS_ID)).getCount());
+		uncachedStore.setStatistics(count(2));
+		// the data store's statistics store caches with the given options
+		assertEquals(
+				1,
+				((CountDataStatistics<?>) dataStore.getStatisticsStore().getDataStatistics(
+						ADAPTER_ID,
+						CountDataStatistics.STATS_ID)).getCount());
+	}
+
+	private static class TestDataStore extends
+			AccumuloDataStore
+	{
+		public TestDataStore(
+				final AccumuloOperations accumuloOperations,
+				final AccumuloOptions accumuloOptions ) {
+			super(
+					accumuloOperations,
+					accumuloOptions);
+		}
+
+		public DataStatisticsStore getStatisticsStore() {
+			return statisticsStore;
+		}
+	}
+
+	private static CountDataStatistics<Object> count(
+			final int count ) {
+		final CountDataStatistics<Object> statistics = new CountDataStatistics<Object>(
+				ADAPTER_ID);
+		for (int i = 0; i < count; i++) {
+			statistics.entryIngested(
+					null,
+					null);
+		}
+		return statistics;
+	}
+
+	private static long getCount(
+			final AccumuloDataStatisticsStore store ) {
+		return ((CountDataStatistics<?>) store.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID)).getCount();
+	}
+}
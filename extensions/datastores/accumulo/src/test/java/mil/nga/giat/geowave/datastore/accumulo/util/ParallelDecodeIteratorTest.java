@@ -0,0 +1,358 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.MemoryAdapterStore;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.data.field.FieldUtils;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloRowId;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class ParallelDecodeIteratorTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"test");
+	private static final ByteArrayId FIELD_ID = new ByteArrayId(
+			"value");
+	private static final int ROW_COUNT = 500;
+
+	private final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+	private final MemoryAdapterStore adapterStore = new MemoryAdapterStore(
+			new DataAdapter<?>[] {
+				new TestAdapter()
+			});
+
+	@Test
+	public void testPreserveOrder()
+			throws IOException {
+		// the even batches are slower to decode than the odd ones, so they
+		// would be returned out of order if the order was not preserved
+		final ParallelDecodeIterator<String> it = new ParallelDecodeIterator<String>(
+				adapterStore,
+				index,
+				createRows().iterator(),
+				null,
+				new QueryFilter() {
+					@Override
+					public boolean accept(
+							final IndexedPersistenceEncoding persistenceEncoding ) {
+						if (((getRowNumber(persistenceEncoding) / 32) % 2) == 0) {
+							sleep(1);
+						}
+						return true;
+					}
+				},
+				null,
+				null,
+				4,
+				true);
+		try {
+			int expected = 0;
+			while (it.hasNext()) {
+				assertEquals(
+						getDataId(expected++),
+						it.next());
+			}
+			assertEquals(
+					ROW_COUNT,
+					expected);
+		}
+		finally {
+			it.close();
+		}
+	}
+
+	@Test
+	public void testUnordered()
+			throws IOException {
+		final ParallelDecodeIterator<String> it = new ParallelDecodeIterator<String>(
+				adapterStore,
+				index,
+				createRows().iterator(),
+				null,
+				null,
+				null,
+				null,
+				4,
+				false);
+		final Set<String> results = new HashSet<String>();
+		try {
+			while (it.hasNext()) {
+				assertTrue(results.add(it.next()));
+			}
+		}
+		finally {
+			it.close();
+		}
+		final Set<String> expected = new HashSet<String>();
+		for (int i = 0; i < ROW_COUNT; i++) {
+			expected.add(getDataId(i));
+		}
+		assertEquals(
+				expected,
+				results);
+	}
+
+	@Test
+	public void testDecodeFailure()
+			throws IOException {
+		final IllegalStateException failure = new IllegalStateException(
+				"failed to decode");
+		final ParallelDecodeIterator<String> it = new ParallelDecodeIterator<String>(
+				adapterStore,
+				index,
+				createRows().iterator(),
+				null,
+				new QueryFilter() {
+					@Override
+					public boolean accept(
+							final IndexedPersistenceEncoding persistenceEncoding ) {
+						if (getRowNumber(persistenceEncoding) == 100) {
+							throw failure;
+						}
+						return true;
+					}
+				},
+				null,
+				null,
+				2,
+				true);
+		int count = 0;
+		try {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+			fail("the decoding failure should reach the caller");
+		}
+		catch (final RuntimeException e) {
+			assertSame(
+					failure,
+					e.getCause());
+		}
+		// the batch containing the failed row is never returned
+		assertEquals(
+				96,
+				count);
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testCloseCancelsBatches()
+			throws IOException,
+			InterruptedException {
+		final CountDownLatch started = new CountDownLatch(
+				1);
+		final CountDownLatch release = new CountDownLatch(
+				1);
+		final AtomicInteger interrupted = new AtomicInteger();
+		final AtomicInteger decodedAfterFirstBatch = new AtomicInteger();
+		// the first batch is decoded immediately and every later batch blocks
+		// until it is cancelled
+		final ParallelDecodeIterator<String> it = new ParallelDecodeIterator<String>(
+				adapterStore,
+				index,
+				createRows().iterator(),
+				null,
+				new QueryFilter() {
+					@Override
+					public boolean accept(
+							final IndexedPersistenceEncoding persistenceEncoding ) {
+						if (getRowNumber(persistenceEncoding) < 32) {
+							return true;
+						}
+						started.countDown();
+						try {
+							if (!release.await(
+									30,
+									TimeUnit.SECONDS)) {
+								return false;
+							}
+						}
+						catch (final InterruptedException e) {
+							interrupted.incrementAndGet();
+							// keep the rest of the batch from blocking
+							Thread.currentThread().interrupt();
+							return false;
+						}
+						decodedAfterFirstBatch.incrementAndGet();
+						return true;
+					}
+				},
+				null,
+				null,
+				2,
+				true);
+		try {
+			assertTrue(it.hasNext());
+			assertEquals(
+					getDataId(0),
+					it.next());
+			assertTrue(started.await(
+					30,
+					TimeUnit.SECONDS));
+
+			it.close();
+			assertFalse(it.hasNext());
+			for (int i = 0; (i < 300) && (interrupted.get() == 0); i++) {
+				Thread.sleep(10);
+			}
+			assertTrue(interrupted.get() > 0);
+		}
+		finally {
+			release.countDown();
+		}
+		assertEquals(
+				0,
+				decodedAfterFirstBatch.get());
+	}
+
+	private static List<Entry<Key, Value>> createRows()
+			throws IOException {
+		final List<Entry<Key, Value>> rows = new ArrayList<Entry<Key, Value>>(
+				ROW_COUNT);
+		final FieldWriter<?, String> writer = FieldUtils.getDefaultWriterForClass(String.class);
+		for (int i = 0; i < ROW_COUNT; i++) {
+			final String dataId = getDataId(i);
+			final Text row = new Text(
+					new AccumuloRowId(
+							ByteBuffer.allocate(
+									4).putInt(
+									i).array(),
+							StringUtils.stringToBinary(dataId),
+							ADAPTER_ID.getBytes(),
+							-1).getRowId());
+			// encode each row the way the whole row iterator returns it from
+			// the scanner
+			final Value encodedRow = WholeRowIterator.encodeRow(
+					Collections.singletonList(new Key(
+							row,
+							new Text(
+									ADAPTER_ID.getBytes()),
+							new Text(
+									FIELD_ID.getBytes()))),
+					Collections.singletonList(new Value(
+							writer.writeField(dataId))));
+			rows.add(new SimpleEntry<Key, Value>(
+					new Key(
+							row),
+					encodedRow));
+		}
+		return rows;
+	}
+
+	private static String getDataId(
+			final int rowNumber ) {
+		return String.format(
+				"row%05d",
+				rowNumber);
+	}
+
+	private static int getRowNumber(
+			final IndexedPersistenceEncoding persistenceEncoding ) {
+		return Integer.parseInt(persistenceEncoding.getDataId().getString().substring(
+				3));
+	}
+
+	private static void sleep(
+			final long millis ) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class TestAdapter implements
+			DataAdapter<String>
+	{
+		@Override
+		public ByteArrayId getAdapterId() {
+			return ADAPTER_ID;
+		}
+
+		@Override
+		public boolean isSupported(
+				final String entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final String entry ) {
+			return new ByteArrayId(
+					entry);
+		}
+
+		@Override
+		public String decode(
+				final IndexedAdapterPersistenceEncoding data,
+				final Index index ) {
+			return data.getDataId().getString();
+		}
+
+		@Override
+		public AdapterPersistenceEncoding encode(
+				final String entry,
+				final CommonIndexModel indexModel ) {
+			throw new UnsupportedOperationException(
+					"Rows are written directly by the test");
+		}
+
+		@SuppressWarnings({
+			"unchecked",
+			"rawtypes"
+		})
+		@Override
+		public FieldReader<Object> getReader(
+				final ByteArrayId fieldId ) {
+			if (FIELD_ID.equals(fieldId)) {
+				return (FieldReader) FieldUtils.getDefaultReaderForClass(String.class);
+			}
+			return null;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+	}
+}
@@ -1,11 +1,7 @@
 package mil.nga.giat.geowave.format.geolife;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.text.ParseException;
@@ -25,6 +21,7 @@ import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
 import mil.nga.giat.geowave.core.ingest.avro.WholeFile;
 import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.IngestWithMapper;
 import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.IngestWithReducer;
+import mil.nga.giat.geowave.core.ingest.text.DelimitedTextReader;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.data.field.FieldVisibilityHandler;
@@ -184,37 +181,32 @@ public class GeoLifeIngestPlugin extends
 
 		final List<GeoWaveData<SimpleFeature>> featureData = new ArrayList<GeoWaveData<SimpleFeature>>();
 
-		final InputStream in = new ByteArrayInputStream(
-				hfile.getOriginalFile().array());
-		final InputStreamReader isr = new InputStreamReader(
-				in,
-				StringUtils.UTF8_CHAR_SET);
-		final BufferedReader br = new BufferedReader(
-				isr);
+		final ByteBuffer originalFile = hfile.getOriginalFile();
+		final DelimitedTextReader reader = new DelimitedTextReader(
+				originalFile.array(),
+				originalFile.arrayOffset() + originalFile.position(),
+				originalFile.remaining(),
+				',');
 		int pointInstance = 0;
 		final List<Coordinate> pts = new ArrayList<Coordinate>();
 		final String trackId = FilenameUtils.getName(hfile.getOriginalFilePath().toString());
-		String line;
 		Date startTimeStamp = null;
 		Date endTimeStamp = null;
-		String timestring = "";
 		final GeometryFactory geometryFactory = new GeometryFactory();
 		double currLat;
 		double currLng;
 		try {
-			while ((line = br.readLine()) != null) {
-
-				final String[] vals = line.split(",");
-				if (vals.length != 7) {
+			while (reader.nextLine()) {
+				if (reader.getFieldCount() != 7) {
 					continue;
 				}
 
 				currLat = GeometryUtils.adjustCoordinateDimensionToRange(
-						Double.parseDouble(vals[0]),
+						reader.getDouble(0),
 						crs,
 						1);
 				currLng = GeometryUtils.adjustCoordinateDimensionToRange(
-						Double.parseDouble(vals[1]),
+						reader.getDouble(1),
 						crs,
 						0);
 				final Coordinate cord = new Coordinate(
@@ -232,8 +224,10 @@ public class GeoLifeIngestPlugin extends
 						pointInstance);
 				pointInstance++;
 
-				timestring = vals[5] + " " + vals[6];
-				final Date ts = GeoLifeUtils.parseDate(timestring);
+				final Date ts = new Date(
+						reader.getTimestamp(
+								5,
+								6));
 				geolifePointBuilder.set(
 						"Timestamp",
 						ts);
@@ -249,7 +243,7 @@ public class GeoLifeIngestPlugin extends
 						"Longitude",
 						currLng);
 
-				Double elevation = Double.parseDouble(vals[3]);
+				Double elevation = reader.getDouble(3);
 				if (elevation == -777) {
 					elevation = null;
 				}
@@ -296,13 +290,11 @@ public class GeoLifeIngestPlugin extends
 		}
 		catch (final ParseException e) {
 			LOGGER.error(
-					"Error parsing time string: " + timestring,
+					"Error parsing time string on line " + reader.getLineNumber() + " of " + hfile.getOriginalFilePath(),
 					e);
 		}
 		finally {
-			IOUtils.closeQuietly(br);
-			IOUtils.closeQuietly(isr);
-			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(reader);
 		}
 
 		return new CloseableIterator.Wrapper<GeoWaveData<SimpleFeature>>(
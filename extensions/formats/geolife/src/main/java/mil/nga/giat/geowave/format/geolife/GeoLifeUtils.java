@@ -1,9 +1,6 @@
 package mil.nga.giat.geowave.format.geolife;
 
 import java.io.File;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.geotools.feature.AttributeTypeBuilder;
@@ -19,21 +16,6 @@ import com.vividsolutions.jts.geom.Geometry;
 public class GeoLifeUtils
 {
 
-	private static final ThreadLocal<DateFormat> dateFormat = new ThreadLocal<DateFormat>() {
-		@Override
-		protected DateFormat initialValue() {
-			return new SimpleDateFormat(
-					"yyyy-MM-dd HH:mm:ss");
-		}
-	};
-
-	public static Date parseDate(
-			String source )
-			throws ParseException {
-		return dateFormat.get().parse(
-				source);
-	}
-
 	public static final String GEOLIFE_POINT_FEATURE = "geolifepoint";
 	public static final String GEOLIFE_TRACK_FEATURE = "geolifetrack";
 
@@ -107,6 +107,7 @@ public class GeoToolsRasterDataStoreIngestPlugin implements
 						coverage,
 						optionProvider.getTileSize(),
 						optionProvider.isBuildPyramid());
+				adapter.setPyramidThreads(optionProvider.getPyramidThreads());
 				final List<GeoWaveData<GridCoverage>> coverages = new ArrayList<GeoWaveData<GridCoverage>>();
 				coverages.add(new GeoWaveData<GridCoverage>(
 						adapter,
@@ -12,9 +12,11 @@ public class RasterOptionProvider implements
 {
 	private final static String BUILD_PYRAMID = "pyramid";
 	private final static String TILE_SIZE = "tileSize";
+	private final static String PYRAMID_THREADS = "pyramidThreads";
 
 	private boolean buildPyramid = RasterDataAdapter.DEFAULT_BUILD_PYRAMID;
 	private int tileSize = RasterDataAdapter.DEFAULT_TILE_SIZE;
+	private int pyramidThreads = RasterDataAdapter.DEFAULT_PYRAMID_THREADS;
 
 	public RasterOptionProvider() {}
 
@@ -29,6 +31,10 @@ public class RasterOptionProvider implements
 				TILE_SIZE,
 				true,
 				"Optional parameter to set the tile size stored (default is 256)"));
+		allOptions.addOption(new Option(
+				PYRAMID_THREADS,
+				true,
+				"Optional parameter to set the number of threads used to build the image pyramid (default is the number of processors)"));
 	}
 
 	@Override
@@ -38,6 +44,9 @@ public class RasterOptionProvider implements
 		if (commandLine.hasOption(TILE_SIZE)) {
 			tileSize = Integer.parseInt(commandLine.getOptionValue(TILE_SIZE));
 		}
+		if (commandLine.hasOption(PYRAMID_THREADS)) {
+			pyramidThreads = Integer.parseInt(commandLine.getOptionValue(PYRAMID_THREADS));
+		}
 	}
 
 	public boolean isBuildPyramid() {
@@ -47,4 +56,8 @@ public class RasterOptionProvider implements
 	public int getTileSize() {
 		return tileSize;
 	}
+
+	public int getPyramidThreads() {
+		return pyramidThreads;
+	}
 }
@@ -4,20 +4,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
 import mil.nga.giat.geowave.core.geotime.GeometryUtils;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
@@ -47,6 +52,10 @@ import com.vividsolutions.jts.geom.Coordinate;
  * points include the file name and parent route name as part of their ID.
  * Routes are not assumed to be global.
  * 
+ * If an executor is provided, the features of each track are built by the
+ * executor while the file continues to be parsed. The features are still
+ * returned in the order of the file, so the results are identical to parsing
+ * the file sequentially.
  * 
  */
 public class GPXConsumer implements
@@ -55,10 +64,6 @@ public class GPXConsumer implements
 
 	private final static Logger LOGGER = Logger.getLogger(GpxIngestPlugin.class);
 
-	private final SimpleFeatureBuilder pointBuilder;
-	private final SimpleFeatureBuilder waypointBuilder;
-	private final SimpleFeatureBuilder routeBuilder;
-	private final SimpleFeatureBuilder trackBuilder;
 	protected static final SimpleFeatureType pointType = GpxUtils.createGPXPointDataType();
 	protected static final SimpleFeatureType waypointType = GpxUtils.createGPXWaypointDataType();
 
@@ -74,6 +79,19 @@ public class GPXConsumer implements
 	protected static final ByteArrayId routeKey = new ByteArrayId(
 			StringUtils.stringToBinary(GpxUtils.GPX_ROUTE_FEATURE));
 
+	// creating an input factory is expensive, so it is shared and only used
+	// while synchronized on it
+	private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+	// the feature builders are reset after building each feature so they are
+	// reused by every consumer on the same thread
+	private static final ThreadLocal<GPXFeatureBuilders> FEATURE_BUILDERS = new ThreadLocal<GPXFeatureBuilders>() {
+		@Override
+		protected GPXFeatureBuilders initialValue() {
+			return new GPXFeatureBuilders();
+		}
+	};
+
 	final InputStream fileStream;
 	final ByteArrayId primaryIndexId;
 	final String inputID;
@@ -81,16 +99,20 @@ public class GPXConsumer implements
 	final Map<String, Map<String, String>> additionalData;
 	final boolean uniqueWayPoints;
 
-	final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-
-	final Stack<GPXDataElement> currentElementStack = new Stack<GPXDataElement>();
+	final Deque<GPXDataElement> currentElementStack = new ArrayDeque<GPXDataElement>();
 	final GPXDataElement top = new GPXDataElement(
 			"gpx");
 
 	static final NumberFormat LatLongFormat = new DecimalFormat(
 			"0000000000");
 
-	XMLEventReader eventReader;
+	final ExecutorService trackExecutor;
+	final int maxPendingTracks;
+	final Deque<Future<List<GeoWaveData<SimpleFeature>>>> pendingResults = new ArrayDeque<Future<List<GeoWaveData<SimpleFeature>>>>();
+	Iterator<GeoWaveData<SimpleFeature>> currentResults = Collections.<GeoWaveData<SimpleFeature>> emptyList().iterator();
+	boolean parsed = false;
+
+	XMLStreamReader reader;
 	GeoWaveData<SimpleFeature> nextFeature = null;
 
 	/**
@@ -117,6 +139,36 @@ public class GPXConsumer implements
 			final Map<String, Map<String, String>> additionalData,
 			final boolean uniqueWayPoints,
 			final String globalVisibility ) {
+		this(
+				fileStream,
+				primaryIndexId,
+				inputID,
+				additionalData,
+				uniqueWayPoints,
+				globalVisibility,
+				null,
+				0);
+	}
+
+	/**
+	 * 
+	 * @param trackExecutor
+	 *            if not null, the features of each track are built by this
+	 *            executor
+	 * @param maxPendingTracks
+	 *            the number of tracks that may be parsed ahead of the track
+	 *            whose features are being returned, which bounds the memory
+	 *            used when building tracks in parallel
+	 */
+	public GPXConsumer(
+			final InputStream fileStream,
+			final ByteArrayId primaryIndexId,
+			final String inputID,
+			final Map<String, Map<String, String>> additionalData,
+			final boolean uniqueWayPoints,
+			final String globalVisibility,
+			final ExecutorService trackExecutor,
+			final int maxPendingTracks ) {
 		super();
 		this.fileStream = fileStream;
 		this.primaryIndexId = primaryIndexId;
@@ -124,16 +176,14 @@ public class GPXConsumer implements
 		this.uniqueWayPoints = uniqueWayPoints;
 		this.additionalData = additionalData;
 		this.globalVisibility = globalVisibility;
-		pointBuilder = new SimpleFeatureBuilder(
-				pointType);
-		waypointBuilder = new SimpleFeatureBuilder(
-				waypointType);
-		trackBuilder = new SimpleFeatureBuilder(
-				trackType);
-		routeBuilder = new SimpleFeatureBuilder(
-				routeType);
+		this.trackExecutor = trackExecutor;
+		this.maxPendingTracks = Math.max(
+				maxPendingTracks,
+				1);
 		try {
-			eventReader = inputFactory.createXMLEventReader(fileStream);
+			synchronized (INPUT_FACTORY) {
+				reader = INPUT_FACTORY.createXMLStreamReader(fileStream);
+			}
 			init();
 			if (!currentElementStack.isEmpty()) {
 				nextFeature = getNext();
@@ -176,8 +226,14 @@ public class GPXConsumer implements
 	@Override
 	public void close()
 			throws IOException {
+		for (final Future<List<GeoWaveData<SimpleFeature>>> pendingResult : pendingResults) {
+			pendingResult.cancel(true);
+		}
+		pendingResults.clear();
 		try {
-			eventReader.close();
+			if (reader != null) {
+				reader.close();
+			}
 		}
 		catch (final Exception e2) {
 			LOGGER.warn(
@@ -192,243 +248,301 @@ public class GPXConsumer implements
 			throws IOException,
 			XMLStreamException {
 
-		while (eventReader.hasNext()) {
-			final XMLEvent event = eventReader.nextEvent();
-			if (event.isStartElement()) {
-				final StartElement node = event.asStartElement();
-				if ("gpx".equals(node.getName().getLocalPart())) {
-					currentElementStack.push(top);
-					processElementAttributes(
-							node,
-							top);
-					return;
-
-				}
+		while (reader.hasNext()) {
+			if ((reader.next() == XMLStreamConstants.START_ELEMENT) && "gpx".equals(reader.getLocalName())) {
+				currentElementStack.push(top);
+				processElementAttributes(top);
+				return;
 			}
 		}
 	}
 
 	private GeoWaveData<SimpleFeature> getNext()
 			throws XMLStreamException {
+		if (trackExecutor != null) {
+			return getNextInParallel();
+		}
+		final GPXFeatureBuilders builders = FEATURE_BUILDERS.get();
+		GPXDataElement element;
+		while ((element = parseNextElement()) != null) {
+			final GeoWaveData<SimpleFeature> newFeature = postProcess(
+					element,
+					builders);
+			if (element.parent == top) {
+				top.children.remove(element);
+			}
+			if (newFeature != null) {
+				return newFeature;
+			}
+		}
+		return null;
+	}
 
+	/**
+	 * Each child element of the gpx element is parsed as a unit. The features of a
+	 * track are built by the executor, and the features of any other element
+	 * are built immediately, which is cheap in comparison. The results are
+	 * queued in the order of the file.
+	 */
+	private GeoWaveData<SimpleFeature> getNextInParallel()
+			throws XMLStreamException {
+		while (!currentResults.hasNext()) {
+			while (!parsed && (pendingResults.size() < maxPendingTracks)) {
+				parseNextUnit();
+			}
+			final Future<List<GeoWaveData<SimpleFeature>>> pendingResult = pendingResults.poll();
+			if (pendingResult == null) {
+				return null;
+			}
+			try {
+				currentResults = pendingResult.get().iterator();
+			}
+			catch (final ExecutionException e) {
+				LOGGER.error(
+						"Unable to build GPX track features",
+						e.getCause());
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new XMLStreamException(
+						"Interrupted while building GPX track features",
+						e);
+			}
+		}
+		return currentResults.next();
+	}
+
+	private void parseNextUnit()
+			throws XMLStreamException {
+		final List<GPXDataElement> unitElements = new ArrayList<GPXDataElement>();
+		GPXDataElement element;
+		while ((element = parseNextElement()) != null) {
+			if (element == top) {
+				continue;
+			}
+			unitElements.add(element);
+			if (element.parent == top) {
+				top.children.remove(element);
+				final Callable<List<GeoWaveData<SimpleFeature>>> unit = new Callable<List<GeoWaveData<SimpleFeature>>>() {
+					@Override
+					public List<GeoWaveData<SimpleFeature>> call() {
+						final GPXFeatureBuilders builders = FEATURE_BUILDERS.get();
+						final List<GeoWaveData<SimpleFeature>> results = new ArrayList<GeoWaveData<SimpleFeature>>();
+						for (final GPXDataElement unitElement : unitElements) {
+							final GeoWaveData<SimpleFeature> newFeature = postProcess(
+									unitElement,
+									builders);
+							if (newFeature != null) {
+								results.add(newFeature);
+							}
+						}
+						return results;
+					}
+				};
+				if ("trk".equals(element.elementType)) {
+					pendingResults.add(trackExecutor.submit(unit));
+				}
+				else {
+					final FutureTask<List<GeoWaveData<SimpleFeature>>> result = new FutureTask<List<GeoWaveData<SimpleFeature>>>(
+							unit);
+					result.run();
+					pendingResults.add(result);
+				}
+				return;
+			}
+		}
+		parsed = true;
+	}
+
+	/**
+	 * Parse until the end of the next element that is not a simple value
+	 * 
+	 * @return the element, or null if there are no more elements
+	 */
+	private GPXDataElement parseNextElement()
+			throws XMLStreamException {
 		GPXDataElement currentElement = currentElementStack.peek();
-		GeoWaveData<SimpleFeature> newFeature = null;
-		while ((newFeature == null) && eventReader.hasNext()) {
-			final XMLEvent event = eventReader.nextEvent();
-			if (event.isStartElement()) {
-				final StartElement node = event.asStartElement();
+		while ((currentElement != null) && reader.hasNext()) {
+			final int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				final String localName = reader.getLocalName();
 				if (!processElementValues(
-						node,
+						localName,
 						currentElement)) {
 					final GPXDataElement newElement = new GPXDataElement(
-							event.asStartElement().getName().getLocalPart());
+							localName);
 					currentElement.addChild(newElement);
 					currentElement = newElement;
 					currentElementStack.push(currentElement);
-					processElementAttributes(
-							node,
-							currentElement);
+					processElementAttributes(currentElement);
 				}
 			}
-			else if (event.isEndElement() && event.asEndElement().getName().getLocalPart().equals(
+			else if ((event == XMLStreamConstants.END_ELEMENT) && reader.getLocalName().equals(
 					currentElement.elementType)) {
-				final GPXDataElement child = currentElementStack.pop();
-				newFeature = postProcess(child);
-				if ((newFeature == null) && !currentElementStack.isEmpty()) {
-					currentElement = currentElementStack.peek();
-					// currentElement.removeChild(child);
-				}
-				else if (currentElementStack.size() == 1) {
-					top.children.remove(child);
-				}
+				return currentElementStack.pop();
 			}
 		}
-		return newFeature;
+		return null;
 	}
 
 	private String getChildCharacters(
-			final XMLEventReader eventReader,
 			final String elType )
 			throws XMLStreamException {
 		final StringBuilder buf = new StringBuilder();
-		XMLEvent event = eventReader.nextEvent();
-		while (!(event.isEndElement() && event.asEndElement().getName().getLocalPart().equals(
+		int event = reader.next();
+		while (!((event == XMLStreamConstants.END_ELEMENT) && reader.getLocalName().equals(
 				elType))) {
-			if (event.isCharacters()) {
-				buf.append(event.asCharacters().getData());
+			if ((event == XMLStreamConstants.CHARACTERS) || (event == XMLStreamConstants.CDATA) || (event == XMLStreamConstants.SPACE)) {
+				buf.append(
+						reader.getTextCharacters(),
+						reader.getTextStart(),
+						reader.getTextLength());
 			}
-			event = eventReader.nextEvent();
+			event = reader.next();
 		}
 		return buf.toString().trim();
 
 	}
 
 	private void processElementAttributes(
-			final StartElement node,
 			final GPXDataElement element )
 			throws NumberFormatException,
 			XMLStreamException {
-		@SuppressWarnings("unchecked")
-		final Iterator<Attribute> attributes = node.getAttributes();
-		while (attributes.hasNext()) {
-			final Attribute a = attributes.next();
-			if (a.getName().getLocalPart().equals(
-					"lon")) {
-				element.lon = Double.parseDouble(a.getValue());
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			final String name = reader.getAttributeLocalName(i);
+			if (name.equals("lon")) {
+				element.lon = Double.parseDouble(reader.getAttributeValue(i));
 			}
-			else if (a.getName().getLocalPart().equals(
-					"lat")) {
-				element.lat = Double.parseDouble(a.getValue());
+			else if (name.equals("lat")) {
+				element.lat = Double.parseDouble(reader.getAttributeValue(i));
 			}
 		}
 	}
 
 	private boolean processElementValues(
-			final StartElement node,
+			final String localName,
 			final GPXDataElement element )
 			throws NumberFormatException,
 			XMLStreamException {
-		switch (node.getName().getLocalPart()) {
+		switch (localName) {
 			case "ele": {
 				element.elevation = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"ele"));
 				break;
 			}
 			case "magvar": {
 				element.magvar = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"magvar"));
 				break;
 			}
 			case "geoidheight": {
 				element.geoidheight = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"geoidheight"));
 				break;
 			}
 			case "name": {
 				element.name = getChildCharacters(
-						eventReader,
 						"name");
 				break;
 			}
 			case "cmt": {
 				element.cmt = getChildCharacters(
-						eventReader,
 						"cmt");
 				break;
 			}
 			case "desc": {
 				element.desc = getChildCharacters(
-						eventReader,
 						"desc");
 				break;
 			}
 			case "src": {
 				element.src = getChildCharacters(
-						eventReader,
 						"src");
 				break;
 			}
 			case "link": {
 				element.link = getChildCharacters(
-						eventReader,
 						"link");
 				break;
 			}
 			case "sym": {
 				element.sym = getChildCharacters(
-						eventReader,
 						"sym");
 				break;
 			}
 			case "type": {
 				element.type = getChildCharacters(
-						eventReader,
 						"type");
 				break;
 			}
 			case "sat": {
 				element.sat = Integer.parseInt(getChildCharacters(
-						eventReader,
 						"sat"));
 				break;
 			}
 			case "dgpsid": {
 				element.dgpsid = Integer.parseInt(getChildCharacters(
-						eventReader,
 						"dgpsid"));
 				break;
 			}
 			case "vdop": {
 				element.vdop = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"vdop"));
 				break;
 			}
 			case "fix": {
 				element.fix = getChildCharacters(
-						eventReader,
 						"fix");
 				break;
 			}
 			case "course": {
 				element.course = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"course"));
 				break;
 			}
 			case "speed": {
 				element.speed = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"speed"));
 				break;
 			}
 			case "hdop": {
 				element.hdop = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"hdop"));
 				break;
 			}
 			case "pdop": {
 				element.pdop = Double.parseDouble(getChildCharacters(
-						eventReader,
 						"pdop"));
 				break;
 			}
 			case "url": {
 				element.url = getChildCharacters(
-						eventReader,
 						"url");
 				break;
 			}
 			case "number": {
 				element.number = getChildCharacters(
-						eventReader,
 						"number");
 				break;
 			}
 			case "urlname": {
 				element.urlname = getChildCharacters(
-						eventReader,
 						"urlname");
 				break;
 			}
 			case "time": {
+				// the text can only be read once, so it is read before trying
+				// each format
+				final String time = getChildCharacters("time");
 				try {
 					element.timestamp = GpxUtils.parseDateSeconds(
-							getChildCharacters(
-									eventReader,
-									"time")).getTime();
+							time).getTime();
 
 				}
 				catch (final Exception t) {
 					try {
 						element.timestamp = GpxUtils.parseDateMillis(
-								getChildCharacters(
-										eventReader,
-										"time")).getTime();
+								time).getTime();
 					}
 					catch (final Exception t2) {
 
@@ -785,12 +899,13 @@ public class GPXConsumer implements
 	}
 
 	private GeoWaveData<SimpleFeature> postProcess(
-			final GPXDataElement element ) {
+			final GPXDataElement element,
+			final GPXFeatureBuilders builders ) {
 
 		switch (element.elementType) {
 			case "trk": {
-				if ((element.children != null) && element.build(trackBuilder)) {
-					trackBuilder.set(
+				if ((element.children != null) && element.build(builders.trackBuilder)) {
+					builders.trackBuilder.set(
 							"TrackId",
 							inputID.length() > 0 ? inputID : element.composeID(
 									"",
@@ -803,15 +918,15 @@ public class GPXConsumer implements
 									true),
 							primaryIndexId,
 							trackKey,
-							trackBuilder,
+							builders.trackBuilder,
 							additionalData.get(element.getPath()));
 				}
 				break;
 			}
 			case "rte": {
 
-				if ((element.children != null) && element.build(routeBuilder)) {
-					trackBuilder.set(
+				if ((element.children != null) && element.build(builders.routeBuilder)) {
+					builders.trackBuilder.set(
 							"TrackId",
 							inputID.length() > 0 ? inputID : element.composeID(
 									"",
@@ -824,14 +939,14 @@ public class GPXConsumer implements
 									true),
 							primaryIndexId,
 							routeKey,
-							routeBuilder,
+							builders.routeBuilder,
 							additionalData.get(element.getPath()));
 				}
 				break;
 			}
 			case "wpt": {
 
-				if (element.build(waypointBuilder)) {
+				if (element.build(builders.waypointBuilder)) {
 					return buildGeoWaveDataInstance(
 							element.composeID(
 									uniqueWayPoints ? "" : inputID,
@@ -839,13 +954,13 @@ public class GPXConsumer implements
 									!uniqueWayPoints),
 							primaryIndexId,
 							waypointKey,
-							waypointBuilder,
+							builders.waypointBuilder,
 							additionalData.get(element.getPath()));
 				}
 				break;
 			}
 			case "rtept": {
-				if (element.build(waypointBuilder)) {
+				if (element.build(builders.waypointBuilder)) {
 					return buildGeoWaveDataInstance(
 							element.composeID(
 									inputID,
@@ -853,7 +968,7 @@ public class GPXConsumer implements
 									true),
 							primaryIndexId,
 							waypointKey,
-							waypointBuilder,
+							builders.waypointBuilder,
 							additionalData.get(element.getPath()));
 				}
 				break;
@@ -863,9 +978,9 @@ public class GPXConsumer implements
 			}
 			case "trkpt": {
 
-				if (element.build(pointBuilder)) {
+				if (element.build(builders.pointBuilder)) {
 					if (element.timestamp == null) {
-						pointBuilder.set(
+						builders.pointBuilder.set(
 								"Timestamp",
 								null);
 					}
@@ -876,15 +991,37 @@ public class GPXConsumer implements
 									true),
 							primaryIndexId,
 							pointKey,
-							pointBuilder,
+							builders.pointBuilder,
 							additionalData.get(element.getPath()));
 				}
 				break;
 			}
 		}
+		// the builders are reused, so clear any attributes set for an element
+		// that did not produce a feature
+		builders.reset();
 		return null;
 	}
 
+	private static class GPXFeatureBuilders
+	{
+		private final SimpleFeatureBuilder pointBuilder = new SimpleFeatureBuilder(
+				pointType);
+		private final SimpleFeatureBuilder waypointBuilder = new SimpleFeatureBuilder(
+				waypointType);
+		private final SimpleFeatureBuilder routeBuilder = new SimpleFeatureBuilder(
+				routeType);
+		private final SimpleFeatureBuilder trackBuilder = new SimpleFeatureBuilder(
+				trackType);
+
+		private void reset() {
+			pointBuilder.reset();
+			waypointBuilder.reset();
+			routeBuilder.reset();
+			trackBuilder.reset();
+		}
+	}
+
 	private static void setAttribute(
 			final SimpleFeatureBuilder builder,
 			final String name,
@@ -2,6 +2,8 @@ package mil.nga.giat.geowave.format.gpx;
 
 import mil.nga.giat.geowave.adapter.vector.ingest.AbstractSimpleFeatureIngestPlugin;
 import mil.nga.giat.geowave.adapter.vector.ingest.AbstractSimpleFeatureIngestFormat;
+import mil.nga.giat.geowave.core.ingest.CompoundIngestFormatOptionProvider;
+import mil.nga.giat.geowave.core.ingest.IngestFormatOptionProvider;
 
 /**
  * This represents an ingest format plugin provider for GPX data. It will
@@ -11,9 +13,19 @@ import mil.nga.giat.geowave.adapter.vector.ingest.AbstractSimpleFeatureIngestFor
 public class GpxIngestFormat extends
 		AbstractSimpleFeatureIngestFormat<GpxTrack>
 {
+	protected final GpxOptionProvider gpxOptionProvider = new GpxOptionProvider();
+
 	@Override
 	protected AbstractSimpleFeatureIngestPlugin<GpxTrack> newPluginInstance() {
-		return new GpxIngestPlugin();
+		return new GpxIngestPlugin(
+				gpxOptionProvider);
+	}
+
+	@Override
+	public IngestFormatOptionProvider getIngestFormatOptionProvider() {
+		return new CompoundIngestFormatOptionProvider().add(
+				cqlFilterOptionProvider).add(
+				gpxOptionProvider);
 	}
 
 	@Override
@@ -9,7 +9,12 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.stream.XMLStreamException;
@@ -58,13 +63,53 @@ public class GpxIngestPlugin extends
 			0);
 
 	private final Index[] supportedIndices;
+	private final GpxOptionProvider optionProvider;
+	private ExecutorService trackExecutor = null;
 
 	public GpxIngestPlugin() {
+		this(
+				new GpxOptionProvider());
+	}
+
+	public GpxIngestPlugin(
+			final GpxOptionProvider optionProvider ) {
 		supportedIndices = new Index[] {
 			IndexType.SPATIAL_VECTOR.createDefaultIndex(),
 			IndexType.SPATIAL_TEMPORAL_VECTOR.createDefaultIndex()
 		};
+		this.optionProvider = optionProvider;
+	}
 
+	/**
+	 * @return the executor shared by every GPX file to build the features of
+	 *         tracks in parallel, or null if tracks are built sequentially
+	 */
+	private synchronized ExecutorService getTrackExecutor() {
+		final int trackThreads = optionProvider.getTrackThreads();
+		if ((trackExecutor == null) && (trackThreads > 1)) {
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					trackThreads,
+					trackThreads,
+					60,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						private final AtomicInteger threadCount = new AtomicInteger();
+
+						@Override
+						public Thread newThread(
+								final Runnable r ) {
+							final Thread thread = new Thread(
+									r,
+									"gpx-track-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			trackExecutor = executor;
+		}
+		return trackExecutor;
 	}
 
 	@Override
@@ -226,7 +271,9 @@ public class GpxIngestPlugin extends
 					getAdditionalData(gpxTrack),
 					false, // waypoints, even dups, are unique, due to QGis
 							// behavior
-					globalVisibility);
+					globalVisibility,
+					getTrackExecutor(),
+					optionProvider.getTrackThreads() * 2);
 		}
 		catch (final Exception e) {
 			LOGGER.warn(
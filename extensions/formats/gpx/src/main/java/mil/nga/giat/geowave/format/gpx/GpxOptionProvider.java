@@ -0,0 +1,39 @@
+package mil.nga.giat.geowave.format.gpx;
+
+import mil.nga.giat.geowave.core.ingest.IngestFormatOptionProvider;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+
+public class GpxOptionProvider implements
+		IngestFormatOptionProvider
+{
+	private final static String TRACK_THREADS = "trackThreads";
+	public final static int DEFAULT_TRACK_THREADS = 1;
+
+	private int trackThreads = DEFAULT_TRACK_THREADS;
+
+	public GpxOptionProvider() {}
+
+	@Override
+	public void applyOptions(
+			final Options allOptions ) {
+		allOptions.addOption(new Option(
+				TRACK_THREADS,
+				true,
+				"Optional parameter to set the number of threads used to build the features of the tracks within each GPX file (default is 1)"));
+	}
+
+	@Override
+	public void parseOptions(
+			final CommandLine commandLine ) {
+		if (commandLine.hasOption(TRACK_THREADS)) {
+			trackThreads = Integer.parseInt(commandLine.getOptionValue(TRACK_THREADS));
+		}
+	}
+
+	public int getTrackThreads() {
+		return trackThreads;
+	}
+}
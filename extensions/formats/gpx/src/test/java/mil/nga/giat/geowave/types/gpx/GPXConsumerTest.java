@@ -7,10 +7,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.StringUtils;
@@ -23,6 +27,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.opengis.feature.simple.SimpleFeature;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 public class GPXConsumerTest
 {
 
@@ -212,6 +218,67 @@ public class GPXConsumerTest
 				expectedSet.size());
 	}
 
+	private List<SimpleFeature> readFeatures(
+			final ExecutorService trackExecutor )
+			throws IOException {
+		final InputStream is = this.getClass().getClassLoader().getResourceAsStream(
+				"sample_gpx.xml");
+		final GPXConsumer consumer = new GPXConsumer(
+				is,
+				new ByteArrayId(
+						"123".getBytes(StringUtils.UTF8_CHAR_SET)),
+				"123",
+				new HashMap<String, Map<String, String>>(),
+				true,
+				"",
+				trackExecutor,
+				2);
+		final List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+		while (consumer.hasNext()) {
+			features.add(consumer.next().getValue());
+		}
+		consumer.close();
+		return features;
+	}
+
+	/**
+	 * tracks built in parallel are produced in the same order as sequentially
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testParallelTracks()
+			throws IOException {
+		final ExecutorService trackExecutor = Executors.newFixedThreadPool(2);
+		try {
+			final List<SimpleFeature> expectedFeatures = readFeatures(null);
+			final List<SimpleFeature> actualFeatures = readFeatures(trackExecutor);
+			assertEquals(
+					12,
+					expectedFeatures.size());
+			assertEquals(
+					expectedFeatures.size(),
+					actualFeatures.size());
+			for (int i = 0; i < expectedFeatures.size(); i++) {
+				final SimpleFeature expected = expectedFeatures.get(i);
+				final SimpleFeature actual = actualFeatures.get(i);
+				assertEquals(
+						expected.getID(),
+						actual.getID());
+				assertTrue(
+						expected.getID(),
+						((Geometry) expected.getDefaultGeometry()).equalsExact((Geometry) actual.getDefaultGeometry()));
+				assertEquals(
+						expected.getID(),
+						expected.getAttributes(),
+						actual.getAttributes());
+			}
+		}
+		finally {
+			trackExecutor.shutdownNow();
+		}
+	}
+
 	/**
 	 * run test and each duplicate is treated uniquely
 	 * 
@@ -5,9 +5,13 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.TreeMap;
 
 import javax.imageio.ImageIO;
@@ -40,11 +44,19 @@ public class IngestMessageHandler implements
 	private final WKBWriter wkbWriter = new WKBWriter(
 			3);
 	private final static String DEFAULT_IMAGE_FORMAT = "jpg";
-	private final List<KeyValueData<Text, TrackEventWritable>> intermediateData = new ArrayList<KeyValueData<Text, TrackEventWritable>>();
+	private final Queue<KeyValueData<Text, TrackEventWritable>> intermediateData = new ArrayDeque<KeyValueData<Text, TrackEventWritable>>();
+	// a streaming decoder returns each point of a track in its own event and
+	// the image chips of the track in a last event without points, so the
+	// events of a track are held until the track ends and its chips are known
+	private final Map<String, OpenTrack> openTracks = new HashMap<String, OpenTrack>();
 
 	public IngestMessageHandler() {}
 
-	public List<KeyValueData<Text, TrackEventWritable>> getIntermediateData() {
+	/**
+	 * @return the events of the tracks that have ended, which are removed as
+	 *         they are taken from the queue
+	 */
+	public Queue<KeyValueData<Text, TrackEventWritable>> getIntermediateData() {
 		return intermediateData;
 	}
 
@@ -58,8 +70,16 @@ public class IngestMessageHandler implements
 			InterruptedException {
 		if ((msg != null) && (msg.getTracks() != null)) {
 			for (final TrackEvent evt : msg.getTracks()) {
-				if (evt.getPoints().size() > 0) {
-					final String trackUuid = evt.getUuid().toString();
+				final String trackUuid = evt.getUuid().toString();
+				OpenTrack track = openTracks.get(trackUuid);
+				if ((track == null) && (evt.getPoints().size() > 0)) {
+					track = new OpenTrack();
+					openTracks.put(
+							trackUuid,
+							track);
+				}
+				// tracks without points are not ingested
+				if (track != null) {
 					String mission = evt.getMissionId();
 					final String comment = evt.getComment();
 					if ((mission == null) && (comment != null)) {
@@ -149,6 +169,7 @@ public class IngestMessageHandler implements
 									e);
 						}
 					}
+					track.imageChips.putAll(timesWithImageChips);
 
 					for (final TrackPoint pt : evt.getPoints().values()) {
 						eventType = 0; // track point
@@ -169,17 +190,11 @@ public class IngestMessageHandler implements
 						final double latitude = pt.getLocation().latitude;
 						final double longitude = pt.getLocation().longitude;
 						final double elevation = pt.getLocation().elevation;
-						final ImageChipInfo chipInfo = timesWithImageChips.get(timeStamp);
-						int pixelRow = -1;
-						int pixelColumn = -1;
-						int frameNumber = -1;
-						byte[] imageBytes = new byte[] {};
-						if (chipInfo != null) {
-							pixelRow = chipInfo.getPixelRow();
-							pixelColumn = chipInfo.getPixelColumn();
-							frameNumber = chipInfo.getFrameNumber();
-							imageBytes = chipInfo.getImageBytes();
-						}
+						// the image chip is set when the track ends
+						final int pixelRow = -1;
+						final int pixelColumn = -1;
+						final int frameNumber = -1;
+						final byte[] imageBytes = new byte[] {};
 						final String motionEvent = "";
 
 						final TrackEventWritable tw = new TrackEventWritable(
@@ -205,10 +220,7 @@ public class IngestMessageHandler implements
 								motionEvent,
 								frameNumber);
 
-						intermediateData.add(new KeyValueData<Text, TrackEventWritable>(
-								new Text(
-										trackUuid),
-								tw));
+						track.events.add(tw);
 					}
 
 					for (final MotionEventPoint pt : evt.getMotionPoints().values()) {
@@ -230,17 +242,11 @@ public class IngestMessageHandler implements
 						final double latitude = pt.getLocation().latitude;
 						final double longitude = pt.getLocation().longitude;
 						final double elevation = pt.getLocation().elevation;
-						final ImageChipInfo chipInfo = timesWithImageChips.get(timeStamp);
-						int pixelRow = -1;
-						int pixelColumn = -1;
-						int frameNumber = -1;
-						byte[] imageBytes = new byte[] {};
-						if (chipInfo != null) {
-							pixelRow = chipInfo.getPixelRow();
-							pixelColumn = chipInfo.getPixelColumn();
-							frameNumber = chipInfo.getFrameNumber();
-							imageBytes = chipInfo.getImageBytes();
-						}
+						// the image chip is set when the track ends
+						final int pixelRow = -1;
+						final int pixelColumn = -1;
+						final int frameNumber = -1;
+						final byte[] imageBytes = new byte[] {};
 						final String motionEvent = pt.motionEvent;
 
 						final TrackEventWritable tw = new TrackEventWritable(
@@ -267,13 +273,46 @@ public class IngestMessageHandler implements
 								frameNumber);
 
 						// motion events emitted, grouped by track
-						intermediateData.add(new KeyValueData<Text, TrackEventWritable>(
-								new Text(
-										trackUuid),
-								tw));
+						track.events.add(tw);
 					}
+
+					// the last event of a track from a streaming decoder has
+					// no points
+					if (evt.getPoints().isEmpty()) {
+						openTracks.remove(trackUuid);
+						endTrack(
+								trackUuid,
+								track);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set the image chips of the track on its events and emit them
+	 */
+	private void endTrack(
+			final String trackUuid,
+			final OpenTrack track ) {
+		for (final TrackEventWritable event : track.events) {
+			final ImageChipInfo chipInfo = track.imageChips.get(event.TimeStamp.get());
+			if (chipInfo != null) {
+				final byte[] imageBytes = chipInfo.getImageBytes();
+				if (imageBytes != null) {
+					event.Image.set(
+							imageBytes,
+							0,
+							imageBytes.length);
 				}
+				event.PixelRow.set(chipInfo.getPixelRow());
+				event.PixelColumn.set(chipInfo.getPixelColumn());
+				event.FrameNumber.set(chipInfo.getFrameNumber());
 			}
+			intermediateData.add(new KeyValueData<Text, TrackEventWritable>(
+					new Text(
+							trackUuid),
+					event));
 		}
 	}
 
@@ -288,10 +327,19 @@ public class IngestMessageHandler implements
 				type);
 	}
 
+	/**
+	 * The end of the input, so the tracks that have not ended, such as those
+	 * read by a decoder that returns each track in one event, are emitted
+	 */
 	@Override
 	public void notify(
 			final TrackRun run ) {
-		// TODO Auto-generated method stub
+		for (final Entry<String, OpenTrack> entry : openTracks.entrySet()) {
+			endTrack(
+					entry.getKey(),
+					entry.getValue());
+		}
+		openTracks.clear();
 	}
 
 	@Override
@@ -301,4 +349,9 @@ public class IngestMessageHandler implements
 
 	}
 
+	private static class OpenTrack
+	{
+		private final List<TrackEventWritable> events = new ArrayList<TrackEventWritable>();
+		private final TreeMap<Long, ImageChipInfo> imageChips = new TreeMap<Long, ImageChipInfo>();
+	}
 }
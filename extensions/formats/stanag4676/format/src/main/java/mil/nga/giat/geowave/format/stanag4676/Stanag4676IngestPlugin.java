@@ -2,13 +2,13 @@ package mil.nga.giat.geowave.format.stanag4676;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
 import mil.nga.giat.geowave.core.geotime.GeometryUtils;
@@ -32,8 +32,10 @@ import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.NullIndex;
 import mil.nga.giat.geowave.format.stanag4676.image.ImageChip;
 import mil.nga.giat.geowave.format.stanag4676.image.ImageChipDataAdapter;
-import mil.nga.giat.geowave.format.stanag4676.parser.NATO4676Decoder;
-import mil.nga.giat.geowave.format.stanag4676.parser.TrackFileReader;
+import mil.nga.giat.geowave.format.stanag4676.parser.StreamingNATO4676Decoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.TrackDecoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackRun;
 import mil.nga.giat.geowave.format.stanag4676.parser.util.EarthVector;
 import mil.nga.giat.geowave.format.stanag4676.parser.util.Length;
 
@@ -46,6 +48,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.LineString;
 
@@ -189,15 +192,9 @@ public class Stanag4676IngestPlugin extends
 		@Override
 		public CloseableIterator<KeyValueData<Text, TrackEventWritable>> toIntermediateMapReduceData(
 				final WholeFile input ) {
-			final TrackFileReader fileReader = new TrackFileReader();
-			fileReader.setDecoder(new NATO4676Decoder());
-			fileReader.setStreaming(true);
-			final IngestMessageHandler handler = new IngestMessageHandler();
-			fileReader.setHandler(handler);
-			fileReader.read(new ByteBufferBackedInputStream(
-					input.getOriginalFile()));
-			return new CloseableIterator.Wrapper<KeyValueData<Text, TrackEventWritable>>(
-					handler.getIntermediateData().iterator());
+			return new IntermediateDataIterator(
+					new ByteBufferBackedInputStream(
+							input.getOriginalFile()));
 		}
 
 		@Override
@@ -451,41 +448,131 @@ public class Stanag4676IngestPlugin extends
 				final WholeFile input,
 				final ByteArrayId primaryIndexId,
 				final String globalVisibility ) {
-			try (CloseableIterator<KeyValueData<Text, TrackEventWritable>> intermediateData = toIntermediateMapReduceData(input)) {
-				// this is much better done in the reducer of a map reduce job,
-				// this aggregation by track UUID is not memory efficient
-				final Map<Text, List<TrackEventWritable>> trackUuidMap = new HashMap<Text, List<TrackEventWritable>>();
-				while (intermediateData.hasNext()) {
-					final KeyValueData<Text, TrackEventWritable> next = intermediateData.next();
-					List<TrackEventWritable> trackEvents = trackUuidMap.get(next.getKey());
-					if (trackEvents == null) {
-						trackEvents = new ArrayList<TrackEventWritable>();
-						trackUuidMap.put(
-								next.getKey(),
-								trackEvents);
-					}
-					trackEvents.add(next.getValue());
+			final CloseableIterator<KeyValueData<Text, TrackEventWritable>> intermediateData = toIntermediateMapReduceData(input);
+			// the events of each track are returned together when the track
+			// ends, so each track is aggregated as it is reached
+			final Iterator<CloseableIterator<GeoWaveData<Object>>> tracks = new Iterator<CloseableIterator<GeoWaveData<Object>>>() {
+				private final PeekingIterator<KeyValueData<Text, TrackEventWritable>> events = Iterators.peekingIterator(intermediateData);
+
+				@Override
+				public boolean hasNext() {
+					return events.hasNext();
 				}
-				final List<CloseableIterator<GeoWaveData<Object>>> iterators = new ArrayList<CloseableIterator<GeoWaveData<Object>>>();
-				for (final Entry<Text, List<TrackEventWritable>> entry : trackUuidMap.entrySet()) {
-					iterators.add(toGeoWaveData(
-							entry.getKey(),
+
+				@Override
+				public CloseableIterator<GeoWaveData<Object>> next() {
+					final Text trackUuid = events.peek().getKey();
+					final List<TrackEventWritable> trackEvents = new ArrayList<TrackEventWritable>();
+					while (events.hasNext() && events.peek().getKey().equals(
+							trackUuid)) {
+						trackEvents.add(events.next().getValue());
+					}
+					return toGeoWaveData(
+							trackUuid,
 							primaryIndexId,
 							globalVisibility,
-							entry.getValue()));
+							trackEvents);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+			final Iterator<GeoWaveData<Object>> geowaveData = Iterators.concat(tracks);
+			return new CloseableIterator<GeoWaveData<Object>>() {
+
+				@Override
+				public boolean hasNext() {
+					return geowaveData.hasNext();
+				}
+
+				@Override
+				public GeoWaveData<Object> next() {
+					return geowaveData.next();
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close()
+						throws IOException {
+					intermediateData.close();
+				}
+			};
+		}
+
+	}
+
+	/**
+	 * Decodes the next message of the file only when the events of the tracks
+	 * that have ended so far have all been taken, so the file is not decoded
+	 * up front
+	 */
+	private static class IntermediateDataIterator implements
+			CloseableIterator<KeyValueData<Text, TrackEventWritable>>
+	{
+		private final InputStream input;
+		private final TrackDecoder decoder = new StreamingNATO4676Decoder();
+		private final IngestMessageHandler handler = new IngestMessageHandler();
+		private boolean finished = false;
+
+		public IntermediateDataIterator(
+				final InputStream input ) {
+			this.input = input;
+			decoder.initialize();
+		}
+
+		private void findNext() {
+			while (handler.getIntermediateData().isEmpty() && !finished) {
+				final TrackMessage msg = decoder.readNext(input);
+				if (msg == null) {
+					finished = true;
+					// emits any track that was not ended
+					handler.notify(new TrackRun());
+				}
+				else {
+					try {
+						handler.notify(msg);
+					}
+					catch (final IOException | InterruptedException e) {
+						LOGGER.warn(
+								"Unable to process track message",
+								e);
+					}
 				}
-				return new CloseableIterator.Wrapper<GeoWaveData<Object>>(
-						Iterators.concat(iterators.iterator()));
 			}
-			catch (final IOException e) {
-				LOGGER.warn(
-						"Error closing file '" + input.getOriginalFilePath() + "'",
-						e);
+		}
+
+		@Override
+		public boolean hasNext() {
+			findNext();
+			return !handler.getIntermediateData().isEmpty();
+		}
+
+		@Override
+		public KeyValueData<Text, TrackEventWritable> next() {
+			findNext();
+			final KeyValueData<Text, TrackEventWritable> next = handler.getIntermediateData().poll();
+			if (next == null) {
+				throw new NoSuchElementException();
 			}
-			return new CloseableIterator.Wrapper<GeoWaveData<Object>>(
-					new ArrayList<GeoWaveData<Object>>().iterator());
+			return next;
 		}
 
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			input.close();
+		}
 	}
 
 	@Override
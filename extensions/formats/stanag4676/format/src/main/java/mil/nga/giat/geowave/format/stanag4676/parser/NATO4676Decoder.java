@@ -58,6 +58,9 @@ public class NATO4676Decoder implements
 	private int trackStatsNumTracks = 0;
 	private int trackStatsNumDots = 0;
 	private static Logger LOGGER = LoggerFactory.getLogger(NATO4676Decoder.class);
+	private static final Namespace XSI = Namespace.getNamespace(
+			"xsi",
+			"http://www.w3.org/2001/XMLSchema-instance");
 
 	boolean printNotParse = false;
 
@@ -93,7 +96,7 @@ public class NATO4676Decoder implements
 						rootEl,
 						xmlns);
 
-				LOGGER.info("TrackMessage read " + trackStatsNumTracks + " Tracks and " + trackStatsNumDots + " TrackPoints.");
+				LOGGER.info(getTrackStatsSummary());
 			}
 		}
 		catch (final IOException ioe) {
@@ -115,35 +118,47 @@ public class NATO4676Decoder implements
 		final List<Element> children = element.getChildren();
 		final Iterator<Element> childIter = children.iterator();
 		while (childIter.hasNext()) {
-			final Element child = childIter.next();
-			final String childName = child.getName();
-			final String childValue = child.getValue();
-			if ("stanagVersion".equals(childName)) {
-				msg.setFormatVersion(childValue);
-			}
-			else if ("messageSecurity".equals(childName)) {
-				msg.setSecurity(readSecurity(
-						child,
-						xmlns));
-			}
-			else if ("msgCreatedTime".equals(childName)) {
-				msg.setMessageTime(DateStringToLong(childValue));
-			}
-			else if ("senderId".equals(childName)) {
-				msg.setSenderID(readIDdata(
-						child,
-						xmlns));
-			}
-			else if ("tracks".equals(childName)) {
-				msg.addTrackEvent(readTrackEvent(
-						child,
-						xmlns));
-			}
-
+			readTrackMessageChild(
+					msg,
+					childIter.next(),
+					xmlns);
 		}
 		return msg;
 	}
 
+	protected void readTrackMessageChild(
+			final TrackMessage msg,
+			final Element child,
+			final Namespace xmlns ) {
+		final String childName = child.getName();
+		final String childValue = child.getValue();
+		if ("stanagVersion".equals(childName)) {
+			msg.setFormatVersion(childValue);
+		}
+		else if ("messageSecurity".equals(childName)) {
+			msg.setSecurity(readSecurity(
+					child,
+					xmlns));
+		}
+		else if ("msgCreatedTime".equals(childName)) {
+			msg.setMessageTime(DateStringToLong(childValue));
+		}
+		else if ("senderId".equals(childName)) {
+			msg.setSenderID(readIDdata(
+					child,
+					xmlns));
+		}
+		else if ("tracks".equals(childName)) {
+			msg.addTrackEvent(readTrackEvent(
+					child,
+					xmlns));
+		}
+	}
+
+	protected String getTrackStatsSummary() {
+		return "TrackMessage read " + trackStatsNumTracks + " Tracks and " + trackStatsNumDots + " TrackPoints.";
+	}
+
 	private Security readSecurity(
 			final Element element,
 			final Namespace xmlns ) {
@@ -205,112 +220,139 @@ public class NATO4676Decoder implements
 		final List<Element> children = element.getChildren();
 		final Iterator<Element> childIter = children.iterator();
 		while (childIter.hasNext()) {
-			final Element child = childIter.next();
-			final String childName = child.getName();
-			final String childValue = child.getValue();
-			if ("trackUUID".equals(childName)) {
-				trackEvent.setUuid(childValue);
+			readTrackEventChild(
+					trackEvent,
+					childIter.next(),
+					xmlns);
+		}
+		registerTrack(trackEvent);
+		return trackEvent;
+	}
+
+	/**
+	 * @return true if the "items" element of a track event is read as a
+	 *         track point
+	 */
+	protected static boolean isTrackPoint(
+			final Element item ) {
+		final Attribute xsitype = item.getAttribute(
+				"type",
+				XSI);
+		return (xsitype == null) || "TrackPoint".equals(xsitype.getValue());
+	}
+
+	protected void readTrackEventChild(
+			final TrackEvent trackEvent,
+			final Element child,
+			final Namespace xmlns ) {
+		final String childName = child.getName();
+		final String childValue = child.getValue();
+		if ("trackUUID".equals(childName)) {
+			trackEvent.setUuid(childValue);
+		}
+		else if ("trackNumber".equals(childName)) {
+			trackEvent.setTrackNumber(childValue);
+		}
+		else if ("trackStatus".equals(childName)) {
+			try {
+				trackEvent.setStatus(TrackStatus.valueOf(childValue));
 			}
-			else if ("trackNumber".equals(childName)) {
-				trackEvent.setTrackNumber(childValue);
+			catch (final IllegalArgumentException iae) {
+				trackEvent.setStatus(null);
 			}
-			else if ("trackStatus".equals(childName)) {
-				try {
-					trackEvent.setStatus(TrackStatus.valueOf(childValue));
-				}
-				catch (final IllegalArgumentException iae) {
-					trackEvent.setStatus(null);
-				}
+		}
+		else if ("trackSecurity".equals(childName)) {
+			trackEvent.setSecurity(readSecurity(
+					child,
+					xmlns));
+		}
+		else if ("trackComment".equals(childName)) {
+			trackEvent.setComment(childValue);
+		}
+		else if ("missionID".equals(childName)) {
+			trackEvent.setMissionId(childValue);
+		}
+		else if ("exerciseIndicator".equals(childName)) {
+			try {
+				trackEvent.setExerciseIndicator(ExerciseIndicator.valueOf(childValue));
 			}
-			else if ("trackSecurity".equals(childName)) {
-				trackEvent.setSecurity(readSecurity(
-						child,
-						xmlns));
+			catch (final IllegalArgumentException iae) {
+				trackEvent.setExerciseIndicator(null);
 			}
-			else if ("trackComment".equals(childName)) {
-				trackEvent.setComment(childValue);
+		}
+		else if ("simulationIndicator".equals(childName)) {
+			try {
+				trackEvent.setSimulationIndicator(SimulationIndicator.valueOf(childValue));
 			}
-			else if ("missionID".equals(childName)) {
-				trackEvent.setMissionId(childValue);
+			catch (final IllegalArgumentException iae) {
+				trackEvent.setSimulationIndicator(null);
 			}
-			else if ("exerciseIndicator".equals(childName)) {
-				try {
-					trackEvent.setExerciseIndicator(ExerciseIndicator.valueOf(childValue));
-				}
-				catch (final IllegalArgumentException iae) {
-					trackEvent.setExerciseIndicator(null);
+		}
+		else if ("items".equals(childName)) {
+			final Attribute xsitype = child.getAttribute(
+					"type",
+					XSI);
+			if (xsitype != null) {
+				if ("TrackPoint".equals(xsitype.getValue())) {
+					trackEvent.addPoint(readTrackPoint(
+							child,
+							xmlns));
+				}
+				else if ("TrackIdentityInformation".equals(xsitype.getValue())) {
+					trackEvent.addIdentity(readTrackIdentity(
+							child,
+							xmlns));
+				}
+				else if ("TrackClassificationInformation".equals(xsitype.getValue())) {
+					trackEvent.addClassification(readTrackClassification(
+							child,
+							xmlns));
+				}
+				else if ("TrackManagementInformation".equals(xsitype.getValue())) {
+					trackEvent.addManagement(readTrackManagement(
+							child,
+							xmlns));
+				}
+				else if ("VideoInformation".equals(xsitype.getValue())) {
+					trackEvent.addMotionImagery(readMotionImagery(
+							child,
+							xmlns));
+				}
+				else if ("ESMInformation".equals(xsitype.getValue())) {
+					// TODO: ESM not implemented yet.
+				}
+				else if ("TrackLineageInformation".equals(xsitype.getValue())) {
+					trackEvent.addTrackRelation(readLineageRelation(
+							child,
+							xmlns));
+				}
+				else if ("MotionEventInformation".equals(xsitype.getValue())) {
+					trackEvent.addMotionPoint(readMotionPoint(
+							child,
+							xmlns));
 				}
 			}
-			else if ("simulationIndicator".equals(childName)) {
+			else {
 				try {
-					trackEvent.setSimulationIndicator(SimulationIndicator.valueOf(childValue));
-				}
-				catch (final IllegalArgumentException iae) {
-					trackEvent.setSimulationIndicator(null);
-				}
-			}
-			else if ("items".equals(childName)) {
-				final Namespace xsi = Namespace.getNamespace(
-						"xsi",
-						"http://www.w3.org/2001/XMLSchema-instance");
-				final Attribute xsitype = child.getAttribute(
-						"type",
-						xsi);
-				if (xsitype != null) {
-					if ("TrackPoint".equals(xsitype.getValue())) {
-						trackEvent.addPoint(readTrackPoint(
-								child,
-								xmlns));
-					}
-					else if ("TrackIdentityInformation".equals(xsitype.getValue())) {
-						trackEvent.addIdentity(readTrackIdentity(
-								child,
-								xmlns));
-					}
-					else if ("TrackClassificationInformation".equals(xsitype.getValue())) {
-						trackEvent.addClassification(readTrackClassification(
-								child,
-								xmlns));
-					}
-					else if ("TrackManagementInformation".equals(xsitype.getValue())) {
-						trackEvent.addManagement(readTrackManagement(
-								child,
-								xmlns));
-					}
-					else if ("VideoInformation".equals(xsitype.getValue())) {
-						trackEvent.addMotionImagery(readMotionImagery(
-								child,
-								xmlns));
-					}
-					else if ("ESMInformation".equals(xsitype.getValue())) {
-						// TODO: ESM not implemented yet.
-					}
-					else if ("TrackLineageInformation".equals(xsitype.getValue())) {
-						trackEvent.addTrackRelation(readLineageRelation(
-								child,
-								xmlns));
-					}
-					else if ("MotionEventInformation".equals(xsitype.getValue())) {
-						trackEvent.addMotionPoint(readMotionPoint(
-								child,
-								xmlns));
+					final TrackPoint point = readTrackPoint(
+							child,
+							xmlns);
+					if (point != null) {
+						trackEvent.addPoint(point);
 					}
 				}
-				else {
-					try {
-						final TrackPoint point = readTrackPoint(
-								child,
-								xmlns);
-						if (point != null) {
-							trackEvent.addPoint(point);
-						}
-					}
-					catch (final Exception e) {
-						LOGGER.error("Could not identify track item");
-					}
+				catch (final Exception e) {
+					LOGGER.error("Could not identify track item");
 				}
 			}
 		}
+	}
+
+	/**
+	 * Record the track of an event that has been completely read
+	 */
+	protected void registerTrack(
+			final TrackEvent trackEvent ) {
 		Track track = trackMap.get(trackEvent.getTrackNumber());
 		if (track == null) {
 			track = new Track();
@@ -321,7 +363,6 @@ public class NATO4676Decoder implements
 					track);
 			trackStatsNumTracks++;
 		}
-		return trackEvent;
 	}
 
 	private TrackPoint readTrackPoint(
@@ -0,0 +1,295 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackEvent;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This decoder reads a STANAG 4676 document with a StAX stream reader rather
+ * than building the whole document. Each track point is returned by readNext()
+ * as soon as it is read, in a message with the message header and an event
+ * holding the fields of its track and only that point, so only one point is
+ * held in memory at a time regardless of the size of a track. The other items
+ * of a track, such as motion events and imagery, are returned together in one
+ * more event for the track, with no points, when the end of the track is
+ * reached. The elements are mapped to the track model exactly as they are by
+ * NATO4676Decoder.
+ */
+public class StreamingNATO4676Decoder extends
+		NATO4676Decoder
+{
+	private static Logger LOGGER = LoggerFactory.getLogger(StreamingNATO4676Decoder.class);
+	private static final XMLInputFactory XML_INPUT_FACTORY;
+	static {
+		XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+		XML_INPUT_FACTORY.setProperty(
+				XMLInputFactory.IS_NAMESPACE_AWARE,
+				Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(
+				XMLInputFactory.SUPPORT_DTD,
+				Boolean.FALSE);
+	}
+
+	private InputStream currentStream;
+	private XMLStreamReader reader;
+	private Namespace xmlns;
+	// the header elements of the document, copied to each message
+	private TrackMessage header;
+	// the fields and non-point items of the track being read, or null if the
+	// reader is not within a track
+	private TrackEvent currentTrack;
+
+	@Override
+	public void initialize() {
+		super.initialize();
+		close();
+		currentStream = null;
+	}
+
+	@Override
+	public TrackMessage readNext(
+			final InputStream is ) {
+		try {
+			if (is != currentStream) {
+				close();
+				open(is);
+			}
+			if (reader == null) {
+				return null;
+			}
+			while (true) {
+				if (currentTrack != null) {
+					final TrackEvent event = readTrackItem();
+					if (event != null) {
+						final TrackMessage msg = newMessage();
+						msg.addTrackEvent(event);
+						return msg;
+					}
+				}
+				else if (nextChild()) {
+					if ("tracks".equals(reader.getLocalName())) {
+						currentTrack = new TrackEvent();
+					}
+					else {
+						readTrackMessageChild(
+								header,
+								readElement(),
+								xmlns);
+					}
+				}
+				else {
+					break;
+				}
+			}
+			LOGGER.info(getTrackStatsSummary());
+		}
+		catch (final XMLStreamException e) {
+			LOGGER.error(
+					"Unable to read track message",
+					e);
+		}
+		close();
+		return null;
+	}
+
+	private void open(
+			final InputStream is )
+			throws XMLStreamException {
+		currentStream = is;
+		reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+		// advance to the root element
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+				xmlns = getNamespace(
+						reader.getPrefix(),
+						reader.getNamespaceURI());
+				header = new TrackMessage();
+				return;
+			}
+		}
+		close();
+	}
+
+	private void close() {
+		if (reader != null) {
+			try {
+				reader.close();
+			}
+			catch (final XMLStreamException e) {
+				LOGGER.warn(
+						"Unable to close XML stream reader",
+						e);
+			}
+		}
+		reader = null;
+		xmlns = null;
+		header = null;
+		currentTrack = null;
+		// the stream is retained so that it is not reopened after it has
+		// been fully read
+	}
+
+	private TrackMessage newMessage() {
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(UUID.randomUUID());
+		msg.setFormatVersion(header.getFormatVersion());
+		msg.setSecurity(header.getSecurity());
+		msg.setMessageTime(header.getMessageTime());
+		msg.setSenderID(header.getSenderID());
+		return msg;
+	}
+
+	/**
+	 * Reads the next child of the current track
+	 *
+	 * @return an event for the next track point, an event for the rest of the
+	 *         track if the end of the track was reached, or null if the child
+	 *         was not a track point
+	 */
+	private TrackEvent readTrackItem()
+			throws XMLStreamException {
+		if (!nextChild()) {
+			final TrackEvent trackEvent = currentTrack;
+			currentTrack = null;
+			registerTrack(trackEvent);
+			return trackEvent;
+		}
+		final boolean isItem = "items".equals(reader.getLocalName());
+		final Element child = readElement();
+		if (isItem && isTrackPoint(child)) {
+			// the fields of a track precede its items
+			final TrackEvent pointEvent = newTrackEvent(currentTrack);
+			readTrackEventChild(
+					pointEvent,
+					child,
+					xmlns);
+			if (!pointEvent.getPoints().isEmpty()) {
+				return pointEvent;
+			}
+			return null;
+		}
+		readTrackEventChild(
+				currentTrack,
+				child,
+				xmlns);
+		return null;
+	}
+
+	private static TrackEvent newTrackEvent(
+			final TrackEvent track ) {
+		final TrackEvent trackEvent = new TrackEvent();
+		trackEvent.setUuid(track.getUuid());
+		trackEvent.setTrackNumber(track.getTrackNumber());
+		trackEvent.setStatus(track.getStatus());
+		trackEvent.setSecurity(track.getSecurity());
+		trackEvent.setComment(track.getComment());
+		trackEvent.setMissionId(track.getMissionId());
+		trackEvent.setExerciseIndicator(track.getExerciseIndicator());
+		trackEvent.setSimulationIndicator(track.getSimulationIndicator());
+		return trackEvent;
+	}
+
+	/**
+	 * Advances to the start of the next child of the current element
+	 *
+	 * @return false if the end of the current element was reached
+	 */
+	private boolean nextChild()
+			throws XMLStreamException {
+		while (reader.hasNext()) {
+			final int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			}
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the element the reader is positioned at, including all of its
+	 * descendants, leaving the reader at the end of the element
+	 */
+	private Element readElement()
+			throws XMLStreamException {
+		final Element root = createElement();
+		final Deque<Element> parents = new ArrayDeque<Element>();
+		Element current = root;
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					final Element child = createElement();
+					current.addContent(child);
+					parents.push(current);
+					current = child;
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					current.addContent(reader.getText());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					if (parents.isEmpty()) {
+						return root;
+					}
+					current = parents.pop();
+					break;
+				default:
+					break;
+			}
+		}
+		return root;
+	}
+
+	private Element createElement() {
+		final Element element = new Element(
+				reader.getLocalName(),
+				getNamespace(
+						reader.getPrefix(),
+						reader.getNamespaceURI()));
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			final String prefix = reader.getAttributePrefix(i);
+			if ((prefix == null) || prefix.isEmpty()) {
+				element.setAttribute(
+						reader.getAttributeLocalName(i),
+						reader.getAttributeValue(i));
+			}
+			else {
+				element.setAttribute(
+						reader.getAttributeLocalName(i),
+						reader.getAttributeValue(i),
+						Namespace.getNamespace(
+								prefix,
+								reader.getAttributeNamespace(i)));
+			}
+		}
+		return element;
+	}
+
+	private static Namespace getNamespace(
+			final String prefix,
+			final String uri ) {
+		if ((uri == null) || uri.isEmpty()) {
+			return Namespace.NO_NAMESPACE;
+		}
+		return Namespace.getNamespace(
+				prefix == null ? "" : prefix,
+				uri);
+	}
+}
@@ -0,0 +1,231 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.GeodeticPosition;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.IDdata;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.Identity;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackEvent;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackIdentity;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackPoint;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackStatus;
+
+import org.junit.Test;
+
+public class StreamingNATO4676DecoderTest
+{
+	private static final int TRACK_COUNT = 3;
+	private static final int POINTS_PER_TRACK = 25;
+
+	@Test
+	public void testMatchesDocumentDecoder() {
+		final byte[] document = createDocument();
+
+		final NATO4676Decoder documentDecoder = new NATO4676Decoder();
+		documentDecoder.initialize();
+		final InputStream documentStream = new ByteArrayInputStream(
+				document);
+		final TrackMessage expected = documentDecoder.readNext(documentStream);
+		assertNotNull(expected);
+		assertEquals(
+				TRACK_COUNT,
+				expected.getTracks().size());
+
+		final StreamingNATO4676Decoder streamingDecoder = new StreamingNATO4676Decoder();
+		streamingDecoder.initialize();
+		final InputStream streamingStream = new ByteArrayInputStream(
+				document);
+		final List<TrackMessage> messages = new ArrayList<TrackMessage>();
+		TrackMessage msg;
+		while ((msg = streamingDecoder.readNext(streamingStream)) != null) {
+			messages.add(msg);
+		}
+		assertNull(streamingDecoder.readNext(streamingStream));
+		// one message per point and one for the rest of each track
+		assertEquals(
+				TRACK_COUNT * (POINTS_PER_TRACK + 1),
+				messages.size());
+
+		// merge the events of each track back together in the order they were
+		// returned
+		final Map<String, TrackEvent> actualTracks = new LinkedHashMap<String, TrackEvent>();
+		for (final TrackMessage message : messages) {
+			assertEquals(
+					expected.getFormatVersion(),
+					message.getFormatVersion());
+			assertEquals(
+					expected.getMessageTime(),
+					message.getMessageTime());
+			assertEquals(
+					expected.getSenderID().getStationId(),
+					message.getSenderID().getStationId());
+			assertEquals(
+					1,
+					message.getTracks().size());
+			final TrackEvent event = message.getTracks().get(
+					0);
+			// each point is returned as soon as it is read
+			assertTrue(event.getPoints().size() <= 1);
+			TrackEvent track = actualTracks.get(event.getUuid());
+			if (track == null) {
+				track = new TrackEvent();
+				actualTracks.put(
+						event.getUuid(),
+						track);
+			}
+			else {
+				// every event of a track carries the fields of the track
+				assertTrackFields(
+						track,
+						event);
+			}
+			track.setUuid(event.getUuid());
+			track.setTrackNumber(event.getTrackNumber());
+			track.setStatus(event.getStatus());
+			track.setComment(event.getComment());
+			track.setMissionId(event.getMissionId());
+			track.setExerciseIndicator(event.getExerciseIndicator());
+			track.setSimulationIndicator(event.getSimulationIndicator());
+			for (final TrackPoint point : event.getPoints().values()) {
+				track.addPoint(point);
+			}
+			for (final TrackIdentity identity : event.getIdentities()) {
+				track.addIdentity(identity);
+			}
+		}
+
+		assertEquals(
+				TRACK_COUNT,
+				actualTracks.size());
+		for (final TrackEvent expectedTrack : expected.getTracks()) {
+			final TrackEvent actualTrack = actualTracks.get(expectedTrack.getUuid());
+			assertNotNull(actualTrack);
+			assertTrackFields(
+					expectedTrack,
+					actualTrack);
+			assertEquals(
+					expectedTrack.getIdentities().size(),
+					actualTrack.getIdentities().size());
+			assertEquals(
+					expectedTrack.getPoints().keySet(),
+					actualTrack.getPoints().keySet());
+			for (final Long time : expectedTrack.getPoints().keySet()) {
+				assertPoint(
+						expectedTrack.getPoints().get(
+								time),
+						actualTrack.getPoints().get(
+								time));
+			}
+		}
+	}
+
+	private static void assertTrackFields(
+			final TrackEvent expected,
+			final TrackEvent actual ) {
+		assertEquals(
+				expected.getUuid(),
+				actual.getUuid());
+		assertEquals(
+				expected.getTrackNumber(),
+				actual.getTrackNumber());
+		assertEquals(
+				expected.getStatus(),
+				actual.getStatus());
+		assertEquals(
+				expected.getComment(),
+				actual.getComment());
+		assertEquals(
+				expected.getMissionId(),
+				actual.getMissionId());
+		assertEquals(
+				expected.getExerciseIndicator(),
+				actual.getExerciseIndicator());
+		assertEquals(
+				expected.getSimulationIndicator(),
+				actual.getSimulationIndicator());
+	}
+
+	private static void assertPoint(
+			final TrackPoint expected,
+			final TrackPoint actual ) {
+		assertEquals(
+				expected.getUuid(),
+				actual.getUuid());
+		assertEquals(
+				expected.getEventTime(),
+				actual.getEventTime());
+		assertEquals(
+				expected.getLocation().latitude,
+				actual.getLocation().latitude,
+				0);
+		assertEquals(
+				expected.getLocation().longitude,
+				actual.getLocation().longitude,
+				0);
+		assertEquals(
+				expected.getLocation().elevation,
+				actual.getLocation().elevation,
+				0);
+		assertEquals(
+				expected.getSpeed(),
+				actual.getSpeed(),
+				0);
+		assertEquals(
+				expected.getCourse(),
+				actual.getCourse(),
+				0);
+	}
+
+	private static byte[] createDocument() {
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(UUID.randomUUID());
+		msg.setMessageTime(1262304000000L);
+		final IDdata sender = new IDdata();
+		sender.setStationId("test");
+		sender.setNationality("US");
+		msg.setSenderID(sender);
+		final long startTime = 1262304000000L;
+		for (int t = 0; t < TRACK_COUNT; t++) {
+			final TrackEvent event = new TrackEvent();
+			event.setUuid(UUID.randomUUID().toString());
+			event.setTrackNumber(Integer.toString(t));
+			event.setStatus(TrackStatus.INITIATING);
+			event.setComment("track " + t);
+			event.setMissionId("mission");
+			for (int p = 0; p < POINTS_PER_TRACK; p++) {
+				final TrackPoint point = new TrackPoint();
+				point.setUuid(UUID.randomUUID().toString());
+				point.setEventTime(startTime + (p * 1000L));
+				point.setLocation(new GeodeticPosition(
+						t + (p * 0.001),
+						t - (p * 0.001),
+						100.0 + p));
+				point.setSpeed((double) p);
+				point.setCourse(90.0);
+				event.addPoint(point);
+			}
+			final TrackIdentity identity = new TrackIdentity();
+			identity.setIdentity(Identity.FRIEND);
+			event.addIdentity(identity);
+			msg.addTrackEvent(event);
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final NATO4676Encoder encoder = new NATO4676Encoder();
+		encoder.setOutputStream(out);
+		encoder.Encode(msg);
+		return out.toByteArray();
+	}
+}
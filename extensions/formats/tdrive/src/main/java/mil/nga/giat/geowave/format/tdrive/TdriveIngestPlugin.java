@@ -1,11 +1,9 @@
 package mil.nga.giat.geowave.format.tdrive;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -22,6 +20,7 @@ import mil.nga.giat.geowave.core.ingest.GeoWaveData;
 import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
 import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.IngestWithMapper;
 import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.IngestWithReducer;
+import mil.nga.giat.geowave.core.ingest.text.DelimitedTextReader;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.data.field.FieldVisibilityHandler;
@@ -112,37 +111,32 @@ public class TdriveIngestPlugin extends
 	@Override
 	public TdrivePoint[] toAvroObjects(
 			final File input ) {
-		BufferedReader fr = null;
-		BufferedReader br = null;
+		DelimitedTextReader reader = null;
 		long pointInstance = 0l;
 		final List<TdrivePoint> pts = new ArrayList<TdrivePoint>();
 		try {
-			fr = new BufferedReader(
-					new InputStreamReader(
-							new FileInputStream(
-									input),
-							StringUtils.UTF8_CHAR_SET));
-			br = new BufferedReader(
-					fr);
-			String line;
+			reader = new DelimitedTextReader(
+					new FileInputStream(
+							input),
+					',');
 			try {
-				while ((line = br.readLine()) != null) {
-
-					final String[] vals = line.split(",");
+				while (reader.nextLine()) {
+					if (reader.getFieldCount() < 4) {
+						continue;
+					}
 					final TdrivePoint td = new TdrivePoint();
-					td.setTaxiid(Integer.parseInt(vals[0]));
+					td.setTaxiid(reader.getInt(0));
 					try {
-						td.setTimestamp(TdriveUtils.parseDate(
-								vals[1]).getTime());
+						td.setTimestamp(reader.getTimestamp(1));
 					}
 					catch (final ParseException e) {
 						td.setTimestamp(0l);
 						LOGGER.warn(
-								"Couldn't parse time format: " + vals[1],
+								"Couldn't parse time format: " + reader.getString(1),
 								e);
 					}
-					td.setLongitude(Double.parseDouble(vals[2]));
-					td.setLatitude(Double.parseDouble(vals[3]));
+					td.setLongitude(reader.getDouble(2));
+					td.setLatitude(reader.getDouble(3));
 					td.setPointinstance(pointInstance);
 					pts.add(td);
 					pointInstance++;
@@ -160,8 +154,7 @@ public class TdriveIngestPlugin extends
 					e);
 		}
 		finally {
-			IOUtils.closeQuietly(br);
-			IOUtils.closeQuietly(fr);
+			IOUtils.closeQuietly(reader);
 		}
 		return pts.toArray(new TdrivePoint[pts.size()]);
 	}
@@ -1,9 +1,6 @@
 package mil.nga.giat.geowave.format.tdrive;
 
 import java.io.File;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Scanner;
 
@@ -25,21 +22,6 @@ public class TdriveUtils
 {
 	public static final String TDRIVE_POINT_FEATURE = "tdrivepoint";
 
-	private static final ThreadLocal<DateFormat> dateFormat = new ThreadLocal<DateFormat>() {
-		@Override
-		protected DateFormat initialValue() {
-			return new SimpleDateFormat(
-					"yyyy-MM-dd HH:mm:ss");
-		}
-	};
-
-	public static Date parseDate(
-			String source )
-			throws ParseException {
-		return dateFormat.get().parse(
-				source);
-	}
-
 	public static SimpleFeatureType createTdrivePointDataType() {
 
 		final SimpleFeatureTypeBuilder simpleFeatureTypeBuilder = new SimpleFeatureTypeBuilder();
@@ -50,9 +50,19 @@ abstract public class KafkaTestEnvironment<I> extends
 	protected void testKafkaIngest(
 			final IndexType indexType,
 			final String ingestFilePath ) {
+		testKafkaIngest(
+				indexType,
+				ingestFilePath,
+				"");
+	}
+
+	protected void testKafkaIngest(
+			final IndexType indexType,
+			final String ingestFilePath,
+			final String additionalArgs ) {
 		LOGGER.warn("Ingesting '" + ingestFilePath + "' - this may take several minutes...");
 		final String[] args = StringUtils.split(
-				"-kafkaingest -f gpx -consumerTimeoutMs 5000 -reconnectOnTimeout -groupId testGroup -autoOffsetReset smallest -fetchMessageMaxBytes " + MAX_MESSAGE_BYTES + " -zookeeperConnect " + zookeeper + " -z " + zookeeper + " -i " + accumuloInstance + " -u " + accumuloUser + " -p " + accumuloPassword + " -n " + TEST_NAMESPACE + " -dim " + (indexType.equals(IndexType.SPATIAL_VECTOR) ? "spatial" : "spatial-temporal"),
+				"-kafkaingest -f gpx -consumerTimeoutMs 5000 -reconnectOnTimeout -groupId testGroup -autoOffsetReset smallest -fetchMessageMaxBytes " + MAX_MESSAGE_BYTES + " -zookeeperConnect " + zookeeper + " -z " + zookeeper + " -i " + accumuloInstance + " -u " + accumuloUser + " -p " + accumuloPassword + " -n " + TEST_NAMESPACE + " -dim " + (indexType.equals(IndexType.SPATIAL_VECTOR) ? "spatial" : "spatial-temporal") + " " + additionalArgs,
 				' ');
 		GeoWaveMain.main(args);
 	}
@@ -93,9 +103,10 @@ abstract public class KafkaTestEnvironment<I> extends
 		props.put(
 				"replica.fetch.max.bytes",
 				MAX_MESSAGE_BYTES);
+		// more than one partition so that several consumers can share a topic
 		props.put(
 				"num.partitions",
-				"1");
+				"4");
 		return new KafkaConfig(
 				props);
 	}
@@ -0,0 +1,22 @@
+package mil.nga.giat.geowave.test.kafka;
+
+import mil.nga.giat.geowave.core.geotime.IndexType;
+
+/**
+ * Runs the same ingest and verification as BasicKafkaIT with several
+ * consumers sharing the topic's partitions and offsets committed only after
+ * each flush
+ */
+public class ParallelKafkaIT extends
+		BasicKafkaIT
+{
+	@Override
+	protected void testKafkaIngest(
+			final IndexType indexType,
+			final String ingestFilePath ) {
+		testKafkaIngest(
+				indexType,
+				ingestFilePath,
+				"-consumerThreads 4 -commitOnFlush");
+	}
+}